@@ -0,0 +1,26 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/***********************************************************************
+ * Runs the benchmarks with the GC profiler attached, so every result
+ * comes with the bytes allocated per operation next to its time. Any
+ * JMH command line options, like a benchmark name to run just that
+ * one, are passed through.
+ **********************************************************************/
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions parent = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(parent);
+        if (parent.getIncludes().isEmpty())
+            builder.include("benchmark\\..*");
+        Options options = builder.addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
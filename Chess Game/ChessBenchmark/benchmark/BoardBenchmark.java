@@ -0,0 +1,52 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.objects.Move;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Latency of the small Board and Move operations that the check
+ * detection and the undo stack repeat many times per move, and of
+ * setting up and writing down a position as FEN.
+ **********************************************************************/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Benchmark
+    public int[] findKing(GameState state) {
+        return state.game.getBoard().findKing(state.toMove);
+    }
+
+    @Benchmark
+    public int getKingSquare(GameState state) {
+        return state.game.getBoard().getKingSquare(state.toMove);
+    }
+
+    @Benchmark
+    public Move cloneMove(GameState state) {
+        return state.firstMove.clone();
+    }
+
+    @Benchmark
+    public PColor setFen(GameState state) {
+        return state.game.setFen(state.position);
+    }
+
+    @Benchmark
+    public String getFen(GameState state) {
+        return state.game.getFen(state.toMove);
+    }
+}
@@ -0,0 +1,66 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.objects.Move;
+import chess.objects.MoveGenerator;
+
+/***********************************************************************
+ * Latency of the Chess methods the AI and the GUI call on every move:
+ * listing the legal moves, checking for the end of the game, checking
+ * whether a move leaves the King in check and evaluating a leaf.
+ **********************************************************************/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessBenchmark {
+
+    @Benchmark
+    public List<Move> generateMoves(GameState state) {
+        return state.game.generateMoves(state.toMove);
+    }
+
+    @Benchmark
+    public int generateEncodedMoves(GameState state, MoveBuffer buffer) {
+        return state.game.generateMoves(state.toMove, buffer.moves);
+    }
+
+    @Benchmark
+    public int isGameOver(GameState state) {
+        return state.game.isGameOver();
+    }
+
+    @Benchmark
+    public int evaluate(GameState state) {
+        return state.game.evaluate(state.toMove);
+    }
+
+    @Benchmark
+    public boolean isFutureCheck(GameState state) {
+        Move move = state.firstMove;
+        return state.game.isFutureCheck(move.getR1(), move.getC1(),
+                move.getR2(), move.getC2(),
+                state.game.getPieceAt(move.getR1(), move.getC1()));
+    }
+
+    /*******************************************************************
+     * Array the encoded moves are written to, reused between calls
+     ******************************************************************/
+    @State(Scope.Thread)
+    public static class MoveBuffer {
+        public int[] moves = new int[MoveGenerator.MAX_MOVES];
+    }
+}
@@ -0,0 +1,48 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import chess.main.Chess;
+import chess.objects.Move;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * A game set up in one of a few typical positions, shared by the
+ * benchmarks so every operation is measured on the same boards. Each
+ * benchmark thread gets its own game, like the games we run side by
+ * side.
+ **********************************************************************/
+@State(Scope.Thread)
+public class GameState {
+
+    /** The opening position */
+    public static final String OPENING =
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    /** A busy middlegame with castling, pins and en passant around */
+    public static final String MIDDLEGAME =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+    /** A Rook and Pawn endgame with few pieces left */
+    public static final String ENDGAME =
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -";
+
+    @Param({ OPENING, MIDDLEGAME, ENDGAME })
+    public String position;
+
+    /** Is the game in the position */
+    public Chess game;
+    /** Is the PColor to move */
+    public PColor toMove;
+    /** Is the first legal move of the PColor to move */
+    public Move firstMove;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = new Chess();
+        toMove = game.setFen(position);
+        firstMove = game.generateMoves(toMove).get(0);
+    }
+}
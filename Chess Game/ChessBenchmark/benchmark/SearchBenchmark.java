@@ -0,0 +1,35 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/***********************************************************************
+ * Time the AI needs to search a position to a fixed depth. The depth
+ * is kept small since every extra ply multiplies the time.
+ **********************************************************************/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({ "1", "2" })
+    public int depth;
+
+    @Benchmark
+    public int negaMax(GameState state) {
+        return state.game.negaMax(depth, state.toMove);
+    }
+}
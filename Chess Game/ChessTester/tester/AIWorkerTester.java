@@ -0,0 +1,143 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import chess.ai.OpeningBook;
+import chess.ai.PolyglotKey;
+import chess.controller.AIWorker;
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.EncodedMove;
+import chess.objects.Move;
+import chess.objects.PColor;
+
+public class AIWorkerTester {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    Chess game = new Chess();
+    AIWorker worker = new AIWorker();
+    
+    @After
+    public void shutdown() {
+        worker.shutdown();
+    }
+    
+    @Test
+    public void movePublishedOnEventThread() throws Exception {
+        game.setFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        long key = game.getBoard().getZobristKey(PColor.White);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Move> found = new AtomicReference<Move>();
+        AtomicBoolean onEventThread = new AtomicBoolean();
+        SwingUtilities.invokeAndWait(() -> worker.start(game,
+                PColor.White, 200, move -> {
+                    found.set(move);
+                    onEventThread.set(SwingUtilities.isEventDispatchThread());
+                    done.countDown();
+                }));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(onEventThread.get());
+        assertEquals(3, found.get().getR2());
+        assertEquals(3, found.get().getC2());
+        assertFalse(worker.isSearching());
+        // The search ran on a copy, the game itself never moved
+        assertEquals(key, game.getBoard().getZobristKey(PColor.White));
+    }
+    
+    @Test
+    public void cancelledSearchNeverReports() throws Exception {
+        AtomicBoolean reported = new AtomicBoolean();
+        SwingUtilities.invokeAndWait(() -> {
+            worker.start(game, PColor.White, 60000,
+                    move -> reported.set(true));
+            assertTrue(worker.isSearching());
+            assertTrue(worker.cancel());
+            assertFalse(worker.isSearching());
+        });
+        
+        // The next search only runs once the cancelled one has stopped
+        CountDownLatch done = new CountDownLatch(1);
+        SwingUtilities.invokeAndWait(() -> worker.start(game,
+                PColor.White, 50, move -> done.countDown()));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(reported.get());
+    }
+    
+    @Test
+    public void startReplacesRunningSearch() throws Exception {
+        AtomicBoolean firstReported = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        SwingUtilities.invokeAndWait(() -> {
+            worker.start(game, PColor.White, 60000,
+                    move -> firstReported.set(true));
+            worker.start(game, PColor.White, 50, move -> done.countDown());
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(firstReported.get());
+    }
+    
+    /** Gives the game a book that answers the start position with e2e4 */
+    private void useBook() throws Exception {
+        Path file = folder.newFile().toPath();
+        OpeningBook.write(file, new long[] { new PolyglotKey().key(
+                game.getBoard(), PColor.White) }, new int[] {
+                        EncodedMove.encode(BitBoard.square(6, 4),
+                                BitBoard.square(4, 4),
+                                EncodedMove.DOUBLE_PUSH) },
+                new int[] { 1 });
+        game.setOpeningBook(new OpeningBook(file));
+    }
+    
+    @Test
+    public void bookMoveCountsAsSearching() throws Exception {
+        useBook();
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Move> found = new AtomicReference<Move>();
+        SwingUtilities.invokeAndWait(() -> {
+            worker.start(game, PColor.White, 60000, move -> {
+                found.set(move);
+                done.countDown();
+            });
+            // the move is on its way, the board is still the AI's
+            assertTrue(worker.isSearching());
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(4, found.get().getR2());
+        SwingUtilities.invokeAndWait(() -> assertFalse(
+                worker.isSearching()));
+        game.getOpeningBook().close();
+    }
+    
+    @Test
+    public void cancelledBookMoveNeverReports() throws Exception {
+        useBook();
+        AtomicBoolean reported = new AtomicBoolean();
+        SwingUtilities.invokeAndWait(() -> {
+            worker.start(game, PColor.White, 60000,
+                    move -> reported.set(true));
+            assertTrue(worker.cancel());
+            assertFalse(worker.isSearching());
+        });
+        // runs after the book move would have been reported
+        SwingUtilities.invokeAndWait(() -> { });
+        assertFalse(reported.get());
+        game.getOpeningBook().close();
+    }
+}
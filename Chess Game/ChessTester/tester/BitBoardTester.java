@@ -0,0 +1,198 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import chess.ai.MaterialEvaluator;
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.MoveGenerator;
+import chess.objects.BitBoard;
+import chess.objects.PColor;
+import chess.objects.Piece;
+import chess.objects.PieceSquareTables;
+import chess.objects.Queen;
+
+public class BitBoardTester {
+    
+    Chess game = new Chess();
+    
+    @Test
+    public void initialOccupancy() {
+        game = new Chess();
+        BitBoard bits = game.getBoard().getBitBoard();
+        assertEquals(32, Long.bitCount(bits.getOccupied()));
+        assertEquals(16, Long.bitCount(bits.getOccupancy(PColor.White)));
+        assertEquals(0xFFFFL, bits.getOccupancy(PColor.Black));
+    }
+    
+    @Test
+    public void initialPieceSets() {
+        game = new Chess();
+        BitBoard bits = game.getBoard().getBitBoard();
+        assertEquals(0xFF00L, bits.getPieces(PColor.Black, BitBoard.PAWN));
+        assertEquals(1L << BitBoard.square(7, 4),
+                bits.getPieces(PColor.White, BitBoard.KING));
+        assertEquals(BitBoard.QUEEN, bits.getType(BitBoard.square(0, 3)));
+    }
+    
+    @Test
+    public void setPieceUpdatesBits() {
+        game = new Chess();
+        BitBoard bits = game.getBoard().getBitBoard();
+        game.setPieceAt(4, 4, new Queen(PColor.White));
+        assertFalse(game.getBoard().isEmpty(4, 4));
+        assertTrue((bits.getPieces(PColor.White, BitBoard.QUEEN)
+                & (1L << BitBoard.square(4, 4))) != 0);
+        game.setPieceAt(4, 4, null);
+        assertTrue(game.getBoard().isEmpty(4, 4));
+        assertEquals(32, Long.bitCount(bits.getOccupied()));
+    }
+    
+    @Test
+    public void replacingPieceClearsOldSet() {
+        game = new Chess();
+        BitBoard bits = game.getBoard().getBitBoard();
+        game.setPieceAt(1, 0, new Queen(PColor.White));
+        assertEquals(0xFE00L, bits.getPieces(PColor.Black, BitBoard.PAWN));
+        assertTrue((bits.getOccupancy(PColor.White)
+                & (1L << BitBoard.square(1, 0))) != 0);
+    }
+    
+    @Test
+    public void movePieceToUpdatesBits() {
+        game = new Chess();
+        BitBoard bits = game.getBoard().getBitBoard();
+        game.movePieceTo(6, 4, 4, 4, game.getPieceAt(6, 4));
+        assertTrue(game.getBoard().isEmpty(6, 4));
+        assertEquals(BitBoard.PAWN, bits.getType(BitBoard.square(4, 4)));
+        game.unMakeMove();
+        assertTrue(game.getBoard().isEmpty(4, 4));
+        assertEquals(BitBoard.PAWN, bits.getType(BitBoard.square(6, 4)));
+    }
+    
+    @Test
+    public void plainPieceIsOccupiedWithoutType() {
+        game = new Chess();
+        game.setPieceAt(4, 4, new Piece(PColor.Black));
+        assertFalse(game.getBoard().isEmpty(4, 4));
+        assertEquals(-1, game.getBoard().getBitBoard()
+                .getType(BitBoard.square(4, 4)));
+    }
+    
+    @Test
+    public void resetClearsBits() {
+        game = new Chess();
+        game.getBoard().reset();
+        assertEquals(0L, game.getBoard().getBitBoard().getOccupied());
+    }
+    
+    @Test
+    public void passantMirrored() {
+        game = new Chess();
+        game.getBoard().getCellAt(5, 3).setPassant(true);
+        assertEquals(1L << BitBoard.square(5, 3),
+                game.getBoard().getBitBoard().getPassant());
+        game.getBoard().resetPassant();
+        assertEquals(0L, game.getBoard().getBitBoard().getPassant());
+        assertFalse(game.getBoard().getCellAt(5, 3).isPassant());
+    }
+    
+    @Test
+    public void copySharesNothing() {
+        game = new Chess();
+        BitBoard bits = game.getBoard().getBitBoard();
+        BitBoard copy = new BitBoard(bits);
+        game.setPieceAt(4, 4, new Queen(PColor.White));
+        assertTrue(copy.isEmpty(BitBoard.square(4, 4)));
+        assertEquals(32, Long.bitCount(copy.getOccupied()));
+        assertFalse(copy.getKey() == bits.getKey());
+    }
+    
+    /** Adds up the score of a color the slow way */
+    private int recount(PColor color) {
+        int score = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = game.getPieceAt(row, col);
+                if (piece != null && piece.getColor() == color)
+                    score += piece.getScore()
+                            + BitBoard.getPositionWeight(
+                                    BitBoard.square(row, col));
+            }
+        }
+        return score;
+    }
+    
+    @Test
+    public void scoreFollowsMoves() {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        game.setEvaluator(new MaterialEvaluator());
+        for (int i = 0; i < Perft.referencePositions(); i++) {
+            PColor toMove = game.setFen(Perft.referencePosition(i));
+            BitBoard bits = game.getBoard().getBitBoard();
+            int count = game.generateMoves(toMove, moves);
+            for (int j = 0; j < count; j++) {
+                game.doMove(moves[j]);
+                assertEquals(recount(PColor.White),
+                        bits.getScore(PColor.White));
+                assertEquals(recount(PColor.Black),
+                        bits.getScore(PColor.Black));
+                game.undoMove();
+            }
+            assertEquals(recount(toMove), bits.getScore(toMove));
+            assertEquals(recount(PColor.White) - recount(PColor.Black),
+                    game.evaluate(PColor.White));
+        }
+    }
+    
+    @Test
+    public void tablesFollowMoves() {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < Perft.referencePositions(); i++) {
+            PColor toMove = game.setFen(Perft.referencePosition(i));
+            BitBoard bits = game.getBoard().getBitBoard();
+            int count = game.generateMoves(toMove, moves);
+            for (int j = 0; j < count; j++) {
+                game.doMove(moves[j]);
+                assertTables(bits);
+                game.undoMove();
+            }
+            assertTables(bits);
+        }
+    }
+    
+    @Test
+    public void phaseOfStartingPosition() {
+        game = new Chess();
+        assertEquals(PieceSquareTables.MAX_PHASE,
+                game.getBoard().getBitBoard().getPhase());
+    }
+    
+    private void assertTables(BitBoard bits) {
+        int[] midgame = new int[2], endgame = new int[2];
+        int phase = 0;
+        for (int square = 0; square < 64; square++) {
+            int type = bits.getType(square);
+            if (type < 0)
+                continue;
+            int color = (bits.getOccupancy(PColor.White)
+                    & 1L << square) != 0 ? PColor.White.ordinal()
+                            : PColor.Black.ordinal();
+            int index = color * BitBoard.TYPES + type;
+            midgame[color] += PieceSquareTables.midgame(index, square);
+            endgame[color] += PieceSquareTables.endgame(index, square);
+            phase += PieceSquareTables.phase(type);
+        }
+        for (PColor color : PColor.values()) {
+            assertEquals(midgame[color.ordinal()],
+                    bits.getMidgameScore(color));
+            assertEquals(endgame[color.ordinal()],
+                    bits.getEndgameScore(color));
+        }
+        assertEquals(phase, bits.getPhase());
+    }
+}
@@ -3,12 +3,14 @@
  */
 package tester;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
 import chess.main.Chess;
 import chess.objects.Board;
+import chess.objects.BitBoard;
 import chess.objects.King;
 import chess.objects.PColor;
 import chess.objects.Pawn;
@@ -56,4 +58,29 @@ public class BoardTester {
         int[] coords = { -1, -1 };
         equals(coords == kCoords);
     }
+    
+    @Test
+    public void kingSquareFollowsMoves() {
+        game = new Chess();
+        assertEquals(BitBoard.square(7, 4),
+                game.getBoard().getKingSquare(PColor.White));
+        assertEquals(BitBoard.square(0, 4),
+                game.getBoard().getKingSquare(PColor.Black));
+        game.movePieceTo(7, 4, 5, 4, game.getPieceAt(7, 4));
+        assertEquals(BitBoard.square(5, 4),
+                game.getBoard().getKingSquare(PColor.White));
+        game.unMakeMove();
+        assertEquals(BitBoard.square(7, 4),
+                game.getBoard().getKingSquare(PColor.White));
+        int[] coords = game.getBoard().findKing(PColor.White);
+        assertEquals(7, coords[0]);
+        assertEquals(4, coords[1]);
+    }
+    
+    @Test
+    public void kingSquareWithoutKing() {
+        game = new Chess();
+        game.setPieceAt(0, 4, null);
+        assertEquals(-1, game.getBoard().getKingSquare(PColor.Black));
+    }
 }
@@ -2,13 +2,16 @@ package tester;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 
+import chess.ai.MaterialEvaluator;
 import chess.main.Chess;
 import chess.objects.Bishop;
 import chess.objects.Board;
@@ -121,4 +124,26 @@ public class ChessTester {
         assertEquals(3,temp1.getC2());
         
     }
+    
+    @Test
+    public void searchSettingsCarryOver() {
+        Chess program = new Chess();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        program.setSearchThreads(3);
+        program.setSearchPool(pool);
+        program.setHashSize(1);
+        program.setEvaluator(new MaterialEvaluator());
+        game = new Chess();
+        game.copySearchSettings(program);
+        assertEquals(3, game.getSearchThreads());
+        assertSame(pool, game.getSearchPool());
+        assertSame(program.getEvaluator(), game.getEvaluator());
+        // the table is made at the same size and then shared
+        assertEquals(program.getTranspositionTable().size(),
+                game.getTranspositionTable().size());
+        game.copySearchSettings(program);
+        assertSame(program.getTranspositionTable(),
+                game.getTranspositionTable());
+        pool.shutdown();
+    }
 }
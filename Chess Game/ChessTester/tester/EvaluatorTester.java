@@ -0,0 +1,115 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import chess.ai.Evaluator;
+import chess.ai.MaterialEvaluator;
+import chess.ai.TaperedEvaluator;
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.PColor;
+
+public class EvaluatorTester {
+    
+    Chess game = new Chess();
+    
+    /** Flips a FEN top to bottom and swaps the colors */
+    private static String mirror(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows = fields[0].split("/");
+        StringBuilder placement = new StringBuilder();
+        for (int row = rows.length - 1; row >= 0; row--) {
+            placement.append(swapCase(rows[row]));
+            if (row > 0)
+                placement.append('/');
+        }
+        String side = fields.length > 1 && fields[1].equals("b") ? "w"
+                : "b";
+        String castling = fields.length > 2 ? swapCase(fields[2]) : "-";
+        return placement + " " + side + " " + castling + " -";
+    }
+    
+    private static String swapCase(String text) {
+        StringBuilder swapped = new StringBuilder();
+        for (char letter : text.toCharArray()) {
+            swapped.append(Character.isUpperCase(letter)
+                    ? Character.toLowerCase(letter)
+                    : Character.toUpperCase(letter));
+        }
+        return swapped.toString();
+    }
+    
+    @Test
+    public void taperedIsTheDefault() {
+        assertTrue(game.getEvaluator() instanceof TaperedEvaluator);
+    }
+    
+    @Test
+    public void startingPositionIsEven() {
+        assertEquals(0, game.evaluate(PColor.White));
+        assertEquals(0, game.evaluate(PColor.Black));
+    }
+    
+    @Test
+    public void scoreIsNegatedForTheOtherColor() {
+        for (int i = 0; i < Perft.referencePositions(); i++) {
+            game.setFen(Perft.referencePosition(i));
+            assertEquals(-game.evaluate(PColor.White),
+                    game.evaluate(PColor.Black));
+        }
+    }
+    
+    @Test
+    public void mirroredPositionScoresTheSame() {
+        Chess mirrored = new Chess();
+        for (int i = 0; i < Perft.referencePositions(); i++) {
+            String fen = Perft.referencePosition(i);
+            PColor toMove = game.setFen(fen);
+            PColor other = mirrored.setFen(mirror(fen));
+            assertEquals(fen, game.evaluate(toMove),
+                    mirrored.evaluate(other));
+        }
+    }
+    
+    @Test
+    public void centralKnightIsBetter() {
+        game.setFen("4k3/8/8/8/3N4/8/8/4K3 w - -");
+        int center = game.evaluate(PColor.White);
+        game.setFen("4k3/8/8/8/8/8/8/N3K3 w - -");
+        assertTrue(center > game.evaluate(PColor.White));
+    }
+    
+    @Test
+    public void kingCentralizesInTheEndgame() {
+        game.setFen("4k3/pppp4/8/8/3K4/8/PPPP4/8 w - -");
+        int central = game.evaluate(PColor.White);
+        game.setFen("4k3/pppp4/8/8/8/8/PPPP4/6K1 w - -");
+        assertTrue(central > game.evaluate(PColor.White));
+    }
+    
+    @Test
+    public void kingHidesInTheMiddlegame() {
+        String pieces = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQ1RN";
+        game.setFen(pieces + "K w - -");
+        int castled = game.evaluate(PColor.White);
+        game.setFen("rnbqkbnr/pppppppp/8/8/3K4/8/PPPPPPPP/"
+                + "RNBQ1RN1 w - -");
+        assertTrue(castled > game.evaluate(PColor.White));
+    }
+    
+    @Test
+    public void evaluatorCanBeSwapped() {
+        game.setFen("4k3/8/8/8/3N4/8/8/4K3 w - -");
+        Evaluator material = new MaterialEvaluator();
+        game.setEvaluator(material);
+        assertSame(material, game.getEvaluator());
+        assertSame(material, game.snapshot().getEvaluator());
+        assertEquals(30 + 4, game.evaluate(PColor.White));
+        game.setEvaluator(null);
+        assertTrue(game.getEvaluator() instanceof TaperedEvaluator);
+    }
+}
@@ -0,0 +1,151 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.Fen;
+import chess.objects.PColor;
+import chess.objects.Pawn;
+
+public class FenTester {
+    
+    Chess game = new Chess();
+    
+    @Test
+    public void startingPosition() {
+        assertEquals(Fen.START, game.getFen(PColor.White));
+        Chess set = new Chess();
+        assertEquals(PColor.White, set.setFen(Fen.START));
+        assertEquals(game.getPosition(PColor.White),
+                set.getPosition(PColor.White));
+    }
+    
+    @Test
+    public void referencePositionsRoundTrip() {
+        String[] expected = {
+                Fen.START,
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R"
+                        + " w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1"
+                        + " w kq - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP"
+                        + "/R4RK1 w - - 0 10" };
+        assertEquals(expected.length, Perft.referencePositions());
+        for (int i = 0; i < expected.length; i++) {
+            PColor toMove = game.setFen(Perft.referencePosition(i));
+            assertEquals(expected[i], game.getFen(toMove));
+        }
+    }
+    
+    @Test
+    public void movesUpdateTheFen() {
+        Moves.play(game, PColor.White, "e2e4");
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR"
+                + " b KQkq e3 0 1", game.getFen(PColor.Black));
+        Moves.play(game, PColor.Black, "g8f6");
+        assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPP1PPP/RNBQKBNR"
+                + " w KQkq - 1 2", game.getFen(PColor.White));
+        Moves.play(game, PColor.White, "g1f3");
+        Moves.play(game, PColor.Black, "h8g8");
+        // the Rook moved, so the castle is gone for good
+        assertEquals("rnbqkbr1/pppppppp/5n2/8/4P3/5N2/PPPP1PPP/RNBQKB1R"
+                + " w KQq - 3 3", game.getFen(PColor.White));
+        Moves.play(game, PColor.White, "f3e5");
+        Moves.play(game, PColor.Black, "g8h8");
+        assertTrue(game.getFen(PColor.White).contains(" w KQq - 5 4"));
+        Moves.play(game, PColor.White, "e5d7");
+        Moves.play(game, PColor.Black, "f6e4");
+        Moves.play(game, PColor.White, "d7f8");
+        assertTrue(game.getFen(PColor.Black).endsWith(" 0 5"));
+    }
+    
+    @Test
+    public void countersGoOnFromTheFen() {
+        PColor toMove = game.setFen("4k3/8/8/8/8/8/8/4K2R b K - 12 40");
+        assertEquals(PColor.Black, toMove);
+        assertEquals(0, game.getMoves().size());
+        Moves.play(game, PColor.Black, "e8d7");
+        assertEquals("8/3k4/8/8/8/8/8/4K2R w K - 13 41",
+                game.getFen(PColor.White));
+    }
+    
+    @Test
+    public void castlingAndPassantMarkPieces() {
+        game.setFen("r3k2r/8/8/3pP3/8/8/8/R3K2R w Kq d6 0 1");
+        assertFalse(game.getPieceAt(7, 4).hasMoved());
+        assertFalse(game.getPieceAt(7, 7).hasMoved());
+        assertTrue(game.getPieceAt(7, 0).hasMoved());
+        assertTrue(game.getPieceAt(0, 7).hasMoved());
+        assertFalse(game.getPieceAt(0, 0).hasMoved());
+        assertTrue(game.getBoard().getCellAt(2, 3).isPassant());
+        assertTrue(game.getPieceAt(3, 4) instanceof Pawn);
+        assertTrue(game.getPieceAt(3, 4).hasMoved());
+    }
+    
+    @Test
+    public void passantOnlyForTheSideToMove() {
+        game.setFen("4k3/8/8/8/4P3/8/8/4K3 b - e3 0 1");
+        assertTrue(game.getFen(PColor.Black).contains(" e3 "));
+        // a flag left from an earlier move is not written
+        assertTrue(game.getFen(PColor.White).contains(" - "));
+    }
+    
+    @Test
+    public void shortFensHaveDefaults() {
+        assertEquals(PColor.White, game.setFen("4k3/8/8/8/8/8/8/4K3"));
+        assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1",
+                game.getFen(PColor.White));
+    }
+    
+    @Test
+    public void badFensAreRejected() {
+        String[] bad = { "", "8/8/8/8/8/8/8 w - -",
+                "9/8/8/8/8/8/8/8 w - -", "4k3/8/8/8/8/8/8/4K2X w - -",
+                "4k3/8/8/8/8/8/8/4K3 x - -", "4k3/8/8/8/8/8/8/4K3 w X -",
+                "4k3/8/8/8/8/8/8/4K3 w - e4", "4k3/8/8/8/8/8/8/4K3 w - - a 1",
+                "4k3/8/8/8/8/8/8/4K3 w - - 0 0",
+                "4k3/8/8/8/8/8/8/4K3 w - - 0 1 extra" };
+        for (String fen : bad) {
+            try {
+                game.setFen(fen);
+                throw new AssertionError("Accepted " + fen);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().startsWith("Bad FEN"));
+            }
+        }
+    }
+    
+    @Test
+    public void badFenChangesNothing() {
+        Moves.play(game, PColor.White, "e2e4");
+        Moves.play(game, PColor.Black, "e7e5");
+        String before = game.getFen(PColor.White);
+        String[] bad = { "4k3/8/8/8/8/8/8/4K3 w - - x 1",
+                "4k3/8/8/8/8/8/8/4K3 z KQkq -",
+                "r3k2r/8/8/8/8/8/8/R3K2R w KQkq e4" };
+        for (String fen : bad) {
+            try {
+                game.setFen(fen);
+                throw new AssertionError("Accepted " + fen);
+            } catch (IllegalArgumentException e) {
+                assertEquals(before, game.getFen(PColor.White));
+                assertEquals(2, game.getMoves().size());
+                assertEquals(2, game.getHistoryArrayList().size());
+            }
+        }
+    }
+    
+    @Test
+    public void squareNames() {
+        assertEquals(52, Fen.square("e2"));
+        assertEquals("e2", Fen.squareName(52));
+        assertEquals(-1, Fen.square("i9"));
+    }
+}
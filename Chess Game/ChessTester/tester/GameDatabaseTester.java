@@ -0,0 +1,291 @@
+package tester;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import chess.io.GameDatabase;
+import chess.io.GameRecord;
+import chess.io.MoveStats;
+import chess.main.Chess;
+import chess.objects.EncodedMove;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+import chess.objects.Position;
+
+public class GameDatabaseTester {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    /** Plays moves given in coordinate notation from the start */
+    private static GameRecord game(int result, String... moves) {
+        Chess game = new Chess();
+        PColor color = PColor.White;
+        for (String text : moves) {
+            Moves.play(game, color, text);
+            color = color == PColor.White ? PColor.Black : PColor.White;
+        }
+        GameRecord record = GameRecord.of(game, color);
+        record.setResult(result);
+        return record;
+    }
+    
+    private static Position after(String... moves) {
+        Chess game = new Chess();
+        PColor color = PColor.White;
+        for (String text : moves) {
+            Moves.play(game, color, text);
+            color = color == PColor.White ? PColor.Black : PColor.White;
+        }
+        return game.getPosition(color);
+    }
+    
+    private static void addOpenings(GameDatabase database)
+            throws IOException {
+        database.addGame(game(GameRecord.WHITE_WINS, "e2e4", "e7e5",
+                "g1f3"));
+        database.addGame(game(GameRecord.BLACK_WINS, "e2e4", "c7c5"));
+        database.addGame(game(GameRecord.DRAW, "d2d4", "d7d5"));
+    }
+    
+    private static void checkOpenings(GameDatabase database) {
+        assertEquals(3, database.getGameCount());
+        assertEquals(3, database.findGames(after(), 10).length);
+        assertEquals(2, database.findGames(after(), 2).length);
+        List<MoveStats> stats = database.getMoveStats(after());
+        assertEquals(2, stats.size());
+        assertEquals("e2e4 2 +1 =0 -1", stats.get(0).toString());
+        assertEquals("d2d4 1 +0 =1 -0", stats.get(1).toString());
+        assertEquals(2, database.getMoveStats(after("e2e4")).size());
+        // where a game ended it has no move
+        assertEquals(1, database.findGames(after("e2e4", "c7c5"), 10)
+                .length);
+        assertTrue(database.getMoveStats(after("e2e4", "c7c5")).isEmpty());
+        assertEquals(0, database.findGames(after("a2a3"), 10).length);
+    }
+    
+    @Test
+    public void findsGamesAndCountsMoves() throws IOException {
+        try (GameDatabase database = new GameDatabase(
+                folder.getRoot().toPath())) {
+            addOpenings(database);
+            // found before and after the commit
+            checkOpenings(database);
+            database.commit();
+            checkOpenings(database);
+        }
+    }
+    
+    @Test
+    public void repeatedPositionListsTheGameOnce() throws IOException {
+        try (GameDatabase database = new GameDatabase(
+                folder.getRoot().toPath())) {
+            // back to the start position after four moves
+            long shuffle = database.addGame(game(GameRecord.DRAW, "g1f3",
+                    "g8f6", "f3g1", "f6g8", "e2e4"));
+            long other = database.addGame(game(GameRecord.WHITE_WINS,
+                    "d2d4"));
+            assertArrayEquals(new long[] { shuffle, other },
+                    database.findGames(after(), 10));
+            database.commit();
+            assertArrayEquals(new long[] { shuffle, other },
+                    database.findGames(after(), 10));
+        }
+    }
+    
+    @Test
+    public void gamesAreReadBack() throws IOException {
+        try (GameDatabase database = new GameDatabase(
+                folder.getRoot().toPath())) {
+            GameRecord record = game(GameRecord.BLACK_WINS, "f2f3", "e7e5",
+                    "g2g4", "d8h4");
+            long id = database.addGame(record);
+            database.commit();
+            long[] found = database.findGames(after("f2f3", "e7e5", "g2g4",
+                    "d8h4"), 10);
+            assertArrayEquals(new long[] { id }, found);
+            GameRecord read = database.getGame(id);
+            assertArrayEquals(record.getMoves(), read.getMoves());
+            assertEquals(GameRecord.BLACK_WINS, read.getResult());
+        }
+    }
+    
+    @Test
+    public void reopenedDatabaseKeepsItsGames() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (GameDatabase database = new GameDatabase(directory)) {
+            addOpenings(database);
+        }
+        try (GameDatabase database = new GameDatabase(directory)) {
+            checkOpenings(database);
+            database.addGame(game(GameRecord.WHITE_WINS, "e2e4", "e7e5"));
+            assertEquals(3, database.findGames(after("e2e4"), 10).length);
+            assertEquals(2, database.getMoveStats(after("e2e4")).get(0)
+                    .getGames());
+        }
+    }
+    
+    @Test
+    public void missingIndexAndCutGameAreRecovered() throws IOException {
+        Path full = folder.newFolder("full").toPath();
+        Path part = folder.newFolder("part").toPath();
+        try (GameDatabase database = new GameDatabase(full)) {
+            database.addGame(game(GameRecord.DRAW, "d2d4", "d7d5"));
+            database.addGame(game(GameRecord.WHITE_WINS, "e2e4"));
+        }
+        try (GameDatabase database = new GameDatabase(part)) {
+            database.addGame(game(GameRecord.DRAW, "d2d4", "d7d5"));
+        }
+        // as if the program died after writing the second game but
+        // before its index, in the middle of writing a third
+        Files.copy(part.resolve(GameDatabase.INDEX_FILE),
+                full.resolve(GameDatabase.INDEX_FILE),
+                StandardCopyOption.REPLACE_EXISTING);
+        Path games = full.resolve(GameDatabase.GAMES_FILE);
+        long size = Files.size(games);
+        Files.write(games, new byte[] { 0, 0, 0, 40, 1, 2 },
+                StandardOpenOption.APPEND);
+        try (GameDatabase database = new GameDatabase(full)) {
+            assertEquals(2, database.getGameCount());
+            assertEquals(1, database.findGames(after("e2e4"), 10).length);
+            assertEquals(size, Files.size(games));
+        }
+    }
+    
+    @Test(expected = IOException.class)
+    public void badGameInTheMiddleIsNotCutOff() throws IOException {
+        Path full = folder.newFolder("full").toPath();
+        Path part = folder.newFolder("part").toPath();
+        long second;
+        try (GameDatabase database = new GameDatabase(full)) {
+            database.addGame(game(GameRecord.DRAW, "d2d4", "d7d5"));
+            second = database.addGame(game(GameRecord.WHITE_WINS, "e2e4"));
+            database.addGame(game(GameRecord.BLACK_WINS, "c2c4"));
+        }
+        try (GameDatabase database = new GameDatabase(part)) {
+            database.addGame(game(GameRecord.DRAW, "d2d4", "d7d5"));
+        }
+        Files.copy(part.resolve(GameDatabase.INDEX_FILE),
+                full.resolve(GameDatabase.INDEX_FILE),
+                StandardCopyOption.REPLACE_EXISTING);
+        Path games = full.resolve(GameDatabase.GAMES_FILE);
+        long size = Files.size(games);
+        // the second game is whole but its length is one byte
+        try (FileChannel channel = FileChannel.open(games,
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 1 }),
+                    second);
+        }
+        try {
+            new GameDatabase(full).close();
+        } finally {
+            assertEquals(size, Files.size(games));
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLimitIsRejected() throws IOException {
+        try (GameDatabase database = new GameDatabase(
+                folder.getRoot().toPath())) {
+            database.findGames(after(), -1);
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalGameIsRejected() throws IOException {
+        try (GameDatabase database = new GameDatabase(
+                folder.getRoot().toPath())) {
+            int[] moves = { EncodedMove.encode(52, 28, EncodedMove.QUIET) };
+            try {
+                database.addGame(new GameRecord(after(), moves));
+            } finally {
+                assertEquals(0, database.getGameCount());
+            }
+        }
+    }
+    
+    @Test
+    public void manyGamesMatchAScan() throws IOException {
+        Random random = new Random(350);
+        List<GameRecord> records = new ArrayList<GameRecord>();
+        for (int i = 0; i < 300; i++)
+            records.add(randomGame(random));
+        try (GameDatabase database = new GameDatabase(
+                folder.getRoot().toPath())) {
+            for (int i = 0; i < records.size(); i++) {
+                database.addGame(records.get(i));
+                if (i == 100 || i == 200)
+                    database.commit();
+            }
+            for (int ply = 0; ply < 4; ply++) {
+                // every game that reached a position is found
+                for (GameRecord record : records.subList(0, 20)) {
+                    Position position = positionAt(record, ply);
+                    Set<Long> found = new HashSet<Long>();
+                    for (long id : database.findGames(position, 1000))
+                        found.add(id);
+                    int expected = 0;
+                    for (GameRecord other : records) {
+                        if (reaches(other, position))
+                            expected++;
+                    }
+                    assertEquals(expected, found.size());
+                }
+            }
+        }
+    }
+    
+    /** Plays a few random moves from the start */
+    private static GameRecord randomGame(Random random) {
+        Chess game = new Chess();
+        PColor color = PColor.White;
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int ply = 0; ply < 8; ply++) {
+            int count = game.generateMoves(color, moves);
+            if (count == 0)
+                break;
+            // few choices early so games share positions
+            game.makeMove(moves[random.nextInt(Math.min(count, 3))]);
+            color = color == PColor.White ? PColor.Black : PColor.White;
+        }
+        GameRecord record = GameRecord.of(game, color);
+        record.setResult(random.nextInt(4));
+        return record;
+    }
+    
+    private static Position positionAt(GameRecord record, int ply) {
+        Chess game = new Chess(record.getStart());
+        PColor color = record.getStart().getToMove();
+        for (int i = 0; i < ply; i++) {
+            game.doMove(record.getMoves()[i]);
+            color = color == PColor.White ? PColor.Black : PColor.White;
+        }
+        return game.getPosition(color);
+    }
+    
+    private static boolean reaches(GameRecord record, Position position) {
+        for (int ply = 0; ply <= record.getMoves().length; ply++) {
+            if (positionAt(record, ply).getKey() == position.getKey())
+                return true;
+        }
+        return false;
+    }
+}
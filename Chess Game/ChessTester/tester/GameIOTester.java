@@ -0,0 +1,192 @@
+package tester;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import chess.io.GameReader;
+import chess.io.GameRecord;
+import chess.io.GameWriter;
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.EncodedMove;
+import chess.objects.PColor;
+import chess.objects.Rook;
+
+public class GameIOTester {
+    
+    Chess game = new Chess();
+    
+    private byte[] write(GameRecord... records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GameWriter out = new GameWriter(bytes)) {
+            for (GameRecord record : records)
+                out.writeGame(record);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private GameRecord readOne(byte[] bytes) throws IOException {
+        try (GameReader in = new GameReader(
+                new ByteArrayInputStream(bytes))) {
+            return in.readGame();
+        }
+    }
+    
+    @Test
+    public void standardGameRoundTrip() throws IOException {
+        Moves.play(game, PColor.White, "e2e4");
+        Moves.play(game, PColor.Black, "d7d5");
+        Moves.play(game, PColor.White, "e4e5");
+        Moves.play(game, PColor.Black, "f7f5");
+        Moves.play(game, PColor.White, "e5f6");
+        GameRecord read = readOne(write(GameRecord.of(game,
+                PColor.Black)));
+        assertEquals(PColor.Black, read.getToMove());
+        assertEquals(5, read.getMoves().length);
+        assertEquals(EncodedMove.EN_PASSANT,
+                EncodedMove.flags(read.getMoves()[4]));
+        Chess loaded = read.toGame();
+        assertEquals(game.getPosition(PColor.Black),
+                loaded.getPosition(PColor.Black));
+        // the moves were played, so they can be taken back
+        assertEquals(5, loaded.getMoves().size());
+        loaded.unMakeMove();
+        assertEquals(4, loaded.getMoves().size());
+    }
+    
+    @Test
+    public void movesMadeSquareBySquare() throws IOException {
+        // the way the controller moves, one piece at a time
+        game.movePieceTo(7, 6, 5, 5, game.getPieceAt(7, 6));
+        game.movePieceTo(0, 1, 2, 2, game.getPieceAt(0, 1));
+        game.movePieceTo(5, 5, 3, 4, game.getPieceAt(5, 5));
+        int[] moves = game.getEncodedMoves(PColor.Black);
+        assertEquals(3, moves.length);
+        assertEquals("g1f3", EncodedMove.toString(moves[0]));
+        assertEquals("f3e5", EncodedMove.toString(moves[2]));
+        Chess loaded = readOne(write(GameRecord.of(game, PColor.Black)))
+                .toGame();
+        assertEquals(game.getPosition(PColor.Black),
+                loaded.getPosition(PColor.Black));
+    }
+    
+    @Test
+    public void customStartAndUnderPromotion() throws IOException {
+        game.setFen("4k3/1P6/8/8/8/8/8/R3K2R w KQ -");
+        Moves.play(game, PColor.White, "e1g1");
+        Moves.play(game, PColor.Black, "e8d7");
+        Moves.play(game, PColor.White, "b7b8n");
+        GameRecord read = readOne(write(GameRecord.of(game,
+                PColor.Black)));
+        assertEquals(new Chess().setFen(
+                "4k3/1P6/8/8/8/8/8/R3K2R w KQ -"), read.getStart()
+                        .getToMove());
+        assertEquals(BitBoard.KNIGHT,
+                EncodedMove.promotionType(read.getMoves()[2]));
+        assertTrue(EncodedMove.isCastle(read.getMoves()[0]));
+        assertEquals(game.getPosition(PColor.Black),
+                read.toGame().getPosition(PColor.Black));
+    }
+    
+    @Test
+    public void promotionSwappedInByHand() {
+        game.setFen("4k3/1P6/8/8/8/8/8/4K3 w - -");
+        game.movePieceTo(1, 1, 0, 1, game.getPieceAt(1, 1));
+        game.setPieceAt(0, 1, new Rook(PColor.White));
+        game.setPromotion(BitBoard.ROOK);
+        assertEquals("b7b8r", EncodedMove.toString(
+                game.getEncodedMoves(PColor.Black)[0]));
+    }
+    
+    @Test
+    public void clockAndStateRoundTrip() throws IOException {
+        GameRecord record = GameRecord.of(game, PColor.White);
+        record.setClock(299, 180, 300, true, false);
+        record.setState(-1, 7, 0, 3, 1, 0, -5, 42);
+        GameRecord read = readOne(write(record));
+        assertTrue(read.hasClock());
+        assertEquals(299, read.getWhiteTime());
+        assertEquals(180, read.getBlackTime());
+        assertEquals(300, read.getTimeLimit());
+        assertTrue(read.isClockEnabled());
+        assertFalse(read.isWhiteClock());
+        assertArrayEquals(new int[] { -1, 7, 0, 3, 1, 0, -5, 42 },
+                read.getState());
+    }
+    
+    @Test
+    public void resultRoundTrip() throws IOException {
+        GameRecord record = GameRecord.of(game, PColor.White);
+        assertEquals(GameRecord.UNKNOWN, readOne(write(record)).getResult());
+        record.setResult(GameRecord.DRAW);
+        assertEquals(GameRecord.DRAW, readOne(write(record)).getResult());
+    }
+    
+    @Test
+    public void severalGamesInOneStream() throws IOException {
+        GameRecord empty = GameRecord.of(game, PColor.White);
+        Moves.play(game, PColor.White, "d2d4");
+        GameRecord one = GameRecord.of(game, PColor.Black);
+        try (GameReader in = new GameReader(new ByteArrayInputStream(
+                write(empty, one, empty)))) {
+            assertEquals(GameWriter.VERSION, in.getVersion());
+            assertEquals(0, in.readGame().getMoves().length);
+            assertEquals(1, in.readGame().getMoves().length);
+            GameRecord last = in.readGame();
+            assertFalse(last.hasClock());
+            assertNull(last.getState());
+            assertNull(in.readGame());
+        }
+    }
+    
+    @Test
+    public void standardGameIsSmall() throws IOException {
+        Moves.play(game, PColor.White, "e2e4");
+        Moves.play(game, PColor.Black, "e7e5");
+        // header, flags, count and a short per move
+        assertEquals(6 + 1 + 1 + 2 * 2,
+                write(GameRecord.of(game, PColor.White)).length);
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        new GameReader(new ByteArrayInputStream(new byte[] { (byte) 0xac,
+                (byte) 0xed, 0, 5, 0, 0 }));
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsIllegalMove() throws IOException {
+        // e2e5 written by hand into a saved game
+        int move = EncodedMove.encode(BitBoard.square(6, 4),
+                BitBoard.square(3, 4), EncodedMove.QUIET);
+        readOne(write(new GameRecord(game.getPosition(PColor.White),
+                new int[] { move }))).toGame();
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsBadPassantSquare() throws IOException {
+        game.setFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        byte[] bytes = write(GameRecord.of(game, PColor.White));
+        // header, flags, side and castling come before it
+        bytes[6 + 1 + 2] = 100;
+        readOne(bytes);
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedGame() throws IOException {
+        Moves.play(game, PColor.White, "e2e4");
+        byte[] bytes = write(GameRecord.of(game, PColor.Black));
+        byte[] cut = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, cut, 0, cut.length);
+        readOne(cut);
+    }
+}
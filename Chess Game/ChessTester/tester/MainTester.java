@@ -10,7 +10,9 @@ import chess.objects.Piece;
 @RunWith(Suite.class)
  @Suite.SuiteClasses({
      
+     AIWorkerTester.class,
      BishopTester.class,
+     BitBoardTester.class,
      BoardTester.class,
      CastlingMoveTester.class,
      CastlingTester.class,
@@ -18,13 +20,30 @@ import chess.objects.Piece;
      CheckmateTesting.class,
      ChessTester.class,
      EnPassantMoveTester.class,
+     EvaluatorTester.class,
+     FenTester.class,
+     GameDatabaseTester.class,
+     GameIOTester.class,
      KingTester.class,
      KnightTester.class,
+     MoveGeneratorTester.class,
+     MoveJournalTester.class,
+     MoveOrderingTester.class,
      MoveTester.class,
+     OpeningBookTester.class,
+     ParallelSearchTester.class,
+     PawnTableTester.class,
      PawnTester.class,
+     PgnTester.class,
+     PerftTester.class,
      PieceTester.class,
+     PositionTester.class,
      QueenTester.class,
-     RookTester.class
+     RookTester.class,
+     SearchTester.class,
+     TablebaseTester.class,
+     TranspositionTableTester.class,
+     ZobristTester.class
  })
 
 public class MainTester {
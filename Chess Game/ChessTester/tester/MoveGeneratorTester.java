@@ -0,0 +1,200 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.BitBoard;
+import chess.objects.Castling_Move;
+import chess.objects.EncodedMove;
+import chess.objects.En_Passant_Move;
+import chess.objects.King;
+import chess.objects.Knight;
+import chess.objects.Move;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+import chess.objects.Pawn;
+import chess.objects.Piece;
+import chess.objects.Queen;
+import chess.objects.Rook;
+
+public class MoveGeneratorTester {
+    
+    Chess game = new Chess();
+    int[] moves = new int[MoveGenerator.MAX_MOVES];
+    
+    @Test
+    public void initialPseudoLegalMoves() {
+        game = new Chess();
+        assertEquals(20, MoveGenerator.generateMoves(game.getBoard(),
+                PColor.White, moves));
+        assertEquals(20, MoveGenerator.generateMoves(game.getBoard(),
+                PColor.Black, moves));
+    }
+    
+    @Test
+    public void knightInCorner() {
+        assertEquals(2, Long.bitCount(MoveGenerator.knightAttacks(0)));
+        assertEquals(8, Long.bitCount(MoveGenerator
+                .knightAttacks(BitBoard.square(4, 4))));
+    }
+    
+    @Test
+    public void rookStopsAtBlocker() {
+        long occupied = 1L << BitBoard.square(4, 2);
+        long attacks = MoveGenerator.rookAttacks(BitBoard.square(4, 4),
+                occupied);
+        assertEquals(7 + 3 + 2, Long.bitCount(attacks));
+        assertTrue((attacks & occupied) != 0);
+    }
+    
+    @Test
+    public void castlingListed() {
+        game = new Chess();
+        game.getBoard().reset();
+        game.setPieceAt(7, 4, new King(PColor.White));
+        game.setPieceAt(7, 7, new Rook(PColor.White));
+        game.setPieceAt(7, 0, new Rook(PColor.White));
+        game.setPieceAt(0, 4, new King(PColor.Black));
+        int castles = 0;
+        for (Move move : game.generateMoves(PColor.White)) {
+            if (move instanceof Castling_Move)
+                castles++;
+        }
+        assertEquals(2, castles);
+    }
+    
+    @Test
+    public void noCastlingThroughCheck() {
+        game = new Chess();
+        game.getBoard().reset();
+        game.setPieceAt(7, 4, new King(PColor.White));
+        game.setPieceAt(7, 7, new Rook(PColor.White));
+        game.setPieceAt(0, 4, new King(PColor.Black));
+        game.setPieceAt(3, 5, new Rook(PColor.Black));
+        for (Move move : game.generateMoves(PColor.White)) {
+            assertTrue(!(move instanceof Castling_Move));
+        }
+    }
+    
+    @Test
+    public void enPassantListed() {
+        game = new Chess();
+        game.getBoard().reset();
+        game.setPieceAt(7, 4, new King(PColor.White));
+        game.setPieceAt(0, 4, new King(PColor.Black));
+        game.setPieceAt(3, 4, new Pawn(PColor.White));
+        game.setPieceAt(3, 3, new Pawn(PColor.Black));
+        game.getBoard().getCellAt(2, 3).setPassant(true);
+        int passants = 0;
+        for (Move move : game.generateMoves(PColor.White)) {
+            if (move instanceof En_Passant_Move)
+                passants++;
+        }
+        assertEquals(1, passants);
+    }
+    
+    @Test
+    public void promotionsListed() {
+        game = new Chess();
+        game.getBoard().reset();
+        game.setPieceAt(7, 4, new King(PColor.White));
+        game.setPieceAt(0, 7, new King(PColor.Black));
+        game.setPieceAt(1, 0, new Pawn(PColor.White));
+        int count = game.generateMoves(PColor.White, moves);
+        int promotions = 0;
+        for (int i = 0; i < count; i++) {
+            if (EncodedMove.isPromotion(moves[i]))
+                promotions++;
+        }
+        assertEquals(4, promotions);
+    }
+    
+    @Test
+    public void pinnedPieceCantMove() {
+        game = new Chess();
+        game.getBoard().reset();
+        game.setPieceAt(7, 4, new King(PColor.White));
+        game.setPieceAt(6, 4, new Knight(PColor.White));
+        game.setPieceAt(0, 4, new Rook(PColor.Black));
+        game.setPieceAt(0, 0, new King(PColor.Black));
+        List<Move> valid = game.generateMoves(PColor.White);
+        for (Move move : valid) {
+            assertTrue(move.getR1() == 7 && move.getC1() == 4);
+        }
+    }
+    
+    @Test
+    public void checkmateGivesNull() {
+        game = new Chess();
+        game.getBoard().reset();
+        game.setPieceAt(7, 4, new King(PColor.White));
+        game.setPieceAt(7, 3, new Queen(PColor.Black));
+        game.setPieceAt(6, 3, new Queen(PColor.Black));
+        game.setPieceAt(0, 0, new King(PColor.Black));
+        assertNull(game.generateMoves(PColor.White));
+    }
+    
+    @Test
+    public void attackedSquares() {
+        game = new Chess();
+        // The Knight on b1 covers a3 and c3, Pawns cover row 5
+        assertTrue(game.isSquareAttacked(5, 0, PColor.White));
+        assertTrue(game.isSquareAttacked(5, 3, PColor.White));
+        assertTrue(!game.isSquareAttacked(4, 4, PColor.White));
+        assertTrue(game.isSquareAttacked(2, 5, PColor.Black));
+        // The Queen on d1 is blocked by her own Pawn
+        game.setPieceAt(6, 3, null);
+        assertTrue(game.isSquareAttacked(1, 3, PColor.White));
+    }
+    
+    @Test
+    public void attackMapAgreesWithMovementRules() {
+        // Compare with asking every enemy Piece whether it can move to
+        // the King, for every position two plies into each reference
+        for (int i = 1; i < Perft.referencePositions(); i++) {
+            game.setFen(Perft.referencePosition(i));
+            int[] first = new int[MoveGenerator.MAX_MOVES];
+            int[] second = new int[MoveGenerator.MAX_MOVES];
+            PColor toMove = Perft.referencePosition(i).contains(" b ")
+                    ? PColor.Black : PColor.White;
+            PColor other = toMove == PColor.White ? PColor.Black
+                    : PColor.White;
+            int count = game.generateMoves(toMove, first);
+            for (int j = 0; j < count; j++) {
+                game.doMove(first[j]);
+                int replies = game.generateMoves(other, second);
+                for (int k = 0; k < replies; k++) {
+                    game.doMove(second[k]);
+                    assertEquals(canReachKing(PColor.White),
+                            game.isKingInCheckStill(PColor.White));
+                    assertEquals(canReachKing(PColor.Black),
+                            game.isKingInCheckStill(PColor.Black));
+                    game.undoMove();
+                }
+                game.undoMove();
+            }
+        }
+    }
+    
+    private boolean canReachKing(PColor color) {
+        int king = game.getBoard().getKingSquare(color);
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = game.getPieceAt(row, col);
+                if (piece != null && piece.getColor() != color
+                        && piece.checkMovement(row, col,
+                                BitBoard.row(king), BitBoard.col(king),
+                                game))
+                    return true;
+            }
+        }
+        return false;
+    }
+}
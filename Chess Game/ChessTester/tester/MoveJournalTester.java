@@ -0,0 +1,188 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import chess.io.GameRecord;
+import chess.io.MoveJournal;
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.PColor;
+
+public class MoveJournalTester {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    Chess game = new Chess();
+
+    /** Makes a legal move given in coordinate notation and journals it */
+    private void play(MoveJournal journal, PColor color, String text)
+            throws IOException {
+        Moves.play(game, color, text);
+        journal.move(game.getPreviousMove());
+    }
+
+    private Path file() {
+        return folder.getRoot().toPath().resolve("autosave.journal");
+    }
+
+    private String fenOf(GameRecord record) throws IOException {
+        return record.toGame().getFen(record.getToMove());
+    }
+
+    @Test
+    public void replaysCastleAndEnPassant() throws IOException {
+        try (MoveJournal journal = new MoveJournal(file())) {
+            journal.startGame(GameRecord.of(game, PColor.White));
+            play(journal, PColor.White, "e2e4");
+            play(journal, PColor.Black, "g8f6");
+            play(journal, PColor.White, "e4e5");
+            play(journal, PColor.Black, "d7d5");
+            play(journal, PColor.White, "e5d6");
+            play(journal, PColor.Black, "e7e6");
+            play(journal, PColor.White, "g1f3");
+            play(journal, PColor.Black, "f8e7");
+            play(journal, PColor.White, "f1c4");
+            play(journal, PColor.Black, "e8g8");
+        }
+        GameRecord read = MoveJournal.replay(file());
+        assertEquals(PColor.White, read.getToMove());
+        assertEquals(10, read.getMoves().length);
+        assertEquals(game.getFen(PColor.White), fenOf(read));
+    }
+
+    @Test
+    public void replaysUnderPromotion() throws IOException {
+        game.setFen("8/1P5k/8/8/8/8/8/K7 w - - 0 1");
+        try (MoveJournal journal = new MoveJournal(file(), 1, 0)) {
+            journal.startGame(GameRecord.of(game, PColor.White));
+            play(journal, PColor.White, "b7b8n");
+        }
+        GameRecord read = MoveJournal.replay(file());
+        assertEquals(BitBoard.KNIGHT, read.toGame().getBoard()
+                .getBitBoard().getType(BitBoard.square(0, 1)));
+        assertEquals(game.getFen(PColor.Black), fenOf(read));
+    }
+
+    @Test
+    public void replaysUndo() throws IOException {
+        try (MoveJournal journal = new MoveJournal(file())) {
+            journal.startGame(GameRecord.of(game, PColor.White));
+            play(journal, PColor.White, "e2e4");
+            play(journal, PColor.Black, "e7e5");
+            game.unMakeMove();
+            journal.undo();
+            play(journal, PColor.Black, "c7c5");
+        }
+        GameRecord read = MoveJournal.replay(file());
+        assertEquals(2, read.getMoves().length);
+        assertEquals(game.getFen(PColor.White), fenOf(read));
+    }
+
+    @Test
+    public void keepsClockAndState() throws IOException {
+        GameRecord start = GameRecord.of(game, PColor.White);
+        start.setClock(200, 150, 300, true, true);
+        start.setState(1, 2, 3, 4, 1, 0, 0, 0);
+        try (MoveJournal journal = new MoveJournal(file())) {
+            journal.startGame(start);
+            play(journal, PColor.White, "d2d4");
+        }
+        GameRecord read = MoveJournal.replay(file());
+        assertEquals(PColor.Black, read.getToMove());
+        assertEquals(200, read.getWhiteTime());
+        assertEquals(150, read.getBlackTime());
+        assertEquals(300, read.getTimeLimit());
+        assertEquals(8, read.getState().length);
+        assertEquals(3, read.getState()[2]);
+    }
+
+    @Test
+    public void stopsAtTornTail() throws IOException {
+        try (MoveJournal journal = new MoveJournal(file())) {
+            journal.startGame(GameRecord.of(game, PColor.White));
+            play(journal, PColor.White, "e2e4");
+            play(journal, PColor.Black, "e7e5");
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file().toFile(),
+                "rw")) {
+            // a MOVE record is 7 bytes, cut the last one short
+            raf.setLength(raf.length() - 3);
+        }
+        GameRecord read = MoveJournal.replay(file());
+        assertEquals(1, read.getMoves().length);
+        game.unMakeMove();
+        assertEquals(game.getFen(PColor.Black), fenOf(read));
+    }
+
+    @Test
+    public void stopsAtBadChecksum() throws IOException {
+        try (MoveJournal journal = new MoveJournal(file())) {
+            journal.startGame(GameRecord.of(game, PColor.White));
+            play(journal, PColor.White, "e2e4");
+            play(journal, PColor.Black, "e7e5");
+            play(journal, PColor.White, "g1f3");
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file().toFile(),
+                "rw")) {
+            // the squares of the second move
+            raf.seek(raf.length() - 2 * 7 + 1);
+            raf.write(0x55);
+        }
+        assertEquals(1, MoveJournal.replay(file()).getMoves().length);
+    }
+
+    @Test
+    public void startGameStartsOver() throws IOException {
+        try (MoveJournal journal = new MoveJournal(file(), 0, 10)) {
+            journal.startGame(GameRecord.of(game, PColor.White));
+            play(journal, PColor.White, "e2e4");
+            play(journal, PColor.Black, "e7e5");
+            game.reset();
+            journal.startGame(GameRecord.of(game, PColor.White));
+            play(journal, PColor.White, "a2a3");
+        }
+        GameRecord read = MoveJournal.replay(file());
+        assertEquals(1, read.getMoves().length);
+        assertEquals(game.getFen(PColor.Black), fenOf(read));
+    }
+
+    @Test
+    public void reopenedJournalIsReplaced() throws IOException {
+        try (MoveJournal journal = new MoveJournal(file())) {
+            journal.startGame(GameRecord.of(game, PColor.White));
+            play(journal, PColor.White, "e2e4");
+        }
+        long size = Files.size(file());
+        game = new Chess();
+        try (MoveJournal journal = new MoveJournal(file())) {
+            journal.startGame(GameRecord.of(game, PColor.White));
+        }
+        assertTrue(Files.size(file()) < size);
+        assertEquals(0, MoveJournal.replay(file()).getMoves().length);
+    }
+
+    @Test
+    public void missingOrEmptyJournal() throws IOException {
+        assertNull(MoveJournal.replay(file()));
+        Files.createFile(file());
+        assertNull(MoveJournal.replay(file()));
+    }
+
+    @Test(expected = IOException.class)
+    public void notAJournal() throws IOException {
+        Files.write(file(), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        MoveJournal.replay(file());
+    }
+}
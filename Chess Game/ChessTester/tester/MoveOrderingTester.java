@@ -0,0 +1,102 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import chess.ai.MoveOrdering;
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.EncodedMove;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+public class MoveOrderingTester {
+    
+    Chess game = new Chess();
+    MoveOrdering ordering = new MoveOrdering();
+    int[] moves = new int[MoveGenerator.MAX_MOVES];
+    
+    /** Orders the moves of the position and returns them in order */
+    private int order(PColor color, int hashMove, int ply) {
+        int count = game.generateMoves(color, moves);
+        ordering.score(game, moves, count, hashMove, ply, color);
+        for (int i = 0; i < count; i++)
+            ordering.pickNext(moves, i, count, ply);
+        return count;
+    }
+    
+    @Test
+    public void mostValuableVictimFirst() {
+        // The Knight can take the Queen or a Pawn, the Pawn a Rook
+        game.setFen("4k3/8/3q1p2/3r4/2P1N3/8/8/4K3 w - - 0 1");
+        order(PColor.White, EncodedMove.NONE, 0);
+        assertEquals(BitBoard.square(2, 3), EncodedMove.to(moves[0]));
+        assertEquals(BitBoard.square(3, 3), EncodedMove.to(moves[1]));
+        assertEquals(BitBoard.square(2, 5), EncodedMove.to(moves[2]));
+        assertTrue(EncodedMove.isCapture(moves[2]));
+        assertTrue(!EncodedMove.isCapture(moves[3]));
+    }
+    
+    @Test
+    public void leastValuableAttackerFirst() {
+        // Both the Pawn and the Queen can take the Rook
+        game.setFen("4k3/8/8/3r4/2P5/8/3Q4/4K3 w - - 0 1");
+        order(PColor.White, EncodedMove.NONE, 0);
+        assertEquals(BitBoard.square(4, 2), EncodedMove.from(moves[0]));
+        assertEquals(BitBoard.square(6, 3), EncodedMove.from(moves[1]));
+    }
+    
+    @Test
+    public void hashMoveBeforeCaptures() {
+        game.setFen("4k3/8/8/3r4/2P5/8/3Q4/4K3 w - - 0 1");
+        int quiet = EncodedMove.encode(BitBoard.square(7, 4),
+                BitBoard.square(7, 5), EncodedMove.QUIET);
+        order(PColor.White, quiet, 0);
+        assertEquals(quiet, moves[0]);
+        assertTrue(EncodedMove.isCapture(moves[1]));
+    }
+    
+    @Test
+    public void killersBeforeOtherQuietMoves() {
+        int killer = EncodedMove.encode(BitBoard.square(6, 0),
+                BitBoard.square(5, 0), EncodedMove.QUIET);
+        ordering.cutoff(killer, 3, 2, PColor.White);
+        assertEquals(killer, ordering.getKiller(2, 0));
+        assertEquals(9, ordering.getHistory(PColor.White, killer));
+        order(PColor.White, EncodedMove.NONE, 2);
+        assertEquals(killer, moves[0]);
+    }
+    
+    @Test
+    public void capturesNeverBecomeKillers() {
+        int capture = EncodedMove.encode(BitBoard.square(4, 2),
+                BitBoard.square(3, 3), EncodedMove.CAPTURE);
+        ordering.cutoff(capture, 4, 1, PColor.White);
+        assertEquals(EncodedMove.NONE, ordering.getKiller(1, 0));
+        assertEquals(0, ordering.getHistory(PColor.White, capture));
+    }
+    
+    @Test
+    public void newSearchForgetsKillersAndAgesHistory() {
+        int quiet = EncodedMove.encode(BitBoard.square(6, 0),
+                BitBoard.square(5, 0), EncodedMove.QUIET);
+        ordering.cutoff(quiet, 4, 1, PColor.White);
+        ordering.newSearch();
+        assertEquals(EncodedMove.NONE, ordering.getKiller(1, 0));
+        assertEquals(8, ordering.getHistory(PColor.White, quiet));
+    }
+    
+    @Test
+    public void underPromotionsLast() {
+        game.setFen("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        int count = order(PColor.White, EncodedMove.NONE, 0);
+        assertEquals(BitBoard.QUEEN, EncodedMove.promotionType(moves[0]));
+        for (int i = count - 3; i < count; i++) {
+            assertTrue(EncodedMove.isPromotion(moves[i]));
+            assertTrue(EncodedMove.promotionType(moves[i])
+                    != BitBoard.QUEEN);
+        }
+    }
+}
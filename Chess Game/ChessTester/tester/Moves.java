@@ -0,0 +1,47 @@
+package tester;
+
+import chess.main.Chess;
+import chess.objects.EncodedMove;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+/**********************************************************************
+ * Finds and plays legal moves given in coordinate notation, for the
+ * testers that set up games move by move
+ **********************************************************************/
+public final class Moves {
+
+    private Moves() {
+    }
+
+    /*******************************************************************
+     * Finds a legal move by its coordinate notation
+     *
+     * @param game is the game to look in
+     * @param color is the PColor to move
+     * @param text is the move, such as e2e4 or b7b8n
+     * @return the EncodedMove
+     * @throws IllegalArgumentException if there is no such legal move
+     ******************************************************************/
+    public static int find(Chess game, PColor color, String text) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = game.generateMoves(color, moves);
+        for (int i = 0; i < count; i++) {
+            if (EncodedMove.toString(moves[i]).equals(text))
+                return moves[i];
+        }
+        throw new IllegalArgumentException("No move " + text);
+    }
+
+    /*******************************************************************
+     * Makes a legal move given in coordinate notation
+     *
+     * @param game is the game to play in
+     * @param color is the PColor to move
+     * @param text is the move, such as e2e4 or b7b8n
+     * @throws IllegalArgumentException if there is no such legal move
+     ******************************************************************/
+    public static void play(Chess game, PColor color, String text) {
+        game.makeMove(find(game, color, text));
+    }
+}
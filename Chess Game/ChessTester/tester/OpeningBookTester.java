@@ -0,0 +1,180 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import chess.ai.OpeningBook;
+import chess.ai.PolyglotKey;
+import chess.main.Chess;
+import chess.objects.EncodedMove;
+import chess.objects.Move;
+import chess.objects.PColor;
+
+public class OpeningBookTester {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    Chess game = new Chess();
+    PolyglotKey keys = new PolyglotKey();
+    
+    private OpeningBook book(long[] positions, int[] moves, int[] weights)
+            throws IOException {
+        Path file = folder.newFile().toPath();
+        OpeningBook.write(file, positions, moves, weights);
+        OpeningBook book = new OpeningBook(file, keys);
+        book.setRandom(new Random(350));
+        return book;
+    }
+    
+    @Test
+    public void polyglotMoveEncoding() {
+        assertEquals(4 | 3 << 3 | 4 << 6 | 1 << 9,
+                OpeningBook.toPolyglot(Moves.find(game, PColor.White, "e2e4")));
+        game.setFen("4k3/8/8/8/8/8/8/4K2R w K -");
+        // a castle is stored as the King taking its Rook, e1h1
+        assertEquals(7 | 4 << 6,
+                OpeningBook.toPolyglot(Moves.find(game, PColor.White, "e1g1")));
+    }
+    
+    @Test
+    public void standardPolyglotKeys() {
+        // the test positions of the polyglot specification
+        String[] moves = { "e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7" };
+        long[] expected = { 0x463b96181691fc9cL, 0x823c9b50fd114196L,
+                0x0756b94461c50fb0L, 0x662fafb965db29d4L,
+                0x22a48b5a8e47ff78L, 0x652a607ca3f242c1L,
+                0x00fdd303c946bdd9L };
+        PColor toMove = PColor.White;
+        assertEquals(expected[0], keys.key(game.getBoard(), toMove));
+        for (int i = 0; i < moves.length; i++) {
+            game.makeMove(Moves.find(game, toMove, moves[i]));
+            toMove = toMove == PColor.White ? PColor.Black : PColor.White;
+            assertEquals(moves[i], expected[i + 1],
+                    keys.key(game.getBoard(), toMove));
+        }
+        
+        game = new Chess();
+        moves = new String[] { "a2a4", "b7b5", "h2h4", "b5b4", "c2c4",
+                "b4c3", "a1a3" };
+        toMove = PColor.White;
+        for (String text : moves) {
+            game.makeMove(Moves.find(game, toMove, text));
+            toMove = toMove == PColor.White ? PColor.Black : PColor.White;
+            if (text.equals("c2c4"))
+                assertEquals(0x3c8123ea7b067637L,
+                        keys.key(game.getBoard(), toMove));
+        }
+        assertEquals(0x5c3f9b829b279560L, keys.key(game.getBoard(),
+                toMove));
+    }
+    
+    @Test
+    public void keyDependsOnSideAndCastling() {
+        long white = keys.key(game.getBoard(), PColor.White);
+        assertTrue(white != keys.key(game.getBoard(), PColor.Black));
+        game.setFen("4k3/8/8/8/8/8/8/4K2R w K -");
+        long castle = keys.key(game.getBoard(), PColor.White);
+        game.setFen("4k3/8/8/8/8/8/8/4K2R w - -");
+        assertTrue(castle != keys.key(game.getBoard(), PColor.White));
+    }
+    
+    @Test
+    public void passantOnlyCountsWhenCapturable() {
+        game.setFen("4k3/8/8/8/4P3/8/8/4K3 b - e3");
+        long flagged = keys.key(game.getBoard(), PColor.Black);
+        game.setFen("4k3/8/8/8/4P3/8/8/4K3 b - -");
+        assertEquals(flagged, keys.key(game.getBoard(), PColor.Black));
+        game.setFen("4k3/8/8/8/3pP3/8/8/4K3 b - e3");
+        flagged = keys.key(game.getBoard(), PColor.Black);
+        game.setFen("4k3/8/8/8/3pP3/8/8/4K3 b - -");
+        assertTrue(flagged != keys.key(game.getBoard(), PColor.Black));
+    }
+    
+    @Test
+    public void picksByWeight() throws IOException {
+        long start = keys.key(game.getBoard(), PColor.White);
+        OpeningBook book = book(new long[] { start, start, start },
+                new int[] { Moves.find(game, PColor.White, "e2e4"),
+                        Moves.find(game, PColor.White, "d2d4"),
+                        Moves.find(game, PColor.White, "a2a3") },
+                new int[] { 3, 1, 0 });
+        assertEquals(3, book.size());
+        int e4 = 0, d4 = 0;
+        for (int i = 0; i < 1000; i++) {
+            String picked = EncodedMove.toString(book.probe(game,
+                    PColor.White));
+            if (picked.equals("e2e4"))
+                e4++;
+            else if (picked.equals("d2d4"))
+                d4++;
+        }
+        assertEquals(1000, e4 + d4);
+        assertTrue(e4 > 2 * d4);
+        book.close();
+    }
+    
+    @Test
+    public void unknownPositionHasNoMove() throws IOException {
+        long start = keys.key(game.getBoard(), PColor.White);
+        OpeningBook book = book(new long[] { start },
+                new int[] { Moves.find(game, PColor.White, "e2e4") },
+                new int[] { 1 });
+        assertEquals(EncodedMove.NONE, book.probe(game, PColor.Black));
+        book.close();
+    }
+    
+    @Test
+    public void findsKeyAmongManyEntries() throws IOException {
+        Random random = new Random(7);
+        int size = 5000;
+        long[] positions = new long[size];
+        int[] moves = new int[size];
+        int[] weights = new int[size];
+        int e4 = Moves.find(game, PColor.White, "e2e4");
+        for (int i = 0; i < size; i++) {
+            positions[i] = random.nextLong();
+            moves[i] = e4;
+            weights[i] = 1;
+        }
+        positions[size / 3] = keys.key(game.getBoard(), PColor.White);
+        moves[size / 3] = Moves.find(game, PColor.White, "g1f3");
+        OpeningBook book = book(positions, moves, weights);
+        assertEquals("g1f3", EncodedMove.toString(book.probe(game,
+                PColor.White)));
+        book.close();
+    }
+    
+    @Test
+    public void castleComesBackAsACastle() throws IOException {
+        game.setFen("4k3/8/8/8/8/8/8/4K2R w K -");
+        int castle = Moves.find(game, PColor.White, "e1g1");
+        OpeningBook book = book(
+                new long[] { keys.key(game.getBoard(), PColor.White) },
+                new int[] { castle }, new int[] { 1 });
+        assertEquals(castle, book.probe(game, PColor.White));
+        book.close();
+    }
+    
+    @Test
+    public void getBestMovePlaysFromTheBook() throws IOException {
+        long start = keys.key(game.getBoard(), PColor.White);
+        OpeningBook book = book(new long[] { start },
+                new int[] { Moves.find(game, PColor.White, "a2a3") },
+                new int[] { 1 });
+        game.setOpeningBook(book);
+        Move best = game.getBestMove(PColor.White, 60000);
+        assertEquals(6, best.getR1());
+        assertEquals(0, best.getC1());
+        assertEquals(5, best.getR2());
+        book.close();
+    }
+}
@@ -0,0 +1,81 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+import chess.ai.ParallelSearch;
+import chess.ai.Search;
+import chess.ai.TranspositionTable;
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.EncodedMove;
+import chess.objects.Move;
+import chess.objects.PColor;
+
+public class ParallelSearchTester {
+    
+    Chess game = new Chess();
+    ForkJoinPool pool = new ForkJoinPool(3);
+    
+    @After
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+    
+    @Test
+    public void findsMateInOne() {
+        game.setFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        ParallelSearch search = new ParallelSearch(game,
+                new TranspositionTable(1), pool, 4);
+        search.setMaxDepth(3);
+        int move = search.findBestMove(PColor.White);
+        assertEquals("a1a8", EncodedMove.toString(move));
+        assertTrue(search.getScore() > Search.MATE - Search.MAX_DEPTH);
+    }
+    
+    @Test
+    public void helpersAddToNodes() {
+        ParallelSearch search = new ParallelSearch(game,
+                new TranspositionTable(1), pool, 4);
+        search.setTimeLimit(200);
+        assertTrue(search.findBestMove(PColor.White) != EncodedMove.NONE);
+        assertTrue(search.getDepth() >= 1);
+        assertTrue(search.getNodes() > 0);
+    }
+    
+    @Test
+    public void gameIsOnlyCopied() {
+        game.setFen(Perft.referencePosition(1));
+        long key = game.getBoard().getZobristKey(PColor.White);
+        ParallelSearch search = new ParallelSearch(game,
+                new TranspositionTable(1), pool, 4);
+        search.setTimeLimit(200);
+        search.findBestMove(PColor.White);
+        assertEquals(key, game.getBoard().getZobristKey(PColor.White));
+        assertEquals(Perft.expected(1, 2), game.perft(2, PColor.White));
+    }
+    
+    @Test
+    public void cancelledSearchHasNoMove() {
+        ParallelSearch search = new ParallelSearch(game,
+                new TranspositionTable(1), pool, 4);
+        search.cancel();
+        assertEquals(EncodedMove.NONE, search.findBestMove(PColor.White));
+    }
+    
+    @Test
+    public void getBestMoveWithThreads() {
+        game.setFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        game.setSearchThreads(4);
+        game.setSearchPool(pool);
+        Move move = game.getBestMove(PColor.White, 200);
+        assertEquals(3, move.getR2());
+        assertEquals(3, move.getC2());
+        assertEquals(4, game.snapshot().getSearchThreads());
+    }
+}
@@ -0,0 +1,139 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import chess.ai.PawnStructure;
+import chess.ai.PawnTable;
+import chess.ai.TaperedEvaluator;
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.BitBoard;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+public class PawnTableTester {
+    
+    Chess game = new Chess();
+    
+    private long structure(String fen) {
+        game.setFen(fen);
+        return PawnStructure.evaluate(game.getBoard().getBitBoard());
+    }
+    
+    @Test
+    public void sizeFitsTheMemory() {
+        PawnTable table = new PawnTable(1);
+        assertEquals(1024 * 1024 / PawnTable.ENTRY_BYTES, table.size());
+    }
+    
+    @Test
+    public void packKeepsNegativeScores() {
+        long entry = PawnTable.pack(-35, 120);
+        assertEquals(-35, PawnTable.midgame(entry));
+        assertEquals(120, PawnTable.endgame(entry));
+        entry = PawnTable.pack(40, -7);
+        assertEquals(40, PawnTable.midgame(entry));
+        assertEquals(-7, PawnTable.endgame(entry));
+    }
+    
+    @Test
+    public void secondLookupIsAHit() {
+        PawnTable table = new PawnTable(1);
+        BitBoard bits = game.getBoard().getBitBoard();
+        long first = table.probe(bits);
+        assertEquals(0, table.getHits());
+        assertEquals(1, table.getMisses());
+        assertEquals(first, table.probe(bits));
+        assertEquals(1, table.getHits());
+        table.clear();
+        assertEquals(0, table.getHits());
+        assertEquals(0, table.getMisses());
+    }
+    
+    @Test
+    public void cachedScoreMatchesStructure() {
+        PawnTable table = new PawnTable(1);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < Perft.referencePositions(); i++) {
+            PColor toMove = game.setFen(Perft.referencePosition(i));
+            BitBoard bits = game.getBoard().getBitBoard();
+            int count = game.generateMoves(toMove, moves);
+            for (int j = 0; j < count; j++) {
+                game.doMove(moves[j]);
+                assertEquals(PawnStructure.evaluate(bits),
+                        table.probe(bits));
+                assertEquals(PawnStructure.evaluate(bits),
+                        table.probe(bits));
+                game.undoMove();
+            }
+        }
+        assertTrue(table.getHits() > table.getMisses());
+    }
+    
+    @Test
+    public void startingPawnsAreEven() {
+        assertEquals(0L, structure(Perft.referencePosition(0)));
+    }
+    
+    @Test
+    public void passedPawnGrowsAsItAdvances() {
+        long back = structure("4k3/8/8/8/8/8/P7/4K3 w - -");
+        long ahead = structure("4k3/P7/8/8/8/8/8/4K3 w - -");
+        assertTrue(PawnTable.endgame(back) < PawnTable.endgame(ahead));
+        assertTrue(PawnTable.midgame(back) < PawnTable.midgame(ahead));
+    }
+    
+    @Test
+    public void blockedPawnIsNotPassed() {
+        long passed = structure("4k3/8/8/8/1P6/2P5/8/4K3 w - -");
+        assertEquals(20 + 35, PawnTable.endgame(passed));
+        // the a-Pawn stops b4 being passed and is isolated itself
+        long blocked = structure("4k3/p7/8/8/1P6/2P5/8/4K3 w - -");
+        assertEquals(20 + 15, PawnTable.endgame(blocked));
+    }
+    
+    @Test
+    public void passedPawnOnTheSeventhGetsTheTopBonus() {
+        // less the cost of being isolated
+        long white = structure("4k3/P7/8/8/8/8/8/4K3 w - -");
+        assertEquals(60 - 10, PawnTable.midgame(white));
+        assertEquals(110 - 15, PawnTable.endgame(white));
+        long black = structure("4k3/8/8/8/8/8/7p/4K3 w - -");
+        assertEquals(-(60 - 10), PawnTable.midgame(black));
+        assertEquals(-(110 - 15), PawnTable.endgame(black));
+    }
+    
+    @Test
+    public void doubledAndIsolatedPawnsCost() {
+        long healthy = structure("4k3/pp6/8/8/8/8/PP6/4K3 w - -");
+        long doubled = structure("4k3/pp6/8/8/8/P7/P7/4K3 w - -");
+        assertTrue(PawnTable.midgame(doubled) < PawnTable.midgame(healthy));
+        long isolated = structure("4k3/pp6/8/8/8/8/P1P5/4K3 w - -");
+        assertTrue(PawnTable.midgame(isolated)
+                < PawnTable.midgame(healthy));
+    }
+    
+    @Test
+    public void pawnKeyOnlyFollowsPawns() {
+        BitBoard bits = game.getBoard().getBitBoard();
+        game.setFen("4k3/pp6/8/8/8/8/PP6/4K3 w - -");
+        long key = bits.getPawnKey();
+        game.setFen("3qk3/pp6/8/8/8/8/PP6/R3K3 w - -");
+        assertEquals(key, bits.getPawnKey());
+        game.setFen("4k3/pp6/8/8/8/P7/1P6/4K3 w - -");
+        assertTrue(key != bits.getPawnKey());
+    }
+    
+    @Test
+    public void evaluatorUsesTheTable() {
+        TaperedEvaluator evaluator = new TaperedEvaluator();
+        game.setEvaluator(evaluator);
+        game.evaluate(PColor.White);
+        game.evaluate(PColor.Black);
+        assertEquals(1, evaluator.getPawnTable().getMisses());
+        assertEquals(1, evaluator.getPawnTable().getHits());
+    }
+}
@@ -0,0 +1,93 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+import chess.objects.Piece;
+
+public class PerftTester {
+    
+    Chess game = new Chess();
+    
+    @Test
+    public void initialPosition() {
+        assertEquals(1, game.perft(0, PColor.White));
+        assertEquals(20, game.perft(1, PColor.White));
+        assertEquals(400, game.perft(2, PColor.White));
+        assertEquals(8902, game.perft(3, PColor.White));
+    }
+    
+    @Test
+    public void perftLeavesBoardUnchanged() {
+        game.perft(3, PColor.White);
+        assertEquals(20, game.perft(1, PColor.White));
+        assertEquals(20, game.perft(1, PColor.Black));
+        assertEquals(0, game.getMoves().size());
+    }
+    
+    @Test
+    public void referencePositions() {
+        // Kiwipete, position 3 and 4 cover castling, en passant, pins
+        // and promotions
+        for (int i = 0; i < Perft.referencePositions(); i++) {
+            Perft perft = new Perft(Perft.referencePosition(i));
+            assertEquals(Perft.expected(i, 2), perft.perft(2));
+        }
+    }
+    
+    @Test
+    public void undoMoveRestoresSamePieces() {
+        game.setFen(Perft.referencePosition(1));
+        Piece[][] pieces = new Piece[8][8];
+        boolean[][] moved = new boolean[8][8];
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                pieces[row][col] = game.getPieceAt(row, col);
+                moved[row][col] = pieces[row][col] != null
+                        && pieces[row][col].hasMoved();
+            }
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = game.generateMoves(PColor.White, moves);
+        for (int i = 0; i < count; i++) {
+            game.doMove(moves[i]);
+            game.undoMove();
+        }
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                assertSame(pieces[row][col], game.getPieceAt(row, col));
+                if (pieces[row][col] != null)
+                    assertEquals(moved[row][col],
+                            pieces[row][col].hasMoved());
+            }
+        }
+        assertEquals(0, game.getMoves().size());
+    }
+    
+    @Test
+    public void makeMoveAgreesWithDoMove() {
+        // makeMove keeps the game's Stack of Moves, count with it too
+        game.setFen(Perft.referencePosition(1));
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = game.generateMoves(PColor.White, moves);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            game.makeMove(moves[i]);
+            nodes += game.perft(1, PColor.Black);
+            game.unMakeMove();
+        }
+        assertEquals(Perft.expected(1, 2), nodes);
+    }
+    
+    @Test
+    public void enPassantPosition() {
+        Perft perft = new Perft(Perft.referencePosition(2));
+        assertEquals(Perft.expected(2, 3), perft.perft(3));
+    }
+}
@@ -0,0 +1,238 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import chess.io.GameRecord;
+import chess.io.PgnGame;
+import chess.io.PgnReader;
+import chess.io.PgnWriter;
+import chess.io.San;
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.EncodedMove;
+import chess.objects.Fen;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+public class PgnTester {
+    
+    Chess game = new Chess();
+    San san = new San();
+    
+    /** A short game, a comment, a variation and an annotation in it */
+    private static final String OPERA = "[Event \"Paris\"]\n"
+            + "[Site \"Paris FRA\"]\n[Date \"1858.??.??\"]\n"
+            + "[Round \"?\"]\n[White \"Morphy, Paul\"]\n"
+            + "[Black \"Duke Karl / Count Isouard\"]\n"
+            + "[Result \"1-0\"]\n\n"
+            + "1. e4 e5 2. Nf3 d6 3. d4 Bg4 {This is a weak move}"
+            + " 4. dxe5 Bxf3 5. Qxf3 dxe5 6. Bc4 Nf6 7. Qb3 $1 Qe7\n"
+            + "8. Nc3 c6 9. Bg5 b5 10. Nxb5 cxb5 11. Bxb5+ Nbd7"
+            + " (11... Kd8 12. O-O-O+ Kc7 (12... Nbd7)) 12. O-O-O Rd8\n"
+            + "13. Rxd7 Rxd7 14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+ Nxb8"
+            + " 17. Rd8# 1-0\n";
+    
+    private PgnReader reader(String pgn, int bufferSize) {
+        return new PgnReader(Channels.newChannel(new ByteArrayInputStream(
+                pgn.getBytes(StandardCharsets.UTF_8))), bufferSize);
+    }
+    
+    private String write(PgnGame... games) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PgnWriter out = new PgnWriter(Channels.newChannel(bytes),
+                64)) {
+            for (PgnGame pgn : games)
+                out.writeGame(pgn);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    @Test
+    public void everyMoveRoundTripsThroughSan() {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int p = 0; p < Perft.referencePositions(); p++) {
+            PColor toMove = game.setFen(Perft.referencePosition(p));
+            int count = game.generateMoves(toMove, moves);
+            for (int i = 0; i < count; i++) {
+                String text = san.toSan(game, toMove, moves[i]);
+                assertEquals(text, moves[i], san.parse(game, toMove,
+                        text));
+            }
+        }
+    }
+    
+    @Test
+    public void sanOfSpecialMoves() {
+        PColor toMove = game.setFen(
+                "r3k2r/1P6/8/3pP3/8/1N3N2/8/R3KN1R w KQkq d6 0 1");
+        assertEquals("O-O-O", toSan(toMove, "e1c1"));
+        assertEquals("exd6", toSan(toMove, "e5d6"));
+        assertEquals("bxa8=N", toSan(toMove, "b7a8n"));
+        assertEquals("b8=Q+", toSan(toMove, "b7b8q"));
+        // three Knights reach d2, h4 only the one on f3
+        assertEquals("Nbd2", toSan(toMove, "b3d2"));
+        assertEquals("N1d2", toSan(toMove, "f1d2"));
+        assertEquals("Nf3d2", toSan(toMove, "f3d2"));
+        assertEquals("Nfd4", toSan(toMove, "f3d4"));
+        assertEquals("Nh4", toSan(toMove, "f3h4"));
+        game.setFen("7k/R7/8/8/8/8/8/1R5K w - - 0 1");
+        assertEquals("Rb8#", toSan(PColor.White, "b1b8"));
+        assertEquals("Ra8+", toSan(PColor.White, "a7a8"));
+    }
+    
+    @Test
+    public void lenientSanIsRead() {
+        PColor toMove = game.setFen(
+                "r3k2r/1P6/8/3pP3/8/1N3N2/8/R3KN1R w KQkq d6 0 1");
+        assertEquals("e1c1", parse(toMove, "0-0-0"));
+        assertEquals("b7b8q", parse(toMove, "b8Q!?"));
+        assertEquals("b7b8q", parse(toMove, "b8"));
+        assertEquals("e5d6", parse(toMove, "e5xd6"));
+        assertEquals("f3d2", parse(toMove, "Nf3-d2"));
+        assertEquals("f1d2", parse(toMove, "N1d2"));
+        assertEquals(EncodedMove.NONE, san.parse(game, toMove, "Nd2"));
+        assertEquals(EncodedMove.NONE, san.parse(game, toMove, "Qd4"));
+        assertEquals(EncodedMove.NONE, san.parse(game, toMove, "e9"));
+    }
+    
+    @Test
+    public void readsAGameWithCommentsAndVariations() throws IOException {
+        try (PgnReader in = reader(OPERA, 16)) {
+            PgnGame read = in.readGame();
+            assertEquals("Morphy, Paul", read.getTag("White"));
+            assertEquals("1-0", read.getResult());
+            assertEquals(33, read.getMoveCount());
+            assertEquals(GameRecord.WHITE_WINS, read.toRecord().getResult());
+            assertEquals("1-0", PgnGame.of(read.toRecord()).getResult());
+            Chess played = read.toGame();
+            assertEquals(0, played.generateMoves(PColor.Black,
+                    new int[MoveGenerator.MAX_MOVES]));
+            assertTrue(played.isKingInCheckStill(PColor.Black));
+            assertNull(in.readGame());
+        }
+    }
+    
+    @Test
+    public void readsCastlesWrittenWithZeros() throws IOException {
+        String pgn = "1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. 0-0 Nf6 5. d3 d6 "
+                + "6. Bg5 Be6 7. Nc3 Qd7 8. Nd5 0-0-0 *\n";
+        try (PgnReader in = reader(pgn, 16)) {
+            PgnGame read = in.readGame();
+            assertEquals(16, read.getMoveCount());
+            int[] moves = read.getMoves();
+            assertEquals("e1g1", EncodedMove.toString(moves[6]));
+            assertEquals("e8c8", EncodedMove.toString(moves[15]));
+        }
+    }
+    
+    @Test
+    public void writesWhatItReads() throws IOException {
+        PgnGame read;
+        try (PgnReader in = reader(OPERA, 4096)) {
+            read = in.readGame();
+        }
+        String written = write(read);
+        assertTrue(written.startsWith("[Event \"Paris\"]\n"));
+        assertTrue(written.contains("16. Qb8+ Nxb8 17. Rd8# 1-0\n\n"));
+        for (String line : written.split("\n"))
+            assertTrue(line, line.length() <= 79);
+        try (PgnReader in = reader(written, 4096)) {
+            PgnGame again = in.readGame();
+            assertEquals(read.getTags(), again.getTags());
+            assertEquals(read.getMoveCount(), again.getMoveCount());
+            assertEquals(written, write(again));
+        }
+    }
+    
+    @Test
+    public void customStartAndMissingTags() throws IOException {
+        PgnGame pgn = new PgnGame();
+        pgn.setStartFen("4k3/8/8/8/8/8/4P3/4K3 b - - 0 30");
+        game.setFen(pgn.getStartFen());
+        pgn.addMove(Moves.find(game, PColor.Black, "e8d7"));
+        game.makeMove(pgn.getMoves()[0]);
+        pgn.addMove(Moves.find(game, PColor.White, "e2e4"));
+        pgn.setTag("Annotator", "a \"quoted\" name\\");
+        String written = write(pgn);
+        assertTrue(written.contains("[Date \"????.??.??\"]"));
+        assertTrue(written.contains("[Result \"*\"]"));
+        assertTrue(written.contains("[Annotator \"a \\\"quoted\\\" name\\\\\"]"));
+        assertTrue(written.contains("\n30... Kd7 31. e4 *\n"));
+        try (PgnReader in = reader(written, 4096)) {
+            PgnGame read = in.readGame();
+            assertEquals("a \"quoted\" name\\", read.getTag("Annotator"));
+            assertEquals(pgn.getStartFen(), read.getTag("FEN"));
+            assertEquals("8/3k4/8/8/4P3/8/8/4K3 b - e3 0 31", read.toGame()
+                    .getFen(PColor.Black));
+            assertEquals(pgn.toRecord().getStart(),
+                    read.toRecord().getStart());
+        }
+    }
+    
+    @Test
+    public void badGameIsSkipped() throws IOException {
+        String pgn = "[Event \"one\"]\n\n1. e4 e5 2. Ke3 Nc6 3. Bb5 1-0\n"
+                + "\n[Event \"two\"]\n\n1. d4 d5 *\n"
+                + "\n1. c4 {no tags and no result}";
+        try (PgnReader in = reader(pgn, 8)) {
+            try {
+                in.next();
+                throw new AssertionError("Ke3 was read");
+            } catch (UncheckedIOException e) {
+                assertTrue(e.getMessage().contains("Ke3"));
+            }
+            assertEquals("two", in.next().getTag("Event"));
+            PgnGame last = in.next();
+            assertEquals(1, last.getMoveCount());
+            assertEquals(PgnGame.UNKNOWN, last.getResult());
+            assertFalse(in.hasNext());
+            assertEquals(3, in.getGameCount());
+        }
+    }
+    
+    @Test
+    public void gameWithoutResultEndsAtNextTags() throws IOException {
+        String pgn = "[Event \"one\"]\n1. e4\n[Event \"two\"]\n1. d4 *";
+        try (PgnReader in = reader(pgn, 4096)) {
+            assertEquals("e2e4", EncodedMove.toString(
+                    in.readGame().getMoves()[0]));
+            assertEquals("two", in.readGame().getTag("Event"));
+        }
+    }
+    
+    @Test
+    public void manyGamesInSmallBuffers() throws IOException {
+        StringBuilder pgn = new StringBuilder();
+        for (int i = 0; i < 200; i++)
+            pgn.append(OPERA).append('\n');
+        int games = 0;
+        try (PgnReader in = reader(pgn.toString(), 100)) {
+            while (in.hasNext()) {
+                assertEquals(33, in.next().getMoveCount());
+                games++;
+            }
+        }
+        assertEquals(200, games);
+    }
+    
+    private String toSan(PColor toMove, String move) {
+        return san.toSan(game, toMove, Moves.find(game, toMove, move));
+    }
+    
+    private String parse(PColor toMove, String text) {
+        return EncodedMove.toString(san.parse(game, toMove, text));
+    }
+    
+}
@@ -10,10 +10,13 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 import chess.main.Chess;
+import chess.objects.BitBoard;
 import chess.objects.Board;
+import chess.objects.Knight;
 import chess.objects.PColor;
 import chess.objects.Pawn;
 import chess.objects.Piece;
+import chess.objects.Queen;
 
 /**
  * @author andy
@@ -58,4 +61,32 @@ public class PieceTester {
         game.isFutureCheck(6, 6, 4, 6, game.getPieceAt(6, 6));
         assertFalse(game.getPieceAt(6, 6).hasMoved());
     }
+    
+    @Test
+    public void pieceTypeAndCode() {
+        assertEquals(BitBoard.PAWN, whitePawn.getType());
+        assertEquals(PColor.White.ordinal() * BitBoard.TYPES
+                + BitBoard.PAWN, whitePawn.getCode());
+        Knight knight = new Knight(PColor.Black);
+        assertEquals(BitBoard.KNIGHT, knight.getType());
+        assertEquals(BitBoard.KNIGHT, knight.getCode());
+        assertEquals("Knight", knight.getName());
+        assertEquals("\u265e", knight.getIcon());
+    }
+    
+    @Test
+    public void plainPieceHasNoType() {
+        Piece piece = new Piece(PColor.White);
+        assertEquals(Piece.NONE, piece.getType());
+        assertEquals(Piece.NONE, piece.getCode());
+        assertEquals("", piece.getName());
+        assertEquals("", piece.getIcon());
+    }
+    
+    @Test
+    public void nameSetsType() {
+        Piece piece = new Piece(PColor.Black, "Queen");
+        assertEquals(BitBoard.QUEEN, piece.getType());
+        assertEquals(new Queen(PColor.Black).getIcon(), piece.getIcon());
+    }
 }
@@ -0,0 +1,104 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.BitBoard;
+import chess.objects.EncodedMove;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+import chess.objects.Position;
+
+public class PositionTester {
+    
+    Chess game = new Chess();
+    
+    @Test
+    public void keyMatchesBoard() {
+        for (int i = 0; i < Perft.referencePositions(); i++) {
+            PColor toMove = game.setFen(Perft.referencePosition(i));
+            Position position = game.getPosition(toMove);
+            assertEquals(game.getBoard().getZobristKey(toMove),
+                    position.getKey());
+            assertEquals(game.getBoard().getCastlingRights(),
+                    position.getCastlingRights());
+        }
+    }
+    
+    @Test
+    public void movesMatchGame() {
+        int[] expected = new int[MoveGenerator.MAX_MOVES];
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < Perft.referencePositions(); i++) {
+            PColor toMove = game.setFen(Perft.referencePosition(i));
+            int count = game.generateMoves(toMove, expected);
+            assertEquals(count,
+                    game.getPosition(toMove).generateMoves(moves));
+            Arrays.sort(expected, 0, count);
+            Arrays.sort(moves, 0, count);
+            for (int j = 0; j < count; j++)
+                assertEquals(expected[j], moves[j]);
+        }
+    }
+    
+    @Test
+    public void gameFromPositionIsTheSame() {
+        for (int i = 0; i < Perft.referencePositions(); i++) {
+            PColor toMove = game.setFen(Perft.referencePosition(i));
+            Position position = game.getPosition(toMove);
+            Chess copy = new Chess(position);
+            assertEquals(position, copy.getPosition(toMove));
+            assertEquals(Perft.expected(i, 2), copy.perft(2, toMove));
+        }
+    }
+    
+    @Test
+    public void unchangedByTheGame() {
+        Position position = game.getPosition(PColor.White);
+        game.doMove(EncodedMove.encode(BitBoard.square(6, 4),
+                BitBoard.square(4, 4), EncodedMove.DOUBLE_PUSH));
+        assertEquals(BitBoard.PAWN, position.getType(BitBoard.square(6, 4)));
+        assertNull(position.getColor(BitBoard.square(4, 4)));
+        assertEquals(0L, position.getPassant());
+        assertFalse(position.equals(game.getPosition(PColor.Black)));
+        game.undoMove();
+        assertEquals(position, game.getPosition(PColor.White));
+    }
+    
+    @Test
+    public void sideToMoveInCheck() {
+        game.setFen("4k3/8/8/8/8/8/8/4R1K1 b - - 0 1");
+        assertTrue(game.getPosition(PColor.Black).isInCheck());
+        assertFalse(game.getPosition(PColor.White).isInCheck());
+    }
+    
+    @Test
+    public void readByManyThreads() throws Exception {
+        PColor toMove = game.setFen(Perft.referencePosition(1));
+        final Position position = game.getPosition(toMove);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            @SuppressWarnings("unchecked")
+            Future<Long>[] counts = new Future[8];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = pool.submit(() -> new Chess(position).perft(2,
+                        position.getToMove()));
+            }
+            for (Future<Long> count : counts)
+                assertEquals(Perft.expected(1, 2), (long) count.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
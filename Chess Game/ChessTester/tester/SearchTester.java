@@ -0,0 +1,118 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import chess.ai.Search;
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.BitBoard;
+import chess.objects.EncodedMove;
+import chess.objects.Move;
+import chess.objects.PColor;
+
+public class SearchTester {
+    
+    Chess game = new Chess();
+    
+    @Test
+    public void findsMateInOne() {
+        game.setFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        Search search = new Search(game);
+        search.setMaxDepth(3);
+        int move = search.findBestMove(PColor.White);
+        assertEquals("a1a8", EncodedMove.toString(move));
+        assertTrue(search.getScore() > Search.MATE - Search.MAX_DEPTH);
+    }
+    
+    @Test
+    public void capturesHangingQueen() {
+        game.setFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        Move move = game.getBestMove(PColor.White, 200);
+        assertEquals(6, move.getR1());
+        assertEquals(3, move.getC1());
+        assertEquals(3, move.getR2());
+        assertEquals(3, move.getC2());
+    }
+    
+    @Test
+    public void blackAvoidsLosingQueen() {
+        // Black's queen is attacked by the pawn and has to move away
+        game.setFen("4k3/8/8/3q4/4P3/8/8/4K3 b - - 0 1");
+        Search search = new Search(game);
+        search.setMaxDepth(2);
+        int move = search.findBestMove(PColor.Black);
+        assertEquals(BitBoard.square(3, 3), EncodedMove.from(move));
+    }
+    
+    @Test
+    public void stopsAtNodeLimit() {
+        Search search = new Search(game);
+        search.setNodeLimit(2000);
+        int move = search.findBestMove(PColor.White);
+        assertTrue(move != EncodedMove.NONE);
+        assertTrue(search.getNodes() < 2000 + 1024);
+    }
+    
+    @Test
+    public void searchLeavesBoardUnchanged() {
+        game.setFen(Perft.referencePosition(1));
+        game.negaMax(3, PColor.White);
+        assertEquals(0, game.getMoves().size());
+        assertEquals(Perft.expected(1, 2), game.perft(2, PColor.White));
+    }
+    
+    @Test
+    public void noMoveWhenMated() {
+        game.setFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        assertNull(game.getBestMove(PColor.Black, 100));
+        assertEquals(-Search.MATE, game.negaMax(2, PColor.Black));
+    }
+    
+    @Test
+    public void cancelledSearchHasNoMove() {
+        Search search = new Search(game);
+        search.cancel();
+        assertEquals(EncodedMove.NONE, search.findBestMove(PColor.White));
+        assertTrue(search.isCancelled());
+        assertEquals(Perft.expected(0, 2), game.perft(2, PColor.White));
+    }
+    
+    @Test
+    public void snapshotIsSearchedSeparately() {
+        game.setFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        Chess copy = game.snapshot();
+        assertEquals(game.getBoard().getZobristKey(PColor.White),
+                copy.getBoard().getZobristKey(PColor.White));
+        copy.doMove(EncodedMove.encode(BitBoard.square(6, 3),
+                BitBoard.square(3, 3), EncodedMove.CAPTURE));
+        assertTrue(game.getPieceAt(3, 3) != copy.getPieceAt(3, 3));
+        assertEquals(PColor.Black, game.getPieceAt(3, 3).getColor());
+        assertEquals(game.getTranspositionTable(),
+                copy.getTranspositionTable());
+    }
+    
+    @Test
+    public void quiescenceSeesRecapture() {
+        // Qxd5 wins a Pawn at depth 1 but cxd5 takes the Queen back
+        game.setFen("4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1");
+        Search search = new Search(game);
+        search.setMaxDepth(1);
+        int move = search.findBestMove(PColor.White);
+        assertTrue(EncodedMove.to(move) != BitBoard.square(3, 3));
+    }
+    
+    @Test
+    public void quiescenceFindsWinningExchange() {
+        // Rxd5 loses the Rook to the Queen but Bxd5 wins the Queen
+        game.setFen("3qk3/8/8/3n4/8/5B2/3R4/4K3 w - - 0 1");
+        Search search = new Search(game);
+        search.setMaxDepth(1);
+        search.findBestMove(PColor.White);
+        int oneMove = search.getScore();
+        assertTrue(oneMove > game.evaluate(PColor.White));
+    }
+}
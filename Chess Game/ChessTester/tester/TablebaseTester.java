@@ -0,0 +1,113 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import chess.ai.Search;
+import chess.ai.Tablebase;
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.BitBoard;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+public class TablebaseTester {
+    
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+    
+    static Tablebase tablebase;
+    Chess game = new Chess();
+    
+    @BeforeClass
+    public static void generate() throws IOException {
+        Tablebase.generate(folder.getRoot().toPath());
+        tablebase = new Tablebase(folder.getRoot().toPath());
+    }
+    
+    private int probe(String fen) {
+        PColor toMove = game.setFen(fen);
+        return tablebase.probe(game.getBoard(), toMove, 0);
+    }
+    
+    @Test
+    public void everyTableIsFound() {
+        assertTrue(tablebase.hasTable(BitBoard.QUEEN));
+        assertTrue(tablebase.hasTable(BitBoard.ROOK));
+        assertTrue(tablebase.hasTable(BitBoard.PAWN));
+        assertTrue(!tablebase.hasTable(BitBoard.KNIGHT));
+    }
+    
+    @Test
+    public void mateInOne() {
+        assertEquals(Search.MATE - 1, probe("6k1/8/6K1/8/8/8/8/Q7 w - -"));
+        assertEquals(Search.MATE - 1, probe("6k1/8/6K1/8/8/8/8/R7 w - -"));
+    }
+    
+    @Test
+    public void matedSideScoresLost() {
+        assertEquals(-Search.MATE, probe("Q5k1/8/6K1/8/8/8/8/8 b - -"));
+    }
+    
+    @Test
+    public void blackCanBeTheStrongSide() {
+        assertEquals(Search.MATE - 1, probe("q7/8/8/8/8/6k1/8/6K1 b - -"));
+        assertTrue(probe("q7/8/8/8/8/6k1/8/6K1 w - -") < 0);
+    }
+    
+    @Test
+    public void drawsScoreZero() {
+        // stalemate, a hanging Queen and the endings that can't be won
+        assertEquals(0, probe("k7/2Q5/1K6/8/8/8/8/8 b - -"));
+        assertEquals(0, probe("8/8/8/3k4/3Q4/8/8/7K b - -"));
+        assertEquals(0, probe("8/8/8/3k4/8/8/8/7K w - -"));
+        assertEquals(0, probe("8/8/8/3k4/3N4/8/8/7K w - -"));
+    }
+    
+    @Test
+    public void kingAndPawn() {
+        // the defending King has the opposition in front of the Pawn
+        assertEquals(0, probe("8/8/8/8/8/4k3/4P3/4K3 w - -"));
+        // the King on the sixth row in front of its Pawn always wins
+        assertTrue(probe("4k3/8/4K3/4P3/8/8/8/8 w - -") > 0);
+        assertTrue(probe("4k3/8/4K3/4P3/8/8/8/8 b - -") < 0);
+    }
+    
+    @Test
+    public void unknownPositions() {
+        assertEquals(Tablebase.UNKNOWN, probe(Perft.referencePosition(0)));
+        assertEquals(Tablebase.UNKNOWN,
+                probe("8/8/8/3k4/3R4/3R4/8/7K w - -"));
+        // the Rook can still castle, which the tables don't know about
+        assertEquals(Tablebase.UNKNOWN,
+                probe("8/8/8/3k4/8/8/8/4K2R w K -"));
+    }
+    
+    @Test
+    public void searchPlaysToMate() {
+        game.setTablebase(tablebase);
+        PColor toMove = game.setFen("8/8/8/3k4/8/8/8/R3K3 w - -");
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int plies = 0;
+        while (game.generateMoves(toMove, moves) > 0) {
+            assertTrue("no mate after " + plies + " plies", plies < 40);
+            Search search = new Search(game);
+            search.setMaxDepth(1);
+            int move = search.findBestMove(toMove);
+            assertTrue(search.getTablebaseHits() > 0);
+            game.doMove(move);
+            toMove = toMove == PColor.White ? PColor.Black : PColor.White;
+            plies++;
+        }
+        assertEquals(PColor.Black, toMove);
+        assertTrue(game.isKingInCheckStill(PColor.Black));
+        assertEquals(1, plies % 2);
+    }
+}
@@ -0,0 +1,80 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import chess.ai.Search;
+import chess.ai.TranspositionTable;
+import chess.main.Chess;
+import chess.objects.PColor;
+
+public class TranspositionTableTester {
+    
+    TranspositionTable table = new TranspositionTable(1);
+    
+    @Test
+    public void sizeFitsMemory() {
+        assertEquals(1024 * 1024 / TranspositionTable.ENTRY_BYTES,
+                table.size());
+        assertTrue(new TranspositionTable(3).size()
+                * TranspositionTable.ENTRY_BYTES <= 3 * 1024 * 1024);
+    }
+    
+    @Test
+    public void storeAndProbe() {
+        table.store(12345L, 777, -150, 6, TranspositionTable.LOWER);
+        long entry = table.probe(12345L);
+        assertEquals(777, TranspositionTable.move(entry));
+        assertEquals(-150, TranspositionTable.score(entry));
+        assertEquals(6, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER,
+                TranspositionTable.bound(entry));
+        assertEquals(0L, table.probe(54321L));
+    }
+    
+    @Test
+    public void samePositionKeepsMove() {
+        table.store(99L, 321, 10, 2, TranspositionTable.EXACT);
+        table.store(99L, 0, 20, 3, TranspositionTable.UPPER);
+        long entry = table.probe(99L);
+        assertEquals(321, TranspositionTable.move(entry));
+        assertEquals(20, TranspositionTable.score(entry));
+    }
+    
+    @Test
+    public void shallowEntryIsReplaced() {
+        long stride = table.size();
+        // Three positions in the same bucket of two
+        table.store(4L, 1, 0, 8, TranspositionTable.EXACT);
+        table.store(4L + stride, 2, 0, 2, TranspositionTable.EXACT);
+        table.store(4L + 2 * stride, 3, 0, 5, TranspositionTable.EXACT);
+        assertEquals(1, TranspositionTable.move(table.probe(4L)));
+        assertEquals(0L, table.probe(4L + stride));
+        assertEquals(3, TranspositionTable.move(table.probe(4L + 2
+                * stride)));
+    }
+    
+    @Test
+    public void oldSearchIsReplacedFirst() {
+        long stride = table.size();
+        table.store(4L, 1, 0, 8, TranspositionTable.EXACT);
+        table.newSearch();
+        table.store(4L + stride, 2, 0, 2, TranspositionTable.EXACT);
+        table.store(4L + 2 * stride, 3, 0, 1, TranspositionTable.EXACT);
+        assertEquals(0L, table.probe(4L));
+        assertEquals(2, TranspositionTable.move(table.probe(4L + stride)));
+    }
+    
+    @Test
+    public void tableGivesSameScore() {
+        Chess game = new Chess();
+        int plain = new Search(game, new TranspositionTable(1))
+                .search(PColor.White, 3);
+        TranspositionTable shared = new TranspositionTable(1);
+        new Search(game, shared).search(PColor.White, 2);
+        assertEquals(plain, new Search(game, shared).search(PColor.White,
+                3));
+    }
+}
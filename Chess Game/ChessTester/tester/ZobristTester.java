@@ -0,0 +1,90 @@
+package tester;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import chess.main.Chess;
+import chess.main.Perft;
+import chess.objects.BitBoard;
+import chess.objects.EncodedMove;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+public class ZobristTester {
+    
+    Chess game = new Chess();
+    
+    private int move(String from, String to, int flags) {
+        return EncodedMove.encode(square(from), square(to), flags);
+    }
+    
+    private int square(String name) {
+        return BitBoard.square(8 - (name.charAt(1) - '0'),
+                name.charAt(0) - 'a');
+    }
+    
+    @Test
+    public void sideToMoveChangesKey() {
+        assertFalse(game.getBoard().getZobristKey(PColor.White) == game
+                .getBoard().getZobristKey(PColor.Black));
+    }
+    
+    @Test
+    public void unMakeMoveRestoresKey() {
+        game.setFen(Perft.referencePosition(1));
+        long key = game.getBoard().getZobristKey(PColor.White);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = game.generateMoves(PColor.White, moves);
+        for (int i = 0; i < count; i++) {
+            game.makeMove(moves[i]);
+            assertFalse(key == game.getBoard()
+                    .getZobristKey(PColor.Black));
+            game.unMakeMove();
+            assertEquals(key, game.getBoard().getZobristKey(PColor.White));
+        }
+    }
+    
+    @Test
+    public void transpositionsHaveSameKey() {
+        Chess other = new Chess();
+        game.makeMove(move("g1", "f3", EncodedMove.QUIET));
+        game.makeMove(move("g8", "f6", EncodedMove.QUIET));
+        game.makeMove(move("b1", "c3", EncodedMove.QUIET));
+        other.makeMove(move("b1", "c3", EncodedMove.QUIET));
+        other.makeMove(move("g8", "f6", EncodedMove.QUIET));
+        other.makeMove(move("g1", "f3", EncodedMove.QUIET));
+        assertEquals(game.getBoard().getZobristKey(PColor.Black),
+                other.getBoard().getZobristKey(PColor.Black));
+    }
+    
+    @Test
+    public void castlingRightsChangeKey() {
+        game.setFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        long key = game.getBoard().getZobristKey(PColor.White);
+        // The Rook goes there and back but the right is lost
+        game.makeMove(move("h1", "h2", EncodedMove.QUIET));
+        game.makeMove(move("a8", "a7", EncodedMove.QUIET));
+        game.makeMove(move("h2", "h1", EncodedMove.QUIET));
+        game.makeMove(move("a7", "a8", EncodedMove.QUIET));
+        assertFalse(key == game.getBoard().getZobristKey(PColor.White));
+    }
+    
+    @Test
+    public void enPassantChangesKey() {
+        game.makeMove(move("e2", "e4", EncodedMove.DOUBLE_PUSH));
+        Chess other = new Chess();
+        other.makeMove(move("e2", "e3", EncodedMove.QUIET));
+        other.makeMove(move("e7", "e6", EncodedMove.QUIET));
+        other.makeMove(move("e3", "e4", EncodedMove.QUIET));
+        other.unMakeMove();
+        other.unMakeMove();
+        other.unMakeMove();
+        other.makeMove(move("e2", "e4", EncodedMove.QUIET));
+        assertTrue(game.getBoard().getBitBoard().getPassant() != 0);
+        assertFalse(game.getBoard().getZobristKey(PColor.Black) == other
+                .getBoard().getZobristKey(PColor.Black));
+    }
+}
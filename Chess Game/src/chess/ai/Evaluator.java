@@ -0,0 +1,27 @@
+package chess.ai;
+
+import chess.main.Chess;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Scores a position for the Search. Chess.evaluate hands the work to
+ * the Evaluator set with Chess.setEvaluator, so a different way of
+ * scoring can be tried without touching the search.
+ *
+ * The score is from the point of view of the color asked for, so the
+ * same position scored for the other color gives the negated score,
+ * in tenths of a Pawn like Piece.getScore. The search calls this at
+ * every leaf, so it should not walk the board when the BitBoard
+ * already keeps what it needs.
+ **********************************************************************/
+public interface Evaluator {
+
+    /*******************************************************************
+     * Scores the position of a game
+     *
+     * @param game is the game to score
+     * @param color is the PColor to score for, usually the one to move
+     * @return the score, positive if color is ahead
+     ******************************************************************/
+    int evaluate(Chess game, PColor color);
+}
@@ -0,0 +1,21 @@
+package chess.ai;
+
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Scores a position by each color's Pieces' getScore and the weight
+ * of their squares, the first evaluation the AI had. The BitBoard
+ * keeps both totals as the Pieces move, so this is O(1).
+ **********************************************************************/
+public class MaterialEvaluator implements Evaluator {
+
+    @Override
+    public int evaluate(Chess game, PColor color) {
+        BitBoard bits = game.getBoard().getBitBoard();
+        PColor other = color == PColor.White ? PColor.Black
+                : PColor.White;
+        return bits.getScore(color) - bits.getScore(other);
+    }
+}
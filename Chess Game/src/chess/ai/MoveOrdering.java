@@ -0,0 +1,222 @@
+package chess.ai;
+
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.EncodedMove;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Decides the order a Search tries the moves of a node in. Alpha-beta
+ * prunes the most when the best move comes first, so the moves most
+ * likely to be best are tried first:
+ *
+ * 1. the hash move, the best move the table remembers for the node
+ * 2. captures and Queen promotions, the most valuable victim first and
+ *    of those the least valuable attacker first (MVV-LVA), using
+ *    Piece.getScore
+ * 3. the two killer moves of the ply, quiet moves that recently caused
+ *    a cutoff in a sibling node
+ * 4. the other quiet moves by their history, how often and how deep
+ *    they caused cutoffs anywhere in the tree
+ * 5. promotions to anything but a Queen
+ *
+ * Moves are picked one at a time instead of sorted up front, because
+ * after a cutoff the rest of the list is never looked at.
+ **********************************************************************/
+public class MoveOrdering {
+
+    /** Order score of the hash move, before everything else */
+    private static final int HASH_MOVE = Integer.MAX_VALUE;
+    /** Added to every capture and Queen promotion */
+    private static final int CAPTURE = 1 << 30;
+    /** Shift of the victim's score, the attacker's only breaks ties */
+    private static final int VICTIM_SHIFT = 20;
+    /** Most an attacker's score takes off, below one victim step */
+    private static final int MAX_ATTACKER = (1 << VICTIM_SHIFT) - 1;
+    /** Added to a Queen promotion, as if it captured a little */
+    private static final int QUEEN_PROMOTION = 1 << (VICTIM_SHIFT - 1);
+    /** Order scores of the first and second killer move */
+    private static final int KILLER = 1 << 29;
+    /** History scores are halved when one grows past this */
+    private static final int MAX_HISTORY = 1 << 28;
+    /** Order score of a promotion to a Knight, Bishop or Rook */
+    private static final int UNDER_PROMOTION = -1;
+
+    /** Two killer moves of every ply, the newest first */
+    private int[][] killers;
+    /** Cutoff history by PColor ordinal, from square and to square */
+    private int[][][] history;
+    /** Order scores of the moves of every ply */
+    private int[][] scores;
+
+    /*******************************************************************
+     * Constructor with empty killers and history
+     ******************************************************************/
+    public MoveOrdering() {
+        killers = new int[Search.MAX_DEPTH + 1][2];
+        history = new int[2][64][64];
+        scores = new int[Search.MAX_DEPTH + 1][MoveGenerator.MAX_MOVES];
+    }
+
+    /*******************************************************************
+     * Gets ready for a new search. Killers only make sense in the tree
+     * they were found in so they are forgotten, the history is halved
+     * so it still helps but newer cutoffs soon count for more.
+     ******************************************************************/
+    public void newSearch() {
+        for (int[] ply : killers) {
+            ply[0] = EncodedMove.NONE;
+            ply[1] = EncodedMove.NONE;
+        }
+        ageHistory();
+    }
+
+    /*******************************************************************
+     * Scores the moves of a node so pickNext can hand them out best
+     * first
+     *
+     * @param game is the game, as it is at the node
+     * @param moves is the list of moves
+     * @param count is the number of moves
+     * @param hashMove is the move to try first, or NONE
+     * @param ply is how many plies from the root the node is
+     * @param color is the PColor to move
+     ******************************************************************/
+    public void score(Chess game, int[] moves, int count, int hashMove,
+            int ply, PColor color) {
+        int[] order = scores[ply];
+        int[][] fromTo = history[color.ordinal()];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move == hashMove)
+                order[i] = HASH_MOVE;
+            else if (EncodedMove.isCapture(move)
+                    || isQueenPromotion(move))
+                order[i] = captureScore(game, move);
+            else if (EncodedMove.isPromotion(move))
+                order[i] = UNDER_PROMOTION;
+            else if (move == killers[ply][0])
+                order[i] = KILLER + 1;
+            else if (move == killers[ply][1])
+                order[i] = KILLER;
+            else
+                order[i] = fromTo[EncodedMove.from(move)][EncodedMove
+                        .to(move)];
+        }
+    }
+
+    /*******************************************************************
+     * Swaps the best of the moves not tried yet to the index
+     *
+     * @param moves is the list of moves scored for the ply
+     * @param index is the position of the next move to try
+     * @param count is the number of moves
+     * @param ply is the ply the moves were scored for
+     * @return the move now at the index
+     ******************************************************************/
+    public int pickNext(int[] moves, int index, int count, int ply) {
+        int[] order = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (order[i] > order[best])
+                best = i;
+        }
+        if (best != index) {
+            int move = moves[best];
+            moves[best] = moves[index];
+            moves[index] = move;
+            int score = order[best];
+            order[best] = order[index];
+            order[index] = score;
+        }
+        return moves[index];
+    }
+
+    /*******************************************************************
+     * Remembers a move that caused a cutoff. Only quiet moves become
+     * killers or gain history, captures are ordered well already.
+     *
+     * @param move is the move that scored at least beta
+     * @param depth is the depth left at the node
+     * @param ply is how many plies from the root the node is
+     * @param color is the PColor that made the move
+     ******************************************************************/
+    public void cutoff(int move, int depth, int ply, PColor color) {
+        if (EncodedMove.isCapture(move) || EncodedMove.isPromotion(move))
+            return;
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] to = history[color.ordinal()][EncodedMove.from(move)];
+        to[EncodedMove.to(move)] += depth * depth;
+        if (to[EncodedMove.to(move)] > MAX_HISTORY)
+            ageHistory();
+    }
+
+    /*******************************************************************
+     * Gets a killer move of a ply
+     *
+     * @param ply is how many plies from the root
+     * @param slot is 0 for the newest killer, 1 for the older one
+     * @return the killer move, or NONE
+     ******************************************************************/
+    public int getKiller(int ply, int slot) {
+        return killers[ply][slot];
+    }
+
+    /*******************************************************************
+     * Gets the history score of a quiet move
+     *
+     * @param color is the PColor that makes the move
+     * @param move is the move
+     * @return how much the move caused cutoffs
+     ******************************************************************/
+    public int getHistory(PColor color, int move) {
+        return history[color.ordinal()][EncodedMove.from(move)][EncodedMove
+                .to(move)];
+    }
+
+    /*******************************************************************
+     * Scores a capture or Queen promotion, MVV-LVA
+     ******************************************************************/
+    private static int captureScore(Chess game, int move) {
+        int from = EncodedMove.from(move);
+        int to = EncodedMove.to(move);
+        int victim = 0;
+        if (EncodedMove.flags(move) == EncodedMove.EN_PASSANT)
+            victim = game.getPieceAt(BitBoard.row(from), BitBoard.col(to))
+                    .getScore();
+        else if (EncodedMove.isCapture(move))
+            victim = game.getPieceAt(BitBoard.row(to), BitBoard.col(to))
+                    .getScore();
+        int attacker = game.getPieceAt(BitBoard.row(from),
+                BitBoard.col(from)).getScore();
+        int score = CAPTURE + (victim << VICTIM_SHIFT)
+                - Math.min(attacker, MAX_ATTACKER);
+        if (isQueenPromotion(move))
+            score += QUEEN_PROMOTION;
+        return score;
+    }
+
+    /*******************************************************************
+     * Checks whether a move promotes to a Queen
+     ******************************************************************/
+    private static boolean isQueenPromotion(int move) {
+        return EncodedMove.isPromotion(move)
+                && EncodedMove.promotionType(move) == BitBoard.QUEEN;
+    }
+
+    /*******************************************************************
+     * Halves every history score
+     ******************************************************************/
+    private void ageHistory() {
+        for (int[][] color : history) {
+            for (int[] from : color) {
+                for (int to = 0; to < from.length; to++)
+                    from[to] >>= 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package chess.ai;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.EncodedMove;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Plays known openings from a polyglot .bin book instead of searching.
+ *
+ * A book is a file of 16 byte entries sorted by key: the PolyglotKey
+ * of a position, a move, a weight and four bytes of learning data
+ * that are ignored, all big-endian. The file is mapped into memory and
+ * never read onto the heap, a lookup is a binary search for the first
+ * entry of the key and a walk over the ones after it, so a book of
+ * hundreds of megabytes costs little more than a small one. The OS
+ * only pages in what lookups touch.
+ *
+ * Of the moves a book has for a position, one is picked at random by
+ * weight, so the AI doesn't always play the same opening. Moves that
+ * aren't legal, from a book keyed with other numbers say, are skipped.
+ * The mapped file is only read, so one book can be probed by several
+ * threads at once.
+ **********************************************************************/
+public class OpeningBook implements Closeable {
+
+    /** Bytes taken by one entry */
+    public static final int ENTRY_BYTES = 16;
+
+    /** Is the open book file */
+    private final FileChannel channel;
+    /** Are the entries, mapped from the file */
+    private final MappedByteBuffer entries;
+    /** Is the number of entries */
+    private final int count;
+    /** Hashes positions the way the book was written */
+    private final PolyglotKey keys;
+    /** Picks between the moves of a position */
+    private Random random;
+
+    /*******************************************************************
+     * Constructor that opens a book keyed with the standard Random64
+     * table of the polyglot specification
+     *
+     * @param file is the .bin book
+     * @throws IOException if the file can't be opened or mapped
+     ******************************************************************/
+    public OpeningBook(Path file) throws IOException {
+        this(file, new PolyglotKey());
+    }
+
+    /*******************************************************************
+     * Constructor that opens a book keyed with the specified numbers
+     *
+     * @param file is the .bin book
+     * @param keys is the PolyglotKey the book was written with
+     * @throws IOException if the file can't be opened or mapped, or
+     *         is larger than one mapping can be
+     ******************************************************************/
+    public OpeningBook(Path file, PolyglotKey keys) throws IOException {
+        this.keys = keys;
+        this.random = new Random();
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Opening book too large: " + file);
+            count = (int) (size / ENTRY_BYTES);
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    (long) count * ENTRY_BYTES);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /*******************************************************************
+     * Gets how many entries the book has
+     *
+     * @return the number of entries
+     ******************************************************************/
+    public int size() {
+        return count;
+    }
+
+    /*******************************************************************
+     * Sets what picks between the moves of a position, a seeded Random
+     * makes the choices repeatable
+     *
+     * @param random is the Random to use
+     ******************************************************************/
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /*******************************************************************
+     * Picks a book move for the position of a game
+     *
+     * @param game is the game
+     * @param color is the PColor to move
+     * @return a legal EncodedMove by weight, or NONE if the book has
+     *         no move for the position
+     ******************************************************************/
+    public int probe(Chess game, PColor color) {
+        long key = keys.key(game.getBoard(), color);
+        int first = findFirst(key);
+        if (first < 0)
+            return EncodedMove.NONE;
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        int legalCount = game.generateMoves(color, legal);
+        BitBoard bits = game.getBoard().getBitBoard();
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] weights = new int[MoveGenerator.MAX_MOVES];
+        int found = 0, total = 0;
+        for (int i = first; i < count && keyAt(i) == key
+                && found < moves.length; i++) {
+            int weight = entries.getShort(i * ENTRY_BYTES + 10) & 0xFFFF;
+            int move = toEncodedMove(bits, entries.getShort(
+                    i * ENTRY_BYTES + 8) & 0xFFFF, legal, legalCount);
+            if (move == EncodedMove.NONE || weight == 0)
+                continue;
+            moves[found] = move;
+            weights[found++] = weight;
+            total += weight;
+        }
+        if (total == 0)
+            return EncodedMove.NONE;
+        int pick = random.nextInt(total);
+        for (int i = 0; i < found; i++) {
+            pick -= weights[i];
+            if (pick < 0)
+                return moves[i];
+        }
+        return moves[found - 1];
+    }
+
+    /*******************************************************************
+     * Closes the book file, it can't be probed after this
+     ******************************************************************/
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /*******************************************************************
+     * Writes a book, sorting the entries by key the way probe expects
+     *
+     * @param file is the .bin book to write
+     * @param keys is the PolyglotKey of the position of every entry
+     * @param moves is the EncodedMove of every entry
+     * @param weights is how often each move should be picked, 0-65535
+     * @throws IOException if the file can't be written
+     ******************************************************************/
+    public static void write(Path file, long[] keys, int[] moves,
+            int[] weights) throws IOException {
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compareUnsigned(keys[a],
+                keys[b]));
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (int i : order) {
+                out.writeLong(keys[i]);
+                out.writeShort(toPolyglot(moves[i]));
+                out.writeShort(weights[i]);
+                out.writeInt(0);
+            }
+        }
+    }
+
+    /*******************************************************************
+     * Encodes a move the way a polyglot book stores it: to file in
+     * bits 0-2, to rank 3-5, from file 6-8, from rank 9-11 and the
+     * promotion, 1 for a Knight to 4 for a Queen, in 12-14. Ranks count
+     * from White's side. A castle is the King taking its own Rook.
+     *
+     * @param move is the EncodedMove
+     * @return the polyglot move
+     ******************************************************************/
+    public static int toPolyglot(int move) {
+        int from = EncodedMove.from(move);
+        int to = EncodedMove.to(move);
+        int flags = EncodedMove.flags(move);
+        if (flags == EncodedMove.KING_CASTLE)
+            to = from + 3;
+        else if (flags == EncodedMove.QUEEN_CASTLE)
+            to = from - 4;
+        int promotion = EncodedMove.isPromotion(move)
+                ? EncodedMove.promotionType(move) : 0;
+        return BitBoard.col(to) | (7 - BitBoard.row(to)) << 3
+                | BitBoard.col(from) << 6 | (7 - BitBoard.row(from)) << 9
+                | promotion << 12;
+    }
+
+    /*******************************************************************
+     * Finds the legal move a polyglot move stands for
+     ******************************************************************/
+    private static int toEncodedMove(BitBoard bits, int polyglot,
+            int[] legal, int legalCount) {
+        int to = BitBoard.square(7 - (polyglot >>> 3 & 7), polyglot & 7);
+        int from = BitBoard.square(7 - (polyglot >>> 9 & 7),
+                polyglot >>> 6 & 7);
+        int promotion = polyglot >>> 12 & 7;
+        long white = bits.getOccupancy(PColor.White);
+        if (bits.getType(from) == BitBoard.KING
+                && bits.getType(to) == BitBoard.ROOK
+                && (white >>> from & 1) == (white >>> to & 1)) {
+            // The King takes its own Rook, which is a castle
+            to = to > from ? from + 2 : from - 2;
+        }
+        for (int i = 0; i < legalCount; i++) {
+            int move = legal[i];
+            if (EncodedMove.from(move) != from
+                    || EncodedMove.to(move) != to)
+                continue;
+            int type = EncodedMove.isPromotion(move)
+                    ? EncodedMove.promotionType(move) : 0;
+            if (type == promotion)
+                return move;
+        }
+        return EncodedMove.NONE;
+    }
+
+    /*******************************************************************
+     * Finds the first entry of a key by binary search
+     ******************************************************************/
+    private int findFirst(long key) {
+        int low = 0, high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low < count && keyAt(low) == key ? low : -1;
+    }
+
+    /*******************************************************************
+     * Gets the key of an entry
+     ******************************************************************/
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+}
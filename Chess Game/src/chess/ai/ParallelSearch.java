@@ -0,0 +1,181 @@
+package chess.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import chess.main.Chess;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Searches with several threads that share one TranspositionTable,
+ * the way Lazy SMP engines do. Every thread runs an ordinary Search on
+ * its own snapshot of the game. The main search runs on the calling
+ * thread and decides the move, the helpers run on a ForkJoinPool and
+ * fill the table with results the main search then finds instead of
+ * searching them itself. When the main search is done the helpers are
+ * cancelled.
+ *
+ * The table needs no locks: an entry written by two threads at once
+ * fails its key check and reads as a miss.
+ **********************************************************************/
+public class ParallelSearch {
+
+    /** Is the game to search, it is only copied, never moved */
+    private Chess game;
+    /** Is the table every thread shares */
+    private TranspositionTable table;
+    /** Is the pool the helpers run on */
+    private ForkJoinPool pool;
+    /** Is the number of threads, the calling one included */
+    private int threads;
+    /** Limits that every search gets */
+    private long timeLimit;
+    private long nodeLimit;
+    private int maxDepth;
+
+    /** Are the searches of the last findBestMove, the main one first */
+    private volatile Search[] searches;
+    /** Set from another thread when the result is no longer wanted */
+    private volatile boolean cancelled;
+
+    /*******************************************************************
+     * Constructor for a search of the specified game
+     *
+     * @param game is the Chess game to search
+     * @param table is the TranspositionTable the threads share
+     * @param pool is the ForkJoinPool the helpers run on
+     * @param threads is how many threads search, at least 1
+     ******************************************************************/
+    public ParallelSearch(Chess game, TranspositionTable table,
+            ForkJoinPool pool, int threads) {
+        this.game = game;
+        this.table = table;
+        this.pool = pool;
+        this.threads = Math.max(1, threads);
+        maxDepth = Search.MAX_DEPTH;
+    }
+
+    /*******************************************************************
+     * Sets how long findBestMove may take
+     *
+     * @param millis is the time in milliseconds, 0 for no limit
+     ******************************************************************/
+    public void setTimeLimit(long millis) {
+        timeLimit = millis;
+    }
+
+    /*******************************************************************
+     * Sets how many nodes the main search may search
+     *
+     * @param nodes is the node count, 0 for no limit
+     ******************************************************************/
+    public void setNodeLimit(long nodes) {
+        nodeLimit = nodes;
+    }
+
+    /*******************************************************************
+     * Sets the deepest iteration findBestMove will search
+     *
+     * @param depth is the depth in plies, from 1 to MAX_DEPTH
+     ******************************************************************/
+    public void setMaxDepth(int depth) {
+        maxDepth = depth;
+    }
+
+    /*******************************************************************
+     * Stops every thread of the search, findBestMove then returns
+     * EncodedMove.NONE. Safe to call from any thread.
+     ******************************************************************/
+    public void cancel() {
+        cancelled = true;
+        Search[] running = searches;
+        if (running != null) {
+            for (Search search : running)
+                search.cancel();
+        }
+    }
+
+    /*******************************************************************
+     * Checks whether cancel was called
+     *
+     * @return a boolean value whether the search was cancelled
+     ******************************************************************/
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /*******************************************************************
+     * Searches with every thread until the main search reaches its
+     * time, node or depth limit
+     *
+     * @param color is the PColor to find a move for
+     * @return the best EncodedMove, or EncodedMove.NONE if color has
+     *         no legal moves or the search was cancelled
+     ******************************************************************/
+    public int findBestMove(PColor color) {
+        Search[] group = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            group[i] = new Search(game.snapshot(), table);
+            group[i].setTimeLimit(timeLimit);
+            group[i].setMaxDepth(maxDepth);
+            if (i > 0)
+                group[i].setHelper(i);
+        }
+        group[0].setNodeLimit(nodeLimit);
+        this.searches = group;
+        if (cancelled)
+            cancel(); // cancel came before the searches existed
+
+        List<ForkJoinTask<Integer>> helpers =
+                new ArrayList<ForkJoinTask<Integer>>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            final Search helper = group[i];
+            helpers.add(pool.submit(() -> helper.findBestMove(color)));
+        }
+        int best;
+        try {
+            best = group[0].findBestMove(color);
+        } finally {
+            for (int i = 1; i < threads; i++)
+                group[i].cancel();
+            // Wait so the next search doesn't start while these run
+            for (ForkJoinTask<Integer> task : helpers)
+                task.join();
+        }
+        return best;
+    }
+
+    /*******************************************************************
+     * Gets the score of the main search's best move
+     *
+     * @return the score for the side to move
+     ******************************************************************/
+    public int getScore() {
+        return searches == null ? 0 : searches[0].getScore();
+    }
+
+    /*******************************************************************
+     * Gets the deepest iteration the main search finished
+     *
+     * @return the depth in plies
+     ******************************************************************/
+    public int getDepth() {
+        return searches == null ? 0 : searches[0].getDepth();
+    }
+
+    /*******************************************************************
+     * Gets the nodes of every thread together
+     *
+     * @return the total number of nodes searched
+     ******************************************************************/
+    public long getNodes() {
+        long nodes = 0;
+        if (searches != null) {
+            for (Search search : searches)
+                nodes += search.getNodes();
+        }
+        return nodes;
+    }
+}
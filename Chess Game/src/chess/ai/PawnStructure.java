@@ -0,0 +1,107 @@
+package chess.ai;
+
+import chess.objects.BitBoard;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Scores the Pawns of a position by how they stand together:
+ *
+ * - a passed Pawn, with no enemy Pawn ahead of it on its own file or
+ *   the files next to it, gets a bonus that grows as it advances
+ * - a doubled Pawn, one more on a file that already has one, costs
+ * - an isolated Pawn, with no Pawn of its color on the files next to
+ *   it, costs
+ *
+ * Every term has a middle and an end game value, passed Pawns count
+ * most once the pieces are gone. White Pawns move toward row 0 and
+ * Black Pawns toward row 7. The score only depends on where the Pawns
+ * are, which is what lets a PawnTable cache it by the pawn key.
+ **********************************************************************/
+public class PawnStructure {
+
+    /** Passed Pawn bonus by rows advanced from the starting row, a
+     * Pawn can advance 5 rows before it promotes */
+    private static final int[] PASSED_MIDGAME = { 5, 10, 15, 25, 40, 60 };
+    private static final int[] PASSED_ENDGAME = { 10, 20, 35, 55, 80,
+            110 };
+    /** Cost of every Pawn on a file after the first */
+    private static final int DOUBLED_MIDGAME = 10, DOUBLED_ENDGAME = 20;
+    /** Cost of a Pawn with no friendly Pawn on the files next to it */
+    private static final int ISOLATED_MIDGAME = 10, ISOLATED_ENDGAME = 15;
+
+    /** Every square of each file */
+    private static final long[] FILES = new long[8];
+    /** Every square of the files next to each file */
+    private static final long[] NEIGHBORS = new long[8];
+    /** Squares ahead of a Pawn that enemy Pawns stop it from being
+     * passed on, by PColor ordinal and square */
+    private static final long[][] PASSED_SPANS = new long[2][64];
+
+    static {
+        for (int col = 0; col < 8; col++) {
+            for (int row = 0; row < 8; row++)
+                FILES[col] |= 1L << BitBoard.square(row, col);
+        }
+        for (int col = 0; col < 8; col++) {
+            if (col > 0)
+                NEIGHBORS[col] |= FILES[col - 1];
+            if (col < 7)
+                NEIGHBORS[col] |= FILES[col + 1];
+        }
+        for (int square = 0; square < 64; square++) {
+            int row = BitBoard.row(square);
+            long files = FILES[BitBoard.col(square)]
+                    | NEIGHBORS[BitBoard.col(square)];
+            long above = 0L, below = 0L;
+            for (int r = 0; r < 8; r++) {
+                long rank = 0xFFL << (r * 8);
+                if (r < row)
+                    above |= rank;
+                else if (r > row)
+                    below |= rank;
+            }
+            PASSED_SPANS[PColor.White.ordinal()][square] = files & above;
+            PASSED_SPANS[PColor.Black.ordinal()][square] = files & below;
+        }
+    }
+
+    /*******************************************************************
+     * Scores the Pawns of a position
+     *
+     * @param bits is the BitBoard of the position
+     * @return White's score minus Black's, packed by PawnTable.pack
+     ******************************************************************/
+    public static long evaluate(BitBoard bits) {
+        int midgame = 0, endgame = 0;
+        for (PColor color : PColor.values()) {
+            int sign = color == PColor.White ? 1 : -1;
+            PColor other = color == PColor.White ? PColor.Black
+                    : PColor.White;
+            long own = bits.getPieces(color, BitBoard.PAWN);
+            long enemy = bits.getPieces(other, BitBoard.PAWN);
+            for (int col = 0; col < 8; col++) {
+                int onFile = Long.bitCount(own & FILES[col]);
+                if (onFile > 1) {
+                    midgame -= sign * DOUBLED_MIDGAME * (onFile - 1);
+                    endgame -= sign * DOUBLED_ENDGAME * (onFile - 1);
+                }
+                if (onFile > 0 && (own & NEIGHBORS[col]) == 0) {
+                    midgame -= sign * ISOLATED_MIDGAME * onFile;
+                    endgame -= sign * ISOLATED_ENDGAME * onFile;
+                }
+            }
+            for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+                int square = Long.numberOfTrailingZeros(pawns);
+                if ((enemy & PASSED_SPANS[color.ordinal()][square]) != 0)
+                    continue;
+                int row = BitBoard.row(square);
+                int advanced = color == PColor.White ? 6 - row : row - 1;
+                advanced = Math.max(0, Math.min(advanced,
+                        PASSED_MIDGAME.length - 1));
+                midgame += sign * PASSED_MIDGAME[advanced];
+                endgame += sign * PASSED_ENDGAME[advanced];
+            }
+        }
+        return PawnTable.pack(midgame, endgame);
+    }
+}
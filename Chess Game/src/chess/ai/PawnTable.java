@@ -0,0 +1,140 @@
+package chess.ai;
+
+import java.util.Arrays;
+
+import chess.objects.BitBoard;
+
+/***********************************************************************
+ * Remembers the pawn structure score of positions by their pawn key,
+ * the Zobrist key of the Pawns alone. Pawns move far less often than
+ * the other pieces, so most positions a search scores share their
+ * Pawns with one scored before and the structure is looked up
+ * instead of worked out again at every leaf.
+ *
+ * Like the TranspositionTable it is a fixed number of entries that fit
+ * the memory it is given, each a key stored XORed with its data, so an
+ * entry that is half written by another thread just looks like a miss
+ * and several searches can share one table. A new structure simply
+ * replaces whatever was in its entry.
+ *
+ * The hit and miss counts are plain counters, when threads share the
+ * table they are close but not exact.
+ **********************************************************************/
+public class PawnTable {
+
+    /** Bytes taken by one entry */
+    public static final int ENTRY_BYTES = 16;
+
+    /** The pawn key of every entry XORed with its data */
+    private long[] keys;
+    /** The middle and end game scores of every entry */
+    private long[] data;
+    /** Is the number of entries minus one, entries are a power of 2 */
+    private int mask;
+    /** Are the lookups that found their structure, and that did not */
+    private long hits, misses;
+
+    /*******************************************************************
+     * Constructor for a table that takes at most the specified memory
+     *
+     * @param megabytes is the most memory the entries may use
+     ******************************************************************/
+    public PawnTable(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        long entries = Long.highestOneBit(bytes / ENTRY_BYTES);
+        entries = Math.min(entries, 1 << 30);
+        keys = new long[(int) entries];
+        data = new long[(int) entries];
+        mask = (int) entries - 1;
+    }
+
+    /*******************************************************************
+     * Gets how many entries the table holds
+     *
+     * @return the number of entries
+     ******************************************************************/
+    public int size() {
+        return keys.length;
+    }
+
+    /*******************************************************************
+     * Empties the table and resets the counters
+     ******************************************************************/
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        hits = 0;
+        misses = 0;
+    }
+
+    /*******************************************************************
+     * Gets the pawn structure score of a position, from the table if
+     * it is there or else worked out by PawnStructure and stored
+     *
+     * @param bits is the BitBoard of the position
+     * @return the packed scores, read them with midgame and endgame
+     ******************************************************************/
+    public long probe(BitBoard bits) {
+        long key = bits.getPawnKey();
+        int index = (int) key & mask;
+        long entry = data[index];
+        if ((keys[index] ^ entry) == key) {
+            hits++;
+            return entry;
+        }
+        misses++;
+        entry = PawnStructure.evaluate(bits);
+        data[index] = entry;
+        keys[index] = key ^ entry;
+        return entry;
+    }
+
+    /*******************************************************************
+     * Gets how many lookups found their structure in the table
+     *
+     * @return the number of hits since the table was made or cleared
+     ******************************************************************/
+    public long getHits() {
+        return hits;
+    }
+
+    /*******************************************************************
+     * Gets how many lookups had to work the structure out
+     *
+     * @return the number of misses since the table was made or cleared
+     ******************************************************************/
+    public long getMisses() {
+        return misses;
+    }
+
+    /*******************************************************************
+     * Packs a middle and an end game score into one entry
+     *
+     * @param midgame is the middle game score
+     * @param endgame is the end game score
+     * @return the packed scores
+     ******************************************************************/
+    public static long pack(int midgame, int endgame) {
+        return (midgame & 0xFFFFFFFFL) | ((long) endgame << 32);
+    }
+
+    /*******************************************************************
+     * Gets the middle game score of an entry
+     *
+     * @param entry is the packed scores returned by probe
+     * @return White's score minus Black's in hundredths of a Pawn
+     ******************************************************************/
+    public static int midgame(long entry) {
+        return (int) entry;
+    }
+
+    /*******************************************************************
+     * Gets the end game score of an entry
+     *
+     * @param entry is the packed scores returned by probe
+     * @return White's score minus Black's in hundredths of a Pawn
+     ******************************************************************/
+    public static int endgame(long entry) {
+        return (int) (entry >> 32);
+    }
+}
@@ -0,0 +1,576 @@
+package chess.ai;
+
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.EncodedMove;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Finds the AI's move with an alpha-beta search. The search deepens
+ * one ply at a time until it runs out of time or nodes, and keeps the
+ * best move of the last depth it finished, so there is always a move
+ * to play when the budget is spent.
+ *
+ * Scores are from the point of view of the side to move, so every
+ * ply negates the score of the ply below it.
+ *
+ * When the depth runs out the search doesn't stop in the middle of an
+ * exchange, a quiescence search keeps playing captures, and Queen
+ * promotions and check evasions if they are turned on, until the
+ * position is quiet. The side to move may always "stand pat" on the
+ * evaluation instead of capturing, unless it is in check.
+ *
+ * Positions the game's Tablebase knows aren't searched any further,
+ * its score is exact.
+ **********************************************************************/
+public class Search {
+
+    /** Score of a mate, minus the plies it takes to get there */
+    public static final int MATE = 1000000;
+    /** Bigger than any score a position can have */
+    private static final int INFINITY = 2 * MATE;
+    /** Deepest the search ever goes */
+    public static final int MAX_DEPTH = 64;
+    /** How many nodes are searched between looks at the clock */
+    private static final int CHECK_INTERVAL = 1024;
+    /** Memory of the table a Search makes for itself, in megabytes */
+    private static final int DEFAULT_TABLE_SIZE = 1;
+    /** Margin of delta pruning, a capture that can't raise the score
+     *  to alpha even with this much extra isn't searched */
+    private static final int DELTA_MARGIN = 20;
+
+    /** Is the game being searched, its board is moved and restored */
+    private Chess game;
+    /** Is the table of positions already searched */
+    private TranspositionTable table;
+    /** Knows the endings with few pieces, null if there is none */
+    private Tablebase tablebase;
+    /** Moves of every ply, reused so searching doesn't allocate */
+    private int[][] moveStack;
+    /** Decides which move of a node is tried next */
+    private MoveOrdering ordering;
+    /** Is the search time in milliseconds, 0 for no limit */
+    private long timeLimit;
+    /** Is the most nodes to search, 0 for no limit */
+    private long nodeLimit;
+    /** Is the deepest iteration to search */
+    private int maxDepth;
+    /** Is the first iteration to search */
+    private int startDepth;
+    /** Whether this search helps a ParallelSearch instead of leading */
+    private boolean helper;
+    /** Whether the quiescence search plays Queen promotions */
+    private boolean quiescePromotions;
+    /** Whether the quiescence search plays every move out of check */
+    private boolean quiesceEvasions;
+
+    /** System.nanoTime at which the search has to stop */
+    private long deadline;
+    /** Nodes searched since the search started */
+    private long nodes;
+    /** Whether the budget ran out and the search is unwinding */
+    private boolean stopped;
+    /** Set from another thread when the result is no longer wanted */
+    private volatile boolean cancelled;
+    /** Best move and score of the last finished iteration */
+    private int bestMove;
+    private int bestScore;
+    /** Is the last depth that was finished */
+    private int completedDepth;
+    /** Positions the Tablebase scored since the search started */
+    private long tablebaseHits;
+
+    /*******************************************************************
+     * Constructor for a search of the specified game without limits,
+     * with a small TranspositionTable of its own
+     *
+     * @param game is the Chess game to search
+     ******************************************************************/
+    public Search(Chess game) {
+        this(game, new TranspositionTable(DEFAULT_TABLE_SIZE));
+    }
+
+    /*******************************************************************
+     * Constructor for a search of the specified game without limits
+     * that shares a TranspositionTable, which keeps what it learned
+     * between searches
+     *
+     * @param game is the Chess game to search
+     * @param table is the TranspositionTable to use
+     ******************************************************************/
+    public Search(Chess game, TranspositionTable table) {
+        this.game = game;
+        this.table = table;
+        this.tablebase = game.getTablebase();
+        moveStack = new int[MAX_DEPTH + 1][MoveGenerator.MAX_MOVES];
+        ordering = new MoveOrdering();
+        maxDepth = MAX_DEPTH;
+        startDepth = 1;
+        quiescePromotions = true;
+        quiesceEvasions = true;
+    }
+
+    /*******************************************************************
+     * Sets how long findBestMove may take
+     *
+     * @param millis is the time in milliseconds, 0 for no limit
+     ******************************************************************/
+    public void setTimeLimit(long millis) {
+        timeLimit = millis;
+    }
+
+    /*******************************************************************
+     * Sets how many nodes findBestMove may search
+     *
+     * @param nodes is the node count, 0 for no limit
+     ******************************************************************/
+    public void setNodeLimit(long nodes) {
+        nodeLimit = nodes;
+    }
+
+    /*******************************************************************
+     * Sets the deepest iteration findBestMove will search
+     *
+     * @param depth is the depth in plies, from 1 to MAX_DEPTH
+     ******************************************************************/
+    public void setMaxDepth(int depth) {
+        maxDepth = Math.max(1, Math.min(depth, MAX_DEPTH));
+    }
+
+    /*******************************************************************
+     * Sets whether the quiescence search plays Queen promotions that
+     * don't capture, they are on unless turned off
+     *
+     * @param promotions whether quiet Queen promotions are searched
+     ******************************************************************/
+    public void setQuiescePromotions(boolean promotions) {
+        quiescePromotions = promotions;
+    }
+
+    /*******************************************************************
+     * Sets whether the quiescence search plays every move when the side
+     * to move is in check instead of standing pat, which finds mates at
+     * the horizon. They are on unless turned off.
+     *
+     * @param evasions whether check evasions are searched
+     ******************************************************************/
+    public void setQuiesceEvasions(boolean evasions) {
+        quiesceEvasions = evasions;
+    }
+
+    /*******************************************************************
+     * Makes this search one of the helpers of a ParallelSearch. Every
+     * other helper starts one ply deeper so the threads don't all
+     * search the same depth at the same time, helpers don't have to
+     * finish their first iteration and they leave the age of the
+     * shared table to the main search.
+     *
+     * @param index is the number of the helper, from 1
+     ******************************************************************/
+    void setHelper(int index) {
+        helper = true;
+        startDepth = 1 + index % 2;
+    }
+
+    /*******************************************************************
+     * Stops the search as soon as it next looks at the clock, even in
+     * the first iteration. Safe to call from any thread.
+     ******************************************************************/
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /*******************************************************************
+     * Checks whether cancel was called
+     *
+     * @return a boolean value whether the search was cancelled
+     ******************************************************************/
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /*******************************************************************
+     * Searches one ply deeper each iteration until the time, node or
+     * depth limit is reached. The first iteration always finishes so a
+     * move is found even with a tiny budget.
+     *
+     * @param color is the PColor to find a move for
+     * @return the best EncodedMove, or EncodedMove.NONE if color has
+     *         no legal moves or the search was cancelled
+     ******************************************************************/
+    public int findBestMove(PColor color) {
+        nodes = 0;
+        tablebaseHits = 0;
+        stopped = false;
+        bestMove = EncodedMove.NONE;
+        bestScore = 0;
+        completedDepth = 0;
+        deadline = System.nanoTime() + timeLimit * 1000000L;
+        if (!helper)
+            table.newSearch();
+        ordering.newSearch();
+
+        int first = Math.min(startDepth, maxDepth);
+        for (int depth = first; depth <= maxDepth; depth++) {
+            int move = searchRoot(color, depth);
+            if (stopped && (depth > first || helper))
+                break; // the unfinished iteration can't be trusted
+            bestMove = move;
+            completedDepth = depth;
+            if (move == EncodedMove.NONE || isMateScore(bestScore))
+                break;
+            if (outOfBudget())
+                break;
+        }
+        return cancelled ? EncodedMove.NONE : bestMove;
+    }
+
+    /*******************************************************************
+     * Searches the position to exactly the specified depth
+     *
+     * @param color is the PColor to move
+     * @param depth is how many plies to search
+     * @return the score of the position for color
+     ******************************************************************/
+    public int search(PColor color, int depth) {
+        bestMove = EncodedMove.NONE;
+        completedDepth = 0;
+        nodes = 0;
+        tablebaseHits = 0;
+        stopped = false;
+        timeLimit = 0;
+        nodeLimit = 0;
+        table.newSearch();
+        ordering.newSearch();
+        bestMove = searchRoot(color, Math.max(1, depth));
+        completedDepth = depth;
+        return bestScore;
+    }
+
+    /*******************************************************************
+     * Searches every root move to the specified depth, trying the best
+     * move of the previous iteration, or of the table, first and the
+     * rest in the order of MoveOrdering
+     ******************************************************************/
+    private int searchRoot(PColor color, int depth) {
+        int[] moves = moveStack[0];
+        int count = game.generateMoves(color, moves);
+        if (count == 0) {
+            bestScore = noMovesScore(color, 0);
+            return EncodedMove.NONE;
+        }
+        long key = game.getBoard().getZobristKey(color);
+        int first = bestMove;
+        if (first == EncodedMove.NONE)
+            first = TranspositionTable.move(table.probe(key));
+        ordering.score(game, moves, count, first, 0, color);
+
+        PColor other = opposite(color);
+        int alpha = -INFINITY;
+        int best = EncodedMove.NONE;
+        // Only the first iteration is guaranteed to finish
+        boolean mustFinish = completedDepth == 0 && !helper;
+        for (int i = 0; i < count; i++) {
+            game.doMove(ordering.pickNext(moves, i, count, 0));
+            int score = -alphaBeta(depth - 1, -INFINITY, -alpha, other, 1,
+                    mustFinish);
+            game.undoMove();
+            if (stopped)
+                break;
+            if (score > alpha) {
+                alpha = score;
+                best = moves[i];
+            }
+        }
+        if (!stopped) {
+            bestScore = alpha;
+            table.store(key, best, alpha, depth, TranspositionTable.EXACT);
+        }
+        return best;
+    }
+
+    /*******************************************************************
+     * The alpha-beta search. A move that scores beta or more for color
+     * refutes the opponent's previous move, so the remaining moves of
+     * this node don't need to be searched.
+     *
+     * @param depth is how many plies are left
+     * @param alpha is the score color is already sure of
+     * @param beta is the score the opponent is already sure of
+     * @param color is the PColor to move
+     * @param ply is how many plies from the root this node is
+     * @param mustFinish whether the budget is ignored
+     * @return the score of the node for color
+     ******************************************************************/
+    private int alphaBeta(int depth, int alpha, int beta, PColor color,
+            int ply, boolean mustFinish) {
+        int known = probeTablebase(color, ply);
+        if (known != Tablebase.UNKNOWN)
+            return known;
+        if (depth <= 0)
+            return quiesce(alpha, beta, color, ply, mustFinish);
+        nodes++;
+        if (nodes % CHECK_INTERVAL == 0
+                && (cancelled || !mustFinish && outOfBudget()))
+            stopped = true;
+        if (stopped)
+            return 0;
+
+        long key = game.getBoard().getZobristKey(color);
+        int hashMove = EncodedMove.NONE;
+        long entry = table.probe(key);
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER
+                                && score >= beta)
+                        || (bound == TranspositionTable.UPPER
+                                && score <= alpha))
+                    return score;
+            }
+        }
+
+        int[] moves = moveStack[ply];
+        int count = game.generateMoves(color, moves);
+        if (count == 0)
+            return noMovesScore(color, ply);
+        if (ply >= MAX_DEPTH)
+            return game.evaluate(color);
+        ordering.score(game, moves, count, hashMove, ply, color);
+
+        PColor other = opposite(color);
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestHere = EncodedMove.NONE;
+        for (int i = 0; i < count; i++) {
+            game.doMove(ordering.pickNext(moves, i, count, ply));
+            int score = -alphaBeta(depth - 1, -beta, -alpha, other,
+                    ply + 1, mustFinish);
+            game.undoMove();
+            if (stopped)
+                return 0;
+            if (score > best) {
+                best = score;
+                bestHere = moves[i];
+            }
+            if (score > alpha)
+                alpha = score;
+            if (alpha >= beta) {
+                ordering.cutoff(moves[i], depth, ply, color);
+                break;
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT
+                        : TranspositionTable.UPPER;
+        table.store(key, bestHere, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /*******************************************************************
+     * The quiescence search, which only plays the moves that change the
+     * material: captures and, if turned on, Queen promotions. In check
+     * every move is played if evasions are turned on, since standing
+     * pat is no option there.
+     *
+     * @param alpha is the score color is already sure of
+     * @param beta is the score the opponent is already sure of
+     * @param color is the PColor to move
+     * @param ply is how many plies from the root this node is
+     * @param mustFinish whether the budget is ignored
+     * @return the score of the node for color
+     ******************************************************************/
+    private int quiesce(int alpha, int beta, PColor color, int ply,
+            boolean mustFinish) {
+        int known = probeTablebase(color, ply);
+        if (known != Tablebase.UNKNOWN)
+            return known;
+        nodes++;
+        if (nodes % CHECK_INTERVAL == 0
+                && (cancelled || !mustFinish && outOfBudget()))
+            stopped = true;
+        if (stopped)
+            return 0;
+
+        boolean evading = quiesceEvasions
+                && game.isKingInCheckStill(color);
+        int standPat = game.evaluate(color);
+        if (ply >= MAX_DEPTH)
+            return standPat;
+        int best = -INFINITY;
+        if (!evading) {
+            if (standPat >= beta)
+                return standPat;
+            if (standPat > alpha)
+                alpha = standPat;
+            best = standPat;
+        }
+
+        int[] moves = moveStack[ply];
+        BitBoard bits = game.getBoard().getBitBoard();
+        int count = MoveGenerator.generateMoves(game.getBoard(), color,
+                moves);
+        if (!evading) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (isTactical(moves[i])
+                        && !isFutile(moves[i], standPat, alpha))
+                    moves[kept++] = moves[i];
+            }
+            count = kept;
+        }
+        count = MoveGenerator.filterLegal(bits, color, moves, count);
+        if (evading && count == 0)
+            return -MATE + ply;
+        ordering.score(game, moves, count, EncodedMove.NONE, ply, color);
+
+        PColor other = opposite(color);
+        for (int i = 0; i < count; i++) {
+            game.doMove(ordering.pickNext(moves, i, count, ply));
+            int score = -quiesce(-beta, -alpha, other, ply + 1,
+                    mustFinish);
+            game.undoMove();
+            if (stopped)
+                return 0;
+            if (score > best)
+                best = score;
+            if (score > alpha)
+                alpha = score;
+            if (alpha >= beta)
+                break;
+        }
+        return best;
+    }
+
+    /*******************************************************************
+     * Checks whether the quiescence search plays a move when not in
+     * check: every capture, and Queen promotions if turned on
+     ******************************************************************/
+    private boolean isTactical(int move) {
+        if (EncodedMove.isCapture(move))
+            return true;
+        return quiescePromotions && EncodedMove.isPromotion(move)
+                && EncodedMove.promotionType(move) == BitBoard.QUEEN;
+    }
+
+    /*******************************************************************
+     * Delta pruning: a capture that doesn't raise the score to alpha
+     * even when the captured Piece is won for nothing, plus a margin,
+     * isn't worth searching. Promotions are always searched.
+     ******************************************************************/
+    private boolean isFutile(int move, int standPat, int alpha) {
+        if (EncodedMove.isPromotion(move))
+            return false;
+        int from = EncodedMove.from(move);
+        int to = EncodedMove.to(move);
+        int row = EncodedMove.flags(move) == EncodedMove.EN_PASSANT
+                ? BitBoard.row(from) : BitBoard.row(to);
+        int gain = game.getPieceAt(row, BitBoard.col(to)).getScore();
+        return standPat + gain + DELTA_MARGIN <= alpha;
+    }
+
+    /*******************************************************************
+     * Mate scores count the plies from the root, but the table is
+     * shared by every ply, so they are stored counting from the node
+     ******************************************************************/
+    private static int toTable(int score, int ply) {
+        if (score > MATE - MAX_DEPTH)
+            return score + ply;
+        if (score < -MATE + MAX_DEPTH)
+            return score - ply;
+        return score;
+    }
+
+    /*******************************************************************
+     * Turns a score from the table back into one counted from the root
+     ******************************************************************/
+    private static int fromTable(int score, int ply) {
+        if (score > MATE - MAX_DEPTH)
+            return score - ply;
+        if (score < -MATE + MAX_DEPTH)
+            return score + ply;
+        return score;
+    }
+
+    /*******************************************************************
+     * Scores a position without legal moves, a loss if color is mated
+     * and a draw if it is stalemate. Nearer mates score further from 0.
+     ******************************************************************/
+    private int noMovesScore(PColor color, int ply) {
+        return game.isKingInCheckStill(color) ? -MATE + ply : 0;
+    }
+
+    /*******************************************************************
+     * Checks whether the time or node limit has been reached
+     ******************************************************************/
+    private boolean outOfBudget() {
+        return (timeLimit > 0 && System.nanoTime() - deadline >= 0)
+                || (nodeLimit > 0 && nodes >= nodeLimit);
+    }
+
+    /*******************************************************************
+     * Checks whether a score means a forced mate for either side
+     ******************************************************************/
+    private static boolean isMateScore(int score) {
+        return Math.abs(score) > MATE - MAX_DEPTH;
+    }
+
+    /*******************************************************************
+     * Gets the other PColor
+     ******************************************************************/
+    private static PColor opposite(PColor color) {
+        return color == PColor.White ? PColor.Black : PColor.White;
+    }
+
+    /*******************************************************************
+     * Gets the score of the best move, for the side that searched
+     *
+     * @return the score of the last finished iteration
+     ******************************************************************/
+    public int getScore() {
+        return bestScore;
+    }
+
+    /*******************************************************************
+     * Gets the depth of the last finished iteration
+     *
+     * @return the depth in plies
+     ******************************************************************/
+    public int getDepth() {
+        return completedDepth;
+    }
+
+    /*******************************************************************
+     * Gets how many nodes the last search visited
+     *
+     * @return the node count
+     ******************************************************************/
+    public long getNodes() {
+        return nodes;
+    }
+
+    /*******************************************************************
+     * Gets how many positions the Tablebase scored in the last search
+     *
+     * @return the number of positions that weren't searched further
+     ******************************************************************/
+    public long getTablebaseHits() {
+        return tablebaseHits;
+    }
+
+    /*******************************************************************
+     * Looks the position up in the Tablebase, if there is one
+     ******************************************************************/
+    private int probeTablebase(PColor color, int ply) {
+        if (tablebase == null)
+            return Tablebase.UNKNOWN;
+        int score = tablebase.probe(game.getBoard(), color, ply);
+        if (score != Tablebase.UNKNOWN)
+            tablebaseHits++;
+        return score;
+    }
+}
@@ -0,0 +1,406 @@
+package chess.ai;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import chess.objects.BitBoard;
+import chess.objects.Board;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Perfect play for the endings with one piece besides the Kings. A
+ * King and Queen, King and Rook or King and Pawn against a lone King
+ * is looked up instead of searched, and so is every ending that can't
+ * be won at all: two Kings, or a King and a Knight or Bishop against a
+ * lone King. The search stops at every position the tables know, so
+ * it plays these endings straight to mate instead of shuffling pieces
+ * around.
+ *
+ * The tables are made by generate, a retrograde analysis that starts
+ * from the mates and works back one ply at a time, and written as one
+ * file per ending, KQK.ctb, KRK.ctb and KPK.ctb. A King and Pawn
+ * position that promotes looks up the Queen and Rook tables, so those
+ * are made first. Each file is mapped into memory when a Tablebase
+ * opens it, so only the parts the search touches are ever read. The
+ * mapped files are only read, several threads may probe at once.
+ *
+ * A table has one byte for every placement with the strong side, the
+ * one with the extra piece, as White: 0 for a draw, or one more than
+ * the plies to mate. A position where Black has the piece is flipped
+ * top to bottom and the colors swapped first.
+ **********************************************************************/
+public class Tablebase {
+
+    /** Score probe returns for a position the tables don't know */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+    /** Starts every table file, "CTB" and the format version 1 */
+    private static final int MAGIC = 0x43544201;
+    /** Bytes before the table in a file, the magic and piece type */
+    private static final int HEADER_BYTES = 8;
+    /** Entries in a table, side to move and three squares */
+    private static final int SIZE = 2 * 64 * 64 * 64;
+    /** Side to move index, the strong or the weak side */
+    private static final int STRONG = 0, WEAK = 1;
+    /** Piece types there are tables for, in the order they are made */
+    private static final int[] TYPES = { BitBoard.QUEEN, BitBoard.ROOK,
+            BitBoard.PAWN };
+    /** Directions of the King and Queen, the first four a Rook's */
+    private static final int[][] DIRECTIONS = { { -1, 0 }, { 1, 0 },
+            { 0, -1 }, { 0, 1 }, { -1, -1 }, { -1, 1 }, { 1, -1 },
+            { 1, 1 } };
+
+    /** Mapped tables by piece type, null where there is no file */
+    private final MappedByteBuffer[] tables;
+
+    /*******************************************************************
+     * Constructor that maps the tables found in a directory, endings
+     * without a file are simply not known
+     *
+     * @param directory is where generate wrote the tables
+     * @throws IOException if a file can't be mapped or isn't a table
+     ******************************************************************/
+    public Tablebase(Path directory) throws IOException {
+        tables = new MappedByteBuffer[BitBoard.TYPES];
+        for (int type : TYPES) {
+            Path file = directory.resolve(fileName(type));
+            if (!Files.exists(file))
+                continue;
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.READ)) {
+                if (channel.size() != HEADER_BYTES + SIZE)
+                    throw new IOException("Not a tablebase: " + file);
+                MappedByteBuffer table = channel.map(
+                        FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (table.getInt(0) != MAGIC || table.getInt(4) != type)
+                    throw new IOException("Not a tablebase: " + file);
+                tables[type] = table;
+            }
+        }
+    }
+
+    /*******************************************************************
+     * Checks whether the tables of an ending were found
+     *
+     * @param type is the piece type besides the Kings
+     * @return a boolean value whether that ending can be probed
+     ******************************************************************/
+    public boolean hasTable(int type) {
+        return tables[type] != null;
+    }
+
+    /*******************************************************************
+     * Looks a position up, scored like the Search scores mates
+     *
+     * @param board is the Board of the position
+     * @param toMove is the PColor to move
+     * @param ply is how many plies from the root the position is
+     * @return 0 for a draw, MATE minus the plies to mate counted from
+     *         the root, negated if toMove gets mated, or UNKNOWN
+     ******************************************************************/
+    public int probe(Board board, PColor toMove, int ply) {
+        BitBoard bits = board.getBitBoard();
+        long occupied = bits.getOccupied();
+        int count = Long.bitCount(occupied);
+        if (count > 3 || count < 2)
+            return UNKNOWN;
+        long kings = bits.getPieces(PColor.White, BitBoard.KING)
+                | bits.getPieces(PColor.Black, BitBoard.KING);
+        if (Long.bitCount(kings) != 2)
+            return UNKNOWN;
+        if (count == 2)
+            return 0;
+        int square = Long.numberOfTrailingZeros(occupied & ~kings);
+        int type = bits.getType(square);
+        if (type == BitBoard.KNIGHT || type == BitBoard.BISHOP)
+            return 0;
+        if (type < 0 || tables[type] == null
+                || board.getCastlingRights() != 0)
+            return UNKNOWN;
+        PColor strong = (bits.getOccupancy(PColor.White) & 1L << square)
+                != 0 ? PColor.White : PColor.Black;
+        PColor weak = strong == PColor.White ? PColor.Black
+                : PColor.White;
+        // The tables have White as the strong side, flip for Black
+        int flip = strong == PColor.White ? 0 : 56;
+        int index = index(toMove == strong ? STRONG : WEAK,
+                bits.getKingSquare(strong) ^ flip,
+                bits.getKingSquare(weak) ^ flip, square ^ flip);
+        int value = tables[type].get(HEADER_BYTES + index) & 0xFF;
+        if (value == 0)
+            return 0;
+        int mate = Search.MATE - ply - (value - 1);
+        return toMove == strong ? mate : -mate;
+    }
+
+    /*******************************************************************
+     * Makes the tables and writes them to a directory
+     *
+     * @param directory is where to write KQK.ctb, KRK.ctb and KPK.ctb
+     * @throws IOException if a file can't be written
+     ******************************************************************/
+    public static void generate(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        byte[][] made = new byte[BitBoard.TYPES][];
+        for (int type : TYPES) {
+            made[type] = new Generator(type, made).run();
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(
+                            directory.resolve(fileName(type)))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(type);
+                out.write(made[type]);
+            }
+        }
+    }
+
+    /*******************************************************************
+     * Gets the name of the file of an ending
+     ******************************************************************/
+    private static String fileName(int type) {
+        return "K" + "PNBRQK".charAt(type) + "K.ctb";
+    }
+
+    /*******************************************************************
+     * Gets the entry of a placement
+     ******************************************************************/
+    private static int index(int side, int strongKing, int weakKing,
+            int piece) {
+        return ((side * 64 + strongKing) * 64 + weakKing) * 64 + piece;
+    }
+
+    /*******************************************************************
+     * Checks whether two squares touch, or are the same
+     ******************************************************************/
+    private static boolean touches(int a, int b) {
+        return Math.abs(BitBoard.row(a) - BitBoard.row(b)) <= 1
+                && Math.abs(BitBoard.col(a) - BitBoard.col(b)) <= 1;
+    }
+
+    /*******************************************************************
+     * Works out one table, with White as the strong side moving up the
+     * board towards row 0 like the game's White Pawns
+     ******************************************************************/
+    private static class Generator {
+
+        /** Is the type of the strong side's piece */
+        private final int type;
+        /** Are the tables made already, for promotions */
+        private final byte[][] made;
+        /** Is the table being made, 0 for unknown or a draw */
+        private final byte[] table = new byte[SIZE];
+        /** Squares a move goes to, reused for every position */
+        private final int[] targets = new int[32];
+
+        Generator(int type, byte[][] made) {
+            this.type = type;
+            this.made = made;
+        }
+
+        /***************************************************************
+         * Marks the mates, then on every odd ply the strong side's
+         * positions with a move to one lost at the ply before, and on
+         * every even ply the weak side's positions whose every move
+         * goes to one already won, until a ply marks nothing new
+         **************************************************************/
+        byte[] run() {
+            for (int king = 0; king < 64; king++) {
+                for (int other = 0; other < 64; other++) {
+                    for (int piece = 0; piece < 64; piece++) {
+                        if (isLegal(WEAK, king, other, piece)
+                                && countWeakMoves(king, other, piece) == 0
+                                && isAttacked(other, piece, king))
+                            table[index(WEAK, king, other, piece)] = 1;
+                    }
+                }
+            }
+            // Promotions can reach mates as long as the other tables'
+            int longest = 0;
+            for (byte[] other : made) {
+                for (int i = 0; other != null && i < SIZE; i++)
+                    longest = Math.max(longest, other[i] & 0xFF);
+            }
+            for (int plies = 1; plies < 255; plies++) {
+                boolean changed = false;
+                int side = plies % 2 == 1 ? STRONG : WEAK;
+                for (int king = 0; king < 64; king++) {
+                    for (int other = 0; other < 64; other++) {
+                        for (int piece = 0; piece < 64; piece++) {
+                            int index = index(side, king, other, piece);
+                            if (table[index] != 0
+                                    || !isLegal(side, king, other, piece))
+                                continue;
+                            boolean won = side == STRONG
+                                    ? strongWins(king, other, piece, plies)
+                                    : weakLoses(king, other, piece, plies);
+                            if (won) {
+                                table[index] = (byte) (plies + 1);
+                                changed = true;
+                            }
+                        }
+                    }
+                }
+                // A ply that marks nothing leaves the next one nothing
+                // to build on
+                if (!changed && plies > longest)
+                    break;
+            }
+            return table;
+        }
+
+        /***************************************************************
+         * Checks whether the pieces can stand like this with the side
+         * to move, the side not to move may not be in check
+         **************************************************************/
+        private boolean isLegal(int side, int king, int other,
+                int piece) {
+            if (king == other || king == piece || other == piece
+                    || touches(king, other))
+                return false;
+            if (type == BitBoard.PAWN && (BitBoard.row(piece) == 0
+                    || BitBoard.row(piece) == 7))
+                return false;
+            return side == WEAK || !isAttacked(other, piece, king);
+        }
+
+        /***************************************************************
+         * Checks whether the strong side's piece attacks a square, with
+         * the strong King in the way
+         **************************************************************/
+        private boolean isAttacked(int square, int piece, int king) {
+            int rows = BitBoard.row(square) - BitBoard.row(piece);
+            int cols = BitBoard.col(square) - BitBoard.col(piece);
+            if (type == BitBoard.PAWN)
+                return rows == -1 && Math.abs(cols) == 1;
+            boolean straight = rows == 0 || cols == 0;
+            boolean diagonal = Math.abs(rows) == Math.abs(cols);
+            if (square == piece || !straight
+                    && !(diagonal && type == BitBoard.QUEEN))
+                return false;
+            int step = Integer.signum(rows) * 8 + Integer.signum(cols);
+            for (int s = piece + step; s != square; s += step) {
+                if (s == king)
+                    return false;
+            }
+            return true;
+        }
+
+        /***************************************************************
+         * Lists where the weak King can go, -1 for taking the piece
+         **************************************************************/
+        private int countWeakMoves(int king, int other, int piece) {
+            int count = 0;
+            for (int[] direction : DIRECTIONS) {
+                int to = step(other, direction);
+                if (to < 0 || touches(to, king))
+                    continue;
+                if (to == piece)
+                    targets[count++] = -1; // piece isn't guarded
+                else if (!isAttacked(to, piece, king))
+                    targets[count++] = to;
+            }
+            return count;
+        }
+
+        /***************************************************************
+         * Checks whether every move of the weak side is to a position
+         * the strong side already wins, and there is a move
+         **************************************************************/
+        private boolean weakLoses(int king, int other, int piece,
+                int plies) {
+            int count = countWeakMoves(king, other, piece);
+            if (count == 0)
+                return false; // stalemate, a mate was marked already
+            for (int i = 0; i < count; i++) {
+                if (targets[i] < 0)
+                    return false; // the piece is gone, a draw
+                int value = table[index(STRONG, king, targets[i], piece)]
+                        & 0xFF;
+                if (value == 0 || value > plies)
+                    return false;
+            }
+            return true;
+        }
+
+        /***************************************************************
+         * Checks whether the strong side has a move to a position lost
+         * for the weak side at the ply before
+         **************************************************************/
+        private boolean strongWins(int king, int other, int piece,
+                int plies) {
+            for (int[] direction : DIRECTIONS) {
+                int to = step(king, direction);
+                if (to >= 0 && to != piece && !touches(to, other)
+                        && lostAt(table, to, other, piece, plies))
+                    return true;
+            }
+            if (type == BitBoard.PAWN) {
+                int ahead = piece - 8;
+                if (ahead == king || ahead == other)
+                    return false;
+                if (BitBoard.row(ahead) == 0)
+                    return lostAt(made[BitBoard.QUEEN], king, other, ahead,
+                            plies)
+                            || lostAt(made[BitBoard.ROOK], king, other,
+                                    ahead, plies);
+                if (lostAt(table, king, other, ahead, plies))
+                    return true;
+                int twoAhead = ahead - 8;
+                return BitBoard.row(piece) == 6 && twoAhead != king
+                        && twoAhead != other
+                        && lostAt(table, king, other, twoAhead, plies);
+            }
+            for (int d = 0; d < (type == BitBoard.QUEEN ? 8 : 4); d++) {
+                for (int to = step(piece, DIRECTIONS[d]); to >= 0
+                        && to != king && to != other;
+                        to = step(to, DIRECTIONS[d])) {
+                    if (lostAt(table, king, other, to, plies))
+                        return true;
+                }
+            }
+            return false;
+        }
+
+        /***************************************************************
+         * Checks whether a weak side to move position of a table is
+         * lost in exactly one ply less
+         **************************************************************/
+        private static boolean lostAt(byte[] table, int king, int other,
+                int piece, int plies) {
+            return table != null && (table[index(WEAK, king, other,
+                    piece)] & 0xFF) == plies;
+        }
+
+        /***************************************************************
+         * Gets the square one step away, or -1 off the board
+         **************************************************************/
+        private static int step(int square, int[] direction) {
+            int row = BitBoard.row(square) + direction[0];
+            int col = BitBoard.col(square) + direction[1];
+            if (row < 0 || row > 7 || col < 0 || col > 7)
+                return -1;
+            return BitBoard.square(row, col);
+        }
+    }
+
+    /*******************************************************************
+     * Makes the tables from the command line
+     *
+     * @param args is the directory to write to, the current one if
+     *        there is none
+     * @throws IOException if a file can't be written
+     ******************************************************************/
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : ".");
+        long start = System.currentTimeMillis();
+        generate(directory);
+        System.out.println("Tables written to " + directory + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+}
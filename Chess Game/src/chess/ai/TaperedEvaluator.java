@@ -0,0 +1,80 @@
+package chess.ai;
+
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.PColor;
+import chess.objects.PieceSquareTables;
+
+/***********************************************************************
+ * Scores a position with the PieceSquareTables. Each color gets a
+ * middle game and an end game total, and the two are blended by the
+ * game phase: with every piece on the board only the middle game
+ * total counts, with only Kings and Pawns left only the end game one,
+ * and in between a share of each. So the King stops hiding and the
+ * Pawns start running gradually as pieces come off, not all at once.
+ *
+ * Black reads the tables mirrored, so a position and its mirror image
+ * with the colors swapped score the same for the side to move. The
+ * BitBoard keeps the totals and the phase as the pieces move, so this
+ * is O(1).
+ *
+ * The PawnStructure terms are blended the same way. They are looked
+ * up in a PawnTable by the pawn key, so they are only worked out for
+ * the first position with a given set of Pawns.
+ **********************************************************************/
+public class TaperedEvaluator implements Evaluator {
+
+    /** The tables are in hundredths of a Pawn, scores in tenths */
+    private static final int SCALE = 10;
+    /** Megabytes of the PawnTable unless told otherwise */
+    public static final int DEFAULT_PAWN_HASH_SIZE = 1;
+
+    /** Pawn structure scores, shared by every thread that evaluates */
+    private final PawnTable pawns;
+
+    /*******************************************************************
+     * Constructor with a PawnTable of the default size
+     ******************************************************************/
+    public TaperedEvaluator() {
+        this(DEFAULT_PAWN_HASH_SIZE);
+    }
+
+    /*******************************************************************
+     * Constructor with a PawnTable that takes at most the specified
+     * memory
+     *
+     * @param pawnHashSize is the PawnTable's size in megabytes
+     ******************************************************************/
+    public TaperedEvaluator(int pawnHashSize) {
+        pawns = new PawnTable(pawnHashSize);
+    }
+
+    /*******************************************************************
+     * Gets the PawnTable, for its size and hit and miss counts
+     *
+     * @return the table the pawn structure scores are kept in
+     ******************************************************************/
+    public PawnTable getPawnTable() {
+        return pawns;
+    }
+
+    @Override
+    public int evaluate(Chess game, PColor color) {
+        BitBoard bits = game.getBoard().getBitBoard();
+        PColor other = color == PColor.White ? PColor.Black
+                : PColor.White;
+        int midgame = bits.getMidgameScore(color)
+                - bits.getMidgameScore(other);
+        int endgame = bits.getEndgameScore(color)
+                - bits.getEndgameScore(other);
+        long structure = pawns.probe(bits);
+        int sign = color == PColor.White ? 1 : -1;
+        midgame += sign * PawnTable.midgame(structure);
+        endgame += sign * PawnTable.endgame(structure);
+        int phase = Math.min(bits.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (midgame * phase + endgame
+                * (PieceSquareTables.MAX_PHASE - phase))
+                / PieceSquareTables.MAX_PHASE;
+        return score / SCALE;
+    }
+}
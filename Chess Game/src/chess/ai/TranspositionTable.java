@@ -0,0 +1,192 @@
+package chess.ai;
+
+import java.util.Arrays;
+
+import chess.objects.EncodedMove;
+
+/***********************************************************************
+ * Remembers the results of searched positions by their Zobrist key so
+ * a position reached again through other moves, or in a later search,
+ * doesn't have to be searched again.
+ *
+ * The table is a fixed number of entries that fit the memory it is
+ * given. Each entry is two longs: the key and the packed data, which
+ * holds the best move, the score, the depth, the bound and the search
+ * that wrote it. The key is stored XORed with the data, so an entry
+ * that is half written by another thread just looks like a miss.
+ *
+ * Entries come in buckets of two. A new position replaces the entry
+ * of the bucket that is from an older search, or else the shallower
+ * one, so deep results survive while recent ones still get in.
+ **********************************************************************/
+public class TranspositionTable {
+
+    /** The score is an upper bound, the real score is at most this */
+    public static final int UPPER = 1;
+    /** The score is a lower bound, the real score is at least this */
+    public static final int LOWER = 2;
+    /** The score is exact */
+    public static final int EXACT = 3;
+
+    /** Bytes taken by one entry */
+    public static final int ENTRY_BYTES = 16;
+    /** Entries in a bucket, a position can only be in its bucket */
+    private static final int BUCKET = 2;
+
+    /** The key of every entry XORed with its data */
+    private long[] keys;
+    /** The packed data of every entry */
+    private long[] data;
+    /** Is the number of entries minus one, entries are a power of 2 */
+    private int mask;
+    /** Is the search the table is being used for, 6 bits */
+    private int age;
+
+    /*******************************************************************
+     * Constructor for a table that takes at most the specified memory
+     *
+     * @param megabytes is the most memory the entries may use
+     ******************************************************************/
+    public TranspositionTable(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        long entries = Long.highestOneBit(bytes / ENTRY_BYTES);
+        entries = Math.min(entries, 1 << 30);
+        keys = new long[(int) entries];
+        data = new long[(int) entries];
+        mask = (int) entries - 1;
+    }
+
+    /*******************************************************************
+     * Gets how many entries the table holds
+     *
+     * @return the number of entries
+     ******************************************************************/
+    public int size() {
+        return keys.length;
+    }
+
+    /*******************************************************************
+     * Empties the table
+     ******************************************************************/
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        age = 0;
+    }
+
+    /*******************************************************************
+     * Marks the start of a new search, so the entries of earlier
+     * searches are the first to be replaced
+     ******************************************************************/
+    public void newSearch() {
+        age = (age + 1) & 63;
+    }
+
+    /*******************************************************************
+     * Looks up a position
+     *
+     * @param key is the Zobrist key of the position
+     * @return the packed data of the entry, or 0 if it isn't stored
+     ******************************************************************/
+    public long probe(long key) {
+        int first = (int) key & mask & -BUCKET;
+        for (int i = first; i < first + BUCKET; i++) {
+            long entry = data[i];
+            if (entry != 0 && (keys[i] ^ entry) == key)
+                return entry;
+        }
+        return 0L;
+    }
+
+    /*******************************************************************
+     * Stores the result of a search of a position
+     *
+     * @param key is the Zobrist key of the position
+     * @param move is the best EncodedMove found, or NONE
+     * @param score is the score of the position
+     * @param depth is the depth it was searched to
+     * @param bound is UPPER, LOWER or EXACT
+     ******************************************************************/
+    public void store(long key, int move, int score, int depth,
+            int bound) {
+        int first = (int) key & mask & -BUCKET;
+        int replace = first;
+        for (int i = first; i < first + BUCKET; i++) {
+            long entry = data[i];
+            if (entry != 0 && (keys[i] ^ entry) == key) {
+                // Same position, keep its move if there is no new one
+                if (move == EncodedMove.NONE)
+                    move = move(entry);
+                replace = i;
+                break;
+            }
+            if (worth(i) < worth(replace))
+                replace = i;
+        }
+        long entry = pack(move, score, depth, bound);
+        data[replace] = entry;
+        keys[replace] = key ^ entry;
+    }
+
+    /*******************************************************************
+     * Gets how much an entry is worth keeping, empty and old entries
+     * are worth the least
+     ******************************************************************/
+    private int worth(int index) {
+        long entry = data[index];
+        if (entry == 0)
+            return -1;
+        int entryAge = (int) (entry >>> 58);
+        return (entryAge == age ? 256 : 0) + depth(entry);
+    }
+
+    /*******************************************************************
+     * Packs an entry, move in bits 0-15, score 16-47, depth 48-55,
+     * bound 56-57 and age 58-63
+     ******************************************************************/
+    private long pack(int move, int score, int depth, int bound) {
+        return (move & 0xFFFFL) | ((score & 0xFFFFFFFFL) << 16)
+                | ((long) Math.max(0, Math.min(depth, 255)) << 48)
+                | ((long) bound << 56) | ((long) age << 58);
+    }
+
+    /*******************************************************************
+     * Gets the best move of an entry
+     *
+     * @param entry is the packed data returned by probe
+     * @return the EncodedMove, or NONE
+     ******************************************************************/
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    /*******************************************************************
+     * Gets the score of an entry
+     *
+     * @param entry is the packed data returned by probe
+     * @return the score as it was stored
+     ******************************************************************/
+    public static int score(long entry) {
+        return (int) (entry >>> 16);
+    }
+
+    /*******************************************************************
+     * Gets the depth of an entry
+     *
+     * @param entry is the packed data returned by probe
+     * @return the depth the position was searched to
+     ******************************************************************/
+    public static int depth(long entry) {
+        return (int) (entry >>> 48) & 255;
+    }
+
+    /*******************************************************************
+     * Gets the bound of an entry
+     *
+     * @param entry is the packed data returned by probe
+     * @return UPPER, LOWER or EXACT
+     ******************************************************************/
+    public static int bound(long entry) {
+        return (int) (entry >>> 56) & 3;
+    }
+}
@@ -0,0 +1,131 @@
+package chess.controller;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+import chess.ai.ParallelSearch;
+import chess.main.Chess;
+import chess.objects.EncodedMove;
+import chess.objects.Move;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Runs the AI's search on a thread of its own so the GUI, and the
+ * countdown Timer with it, keeps going while the AI thinks.
+ *
+ * The search works on a snapshot of the game, never on the game the
+ * GUI shows, and the move it finds is handed back on the Swing event
+ * thread. start and cancel are meant to be called from that thread
+ * too. A cancelled search never reports a move, even if it already
+ * found one.
+ *
+ * A position the game's OpeningBook knows isn't searched at all, the
+ * book move is handed back the same way.
+ **********************************************************************/
+public class AIWorker {
+
+    /** Is the single thread every search runs on, one after another */
+    private final ExecutorService executor;
+    /** Is the search that is running, null when there is none */
+    private ParallelSearch current;
+    /** Whether a book move is on its way to the event thread */
+    private boolean bookMovePending;
+    /** Counts the searches, a result is only used if it is the latest */
+    private int generation;
+
+    /*******************************************************************
+     * Constructor that creates the worker thread. It is a daemon, so
+     * it doesn't keep the program running after the window is closed.
+     ******************************************************************/
+    public AIWorker() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AI search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /*******************************************************************
+     * Starts looking for a move, cancelling a search that is still
+     * running
+     *
+     * @param game is the game to find a move in, it is copied first
+     * @param color is the PColor to find a move for
+     * @param millis is how long the search may take in milliseconds
+     * @param listener gets the Move on the Swing event thread, or null
+     *        if color has no legal moves
+     ******************************************************************/
+    public void start(Chess game, PColor color, long millis,
+            Consumer<Move> listener) {
+        cancel();
+        int book = game.probeBook(color);
+        if (book != EncodedMove.NONE) {
+            final Move move = game.createMove(book);
+            final int id = ++generation;
+            bookMovePending = true;
+            SwingUtilities.invokeLater(() -> {
+                if (id != generation)
+                    return; // cancelled or replaced in the meantime
+                bookMovePending = false;
+                listener.accept(move);
+            });
+            return;
+        }
+        final Chess position = game.snapshot();
+        final ParallelSearch search = position.createParallelSearch();
+        search.setTimeLimit(millis);
+        final int id = ++generation;
+        current = search;
+        executor.execute(() -> {
+            int best = search.findBestMove(color);
+            Move move = best == EncodedMove.NONE ? null
+                    : position.createMove(best);
+            SwingUtilities.invokeLater(() -> {
+                if (id != generation || search.isCancelled())
+                    return; // cancelled or replaced in the meantime
+                current = null;
+                listener.accept(move);
+            });
+        });
+    }
+
+    /*******************************************************************
+     * Stops the running search, its move will not be reported
+     *
+     * @return a boolean value whether a search was running or a book
+     *         move was still to be reported
+     ******************************************************************/
+    public boolean cancel() {
+        generation++;
+        if (bookMovePending) {
+            bookMovePending = false;
+            return true;
+        }
+        if (current == null)
+            return false;
+        current.cancel();
+        current = null;
+        return true;
+    }
+
+    /*******************************************************************
+     * Checks whether a search is running or its book move hasn't been
+     * reported yet
+     *
+     * @return a boolean value whether the AI is thinking
+     ******************************************************************/
+    public boolean isSearching() {
+        return current != null || bookMovePending;
+    }
+
+    /*******************************************************************
+     * Cancels the running search and stops the worker thread
+     ******************************************************************/
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
@@ -12,8 +12,10 @@ import java.awt.event.ActionListener;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 
 import javax.swing.ImageIcon;
@@ -28,7 +30,12 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 
 import chess.gui.ChessGUI;
 import chess.gui.IconSetDialog;
+import chess.io.GameReader;
+import chess.io.GameRecord;
+import chess.io.GameWriter;
+import chess.io.MoveJournal;
 import chess.main.Chess;
+import chess.objects.BitBoard;
 import chess.objects.Bishop;
 import chess.objects.Castling_Move;
 import chess.objects.En_Passant_Move;
@@ -70,8 +77,14 @@ public class ChessController {
     private int currentTimeLimit;
     /** Whether the AI is enabled or disabled */
     private boolean aiEnabled;
+    /** Milliseconds the AI may think about each move */
+    private static final long AI_SEARCH_TIME = 1000;
+    /** Searches for the AI's moves off the event thread */
+    private AIWorker aiWorker;
     /** A simple counter to tell when to reset the Passant fields */
     private int resetPassant, resetPassantB;
+    /** Is the autosave of the moves, or null if there is none */
+    private MoveJournal journal;
     
     /*******************************************************************
      * Constructor for the Controller part of the MVC Takes in both the
@@ -97,6 +110,7 @@ public class ChessController {
         whitePlayerTimer = true;
         setTimers();
         aiEnabled = false;
+        aiWorker = new AIWorker();
         this.gui.addChessListener(new ChessListener());
         resetPassant = 0;
         timerSwitch = true;
@@ -126,35 +140,32 @@ public class ChessController {
             		save(filename);
             	}
             } else if (e.getSource() == gui.getLoadItem()) {
+            	aiWorker.cancel();
             	JFileChooser fc = new JFileChooser();
             	int response = fc.showOpenDialog(null);
             	if (response == JFileChooser.APPROVE_OPTION) {
             		String filename = fc.getSelectedFile().toString();
             		load(filename);
+            		journalStart();
             	}
             	
-            	int r1Temp = r1;
-            	int r2Temp = r2;
-            	int c1Temp = c1;
-            	int c2Temp = c2;
-            	for ( int i = 0; i < 8; ++i ) {
-            		for ( int j = 0; j < 8; ++j ) {
-            			r1 = r2 = i;
-            			c1 = c2 = j;
-            			updateMovedPieceButtons();
-            		}
-            	}
-            	r1 = r1Temp;
-            	r2 = r2Temp;
-            	c1 = c1Temp;
-            	c2 = c2Temp;
+            	updateAllButtons();
             	updateHistory();
             	
             } else if (e.getSource() == gui.getEnableItem()) {
                 startStopAI();
             } else if (e.getSource() == gui.getUndoItem()) {
                 
-                if (game.getMoves().size() > 0){
+                if (aiWorker.cancel()) {
+                    // The AI hadn't moved yet, take back the move it
+                    // was answering and give the turn back
+                    updateUndoMoveOnBoard(game.getPreviousMove());
+                    whiteTurn = true;
+                    turnChange(whiteTurn);
+                    updateHistory();
+                    gui.revalidate();
+                    gui.repaint();
+                } else if (game.getMoves().size() > 0){
                     
                     Move temp = game.getPreviousMove();
                     if (temp instanceof Castling_Move){
@@ -204,21 +215,24 @@ public class ChessController {
                 
             }
             
-            else if (firstClick) { // Stores pieces location or resets
-                findCell(e);
-                executeFirstClick();
-                if (!firstClick) {
-                    highlightPossibleMoves(game.getPieceAt(r1, c1));
+            // The board is the AI's until it has moved
+            else if (!aiWorker.isSearching()) {
+                if (firstClick) { // Stores pieces location or resets
+                    findCell(e);
+                    executeFirstClick();
+                    if (!firstClick) {
+                        highlightPossibleMoves(game.getPieceAt(r1, c1));
+                    }
+                } else { // It is the second click of the Player's turn
+                    findCell(e);
+                    
+                    executeSecondClick();
+                    
                 }
-            } else { // It is the second click of the Player's turn
-                findCell(e);
-                
-                executeSecondClick();
-                
             }
             // unHighlightCells();
             printPassant();
-            if (!whiteTurn && aiEnabled) {
+            if (!whiteTurn && aiEnabled && !aiWorker.isSearching()) {
                 executeAITurn(PColor.Black);
             }
             if (game.isGameOver() != -1) {
@@ -241,6 +255,7 @@ public class ChessController {
      * Starts a new game if the new game option is selected
      **************************************************************/
     private void startNewGame() {
+        aiWorker.cancel();
         game.reset(); // resets the board in Chess.java
         gui.resetBoard(); // resets the buttons
         gui.revalidate();
@@ -261,6 +276,73 @@ public class ChessController {
                 gui.getButtonAt(x, y).setEnabled(true);
             }
         }
+        journalStart();
+    }
+    
+    /*******************************************************************
+     * Sets the journal every move is autosaved to and carries on the
+     * game it had when the program last stopped
+     * 
+     * @param journal is the MoveJournal to write, or null for none
+     * @param recovered is the game MoveJournal.replay read back from
+     *        it, or null to start the journal with a new game
+     ******************************************************************/
+    public void setJournal(MoveJournal journal, GameRecord recovered) {
+        this.journal = journal;
+        if (recovered != null) {
+            try {
+                restore(recovered);
+                updateAllButtons();
+                updateHistory();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        journalStart();
+        if (!whiteTurn && aiEnabled) {
+            executeAITurn(PColor.Black);
+        }
+    }
+    
+    /*******************************************************************
+     * Starts the journal over with the game as it is now
+     ******************************************************************/
+    private void journalStart() {
+        if (journal != null) {
+            try {
+                journal.startGame(toRecord());
+            } catch (IOException | IllegalStateException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /*******************************************************************
+     * Adds the last move to the journal, if the game recorded one
+     * 
+     * @param before is how many moves the game had before the move
+     ******************************************************************/
+    private void journalMove(int before) {
+        if (journal != null && game.getMoves().size() > before) {
+            try {
+                journal.move(game.getPreviousMove());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /*******************************************************************
+     * Adds to the journal that the last move was taken back
+     ******************************************************************/
+    private void journalUndo() {
+        if (journal != null) {
+            try {
+                journal.undo();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
     
     /***************************************************************
@@ -347,6 +429,7 @@ public class ChessController {
      **************************************************************/
     private void executeSecondClick() {
         Piece first = game.getPieceAt(r1, c1);
+        int before = game.getMoves().size();
         
         if (game.checkMove(r1, c1, r2, c2, first)) {
             // Castling is a unique king move
@@ -389,23 +472,35 @@ public class ChessController {
             
             unHighlightCells();
             updateHistory();
+            journalMove(before);
             
         }
     }
     
     /*******************************************************************
-     * Executes the AI's turn
+     * Starts the AI's turn. The search runs in the background and the
+     * move is played by playAITurn once it has been found.
      * 
      * @param color is the PColor of the AI
      ******************************************************************/
     private void executeAITurn(PColor color) {
-        Move move = game.getBestMove(color);
+        aiWorker.start(game, color, AI_SEARCH_TIME,
+                move -> playAITurn(move));
+    }
+    
+    /*******************************************************************
+     * Plays the move the AI found, on the event thread
+     * 
+     * @param move is the AI's Move, or null if it has none
+     ******************************************************************/
+    private void playAITurn(Move move) {
         if (move != null) {
             r1 = move.getR1();
             c1 = move.getC1();
             r2 = move.getR2();
             c2 = move.getC2();
             Piece first = game.getPieceAt(r1, c1);
+            int before = game.getMoves().size();
             
             if (game.checkMove(r1, c1, r2, c2, first)) {
                 // Castling is a unique king move
@@ -442,6 +537,7 @@ public class ChessController {
                 } else {
                     resetPassantB++;
                 }
+                journalMove(before);
                 if (game.isGameOver() != -1) {
                     displayWinner(game.isGameOver());
                 }
@@ -510,6 +606,28 @@ public class ChessController {
         }
     }
     
+    /***************************************************************
+     * Updates the icons of every button, after a whole game is put on
+     * the board at once
+     **************************************************************/
+    private void updateAllButtons() {
+        int r1Temp = r1;
+        int r2Temp = r2;
+        int c1Temp = c1;
+        int c2Temp = c2;
+        for (int i = 0; i < 8; ++i) {
+            for (int j = 0; j < 8; ++j) {
+                r1 = r2 = i;
+                c1 = c2 = j;
+                updateMovedPieceButtons();
+            }
+        }
+        r1 = r1Temp;
+        r2 = r2Temp;
+        c1 = c1Temp;
+        c2 = c2Temp;
+    }
+    
     /***************************************************************
      * Updates the two buttons' icons after moving a piece for the case
      * of a en Passant move
@@ -578,6 +696,7 @@ public class ChessController {
             aiEnabled = true;
             gui.getEnableItem().setText("Disable AI");
         } else {
+            aiWorker.cancel();
             aiEnabled = false;
             gui.getEnableItem().setText("Enable AI");
         }
@@ -630,21 +749,26 @@ public class ChessController {
             Queen promotedQueen = new Queen(piece.getColor());
             game.setPieceAt(row2, col2, promotedQueen);
             game.setPieceAt(row1, col1, null);
+            game.setPromotion(BitBoard.QUEEN);
         }
         
         else if (input.equals("Bishop")) {
             Bishop promotedBishop = new Bishop(piece.getColor());
             game.setPieceAt(row2, col2, promotedBishop);
-            game.setPieceAt(row1, col1, null);        }
+            game.setPieceAt(row1, col1, null);
+            game.setPromotion(BitBoard.BISHOP);
+        }
         
         else if (input.equals("Knight")) {
             Knight promotedKnight = new Knight(piece.getColor());
             game.setPieceAt(row2, col2, promotedKnight);
-            game.setPieceAt(row1, col1, null);            
+            game.setPieceAt(row1, col1, null);
+            game.setPromotion(BitBoard.KNIGHT);
         } else if (input.equals("Rook")) {
             Rook promotedRook = new Rook(piece.getColor());
             game.setPieceAt(row2, col2, promotedRook);
             game.setPieceAt(row1, col1, null);
+            game.setPromotion(BitBoard.ROOK);
         }
     }
     
@@ -762,6 +886,7 @@ public class ChessController {
         
         temp = moves;
         game.unMakeMove();
+        journalUndo();
         
         // If move was a castling move, update accordingly
         if (moves instanceof Castling_Move) {
@@ -884,69 +1009,108 @@ public class ChessController {
     }
     
     /*******************************************************************
-     * Method to save the current game as a serialized file.
+     * Method to save the current game in the binary game format: the
+     * moves, the clocks and the state of this controller. The game is
+     * written next to the file and moved over it once it is all on
+     * disk, so a save that fails leaves the one before it alone.
      * 
      * @param filename the path to save the file to
      *******************************************************************/
     private void save(String filename) {
+    	GameRecord record;
     	try {
-    		FileOutputStream fileOut = new FileOutputStream(filename);
-    		ObjectOutputStream out = new ObjectOutputStream(fileOut);
-    		
-    		out.writeObject(game);
-    		out.writeInt(r1);
-    		out.writeInt(c1);
-    		out.writeInt(r2);
-    		out.writeInt(c2);
-    		out.writeBoolean(firstClick);
-    		out.writeBoolean(whiteTurn);
-    		out.writeInt(timeRemainingP1);
-    		out.writeInt(timeRemainingP2);
-    		out.writeBoolean(whitePlayerTimer);
-    		out.writeBoolean(timerSwitch);
-    		out.writeInt(currentTimeLimit);
-    		out.writeBoolean(aiEnabled);
-    		out.writeInt(resetPassant);
-    		out.writeInt(resetPassantB);
-    		
-    		out.close();
-    		fileOut.close();
+    		record = toRecord();
+    	} catch(IllegalStateException i) {
+    		i.printStackTrace();
+    		return;
+    	}
+    	Path file = Paths.get(filename);
+    	Path temp = Paths.get(filename + ".tmp");
+    	try {
+    		try (FileOutputStream stream = new FileOutputStream(
+    				temp.toFile());
+    				GameWriter out = new GameWriter(stream)) {
+    			out.writeGame(record);
+    			out.flush();
+    			stream.getFD().sync();
+    		}
+    		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+    				StandardCopyOption.ATOMIC_MOVE);
     	} catch(IOException i) {
     		i.printStackTrace();
+    		try {
+    			Files.deleteIfExists(temp);
+    		} catch(IOException d) {
+    			d.printStackTrace();
+    		}
     	}
     }
     
     /*******************************************************************
-     * Method to load a game from a previously saved serialized file
+     * Builds the record of the current game, its moves, the clocks and
+     * the state of this controller, for a save or the journal
+     * 
+     * @return the GameRecord of the game
+     *******************************************************************/
+    private GameRecord toRecord() {
+    	GameRecord record = GameRecord.of(game,
+    			whiteTurn ? PColor.White : PColor.Black);
+    	record.setClock(timeRemainingP1, timeRemainingP2,
+    			currentTimeLimit, timerSwitch, whitePlayerTimer);
+    	record.setState(r1, c1, r2, c2, firstClick ? 1 : 0,
+    			aiEnabled ? 1 : 0, resetPassant, resetPassantB);
+    	return record;
+    }
+    
+    /*******************************************************************
+     * Method to load a game saved by save, the moves are played again
+     * so they can be undone
      * 
      * @param filename the path to file to be loaded
      *******************************************************************/
     private void load(String filename) {
-    	try {
-    		FileInputStream fileIn = new FileInputStream(filename);
-    		ObjectInputStream in = new ObjectInputStream(fileIn);
-    		
-    		game = (Chess) in.readObject();
-    		r1 = in.readInt();
-    		c1 = in.readInt();
-    		r2 = in.readInt();
-    		c2 = in.readInt();
-    		firstClick = in.readBoolean();
-    		whiteTurn = in.readBoolean();
-    		timeRemainingP1 = in.readInt();
-    		timeRemainingP2 = in.readInt();
-    		whitePlayerTimer = in.readBoolean();
-    		timerSwitch = in.readBoolean();
-    		currentTimeLimit = in.readInt();
-    		aiEnabled = in.readBoolean();
-    		resetPassant = in.readInt();
-    		resetPassantB = in.readInt();
-    		
-    		in.close();
+    	try (GameReader in = new GameReader(
+    			new FileInputStream(filename))) {
+    		GameRecord record = in.readGame();
+    		if (record == null)
+    			throw new IOException("No game in " + filename);
+    		restore(record);
     	} catch(IOException i) {
     		i.printStackTrace();
-    	} catch(ClassNotFoundException cnf) {
-    		cnf.printStackTrace();
     	}
     }
-}
\ No newline at end of file
+    
+    /*******************************************************************
+     * Puts a saved game in place of the current one, with its clocks
+     * and the state of the controller that saved it
+     * 
+     * @param record is the saved game
+     * @throws IOException if a move of the game isn't legal, the
+     *         current game is kept then
+     *******************************************************************/
+    private void restore(GameRecord record) throws IOException {
+    	Chess loaded = record.toGame();
+    	// The search settings belong to the program, not the game
+    	loaded.copySearchSettings(game);
+    	game = loaded;
+    	whiteTurn = record.getToMove() == PColor.White;
+    	if (record.hasClock()) {
+    		timeRemainingP1 = record.getWhiteTime();
+    		timeRemainingP2 = record.getBlackTime();
+    		currentTimeLimit = record.getTimeLimit();
+    		timerSwitch = record.isClockEnabled();
+    		whitePlayerTimer = record.isWhiteClock();
+    	}
+    	int[] state = record.getState();
+    	if (state != null && state.length >= 8) {
+    		r1 = state[0];
+    		c1 = state[1];
+    		r2 = state[2];
+    		c2 = state[3];
+    		firstClick = state[4] != 0;
+    		aiEnabled = state[5] != 0;
+    		resetPassant = state[6];
+    		resetPassantB = state[7];
+    	}
+    }
+}
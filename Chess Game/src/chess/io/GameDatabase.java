@@ -0,0 +1,689 @@
+package chess.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import chess.main.Chess;
+import chess.objects.EncodedMove;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+import chess.objects.Position;
+
+/***********************************************************************
+ * A store of any number of games that can tell which games reached a
+ * position and how each move from it did. It is a directory of two
+ * files:
+ *
+ * - games.dat, the games in the binary game format one after the
+ *   other, each after an int of its length. Games are only ever added
+ *   at the end and a game's offset in the file is its id.
+ * - positions.idx, a 32 byte header and then 16 byte entries sorted by
+ *   key: the Zobrist key of a position a game reached, then a long of
+ *   the game's offset, the move played from the position (NONE after
+ *   the last move) and the game's result. The file is mapped into
+ *   memory, so a lookup is a binary search that only pages in the
+ *   entries it touches, however many millions of games there are.
+ *
+ * Added games are indexed in memory until commit, which forces the
+ * games to disk and then merges them into a new index that replaces
+ * the old one in one rename. A crash loses at most the index of the
+ * games since the last commit, and those are indexed again from the
+ * games file when the database is next opened. A game cut short at the
+ * end of the file is dropped, but a whole game that can't be read
+ * stops the database from opening rather than losing the games after
+ * it.
+ *
+ * A GameDatabase is used by one thread at a time.
+ **********************************************************************/
+public class GameDatabase implements Closeable {
+
+    /** Are the names of the files in the directory */
+    public static final String GAMES_FILE = "games.dat",
+            INDEX_FILE = "positions.idx";
+    /** Starts the index file, "CHDX" */
+    public static final int INDEX_MAGIC = 0x43484458;
+    /** Is the version of the index this class writes */
+    public static final int INDEX_VERSION = 1;
+    /** Bytes taken by one index entry */
+    public static final int ENTRY_BYTES = 16;
+    /** Bytes of the index header */
+    private static final int INDEX_HEADER = 32;
+    /** Bytes of the games file header, the magic and version */
+    private static final int GAMES_HEADER = 6;
+    /** Entries in each mapping of the index, 2^26 to the gigabyte */
+    private static final int SEGMENT_SHIFT = 26;
+    private static final long SEGMENT_ENTRIES = 1L << SEGMENT_SHIFT;
+    /** Entries kept in memory before commit is called on its own */
+    private static final int MAX_PENDING = 1 << 22;
+    /** Shift of the game offset in the second long of an entry */
+    private static final int OFFSET_SHIFT = 24;
+
+    /** Is the directory of the files */
+    private final Path directory;
+    /** Is the open games file */
+    private final FileChannel games;
+    /** Is the version of the games file */
+    private final int version;
+    /** Is the end of the last whole game in the games file */
+    private long gamesLength;
+    /** Is the number of games, indexed or not */
+    private long gameCount;
+    /** Are the index entries, mapped a gigabyte at a time */
+    private MappedByteBuffer[] segments;
+    /** Is the number of entries in the index file */
+    private long entryCount;
+    /** Is how much of the games file the index file covers */
+    private long indexedLength;
+    /** Are the entries not in the index file yet, key and game */
+    private long[] pendingKeys, pendingData;
+    /** Is the number of entries not in the index file yet */
+    private int pendingCount;
+
+    /*******************************************************************
+     * Constructor that opens the database in a directory, creating it
+     * if it isn't there, and indexes any games the index misses
+     *
+     * @param directory is the directory of the database
+     * @throws IOException if the files can't be read or written or
+     *         aren't a database, or a game before the end is bad
+     ******************************************************************/
+    public GameDatabase(Path directory) throws IOException {
+        this.directory = directory;
+        this.pendingKeys = new long[1024];
+        this.pendingData = new long[1024];
+        Files.createDirectories(directory);
+        games = FileChannel.open(directory.resolve(GAMES_FILE),
+                StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(GAMES_HEADER);
+            if (games.size() < GAMES_HEADER) {
+                header.putInt(GameWriter.MAGIC)
+                        .putShort((short) GameWriter.VERSION).flip();
+                games.truncate(0);
+                writeFully(games, header, 0);
+                version = GameWriter.VERSION;
+            } else {
+                readFully(games, header, 0);
+                header.flip();
+                if (header.getInt() != GameWriter.MAGIC)
+                    throw new IOException("Not a game database: "
+                            + directory);
+                version = header.getShort() & 0xFFFF;
+                GameReader.checkVersion(version);
+            }
+            mapIndex();
+            if (indexedLength > games.size()) {
+                // The games the index points at are gone, start over
+                segments = new MappedByteBuffer[0];
+                entryCount = 0;
+                indexedLength = GAMES_HEADER;
+                gameCount = 0;
+            }
+            recover();
+        } catch (IOException | RuntimeException e) {
+            games.close();
+            throw e;
+        }
+    }
+
+    /*******************************************************************
+     * Adds a game at the end of the games file. It is found by lookups
+     * at once, but only kept in the index file by commit.
+     *
+     * @param record is the game, its result counts in the move stats
+     * @return the id of the game, for getGame
+     * @throws IOException if the game can't be written
+     * @throws IllegalArgumentException if a move isn't legal
+     ******************************************************************/
+    public long addGame(GameRecord record) throws IOException {
+        long[] keys = positionKeys(record);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (GameWriter out = new GameWriter(bytes, false)) {
+            out.writeGame(record);
+        }
+        ByteBuffer frame = ByteBuffer.allocate(4 + bytes.size());
+        frame.putInt(bytes.size()).put(bytes.toByteArray()).flip();
+        long offset = gamesLength;
+        writeFully(games, frame, offset);
+        gamesLength += frame.limit();
+        addEntries(keys, record, offset);
+        if (pendingCount >= MAX_PENDING)
+            commit();
+        return offset;
+    }
+
+    /*******************************************************************
+     * Gets a game
+     *
+     * @param id is the id addGame or findGames gave
+     * @return the GameRecord of the game
+     * @throws IOException if the game can't be read
+     * @throws IllegalArgumentException if there is no game there
+     ******************************************************************/
+    public GameRecord getGame(long id) throws IOException {
+        if (id < GAMES_HEADER || id >= gamesLength)
+            throw new IllegalArgumentException("No game at " + id);
+        byte[] body = readFrame(id, gamesLength);
+        if (body == null)
+            throw new IOException("Game at " + id + " is cut short");
+        return parse(body);
+    }
+
+    /*******************************************************************
+     * Finds the games that reached a position
+     *
+     * @param position is the position
+     * @param limit is the most ids to give
+     * @return the ids of the games, those in the index file first
+     * @throws IllegalArgumentException if the limit is negative
+     ******************************************************************/
+    public long[] findGames(Position position, int limit) {
+        return findGames(position.getKey(), limit);
+    }
+
+    /*******************************************************************
+     * Finds the games that reached a position
+     *
+     * @param key is the Zobrist key of the position, Position.getKey
+     * @param limit is the most ids to give
+     * @return the ids of the games, those in the index file first
+     * @throws IllegalArgumentException if the limit is negative
+     ******************************************************************/
+    public long[] findGames(long key, int limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException("Negative limit " + limit);
+        long[] found = new long[Math.min(limit, 64)];
+        int count = 0;
+        long last = -1;
+        for (long i = firstEntry(key); i < entryCount && count < limit
+                && keyAt(i) == key; i++) {
+            long game = dataAt(i) >>> OFFSET_SHIFT;
+            if (game == last)
+                continue; // the game was here more than once
+            if (count == found.length)
+                found = Arrays.copyOf(found, Math.min(limit, count * 2));
+            found[count++] = last = game;
+        }
+        // The entries in memory aren't sorted, so a game that was at the
+        // position more than once is looked for among all of them
+        Set<Long> pendingGames = new HashSet<Long>();
+        for (int i = 0; i < pendingCount && count < limit; i++) {
+            if (pendingKeys[i] != key)
+                continue;
+            long game = pendingData[i] >>> OFFSET_SHIFT;
+            if (!pendingGames.add(game))
+                continue;
+            if (count == found.length)
+                found = Arrays.copyOf(found, Math.min(limit, count * 2));
+            found[count++] = game;
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /*******************************************************************
+     * Counts how each move from a position did
+     *
+     * @param position is the position
+     * @return the stats of every move played from it, most played
+     *         first
+     ******************************************************************/
+    public List<MoveStats> getMoveStats(Position position) {
+        return getMoveStats(position.getKey());
+    }
+
+    /*******************************************************************
+     * Counts how each move from a position did
+     *
+     * @param key is the Zobrist key of the position, Position.getKey
+     * @return the stats of every move played from it, most played
+     *         first
+     ******************************************************************/
+    public List<MoveStats> getMoveStats(long key) {
+        Map<Integer, MoveStats> stats = new LinkedHashMap<Integer,
+                MoveStats>();
+        for (long i = firstEntry(key); i < entryCount && keyAt(i) == key;
+                i++)
+            count(stats, dataAt(i));
+        for (int i = 0; i < pendingCount; i++) {
+            if (pendingKeys[i] == key)
+                count(stats, pendingData[i]);
+        }
+        List<MoveStats> list = new ArrayList<MoveStats>(stats.values());
+        Collections.sort(list, (a, b) -> b.getGames() - a.getGames());
+        return list;
+    }
+
+    /*******************************************************************
+     * Gets the number of games
+     *
+     * @return how many games were added, committed or not
+     ******************************************************************/
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    /*******************************************************************
+     * Gets the number of positions indexed, one for every move of
+     * every game and one for where it ended
+     *
+     * @return the number of index entries, committed or not
+     ******************************************************************/
+    public long getEntryCount() {
+        return entryCount + pendingCount;
+    }
+
+    /*******************************************************************
+     * Forces the added games to disk and merges their index entries
+     * into the index file
+     *
+     * @throws IOException if the files can't be written
+     ******************************************************************/
+    public void commit() throws IOException {
+        if (pendingCount == 0 && indexedLength == gamesLength)
+            return;
+        // The games have to be on disk before an index points at them
+        games.force(false);
+        sortPending(0, pendingCount);
+        Path file = directory.resolve(INDEX_FILE);
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(INDEX_MAGIC).putInt(INDEX_VERSION)
+                    .putLong(gamesLength).putLong(gameCount)
+                    .putLong(entryCount + pendingCount);
+            buffer.position(INDEX_HEADER);
+            long i = 0;
+            int j = 0;
+            while (i < entryCount || j < pendingCount) {
+                if (buffer.remaining() < ENTRY_BYTES)
+                    drain(out, buffer);
+                if (j == pendingCount || (i < entryCount
+                        && compare(keyAt(i), dataAt(i), pendingKeys[j],
+                                pendingData[j]) <= 0)) {
+                    buffer.putLong(keyAt(i)).putLong(dataAt(i));
+                    i++;
+                } else {
+                    buffer.putLong(pendingKeys[j]).putLong(pendingData[j]);
+                    j++;
+                }
+            }
+            drain(out, buffer);
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        pendingCount = 0;
+        mapIndex();
+    }
+
+    /*******************************************************************
+     * Commits and closes the games file
+     ******************************************************************/
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            games.close();
+        }
+    }
+
+    /*******************************************************************
+     * Maps the index file, or starts with an empty index if there is
+     * none
+     ******************************************************************/
+    private void mapIndex() throws IOException {
+        segments = new MappedByteBuffer[0];
+        entryCount = 0;
+        indexedLength = GAMES_HEADER;
+        gameCount = 0;
+        Path file = directory.resolve(INDEX_FILE);
+        if (!Files.exists(file))
+            return;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+            if (!readFully(channel, header, 0))
+                throw new IOException("Index cut short: " + file);
+            header.flip();
+            if (header.getInt() != INDEX_MAGIC
+                    || header.getInt() > INDEX_VERSION)
+                throw new IOException("Not a game index: " + file);
+            long length = header.getLong();
+            long count = header.getLong();
+            long entries = header.getLong();
+            if (INDEX_HEADER + entries * ENTRY_BYTES > channel.size())
+                throw new IOException("Index cut short: " + file);
+            MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((entries
+                    + SEGMENT_ENTRIES - 1) >>> SEGMENT_SHIFT)];
+            for (int s = 0; s < mapped.length; s++) {
+                long first = (long) s << SEGMENT_SHIFT;
+                long size = Math.min(SEGMENT_ENTRIES, entries - first);
+                mapped[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        INDEX_HEADER + first * ENTRY_BYTES,
+                        size * ENTRY_BYTES);
+            }
+            // A mapping stays good after its channel is closed
+            segments = mapped;
+            entryCount = entries;
+            indexedLength = length;
+            gameCount = count;
+        }
+    }
+
+    /*******************************************************************
+     * Indexes the games after the ones the index file covers, and cuts
+     * off a game that was only partly written
+     *
+     * @throws IOException if a whole game can't be read
+     ******************************************************************/
+    private void recover() throws IOException {
+        long size = games.size();
+        long offset = indexedLength;
+        while (offset < size) {
+            byte[] body = readFrame(offset, size);
+            if (body == null) {
+                // Only the last game can be cut short by a crash
+                games.truncate(offset);
+                break;
+            }
+            GameRecord record;
+            long[] keys;
+            try {
+                record = parse(body);
+                keys = positionKeys(record);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new IOException("Bad game at " + offset + ": "
+                        + e.getMessage(), e);
+            }
+            addEntries(keys, record, offset);
+            offset += 4 + body.length;
+        }
+        gamesLength = offset;
+        commit();
+    }
+
+    /*******************************************************************
+     * Gets the keys of the positions of a game, before every move and
+     * after the last one, checking the moves on the way
+     ******************************************************************/
+    private static long[] positionKeys(GameRecord record) {
+        Position start = record.getStart();
+        Chess replay = new Chess(start);
+        PColor toMove = start.getToMove();
+        int[] moves = record.getMoves();
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        long[] keys = new long[moves.length + 1];
+        for (int i = 0; i < moves.length; i++) {
+            keys[i] = replay.getBoard().getZobristKey(toMove);
+            int count = replay.generateMoves(toMove, legal);
+            boolean found = false;
+            for (int j = 0; j < count && !found; j++)
+                found = legal[j] == moves[i];
+            if (!found)
+                throw new IllegalArgumentException("Move " + (i + 1)
+                        + " is not legal");
+            replay.doMove(moves[i]);
+            toMove = toMove == PColor.White ? PColor.Black : PColor.White;
+        }
+        keys[moves.length] = replay.getBoard().getZobristKey(toMove);
+        return keys;
+    }
+
+    /*******************************************************************
+     * Adds the index entries of a game to the ones in memory
+     ******************************************************************/
+    private void addEntries(long[] keys, GameRecord record, long offset) {
+        if (pendingCount + keys.length > pendingKeys.length) {
+            int size = Math.max(pendingKeys.length * 2,
+                    pendingCount + keys.length);
+            pendingKeys = Arrays.copyOf(pendingKeys, size);
+            pendingData = Arrays.copyOf(pendingData, size);
+        }
+        int[] moves = record.getMoves();
+        for (int i = 0; i < keys.length; i++) {
+            int move = i < moves.length ? moves[i] : EncodedMove.NONE;
+            pendingKeys[pendingCount] = keys[i];
+            pendingData[pendingCount] = offset << OFFSET_SHIFT
+                    | (move & 0xFFFF) << 8 | record.getResult();
+            pendingCount++;
+        }
+        gameCount++;
+    }
+
+    /*******************************************************************
+     * Counts an index entry in the stats of its move
+     ******************************************************************/
+    private static void count(Map<Integer, MoveStats> stats, long data) {
+        int move = (int) (data >>> 8) & 0xFFFF;
+        if (move == EncodedMove.NONE)
+            return; // the game ended here
+        MoveStats moveStats = stats.get(move);
+        if (moveStats == null) {
+            moveStats = new MoveStats(move);
+            stats.put(move, moveStats);
+        }
+        moveStats.add((int) data & 0xFF);
+    }
+
+    /*******************************************************************
+     * Reads the bytes of the game at an offset
+     *
+     * @return the bytes, or null if the game goes past the end
+     * @throws IOException if the length of the game is bad
+     ******************************************************************/
+    private byte[] readFrame(long offset, long end) throws IOException {
+        if (offset + 4 > end)
+            return null;
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(games, length, offset);
+        int size = length.getInt(0);
+        if (size < 0)
+            throw new IOException("Bad game length at " + offset);
+        if (offset + 4 + size > end)
+            return null;
+        ByteBuffer body = ByteBuffer.allocate(size);
+        if (!readFully(games, body, offset + 4))
+            return null;
+        return body.array();
+    }
+
+    /*******************************************************************
+     * Reads a game from its bytes
+     ******************************************************************/
+    private GameRecord parse(byte[] body) throws IOException {
+        GameRecord record = new GameReader(new ByteArrayInputStream(body),
+                version).readGame();
+        if (record == null)
+            throw new IOException("Empty game");
+        return record;
+    }
+
+    /*******************************************************************
+     * Finds the first index entry with a key at least the specified one
+     ******************************************************************/
+    private long firstEntry(long key) {
+        long low = 0;
+        long high = entryCount;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (keyAt(middle) < key)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /*******************************************************************
+     * Gets the key of an index entry
+     ******************************************************************/
+    private long keyAt(long entry) {
+        return segments[(int) (entry >>> SEGMENT_SHIFT)].getLong(
+                (int) (entry & (SEGMENT_ENTRIES - 1)) * ENTRY_BYTES);
+    }
+
+    /*******************************************************************
+     * Gets the game, move and result of an index entry
+     ******************************************************************/
+    private long dataAt(long entry) {
+        return segments[(int) (entry >>> SEGMENT_SHIFT)].getLong(
+                (int) (entry & (SEGMENT_ENTRIES - 1)) * ENTRY_BYTES + 8);
+    }
+
+    /*******************************************************************
+     * Orders entries by key, then by game so a game's entries for a
+     * position are together
+     ******************************************************************/
+    private static int compare(long key1, long data1, long key2,
+            long data2) {
+        int order = Long.compare(key1, key2);
+        return order != 0 ? order : Long.compare(data1, data2);
+    }
+
+    /*******************************************************************
+     * Sorts the entries in memory from low up to high, quicksort on
+     * the two arrays at once
+     ******************************************************************/
+    private void sortPending(int low, int high) {
+        while (high - low > 16) {
+            int middle = (low + high) >>> 1;
+            long pivotKey = pendingKeys[middle];
+            long pivotData = pendingData[middle];
+            int i = low;
+            int j = high - 1;
+            while (i <= j) {
+                while (compare(pendingKeys[i], pendingData[i], pivotKey,
+                        pivotData) < 0)
+                    i++;
+                while (compare(pendingKeys[j], pendingData[j], pivotKey,
+                        pivotData) > 0)
+                    j--;
+                if (i <= j)
+                    swapPending(i++, j--);
+            }
+            // Sort the smaller side first so the stack stays shallow
+            if (j - low < high - i) {
+                sortPending(low, j + 1);
+                low = i;
+            } else {
+                sortPending(i, high);
+                high = j + 1;
+            }
+        }
+        for (int i = low + 1; i < high; i++) {
+            for (int j = i; j > low && compare(pendingKeys[j - 1],
+                    pendingData[j - 1], pendingKeys[j],
+                    pendingData[j]) > 0; j--)
+                swapPending(j - 1, j);
+        }
+    }
+
+    /*******************************************************************
+     * Swaps two entries in memory
+     ******************************************************************/
+    private void swapPending(int i, int j) {
+        long key = pendingKeys[i];
+        pendingKeys[i] = pendingKeys[j];
+        pendingKeys[j] = key;
+        long data = pendingData[i];
+        pendingData[i] = pendingData[j];
+        pendingData[j] = data;
+    }
+
+    /*******************************************************************
+     * Writes a buffer to a channel at a position
+     ******************************************************************/
+    private static void writeFully(FileChannel channel, ByteBuffer buffer,
+            long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /*******************************************************************
+     * Fills a buffer from a channel at a position
+     *
+     * @return false if the channel ended first
+     ******************************************************************/
+    private static boolean readFully(FileChannel channel,
+            ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                return false;
+            position += read;
+        }
+        return true;
+    }
+
+    /*******************************************************************
+     * Writes what is in a buffer to a channel and empties it
+     ******************************************************************/
+    private static void drain(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /*******************************************************************
+     * Adds the games of PGN files to a database, skipping games with
+     * moves that aren't legal:
+     *
+     * java chess.io.GameDatabase directory file.pgn...
+     *
+     * @param args is the database directory and the PGN files
+     * @throws IOException if a file can't be read or written
+     ******************************************************************/
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: GameDatabase directory file.pgn...");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int skipped = 0;
+        try (GameDatabase database = new GameDatabase(Paths.get(args[0]))) {
+            for (int i = 1; i < args.length; i++) {
+                try (PgnReader in = PgnReader.open(Paths.get(args[i]))) {
+                    while (true) {
+                        try {
+                            if (!in.hasNext())
+                                break;
+                            database.addGame(in.next().toRecord());
+                        } catch (UncheckedIOException
+                                | IllegalArgumentException e) {
+                            skipped++;
+                        }
+                    }
+                }
+            }
+            System.out.println(database.getGameCount() + " games, "
+                    + database.getEntryCount() + " positions, " + skipped
+                    + " skipped in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+}
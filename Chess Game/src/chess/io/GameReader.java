@@ -0,0 +1,192 @@
+package chess.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import chess.objects.BitBoard;
+import chess.objects.PColor;
+import chess.objects.Piece;
+import chess.objects.Position;
+
+/***********************************************************************
+ * Reads the games a GameWriter wrote, one at a time, so an archive of
+ * any size is read with only the current game in memory. See
+ * GameWriter for the format.
+ **********************************************************************/
+public class GameReader implements Closeable {
+
+    /** Most moves or state values a game may have */
+    private static final int MAX_COUNT = 1 << 16;
+
+    /** Is the stream the games are read from */
+    private final DataInputStream in;
+    /** Is the version of the format the stream was written in */
+    private final int version;
+
+    /*******************************************************************
+     * Constructor that reads and checks the header of a stream
+     *
+     * @param stream is where to read the games, it is buffered here
+     * @throws IOException if the stream isn't in the game format or in
+     *         a newer version of it
+     ******************************************************************/
+    public GameReader(InputStream stream) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != GameWriter.MAGIC)
+            throw new IOException("Not a saved game");
+        version = in.readUnsignedShort();
+        checkVersion(version);
+    }
+
+    /*******************************************************************
+     * Constructor for games without a header, whose version is known
+     * from somewhere else. The stream isn't buffered, so it is read no
+     * further than the games taken from it.
+     *
+     * @param stream is where to read the games
+     * @param version is the version they were written in
+     * @throws IOException if the version is newer than this class
+     ******************************************************************/
+    GameReader(InputStream stream, int version) throws IOException {
+        in = new DataInputStream(stream);
+        this.version = version;
+        checkVersion(version);
+    }
+
+    /*******************************************************************
+     * Checks that games of a version can be read
+     *
+     * @param version is the version of the format
+     * @throws IOException if it is newer than this class reads
+     ******************************************************************/
+    static void checkVersion(int version) throws IOException {
+        if (version > GameWriter.VERSION)
+            throw new IOException("Saved game version " + version
+                    + " is newer than " + GameWriter.VERSION);
+    }
+
+    /*******************************************************************
+     * Gets the version of the format the stream was written in
+     *
+     * @return the version from the header
+     ******************************************************************/
+    public int getVersion() {
+        return version;
+    }
+
+    /*******************************************************************
+     * Reads the next game
+     *
+     * @return the GameRecord, or null if there are no more games
+     * @throws IOException if the game can't be read or is cut short
+     ******************************************************************/
+    public GameRecord readGame() throws IOException {
+        int flags = in.read();
+        if (flags < 0)
+            return null;
+        Position start = (flags & GameWriter.CUSTOM_START) != 0
+                ? readPosition() : GameWriter.STANDARD_START;
+
+        int[] moves = new int[readCount()];
+        for (int i = 0; i < moves.length; i++)
+            moves[i] = in.readUnsignedShort();
+        GameRecord record = new GameRecord(start, moves);
+
+        if ((flags & GameWriter.CLOCK) != 0) {
+            int whiteTime = readSigned();
+            int blackTime = readSigned();
+            int timeLimit = readSigned();
+            int clock = in.readUnsignedByte();
+            record.setClock(whiteTime, blackTime, timeLimit,
+                    (clock & GameWriter.CLOCK_ENABLED) != 0,
+                    (clock & GameWriter.WHITE_CLOCK) != 0);
+        }
+        if ((flags & GameWriter.STATE) != 0) {
+            int[] state = new int[readCount()];
+            for (int i = 0; i < state.length; i++)
+                state[i] = readSigned();
+            record.setState(state);
+        }
+        if ((flags & GameWriter.RESULT) != 0) {
+            int result = in.readUnsignedByte();
+            if (result > GameRecord.DRAW)
+                throw new IOException("Bad result in saved game");
+            record.setResult(result);
+        }
+        return record;
+    }
+
+    /*******************************************************************
+     * Closes the stream
+     ******************************************************************/
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /*******************************************************************
+     * Reads a position written by GameWriter.writePosition
+     ******************************************************************/
+    private Position readPosition() throws IOException {
+        PColor toMove = PColor.values()[in.readUnsignedByte() & 1];
+        int castling = in.readUnsignedByte();
+        int passant = in.readByte();
+        if (passant < -1 || passant >= 64)
+            throw new IOException("Bad en passant square in saved game");
+        long occupied = in.readLong();
+        int[] codes = new int[64];
+        Arrays.fill(codes, Piece.NONE);
+        int packed = 0;
+        boolean high = true;
+        for (long all = occupied; all != 0; all &= all - 1) {
+            if (high)
+                packed = in.readUnsignedByte();
+            int code = high ? packed >>> 4 : packed & 0xF;
+            high = !high;
+            if (code >= 2 * BitBoard.TYPES)
+                throw new IOException("Bad piece in saved position");
+            codes[Long.numberOfTrailingZeros(all)] = code;
+        }
+        return new Position(codes, toMove, castling,
+                passant < 0 ? 0L : 1L << passant);
+    }
+
+    /*******************************************************************
+     * Reads a number written seven bits to a byte
+     ******************************************************************/
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException("Saved game cut short");
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Bad number in saved game");
+    }
+
+    /*******************************************************************
+     * Reads how many moves or values follow
+     ******************************************************************/
+    private int readCount() throws IOException {
+        int count = readVarint();
+        if (count < 0 || count > MAX_COUNT)
+            throw new IOException("Bad count in saved game: " + count);
+        return count;
+    }
+
+    /*******************************************************************
+     * Reads a number that may be negative
+     ******************************************************************/
+    private int readSigned() throws IOException {
+        int value = readVarint();
+        return value >>> 1 ^ -(value & 1);
+    }
+}
@@ -0,0 +1,230 @@
+package chess.io;
+
+import java.io.IOException;
+
+import chess.main.Chess;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+import chess.objects.Position;
+
+/***********************************************************************
+ * Everything a saved game holds: the position it started from, its
+ * moves as EncodedMoves, and if they were saved the players' clocks
+ * and the state of whatever was running the game.
+ *
+ * The moves are played again from the start when the game is read
+ * back, so the game can take them back and list them as if they were
+ * just made, and nothing but the moves themselves has to be stored.
+ **********************************************************************/
+public class GameRecord {
+
+    /** Results of a game, UNKNOWN for one not finished or not known */
+    public static final int UNKNOWN = 0, WHITE_WINS = 1, BLACK_WINS = 2,
+            DRAW = 3;
+
+    /** Is the position before the first move */
+    private Position start;
+    /** Are the moves, first to last */
+    private int[] moves;
+    /** Whether the clocks were saved */
+    private boolean hasClock;
+    /** Are the seconds each player has left and the time limit */
+    private int whiteTime, blackTime, timeLimit;
+    /** Whether the clocks run, and whether White's is the one running */
+    private boolean clockEnabled, whiteClock;
+    /** Is the state of the controller, null if it wasn't saved */
+    private int[] state;
+    /** Is how the game ended, one of the results */
+    private int result;
+
+    /*******************************************************************
+     * Constructor for a record of a start position and moves
+     *
+     * @param start is the position before the first move
+     * @param moves is the EncodedMoves, first to last
+     ******************************************************************/
+    public GameRecord(Position start, int[] moves) {
+        this.start = start;
+        this.moves = moves.clone();
+    }
+
+    /*******************************************************************
+     * Makes a record of a game, its moves that can still be taken back
+     *
+     * @param game is the game to record
+     * @param toMove is the PColor to move now
+     * @return a new GameRecord without clocks or state
+     ******************************************************************/
+    public static GameRecord of(Chess game, PColor toMove) {
+        return new GameRecord(game.getStartPosition(toMove),
+                game.getEncodedMoves(toMove));
+    }
+
+    /*******************************************************************
+     * Plays the game again from the start
+     *
+     * @return a new Chess with every move made, so they can be undone
+     * @throws IOException if a move isn't legal where it is made, as in
+     *         a damaged or edited file
+     ******************************************************************/
+    public Chess toGame() throws IOException {
+        Chess game = new Chess(start);
+        PColor toMove = start.getToMove();
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < moves.length; i++) {
+            int count = game.generateMoves(toMove, legal);
+            boolean found = false;
+            for (int j = 0; j < count && !found; j++)
+                found = legal[j] == moves[i];
+            if (!found)
+                throw new IOException("Move " + (i + 1) + " of the saved "
+                        + "game is not legal");
+            game.makeMove(moves[i]);
+            toMove = toMove == PColor.White ? PColor.Black : PColor.White;
+        }
+        return game;
+    }
+
+    /*******************************************************************
+     * Gets the position before the first move
+     *
+     * @return the start Position
+     ******************************************************************/
+    public Position getStart() {
+        return start;
+    }
+
+    /*******************************************************************
+     * Gets the moves
+     *
+     * @return a copy of the EncodedMoves, first to last
+     ******************************************************************/
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    /*******************************************************************
+     * Gets the PColor to move after the last move
+     *
+     * @return the side to move at the end of the record
+     ******************************************************************/
+    public PColor getToMove() {
+        if (moves.length % 2 == 0)
+            return start.getToMove();
+        return start.getToMove() == PColor.White ? PColor.Black
+                : PColor.White;
+    }
+
+    /*******************************************************************
+     * Sets the clocks, in the seconds the controller counts
+     *
+     * @param whiteTime is the seconds White has left
+     * @param blackTime is the seconds Black has left
+     * @param timeLimit is the seconds each player started with
+     * @param enabled whether the clocks run
+     * @param whiteClock whether White's clock is the one running
+     ******************************************************************/
+    public void setClock(int whiteTime, int blackTime, int timeLimit,
+            boolean enabled, boolean whiteClock) {
+        this.hasClock = true;
+        this.whiteTime = whiteTime;
+        this.blackTime = blackTime;
+        this.timeLimit = timeLimit;
+        this.clockEnabled = enabled;
+        this.whiteClock = whiteClock;
+    }
+
+    /*******************************************************************
+     * Checks whether the clocks were saved
+     *
+     * @return a boolean value whether setClock was called
+     ******************************************************************/
+    public boolean hasClock() {
+        return hasClock;
+    }
+
+    /*******************************************************************
+     * Gets the seconds White has left
+     *
+     * @return the seconds, as the controller counts them
+     ******************************************************************/
+    public int getWhiteTime() {
+        return whiteTime;
+    }
+
+    /*******************************************************************
+     * Gets the seconds Black has left
+     *
+     * @return the seconds, as the controller counts them
+     ******************************************************************/
+    public int getBlackTime() {
+        return blackTime;
+    }
+
+    /*******************************************************************
+     * Gets the seconds each player started with
+     *
+     * @return the time limit in seconds
+     ******************************************************************/
+    public int getTimeLimit() {
+        return timeLimit;
+    }
+
+    /*******************************************************************
+     * Checks whether the clocks run
+     *
+     * @return a boolean value whether the clocks are on
+     ******************************************************************/
+    public boolean isClockEnabled() {
+        return clockEnabled;
+    }
+
+    /*******************************************************************
+     * Checks whether White's clock is the one running
+     *
+     * @return a boolean value whether White's time goes down
+     ******************************************************************/
+    public boolean isWhiteClock() {
+        return whiteClock;
+    }
+
+    /*******************************************************************
+     * Sets the state of the controller, a few small numbers in an
+     * order only the controller has to know
+     *
+     * @param state is the values, or null for none
+     ******************************************************************/
+    public void setState(int... state) {
+        this.state = state == null ? null : state.clone();
+    }
+
+    /*******************************************************************
+     * Gets the state of the controller
+     *
+     * @return a copy of the values, or null if none were saved
+     ******************************************************************/
+    public int[] getState() {
+        return state == null ? null : state.clone();
+    }
+
+    /*******************************************************************
+     * Sets how the game ended
+     *
+     * @param result is UNKNOWN, WHITE_WINS, BLACK_WINS or DRAW
+     * @throws IllegalArgumentException if it is none of them
+     ******************************************************************/
+    public void setResult(int result) {
+        if (result < UNKNOWN || result > DRAW)
+            throw new IllegalArgumentException("No result " + result);
+        this.result = result;
+    }
+
+    /*******************************************************************
+     * Gets how the game ended
+     *
+     * @return UNKNOWN, WHITE_WINS, BLACK_WINS or DRAW
+     ******************************************************************/
+    public int getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,187 @@
+package chess.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.PColor;
+import chess.objects.Position;
+
+/***********************************************************************
+ * Writes GameRecords in the compact binary game format, one after
+ * another to the same stream, so a file can hold a single saved game
+ * or an archive of any number of them. GameReader reads them back.
+ *
+ * The stream starts with a header, the magic number "CHGS" and the
+ * format version. Every game then is:
+ *
+ * - a flags byte: 1 when the game didn't start from the normal start
+ *   position, 2 when the clocks follow, 4 when the controller state
+ *   follows, 8 when the result follows
+ * - the start position if it isn't the normal one: the side to move,
+ *   the castling rights, the en passant square or -1, a long with a
+ *   bit for every occupied square and then four bits per piece, its
+ *   Piece.getCode, two pieces to a byte
+ * - the number of moves and each move as its 16-bit EncodedMove
+ * - the clocks: White's and Black's seconds, the time limit and a
+ *   byte with 1 if they run and 2 if White's is running
+ * - the controller state: the number of values and the values
+ * - the result, a byte of GameRecord.WHITE_WINS, BLACK_WINS or DRAW
+ *
+ * Counts and numbers are variable length, seven bits to a byte, so a
+ * game of forty moves takes under two hundred bytes. Nothing is kept
+ * between games, a game is written out as soon as writeGame is called.
+ **********************************************************************/
+public class GameWriter implements Closeable {
+
+    /** Starts every stream, "CHGS" */
+    public static final int MAGIC = 0x43484753;
+    /** Is the version of the format this class writes */
+    public static final int VERSION = 2;
+    /** Flags of the parts of a game that are only sometimes there */
+    static final int CUSTOM_START = 1, CLOCK = 2, STATE = 4, RESULT = 8;
+    /** Flags of the clock byte */
+    static final int CLOCK_ENABLED = 1, WHITE_CLOCK = 2;
+    /** Is the position every normal game starts from */
+    static final Position STANDARD_START = new Chess()
+            .getPosition(PColor.White);
+
+    /** Is the stream the games are written to */
+    private final DataOutputStream out;
+
+    /*******************************************************************
+     * Constructor that writes the header to a stream
+     *
+     * @param stream is where to write the games, it is buffered here
+     * @throws IOException if the header can't be written
+     ******************************************************************/
+    public GameWriter(OutputStream stream) throws IOException {
+        this(stream, true);
+    }
+
+    /*******************************************************************
+     * Constructor for a stream that may leave out the header, for a
+     * file that keeps the header once and games apart
+     *
+     * @param stream is where to write the games, it is buffered here
+     * @param header whether to write the header first
+     * @throws IOException if the header can't be written
+     ******************************************************************/
+    GameWriter(OutputStream stream, boolean header) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        if (header) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+        }
+    }
+
+    /*******************************************************************
+     * Writes one game
+     *
+     * @param record is the game to write
+     * @throws IOException if it can't be written
+     ******************************************************************/
+    public void writeGame(GameRecord record) throws IOException {
+        Position start = record.getStart();
+        boolean custom = !start.equals(STANDARD_START);
+        int[] state = record.getState();
+        int flags = (custom ? CUSTOM_START : 0)
+                | (record.hasClock() ? CLOCK : 0)
+                | (state != null ? STATE : 0)
+                | (record.getResult() != GameRecord.UNKNOWN ? RESULT : 0);
+        out.writeByte(flags);
+        if (custom)
+            writePosition(start);
+
+        int[] moves = record.getMoves();
+        writeVarint(moves.length);
+        for (int move : moves)
+            out.writeShort(move);
+
+        if (record.hasClock()) {
+            writeSigned(record.getWhiteTime());
+            writeSigned(record.getBlackTime());
+            writeSigned(record.getTimeLimit());
+            out.writeByte((record.isClockEnabled() ? CLOCK_ENABLED : 0)
+                    | (record.isWhiteClock() ? WHITE_CLOCK : 0));
+        }
+        if (state != null) {
+            writeVarint(state.length);
+            for (int value : state)
+                writeSigned(value);
+        }
+        if (record.getResult() != GameRecord.UNKNOWN)
+            out.writeByte(record.getResult());
+    }
+
+    /*******************************************************************
+     * Writes whatever is still buffered to the stream
+     *
+     * @throws IOException if it can't be written
+     ******************************************************************/
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /*******************************************************************
+     * Flushes and closes the stream
+     ******************************************************************/
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /*******************************************************************
+     * Writes a position square by square
+     ******************************************************************/
+    private void writePosition(Position position) throws IOException {
+        out.writeByte(position.getToMove().ordinal());
+        out.writeByte(position.getCastlingRights());
+        long passant = position.getPassant();
+        out.writeByte(passant == 0 ? -1
+                : Long.numberOfTrailingZeros(passant));
+        long occupied = 0L;
+        for (int square = 0; square < 64; square++) {
+            if (position.getColor(square) != null)
+                occupied |= 1L << square;
+        }
+        out.writeLong(occupied);
+        int pending = -1;
+        for (long all = occupied; all != 0; all &= all - 1) {
+            int square = Long.numberOfTrailingZeros(all);
+            int code = position.getColor(square).ordinal() * BitBoard.TYPES
+                    + position.getType(square);
+            if (pending < 0) {
+                pending = code;
+            } else {
+                out.writeByte(pending << 4 | code);
+                pending = -1;
+            }
+        }
+        if (pending >= 0)
+            out.writeByte(pending << 4);
+    }
+
+    /*******************************************************************
+     * Writes a number that isn't negative, seven bits to a byte with
+     * the high bit set on every byte but the last
+     ******************************************************************/
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /*******************************************************************
+     * Writes a number that may be negative, small ones in one byte
+     ******************************************************************/
+    private void writeSigned(int value) throws IOException {
+        writeVarint(value << 1 ^ value >> 31);
+    }
+}
@@ -0,0 +1,384 @@
+package chess.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.EncodedMove;
+import chess.objects.Move;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * An autosave of the game being played that costs a few bytes a move.
+ * Instead of writing the whole game after every move, a journal writes
+ * the game once when it starts and then only adds to the end of the
+ * file:
+ *
+ * - a START record, the GameRecord of the game as it was then
+ * - a MOVE record for every move, its from and to squares and what a
+ *   Pawn promoted to, in a short
+ * - an UNDO record for every move taken back
+ *
+ * Each record is a type byte, its bytes and a CRC32 of both, so a
+ * record only partly written when the program died is found and the
+ * game is replayed up to the record before it.
+ *
+ * Writing a record only hands the bytes to the OS, which is cheap.
+ * Getting them onto the disk, which can take milliseconds, is done by
+ * a background thread after every syncEvery records and every
+ * syncMillis milliseconds there is something to force, so the thread
+ * making moves never waits for the disk.
+ **********************************************************************/
+public class MoveJournal implements Closeable {
+
+    /** Starts every journal, "CHJL" */
+    public static final int MAGIC = 0x43484A4C;
+    /** Is the version of the format this class writes */
+    public static final int VERSION = 1;
+    /** Records forced to disk at once unless told otherwise */
+    public static final int DEFAULT_SYNC_EVERY = 8;
+    /** Longest a record waits to be forced unless told otherwise */
+    public static final long DEFAULT_SYNC_MILLIS = 1000;
+    /** Types of the records */
+    static final int START = 1, MOVE = 2, UNDO = 3;
+    /** Bytes of the header, the magic and version */
+    private static final int HEADER = 6;
+    /** Largest START record read back */
+    private static final int MAX_START = 1 << 20;
+
+    /** Is the open journal file */
+    private final FileChannel channel;
+    /** Is how many records are written before they are forced */
+    private final int syncEvery;
+    /** Forces the records in the background */
+    private final ScheduledExecutorService syncer;
+    /** Whether a force is waiting to run on the syncer */
+    private final AtomicBoolean syncQueued = new AtomicBoolean();
+    /** Whether records were written since the last force */
+    private volatile boolean dirty;
+    /** Is the last error of a background force, thrown by the next write */
+    private volatile IOException failure;
+    /** Are the records written since a force was last asked for */
+    private int unsynced;
+    /** Checks each record */
+    private final CRC32 crc = new CRC32();
+
+    /*******************************************************************
+     * Constructor that starts a journal with the default syncing, a
+     * file that is there is replaced by startGame
+     *
+     * @param file is the journal file
+     * @throws IOException if the file can't be opened
+     ******************************************************************/
+    public MoveJournal(Path file) throws IOException {
+        this(file, DEFAULT_SYNC_EVERY, DEFAULT_SYNC_MILLIS);
+    }
+
+    /*******************************************************************
+     * Constructor that starts a journal, a file that is there is
+     * replaced by startGame
+     *
+     * @param file is the journal file
+     * @param syncEvery is how many records to write before forcing
+     *        them to disk, 1 for every move and 0 to leave it to the
+     *        timer
+     * @param syncMillis is the longest a record may wait to be forced,
+     *        0 for no timer
+     * @throws IOException if the file can't be opened
+     ******************************************************************/
+    public MoveJournal(Path file, int syncEvery, long syncMillis)
+            throws IOException {
+        this.syncEvery = syncEvery;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        syncer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "Journal sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (syncMillis > 0)
+            syncer.scheduleWithFixedDelay(this::syncQuietly, syncMillis,
+                    syncMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /*******************************************************************
+     * Starts the journal over with a game, the moves made before are
+     * part of the game and not written one by one
+     *
+     * @param record is the game as it is now
+     * @throws IOException if the journal can't be written
+     ******************************************************************/
+    public synchronized void startGame(GameRecord record)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (GameWriter out = new GameWriter(bytes, false)) {
+            out.writeGame(record);
+        }
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putShort((short) VERSION).flip();
+        channel.position(0);
+        while (header.hasRemaining())
+            channel.write(header);
+        ByteBuffer payload = ByteBuffer.allocate(4 + bytes.size());
+        payload.putInt(bytes.size()).put(bytes.toByteArray()).flip();
+        append(START, payload);
+        // A new game is worth forcing at once
+        requestSync();
+    }
+
+    /*******************************************************************
+     * Adds a move made with the Move the game recorded for it
+     *
+     * @param move is the Move, from Chess.getPreviousMove
+     * @throws IOException if the journal can't be written
+     ******************************************************************/
+    public void move(Move move) throws IOException {
+        int promotion = EncodedMove.isPromotion(move.getCode())
+                ? EncodedMove.promotionType(move.getCode()) : 0;
+        move(BitBoard.square(move.getR1(), move.getC1()),
+                BitBoard.square(move.getR2(), move.getC2()), promotion);
+    }
+
+    /*******************************************************************
+     * Adds a move
+     *
+     * @param from is the square moved from, row * 8 + col
+     * @param to is the square moved to
+     * @param promotion is the type a Pawn promoted to, or 0
+     * @throws IOException if the journal can't be written
+     ******************************************************************/
+    public synchronized void move(int from, int to, int promotion)
+            throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(2);
+        payload.putShort((short) (from | to << 6 | promotion << 12))
+                .flip();
+        append(MOVE, payload);
+    }
+
+    /*******************************************************************
+     * Adds that the last move was taken back
+     *
+     * @throws IOException if the journal can't be written
+     ******************************************************************/
+    public synchronized void undo() throws IOException {
+        append(UNDO, ByteBuffer.allocate(0));
+    }
+
+    /*******************************************************************
+     * Forces what was written to disk now
+     *
+     * @throws IOException if the file can't be forced
+     ******************************************************************/
+    public void sync() throws IOException {
+        if (dirty) {
+            dirty = false;
+            channel.force(false);
+        }
+    }
+
+    /*******************************************************************
+     * Forces what is left, stops the background thread and closes the
+     * file. The journal stays to be replayed at the next start.
+     ******************************************************************/
+    @Override
+    public void close() throws IOException {
+        syncer.shutdown();
+        try {
+            syncer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /*******************************************************************
+     * Replays the game of a journal, up to its last whole record
+     *
+     * @param file is the journal file
+     * @return the game with the moves made since it started and the
+     *         clocks and state of its START record, or null if there
+     *         is no journal or no game in it
+     * @throws IOException if the file can't be read or isn't a journal
+     ******************************************************************/
+    public static GameRecord replay(Path file) throws IOException {
+        if (!Files.exists(file))
+            return null;
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (bytes.remaining() < HEADER)
+            return null; // died writing the header of a new game
+        if (bytes.getInt() != MAGIC)
+            throw new IOException("Not a move journal: " + file);
+        int version = bytes.getShort() & 0xFFFF;
+        if (version > VERSION)
+            throw new IOException("Journal version " + version
+                    + " is newer than " + VERSION);
+        CRC32 crc = new CRC32();
+        GameRecord start = null;
+        Chess game = null;
+        PColor toMove = null;
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        while (bytes.remaining() > 0) {
+            int begin = bytes.position();
+            int type = bytes.get();
+            int length;
+            if (type == START) {
+                if (bytes.remaining() < 4)
+                    break;
+                length = 4 + bytes.getInt(bytes.position());
+                if (length < 4 || length > MAX_START)
+                    break;
+            } else if (type == MOVE) {
+                length = 2;
+            } else if (type == UNDO) {
+                length = 0;
+            } else {
+                break;
+            }
+            if (bytes.remaining() < length + 4)
+                break; // cut short
+            crc.reset();
+            crc.update(bytes.array(), begin, 1 + length);
+            if ((int) crc.getValue() != bytes.getInt(begin + 1 + length))
+                break;
+
+            if (type == START) {
+                bytes.getInt();
+                byte[] body = new byte[length - 4];
+                bytes.get(body);
+                start = new GameReader(new ByteArrayInputStream(body),
+                        GameWriter.VERSION).readGame();
+                if (start == null)
+                    break;
+                game = start.toGame();
+                toMove = start.getToMove();
+            } else if (game == null) {
+                break; // moves without a game
+            } else if (type == MOVE) {
+                int packed = bytes.getShort() & 0xFFFF;
+                int move = find(game, toMove, packed, legal);
+                if (move == EncodedMove.NONE)
+                    break;
+                game.makeMove(move);
+                toMove = opposite(toMove);
+            } else if (!game.getMoves().isEmpty()) {
+                game.unMakeMove();
+                toMove = opposite(toMove);
+            }
+            bytes.getInt(); // the CRC
+        }
+        if (start == null)
+            return null;
+        GameRecord record = GameRecord.of(game, toMove);
+        if (start.hasClock())
+            record.setClock(start.getWhiteTime(), start.getBlackTime(),
+                    start.getTimeLimit(), start.isClockEnabled(),
+                    toMove == PColor.White);
+        record.setState(start.getState());
+        record.setResult(start.getResult());
+        return record;
+    }
+
+    /*******************************************************************
+     * Writes a record, its type, payload and CRC
+     ******************************************************************/
+    private void append(int type, ByteBuffer payload) throws IOException {
+        IOException failed = failure;
+        if (failed != null) {
+            failure = null;
+            throw failed;
+        }
+        ByteBuffer record = ByteBuffer.allocate(1 + payload.remaining()
+                + 4);
+        record.put((byte) type).put(payload);
+        crc.reset();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue()).flip();
+        while (record.hasRemaining())
+            channel.write(record);
+        dirty = true;
+        if (syncEvery > 0 && ++unsynced >= syncEvery) {
+            unsynced = 0;
+            requestSync();
+        }
+    }
+
+    /*******************************************************************
+     * Asks the background thread to force, unless it is about to
+     ******************************************************************/
+    private void requestSync() {
+        if (syncQueued.compareAndSet(false, true)) {
+            try {
+                syncer.execute(() -> {
+                    syncQueued.set(false);
+                    syncQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                syncQueued.set(false); // closing, close forces
+            }
+        }
+    }
+
+    /*******************************************************************
+     * Forces on the background thread, keeping an error for the next
+     * write to throw
+     ******************************************************************/
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /*******************************************************************
+     * Finds the legal move with the squares and promotion of a MOVE
+     * record, a promotion without a type being a Queen
+     ******************************************************************/
+    private static int find(Chess game, PColor toMove, int packed,
+            int[] legal) {
+        int from = packed & 0x3F;
+        int to = packed >>> 6 & 0x3F;
+        int promotion = packed >>> 12;
+        if (promotion == 0)
+            promotion = BitBoard.QUEEN;
+        int count = game.generateMoves(toMove, legal);
+        for (int i = 0; i < count; i++) {
+            int move = legal[i];
+            if (EncodedMove.from(move) == from && EncodedMove.to(move) == to
+                    && (!EncodedMove.isPromotion(move)
+                            || EncodedMove.promotionType(move) == promotion))
+                return move;
+        }
+        return EncodedMove.NONE;
+    }
+
+    /*******************************************************************
+     * Gets the other PColor
+     ******************************************************************/
+    private static PColor opposite(PColor color) {
+        return color == PColor.White ? PColor.Black : PColor.White;
+    }
+}
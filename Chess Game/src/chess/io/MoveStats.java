@@ -0,0 +1,92 @@
+package chess.io;
+
+import chess.objects.EncodedMove;
+
+/***********************************************************************
+ * How one move out of a position did in the games of a GameDatabase:
+ * how often it was played and how those games ended.
+ **********************************************************************/
+public class MoveStats {
+
+    /** Is the EncodedMove */
+    private final int move;
+    /** Is the number of games it was played in */
+    private int games;
+    /** Are the games won by each side and drawn */
+    private int whiteWins, blackWins, draws;
+
+    /*******************************************************************
+     * Constructor for a move not counted in any game yet
+     *
+     * @param move is the EncodedMove
+     ******************************************************************/
+    public MoveStats(int move) {
+        this.move = move;
+    }
+
+    /*******************************************************************
+     * Counts one more game the move was played in
+     *
+     * @param result is the GameRecord result of the game
+     ******************************************************************/
+    void add(int result) {
+        games++;
+        if (result == GameRecord.WHITE_WINS)
+            whiteWins++;
+        else if (result == GameRecord.BLACK_WINS)
+            blackWins++;
+        else if (result == GameRecord.DRAW)
+            draws++;
+    }
+
+    /*******************************************************************
+     * Gets the move
+     *
+     * @return the EncodedMove
+     ******************************************************************/
+    public int getMove() {
+        return move;
+    }
+
+    /*******************************************************************
+     * Gets the number of games the move was played in
+     *
+     * @return the games, finished or not
+     ******************************************************************/
+    public int getGames() {
+        return games;
+    }
+
+    /*******************************************************************
+     * Gets the number of those games White won
+     *
+     * @return White's wins
+     ******************************************************************/
+    public int getWhiteWins() {
+        return whiteWins;
+    }
+
+    /*******************************************************************
+     * Gets the number of those games Black won
+     *
+     * @return Black's wins
+     ******************************************************************/
+    public int getBlackWins() {
+        return blackWins;
+    }
+
+    /*******************************************************************
+     * Gets the number of those games that were drawn
+     *
+     * @return the draws
+     ******************************************************************/
+    public int getDraws() {
+        return draws;
+    }
+
+    @Override
+    public String toString() {
+        return EncodedMove.toString(move) + " " + games + " +" + whiteWins
+                + " =" + draws + " -" + blackWins;
+    }
+}
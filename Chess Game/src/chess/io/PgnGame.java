@@ -0,0 +1,189 @@
+package chess.io;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import chess.main.Chess;
+import chess.objects.Fen;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * One game of a PGN file: its tag pairs, like Event, White and Black,
+ * the moves as EncodedMoves and the result. A game that doesn't start
+ * from the standard position has its start in the FEN tag.
+ **********************************************************************/
+public class PgnGame {
+
+    /** Result of a game still going on or of unknown result */
+    public static final String UNKNOWN = "*";
+    /** Results as PGN writes them, by GameRecord result */
+    private static final String[] RESULTS = { UNKNOWN, "1-0", "0-1",
+            "1/2-1/2" };
+    /** Tags every exported game has, in the order they are written */
+    static final String[] SEVEN_TAG_ROSTER = { "Event", "Site", "Date",
+            "Round", "White", "Black", "Result" };
+
+    /** Are the tag pairs, in the order they were read or set */
+    private final Map<String, String> tags;
+    /** Are the moves, first to last */
+    private int[] moves;
+    /** Is the number of moves */
+    private int count;
+
+    /*******************************************************************
+     * Constructor for a game without tags or moves
+     ******************************************************************/
+    public PgnGame() {
+        tags = new LinkedHashMap<String, String>();
+        moves = new int[64];
+    }
+
+    /*******************************************************************
+     * Makes a game of a GameRecord, with the FEN tag when it doesn't
+     * start from the standard position
+     *
+     * @param record is the record of the game
+     * @return a new PgnGame with the result of the record
+     ******************************************************************/
+    public static PgnGame of(GameRecord record) {
+        PgnGame game = new PgnGame();
+        if (!record.getStart().equals(GameWriter.STANDARD_START))
+            game.setStartFen(new Chess(record.getStart())
+                    .getFen(record.getStart().getToMove()));
+        for (int move : record.getMoves())
+            game.addMove(move);
+        game.setResult(RESULTS[record.getResult()]);
+        return game;
+    }
+
+    /*******************************************************************
+     * Gets the value of a tag
+     *
+     * @param name is the name of the tag
+     * @return its value, or null if the game doesn't have it
+     ******************************************************************/
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    /*******************************************************************
+     * Sets the value of a tag
+     *
+     * @param name is the name of the tag
+     * @param value is its value
+     ******************************************************************/
+    public void setTag(String name, String value) {
+        tags.put(name, value);
+    }
+
+    /*******************************************************************
+     * Gets every tag pair
+     *
+     * @return the tags by name, in the order they were set
+     ******************************************************************/
+    public Map<String, String> getTags() {
+        return Collections.unmodifiableMap(tags);
+    }
+
+    /*******************************************************************
+     * Gets the position the game starts from
+     *
+     * @return the FEN tag, or the standard position if there is none
+     ******************************************************************/
+    public String getStartFen() {
+        String fen = tags.get("FEN");
+        return fen == null ? Fen.START : fen;
+    }
+
+    /*******************************************************************
+     * Sets the position the game starts from, with the SetUp tag that
+     * tells a reader to look for it
+     *
+     * @param fen is the start position
+     ******************************************************************/
+    public void setStartFen(String fen) {
+        tags.put("SetUp", "1");
+        tags.put("FEN", fen);
+    }
+
+    /*******************************************************************
+     * Gets the result
+     *
+     * @return 1-0, 0-1, 1/2-1/2 or *
+     ******************************************************************/
+    public String getResult() {
+        String result = tags.get("Result");
+        return result == null ? UNKNOWN : result;
+    }
+
+    /*******************************************************************
+     * Sets the result
+     *
+     * @param result is 1-0, 0-1, 1/2-1/2 or *
+     ******************************************************************/
+    public void setResult(String result) {
+        tags.put("Result", result);
+    }
+
+    /*******************************************************************
+     * Adds the next move
+     *
+     * @param move is the EncodedMove, legal after the moves before it
+     ******************************************************************/
+    public void addMove(int move) {
+        if (count == moves.length)
+            moves = Arrays.copyOf(moves, count * 2);
+        moves[count++] = move;
+    }
+
+    /*******************************************************************
+     * Gets the moves
+     *
+     * @return a new array of the EncodedMoves, first to last
+     ******************************************************************/
+    public int[] getMoves() {
+        return Arrays.copyOf(moves, count);
+    }
+
+    /*******************************************************************
+     * Gets the number of moves, in plies
+     *
+     * @return how many moves there are
+     ******************************************************************/
+    public int getMoveCount() {
+        return count;
+    }
+
+    /*******************************************************************
+     * Plays the game from its start position
+     *
+     * @return a new Chess with every move made, so they can be undone
+     * @throws IllegalArgumentException if the FEN tag is malformed
+     ******************************************************************/
+    public Chess toGame() {
+        Chess game = new Chess();
+        game.setFen(getStartFen());
+        for (int i = 0; i < count; i++)
+            game.makeMove(moves[i]);
+        return game;
+    }
+
+    /*******************************************************************
+     * Makes a GameRecord of the start position, moves and result, to
+     * save in the binary format
+     *
+     * @return a new GameRecord without clocks or state
+     * @throws IllegalArgumentException if the FEN tag is malformed
+     ******************************************************************/
+    public GameRecord toRecord() {
+        Chess game = new Chess();
+        PColor toMove = game.setFen(getStartFen());
+        GameRecord record = new GameRecord(game.getPosition(toMove),
+                getMoves());
+        int result = Arrays.asList(RESULTS).indexOf(getResult());
+        record.setResult(Math.max(result, GameRecord.UNKNOWN));
+        return record;
+    }
+}
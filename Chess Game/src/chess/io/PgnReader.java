@@ -0,0 +1,410 @@
+package chess.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import chess.main.Chess;
+import chess.objects.EncodedMove;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Reads the games of a PGN file one at a time, so a file of any size
+ * is read in the memory of one game. The bytes come through a buffer
+ * filled from a channel, and each SAN move is matched with the legal
+ * moves of a Chess kept for the game being read.
+ *
+ * Comments, variations, numeric annotations and % escape lines are
+ * skipped, only the main line is kept. A game with a move that isn't
+ * legal is read to its end and then reported with an IOException, so
+ * the caller can go on with the next game.
+ *
+ * Games can be pulled with readGame or with the Iterator, which throws
+ * UncheckedIOException instead:
+ *
+ * try (PgnReader in = PgnReader.open(file)) {
+ *     while (in.hasNext())
+ *         use(in.next());
+ * }
+ **********************************************************************/
+public class PgnReader implements Closeable, Iterator<PgnGame> {
+
+    /** Bytes read from the channel at a time unless told otherwise */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    /** Longest token or tag value, so a broken file can't fill memory */
+    private static final int MAX_TOKEN = 1 << 16;
+    /** Is the value of pushedBack when nothing is pushed back */
+    private static final int NOTHING = -2;
+
+    /** Is the channel the PGN is read from */
+    private final ReadableByteChannel channel;
+    /** Are the bytes read but not used yet */
+    private final ByteBuffer buffer;
+    /** Is the byte read one too far, or NOTHING */
+    private int pushedBack = NOTHING;
+    /** Are the bytes of the token being read */
+    private byte[] token = new byte[64];
+    /** Is the number of bytes in the token */
+    private int tokenLength;
+    /** Is the line being read, for error messages */
+    private int line = 1;
+    /** Is the number of games started */
+    private int games;
+    /** Is the game read ahead by hasNext, or null */
+    private PgnGame next;
+    /** Is the game the moves are played in */
+    private final Chess chess = new Chess();
+    /** Reads the moves of the game */
+    private final San san = new San();
+
+    /*******************************************************************
+     * Constructor that reads from a channel
+     *
+     * @param channel is where the PGN comes from
+     ******************************************************************/
+    public PgnReader(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /*******************************************************************
+     * Constructor that reads from a channel with a buffer of the
+     * specified size
+     *
+     * @param channel is where the PGN comes from
+     * @param bufferSize is how many bytes to read at a time
+     ******************************************************************/
+    public PgnReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        buffer.flip(); // nothing read yet
+    }
+
+    /*******************************************************************
+     * Opens a PGN file
+     *
+     * @param file is the path of the file
+     * @return a new PgnReader, to be closed when done
+     * @throws IOException if the file can't be opened
+     ******************************************************************/
+    public static PgnReader open(Path file) throws IOException {
+        return new PgnReader(FileChannel.open(file,
+                StandardOpenOption.READ));
+    }
+
+    /*******************************************************************
+     * Reads the next game
+     *
+     * @return the game, or null when there are no more
+     * @throws IOException if reading fails or the game has a move that
+     *         isn't legal, the next call goes on after that game
+     ******************************************************************/
+    public PgnGame readGame() throws IOException {
+        if (next != null) {
+            PgnGame game = next;
+            next = null;
+            return game;
+        }
+        return parseGame();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = parseGame();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public PgnGame next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        PgnGame game = next;
+        next = null;
+        return game;
+    }
+
+    /*******************************************************************
+     * Gets the number of games started so far
+     *
+     * @return how many games were read, bad ones included
+     ******************************************************************/
+    public int getGameCount() {
+        return games;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /*******************************************************************
+     * Reads the tags and moves of one game, up to its result or the
+     * tags of the next game
+     ******************************************************************/
+    private PgnGame parseGame() throws IOException {
+        PgnGame game = null;
+        boolean inMoves = false;
+        String error = null;
+        PColor toMove = PColor.White;
+        for (;;) {
+            int c = skipSpace();
+            if (c < 0)
+                break;
+            if (c == '[') {
+                if (inMoves) {
+                    pushBack(c); // the next game has no result before it
+                    break;
+                }
+                if (game == null)
+                    game = startGame();
+                readTag(game);
+                continue;
+            }
+            if (c == '{') {
+                skipComment();
+                continue;
+            }
+            if (c == ';' || c == '%') {
+                skipLine();
+                continue;
+            }
+            if (c == '(') {
+                skipVariation();
+                continue;
+            }
+            if (c == ')' || c == ']' || c == '}')
+                continue;
+            
+            if (game == null)
+                game = startGame();
+            if (!inMoves) {
+                inMoves = true;
+                try {
+                    toMove = chess.setFen(game.getStartFen());
+                } catch (IllegalArgumentException e) {
+                    error = e.getMessage();
+                }
+            }
+            readToken(c);
+            String text = new String(token, 0, tokenLength,
+                    StandardCharsets.ISO_8859_1);
+            if (isResult(text)) {
+                game.setResult(text);
+                break;
+            }
+            if (text.charAt(0) == '$' || error != null)
+                continue;
+            text = stripMoveNumber(text);
+            if (text.isEmpty())
+                continue;
+            int move = san.parse(chess, toMove, text);
+            if (move == EncodedMove.NONE) {
+                error = "line " + line + ": " + text
+                        + " is not a legal move";
+                continue;
+            }
+            chess.doMove(move);
+            game.addMove(move);
+            toMove = toMove == PColor.White ? PColor.Black : PColor.White;
+        }
+        if (game != null && error != null)
+            throw new IOException("Game " + games + ", " + error);
+        return game;
+    }
+
+    /*******************************************************************
+     * Starts a new game
+     ******************************************************************/
+    private PgnGame startGame() {
+        games++;
+        return new PgnGame();
+    }
+
+    /*******************************************************************
+     * Reads a tag pair, [Name "value"], after its [
+     ******************************************************************/
+    private void readTag(PgnGame game) throws IOException {
+        int c = skipSpace();
+        tokenLength = 0;
+        while (c >= 0 && c != '"' && c != ']'
+                && !Character.isWhitespace(c)) {
+            append(c);
+            c = read();
+        }
+        String name = new String(token, 0, tokenLength,
+                StandardCharsets.ISO_8859_1);
+        if (Character.isWhitespace(c))
+            c = skipSpace();
+        tokenLength = 0;
+        if (c == '"') {
+            for (c = read(); c >= 0 && c != '"'; c = read()) {
+                if (c == '\\')
+                    c = read();
+                if (c >= 0)
+                    append(c);
+            }
+            c = read();
+        }
+        String value = new String(token, 0, tokenLength,
+                StandardCharsets.UTF_8);
+        while (c >= 0 && c != ']' && c != '\n')
+            c = read();
+        if (!name.isEmpty())
+            game.setTag(name, value);
+    }
+
+    /*******************************************************************
+     * Reads a move, move number or result, starting with its first byte
+     ******************************************************************/
+    private void readToken(int first) throws IOException {
+        tokenLength = 0;
+        int c = first;
+        while (c >= 0 && !Character.isWhitespace(c)
+                && "{}()[];".indexOf(c) < 0) {
+            append(c);
+            c = read();
+        }
+        if (c >= 0 && !Character.isWhitespace(c))
+            pushBack(c);
+    }
+
+    /*******************************************************************
+     * Adds a byte to the token, growing it up to MAX_TOKEN
+     ******************************************************************/
+    private void append(int c) throws IOException {
+        if (tokenLength == token.length) {
+            if (tokenLength == MAX_TOKEN)
+                throw new IOException("Line " + line + ": token longer "
+                        + "than " + MAX_TOKEN + " bytes");
+            token = Arrays.copyOf(token, tokenLength * 2);
+        }
+        token[tokenLength++] = (byte) c;
+    }
+
+    /*******************************************************************
+     * Skips a comment in braces, after its {
+     ******************************************************************/
+    private void skipComment() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && c != '}');
+    }
+
+    /*******************************************************************
+     * Skips the rest of the line
+     ******************************************************************/
+    private void skipLine() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && c != '\n');
+    }
+
+    /*******************************************************************
+     * Skips a variation, nested ones and comments in it, after its (
+     ******************************************************************/
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            if (c < 0)
+                return;
+            if (c == '(')
+                depth++;
+            else if (c == ')')
+                depth--;
+            else if (c == '{')
+                skipComment();
+            else if (c == ';')
+                skipLine();
+        }
+    }
+
+    /*******************************************************************
+     * Skips white space
+     *
+     * @return the first byte that isn't, or -1 at the end
+     ******************************************************************/
+    private int skipSpace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && Character.isWhitespace(c));
+        return c;
+    }
+
+    /*******************************************************************
+     * Reads the next byte, refilling the buffer from the channel
+     *
+     * @return the byte, 0 to 255, or -1 at the end
+     ******************************************************************/
+    private int read() throws IOException {
+        if (pushedBack != NOTHING) {
+            int c = pushedBack;
+            pushedBack = NOTHING;
+            return c;
+        }
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0)
+                return -1;
+        }
+        int c = buffer.get() & 0xFF;
+        if (c == '\n')
+            line++;
+        return c;
+    }
+
+    /*******************************************************************
+     * Puts back one byte, never a new line, for the next read
+     ******************************************************************/
+    private void pushBack(int c) {
+        pushedBack = c;
+    }
+
+    /*******************************************************************
+     * Checks whether a token is a game result
+     ******************************************************************/
+    private static boolean isResult(String text) {
+        return text.equals("1-0") || text.equals("0-1")
+                || text.equals("1/2-1/2") || text.equals(PgnGame.UNKNOWN);
+    }
+
+    /*******************************************************************
+     * Takes the move number off a move, 12.Nf3 or 12...Nf6, and gives
+     * an empty String for a move number alone. Anything else, like a
+     * castle written 0-0, is left as it is.
+     ******************************************************************/
+    private static String stripMoveNumber(String text) {
+        int i = 0;
+        while (i < text.length() && Character.isDigit(text.charAt(i)))
+            i++;
+        if (i == text.length())
+            return "";
+        if (text.charAt(i) != '.')
+            return text;
+        while (i < text.length() && text.charAt(i) == '.')
+            i++;
+        return text.substring(i);
+    }
+}
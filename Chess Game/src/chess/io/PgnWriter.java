@@ -0,0 +1,221 @@
+package chess.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.main.Chess;
+import chess.objects.Fen;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Writes games as PGN in the export format: the seven tag roster
+ * first, "?" for a tag that isn't known, then the other tags, then the
+ * moves in SAN with their move numbers in lines of at most 79
+ * characters and the result. Games are collected in a buffer and
+ * written to the channel when it fills, so any number of games can be
+ * written one after the other.
+ **********************************************************************/
+public class PgnWriter implements Closeable, Flushable {
+
+    /** Longest line of moves */
+    private static final int LINE_LENGTH = 79;
+
+    /** Is the channel the PGN is written to */
+    private final WritableByteChannel channel;
+    /** Are the bytes not written to the channel yet */
+    private final ByteBuffer buffer;
+    /** Is the text of the game being written */
+    private final StringBuilder text = new StringBuilder(1024);
+    /** Is the game the moves are played in to write them */
+    private final Chess chess = new Chess();
+    /** Writes the moves of the game */
+    private final San san = new San();
+    /** Is the list of legal moves, to check each move */
+    private final int[] legal = new int[MoveGenerator.MAX_MOVES];
+
+    /*******************************************************************
+     * Constructor that writes to a channel
+     *
+     * @param channel is where the PGN goes
+     ******************************************************************/
+    public PgnWriter(WritableByteChannel channel) {
+        this(channel, PgnReader.DEFAULT_BUFFER_SIZE);
+    }
+
+    /*******************************************************************
+     * Constructor that writes to a channel with a buffer of the
+     * specified size
+     *
+     * @param channel is where the PGN goes
+     * @param bufferSize is how many bytes to collect before writing
+     ******************************************************************/
+    public PgnWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /*******************************************************************
+     * Creates a PGN file, or empties it if it is there
+     *
+     * @param file is the path of the file
+     * @return a new PgnWriter, to be closed when done
+     * @throws IOException if the file can't be created
+     ******************************************************************/
+    public static PgnWriter create(Path file) throws IOException {
+        return new PgnWriter(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /*******************************************************************
+     * Writes a game
+     *
+     * @param game is the game
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the FEN tag is malformed or
+     *         a move isn't legal
+     ******************************************************************/
+    public void writeGame(PgnGame game) throws IOException {
+        text.setLength(0);
+        for (String name : PgnGame.SEVEN_TAG_ROSTER) {
+            String value = name.equals("Result") ? game.getResult()
+                    : game.getTag(name);
+            if (value == null)
+                value = name.equals("Date") ? "????.??.??" : "?";
+            appendTag(name, value);
+        }
+        for (String name : game.getTags().keySet()) {
+            if (!isRoster(name))
+                appendTag(name, game.getTag(name));
+        }
+        text.append('\n');
+        
+        String start = game.getStartFen();
+        PColor toMove = chess.setFen(start);
+        String[] fields = Fen.fields(start);
+        int number = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        int lineStart = text.length();
+        boolean first = true;
+        for (int move : game.getMoves()) {
+            if (!isLegal(toMove, move))
+                throw new IllegalArgumentException("Move " + number
+                        + " is not legal");
+            if (toMove == PColor.White)
+                lineStart = appendWord(number + ".", lineStart);
+            else if (first)
+                lineStart = appendWord(number + "...", lineStart);
+            lineStart = appendWord(san.toSan(chess, toMove, move),
+                    lineStart);
+            chess.doMove(move);
+            if (toMove == PColor.Black)
+                number++;
+            toMove = toMove == PColor.White ? PColor.Black : PColor.White;
+            first = false;
+        }
+        appendWord(game.getResult(), lineStart);
+        text.append("\n\n");
+        write(text.toString());
+    }
+
+    /*******************************************************************
+     * Writes everything collected to the channel
+     *
+     * @throws IOException if writing fails
+     ******************************************************************/
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /*******************************************************************
+     * Adds a tag pair, escaping quotes and backslashes in the value
+     ******************************************************************/
+    private void appendTag(String name, String value) {
+        text.append('[').append(name).append(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                text.append('\\');
+            text.append(c);
+        }
+        text.append("\"]\n");
+    }
+
+    /*******************************************************************
+     * Adds a word of the moves, starting a new line if it won't fit
+     *
+     * @return where the line the word is on starts
+     ******************************************************************/
+    private int appendWord(String word, int lineStart) {
+        if (text.length() > lineStart) {
+            if (text.length() - lineStart + 1 + word.length()
+                    > LINE_LENGTH) {
+                text.append('\n');
+                lineStart = text.length();
+            } else {
+                text.append(' ');
+            }
+        }
+        text.append(word);
+        return lineStart;
+    }
+
+    /*******************************************************************
+     * Checks that a move is one of the legal moves
+     ******************************************************************/
+    private boolean isLegal(PColor toMove, int move) {
+        int count = chess.generateMoves(toMove, legal);
+        for (int i = 0; i < count; i++) {
+            if (legal[i] == move)
+                return true;
+        }
+        return false;
+    }
+
+    /*******************************************************************
+     * Checks whether a tag is one of the seven tag roster
+     ******************************************************************/
+    private static boolean isRoster(String name) {
+        for (String roster : PgnGame.SEVEN_TAG_ROSTER) {
+            if (roster.equals(name))
+                return true;
+        }
+        return false;
+    }
+
+    /*******************************************************************
+     * Puts text in the buffer, writing the buffer out when it fills
+     ******************************************************************/
+    private void write(String part) throws IOException {
+        byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining())
+                flush();
+            int length = Math.min(buffer.remaining(),
+                    bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package chess.io;
+
+import chess.main.Chess;
+import chess.objects.BitBoard;
+import chess.objects.EncodedMove;
+import chess.objects.Fen;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+/***********************************************************************
+ * Standard Algebraic Notation, the moves of PGN: the piece letter, the
+ * file or rank of the piece if another of the same type could go to
+ * the same square, an x for a capture, the square, =Q and so on for a
+ * promotion and + or # when the move checks or mates. Castles are O-O
+ * and O-O-O.
+ *
+ * Moves are written and read against the legal moves of a Chess, so a
+ * San keeps a move list of its own and is used by one thread at a
+ * time.
+ **********************************************************************/
+public class San {
+
+    /** Letters of the piece types, PAWN through KING, in SAN */
+    private static final String LETTERS = "PNBRQK";
+
+    /** Is the list the legal moves are generated into */
+    private final int[] legal = new int[MoveGenerator.MAX_MOVES];
+    /** Is the list of the replies, to tell check from mate */
+    private final int[] replies = new int[MoveGenerator.MAX_MOVES];
+
+    /*******************************************************************
+     * Writes a legal move in SAN
+     *
+     * @param game is the game the move is made in, as it is before
+     * @param color is the PColor making the move
+     * @param move is the EncodedMove
+     * @return the move in SAN, with + or # if it checks or mates
+     ******************************************************************/
+    public String toSan(Chess game, PColor color, int move) {
+        StringBuilder san = new StringBuilder(8);
+        int from = EncodedMove.from(move);
+        int to = EncodedMove.to(move);
+        int type = typeAt(game, from);
+        if (EncodedMove.isCastle(move)) {
+            san.append(EncodedMove.flags(move) == EncodedMove.KING_CASTLE
+                    ? "O-O" : "O-O-O");
+        } else if (type == BitBoard.PAWN) {
+            if (EncodedMove.isCapture(move))
+                san.append((char) ('a' + BitBoard.col(from))).append('x');
+            san.append(Fen.squareName(to));
+            if (EncodedMove.isPromotion(move))
+                san.append('=').append(LETTERS.charAt(
+                        EncodedMove.promotionType(move)));
+        } else {
+            san.append(LETTERS.charAt(type));
+            appendDisambiguation(san, game, color, move, type);
+            if (EncodedMove.isCapture(move))
+                san.append('x');
+            san.append(Fen.squareName(to));
+        }
+        
+        PColor other = color == PColor.White ? PColor.Black : PColor.White;
+        game.doMove(move);
+        if (game.isKingInCheckStill(other))
+            san.append(game.generateMoves(other, replies) == 0 ? '#'
+                    : '+');
+        game.undoMove();
+        return san.toString();
+    }
+
+    /*******************************************************************
+     * Reads a move in SAN. Check and mate signs and annotations like !?
+     * are ignored, castles may be written with zeros and a promotion
+     * without the = sign.
+     *
+     * @param game is the game the move is made in
+     * @param color is the PColor making the move
+     * @param san is the move
+     * @return the legal EncodedMove it stands for, or NONE if it is no
+     *         legal move or could be more than one
+     ******************************************************************/
+    public int parse(Chess game, PColor color, String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0)
+            end--;
+        String text = san.substring(0, end);
+        int count = game.generateMoves(color, legal);
+        if (text.equals("O-O") || text.equals("0-0"))
+            return findCastle(count, EncodedMove.KING_CASTLE);
+        if (text.equals("O-O-O") || text.equals("0-0-0"))
+            return findCastle(count, EncodedMove.QUEEN_CASTLE);
+        
+        int promotion = -1;
+        if (end > 0 && LETTERS.indexOf(text.charAt(end - 1)) > 0) {
+            promotion = LETTERS.indexOf(text.charAt(end - 1));
+            end--;
+            if (end > 0 && text.charAt(end - 1) == '=')
+                end--;
+        }
+        if (end < 2)
+            return EncodedMove.NONE;
+        int to = Fen.square(text.substring(end - 2, end));
+        if (to < 0)
+            return EncodedMove.NONE;
+        int start = 0;
+        int type = BitBoard.PAWN;
+        if (LETTERS.indexOf(text.charAt(0)) > 0) {
+            type = LETTERS.indexOf(text.charAt(0));
+            start = 1;
+        }
+        int fromCol = -1;
+        int fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h')
+                fromCol = c - 'a';
+            else if (c >= '1' && c <= '8')
+                fromRow = '8' - c;
+            else if (c != 'x' && c != '-' && c != ':')
+                return EncodedMove.NONE;
+        }
+        if (type == BitBoard.PAWN && promotion < 0)
+            promotion = BitBoard.QUEEN; // only read if it is one
+            
+        int found = EncodedMove.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = legal[i];
+            int from = EncodedMove.from(move);
+            if (EncodedMove.to(move) != to || EncodedMove.isCastle(move)
+                    || typeAt(game, from) != type
+                    || (fromCol >= 0 && BitBoard.col(from) != fromCol)
+                    || (fromRow >= 0 && BitBoard.row(from) != fromRow)
+                    || (EncodedMove.isPromotion(move) && EncodedMove
+                            .promotionType(move) != promotion))
+                continue;
+            if (found != EncodedMove.NONE)
+                return EncodedMove.NONE; // ambiguous
+            found = move;
+        }
+        return found;
+    }
+
+    /*******************************************************************
+     * Adds the file, the rank or both of the moving piece when another
+     * piece of its type could also go to the square
+     ******************************************************************/
+    private void appendDisambiguation(StringBuilder san, Chess game,
+            PColor color, int move, int type) {
+        int from = EncodedMove.from(move);
+        int to = EncodedMove.to(move);
+        int count = game.generateMoves(color, legal);
+        boolean other = false;
+        boolean sameCol = false;
+        boolean sameRow = false;
+        for (int i = 0; i < count; i++) {
+            int square = EncodedMove.from(legal[i]);
+            if (EncodedMove.to(legal[i]) != to || square == from
+                    || typeAt(game, square) != type)
+                continue;
+            other = true;
+            sameCol |= BitBoard.col(square) == BitBoard.col(from);
+            sameRow |= BitBoard.row(square) == BitBoard.row(from);
+        }
+        if (!other)
+            return;
+        if (!sameCol)
+            san.append((char) ('a' + BitBoard.col(from)));
+        else if (!sameRow)
+            san.append((char) ('8' - BitBoard.row(from)));
+        else
+            san.append(Fen.squareName(from));
+    }
+
+    /*******************************************************************
+     * Finds the castle with the flags among the legal moves
+     ******************************************************************/
+    private int findCastle(int count, int flags) {
+        for (int i = 0; i < count; i++) {
+            if (EncodedMove.flags(legal[i]) == flags)
+                return legal[i];
+        }
+        return EncodedMove.NONE;
+    }
+
+    /*******************************************************************
+     * Gets the type of the piece on a square
+     ******************************************************************/
+    private static int typeAt(Chess game, int square) {
+        return game.getBoard().getBitBoard().getType(square);
+    }
+}
@@ -1,24 +1,46 @@
 package chess.main;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
 
+import chess.ai.Evaluator;
+import chess.ai.OpeningBook;
+import chess.ai.ParallelSearch;
+import chess.ai.Search;
+import chess.ai.Tablebase;
+import chess.ai.TaperedEvaluator;
+import chess.ai.TranspositionTable;
+import chess.objects.BitBoard;
 import chess.objects.Bishop;
 import chess.objects.Board;
 import chess.objects.Castling_Move;
 import chess.objects.En_Passant_Move;
+import chess.objects.Fen;
 import chess.objects.King;
 import chess.objects.Knight;
+import chess.objects.EncodedMove;
 import chess.objects.Move;
+import chess.objects.MoveGenerator;
 import chess.objects.PColor;
 import chess.objects.Pawn;
 import chess.objects.Piece;
+import chess.objects.Position;
 import chess.objects.Queen;
 import chess.objects.Rook;
 
 public class Chess implements java.io.Serializable {
     
+    /** Milliseconds getBestMove searches for unless told otherwise */
+    public static final long DEFAULT_SEARCH_TIME = 1000;
+    /** Megabytes of the transposition table unless told otherwise */
+    public static final int DEFAULT_HASH_SIZE = 16;
+    /** Undo records doMove makes room for at first */
+    private static final int UNDO_SIZE = 128;
+    /** Bit of an undo record set when the moved Piece had moved */
+    private static final int HAD_MOVED = 1 << 16;
     /** This is the board that will be used within the chess game */
     private Board board;
     /** Stack of Moves to undo previous moves */
@@ -29,6 +51,34 @@ public class Chess implements java.io.Serializable {
      * ArrayList of Moves to keep track of movements made in the game
      */
     private List<Move> historyOfMoves;
+    /** Positions the AI already searched, kept between its moves */
+    private transient TranspositionTable table;
+    /** Is the memory the table may use in megabytes */
+    private int hashSize;
+    /** Is how many threads getBestMove searches with */
+    private int searchThreads;
+    /** Is the pool the extra search threads run on, null for common */
+    private transient ForkJoinPool searchPool;
+    /** Scores positions for the search, null for the default */
+    private transient Evaluator evaluator;
+    /** Known openings played without searching, null for none */
+    private transient OpeningBook book;
+    /** Perfect play in endings with few pieces, null for none */
+    private transient Tablebase tablebase;
+    /** Undo records of doMove, the move and if the Piece had moved */
+    private transient int[] undoMoves;
+    /** En passant squares from before each doMove */
+    private transient long[] undoPassant;
+    /** The Piece each doMove moved and the one it captured */
+    private transient Piece[] undoMoving, undoCaptured;
+    /** Is the number of moves doMove can still take back */
+    private transient int undoCount;
+    /** Pieces doMove promotes to, by PColor ordinal and type */
+    private transient Piece[][] promotions;
+    /** Are the plies played before the first Move, from a FEN */
+    private int pliesBefore;
+    /** Is the FEN halfmove clock at the first Move */
+    private int clockBefore;
     
     /*******************************************************************
      * Default constructor - in the future we may add some parameters
@@ -40,11 +90,102 @@ public class Chess implements java.io.Serializable {
         moves = new Stack<Move>();
         enPassCap = false;
         historyOfMoves = new ArrayList();
+        hashSize = DEFAULT_HASH_SIZE;
+        searchThreads = 1;
+    }
+    
+    /*******************************************************************
+     * Constructor for a game that starts from a Position, so a thread
+     * that was handed a Position can evaluate and search it in a game
+     * of its own
+     * 
+     * @param position is the Position to start from
+     ******************************************************************/
+    public Chess(Position position) {
+        this();
+        board = position.toBoard();
+    }
+    
+    /*******************************************************************
+     * Gets the current position as a Position, which never changes and
+     * can be read by any number of threads while this game goes on
+     * 
+     * @param toMove is the PColor to move
+     * @return a new Position
+     ******************************************************************/
+    public Position getPosition(PColor toMove) {
+        return new Position(board, toMove);
+    }
+    
+    /*******************************************************************
+     * Sets up the position of a FEN String, forgetting every Move made
+     * so far. The move counters, if the FEN has them, carry on in
+     * getFen as the game goes on.
+     * 
+     * @param fen is the position
+     * @return the PColor to move
+     * @throws IllegalArgumentException if the FEN is malformed
+     ******************************************************************/
+    public PColor setFen(String fen) {
+        String[] fields = Fen.fields(fen);
+        int clock = 0;
+        int number = 1;
+        try {
+            if (fields.length > 4)
+                clock = Integer.parseInt(fields[4]);
+            if (fields.length > 5)
+                number = Integer.parseInt(fields[5]);
+        } catch (NumberFormatException e) {
+            throw Fen.malformed(fen, "bad move counter");
+        }
+        if (clock < 0 || number < 1)
+            throw Fen.malformed(fen, "bad move counter");
+        // The counters are good, so only the Board can still refuse it
+        PColor toMove = board.setFen(fen);
+        moves.clear();
+        historyOfMoves.clear();
+        undoCount = 0;
+        clockBefore = clock;
+        pliesBefore = 2 * (number - 1)
+                + (toMove == PColor.Black ? 1 : 0);
+        return toMove;
+    }
+    
+    /*******************************************************************
+     * Gets the position as a FEN String. The halfmove clock counts
+     * back to the last Move of a Pawn or capture and the move number
+     * goes on from the one of the FEN the game was set up from.
+     * 
+     * @param toMove is the PColor to move
+     * @return the FEN with all six fields
+     ******************************************************************/
+    public String getFen(PColor toMove) {
+        int clock = 0;
+        int i = moves.size() - 1;
+        for (; i >= 0; i--) {
+            Move move = moves.get(i);
+            if (move.getSelPiece() instanceof Pawn
+                    || move.getTarPiece() != null)
+                break;
+            clock++;
+        }
+        if (i < 0)
+            clock += clockBefore;
+        // The ply count has to agree with the side to move
+        int plies = pliesBefore + moves.size();
+        if ((plies % 2 == 1) != (toMove == PColor.Black))
+            plies++;
+        return board.getFen(toMove) + " " + clock + " " + (plies / 2 + 1);
     }
     
     // TODO delete, this serves no purpose Chess() is the same
     public void reset() {
         board = new Board();
+        moves.clear();
+        historyOfMoves.clear();
+        undoCount = 0;
+        clockBefore = 0;
+        pliesBefore = 0;
     }
     
     /*******************************************************************
@@ -202,6 +343,57 @@ public class Chess implements java.io.Serializable {
         historyOfMoves.add(toMake.clone());
     }
     
+    /*******************************************************************
+     * Makes an EncodedMove from generateMoves, castles, en passant and
+     * promotions included, and records it on the Stack of Moves so it
+     * can be taken back by unMakeMove. The moved Pieces are marked as
+     * moved and a Pawn moving two rows leaves the Cell it skipped
+     * flagged for en passant.
+     * 
+     * @param move is the EncodedMove to make
+     ******************************************************************/
+    public void makeMove(int move) {
+        int r1 = BitBoard.row(EncodedMove.from(move));
+        int c1 = BitBoard.col(EncodedMove.from(move));
+        int r2 = BitBoard.row(EncodedMove.to(move));
+        int c2 = BitBoard.col(EncodedMove.to(move));
+        int flags = EncodedMove.flags(move);
+        long passant = board.getBitBoard().getPassant();
+        Piece piece = getPieceAt(r1, c1);
+        
+        if (EncodedMove.isCastle(move)) {
+            int rookCol1 = c2 > c1 ? 7 : 0;
+            int rookCol2 = c2 > c1 ? c2 - 1 : c2 + 1;
+            Piece rook = getPieceAt(r1, rookCol1);
+            moveCastlingPieces(r1, c1, r2, c2, piece, r1, rookCol1, r1,
+                    rookCol2, rook);
+            rook.setHasMoved(true);
+        } else if (flags == EncodedMove.EN_PASSANT) {
+            executeEnPassant(r1, c1, r2, c2, (Pawn) piece);
+        } else {
+            movePieceTo(r1, c1, r2, c2, piece);
+            if (EncodedMove.isPromotion(move)) {
+                Piece promoted = Piece.create(piece.getColor(),
+                        EncodedMove.promotionType(move));
+                promoted.setHasMoved(true);
+                setPieceAt(r2, c2, promoted);
+            }
+        }
+        piece.setHasMoved(true);
+        
+        board.resetPassant();
+        if (flags == EncodedMove.DOUBLE_PUSH)
+            board.getCellAt((r1 + r2) / 2, c1).setPassant(true);
+            
+        // Remember enough to take the move back exactly
+        Move made = moves.peek();
+        made.setCode(move);
+        made.setPassantSquares(passant);
+        Move recorded = historyOfMoves.get(historyOfMoves.size() - 1);
+        recorded.setCode(move);
+        recorded.setPassantSquares(passant);
+    }
+    
     /*******************************************************************
      * Undo the previously made move
      ******************************************************************/
@@ -263,6 +455,151 @@ public class Chess implements java.io.Serializable {
             setPieceAt(r1, c1, createCopy(toUnMake.getSelPiece()));
             setPieceAt(r2, c2, createCopy(toUnMake.getTarPiece()));
         }
+        
+        // Moves made through makeMove(int) know the en passant squares
+        // that were there before them
+        if (toUnMake.getCode() != EncodedMove.NONE)
+            board.setPassantSquares(toUnMake.getPassantSquares());
+    }
+    
+    /*******************************************************************
+     * Makes an EncodedMove for the AI search. Unlike makeMove nothing
+     * is copied or put on the Stack of Moves, the same Piece objects
+     * are moved around and just enough is kept in arrays to take the
+     * move back with undoMove, so searching doesn't allocate.
+     * 
+     * @param move is the EncodedMove to make
+     ******************************************************************/
+    public void doMove(int move) {
+        if (undoMoves == null || undoCount == undoMoves.length)
+            growUndo();
+        int r1 = BitBoard.row(EncodedMove.from(move));
+        int c1 = BitBoard.col(EncodedMove.from(move));
+        int r2 = BitBoard.row(EncodedMove.to(move));
+        int c2 = BitBoard.col(EncodedMove.to(move));
+        int flags = EncodedMove.flags(move);
+        Piece piece = getPieceAt(r1, c1);
+        boolean passant = flags == EncodedMove.EN_PASSANT;
+        
+        undoMoves[undoCount] = move | (piece.hasMoved() ? HAD_MOVED : 0);
+        undoPassant[undoCount] = board.getBitBoard().getPassant();
+        undoMoving[undoCount] = piece;
+        undoCaptured[undoCount] = passant ? getPieceAt(r1, c2)
+                : getPieceAt(r2, c2);
+        undoCount++;
+        
+        if (EncodedMove.isCastle(move)) {
+            int rookCol1 = c2 > c1 ? 7 : 0;
+            int rookCol2 = c2 > c1 ? c2 - 1 : c2 + 1;
+            Piece rook = getPieceAt(r1, rookCol1);
+            setPieceAt(r1, rookCol2, rook);
+            setPieceAt(r1, rookCol1, null);
+            rook.setHasMoved(true);
+        } else if (passant) {
+            setPieceAt(r1, c2, null);
+        }
+        setPieceAt(r2, c2, EncodedMove.isPromotion(move) ? getPromotion(
+                EncodedMove.promotionType(move), piece.getColor()) : piece);
+        setPieceAt(r1, c1, null);
+        piece.setHasMoved(true);
+        
+        board.setPassantSquares(flags == EncodedMove.DOUBLE_PUSH
+                ? 1L << BitBoard.square((r1 + r2) / 2, c1) : 0L);
+    }
+    
+    /*******************************************************************
+     * Takes back the last move made by doMove
+     ******************************************************************/
+    public void undoMove() {
+        undoCount--;
+        int record = undoMoves[undoCount];
+        int move = record & ~HAD_MOVED;
+        int r1 = BitBoard.row(EncodedMove.from(move));
+        int c1 = BitBoard.col(EncodedMove.from(move));
+        int r2 = BitBoard.row(EncodedMove.to(move));
+        int c2 = BitBoard.col(EncodedMove.to(move));
+        Piece piece = undoMoving[undoCount];
+        Piece captured = undoCaptured[undoCount];
+        undoMoving[undoCount] = null;
+        undoCaptured[undoCount] = null;
+        
+        setPieceAt(r1, c1, piece);
+        piece.setHasMoved((record & HAD_MOVED) != 0);
+        if (EncodedMove.flags(move) == EncodedMove.EN_PASSANT) {
+            setPieceAt(r2, c2, null);
+            setPieceAt(r1, c2, captured);
+        } else {
+            setPieceAt(r2, c2, captured);
+        }
+        if (EncodedMove.isCastle(move)) {
+            int rookCol1 = c2 > c1 ? 7 : 0;
+            int rookCol2 = c2 > c1 ? c2 - 1 : c2 + 1;
+            Piece rook = getPieceAt(r1, rookCol2);
+            setPieceAt(r1, rookCol1, rook);
+            setPieceAt(r1, rookCol2, null);
+            rook.setHasMoved(false); // castling needs an unmoved Rook
+        }
+        board.setPassantSquares(undoPassant[undoCount]);
+    }
+    
+    /*******************************************************************
+     * Makes room for more undo records of doMove
+     ******************************************************************/
+    private void growUndo() {
+        int size = undoMoves == null ? UNDO_SIZE : undoMoves.length * 2;
+        undoMoves = undoMoves == null ? new int[size]
+                : Arrays.copyOf(undoMoves, size);
+        undoPassant = undoPassant == null ? new long[size]
+                : Arrays.copyOf(undoPassant, size);
+        undoMoving = undoMoving == null ? new Piece[size]
+                : Arrays.copyOf(undoMoving, size);
+        undoCaptured = undoCaptured == null ? new Piece[size]
+                : Arrays.copyOf(undoCaptured, size);
+    }
+    
+    /*******************************************************************
+     * Gets the Piece doMove promotes to. Each color has one of every
+     * type that is shared by all its promotions during a search, it is
+     * always marked as moved so a promoted Rook can't castle.
+     ******************************************************************/
+    private Piece getPromotion(int type, PColor color) {
+        if (promotions == null)
+            promotions = new Piece[2][BitBoard.TYPES];
+        Piece promoted = promotions[color.ordinal()][type];
+        if (promoted == null) {
+            promoted = Piece.create(color, type);
+            promoted.setHasMoved(true);
+            promotions[color.ordinal()][type] = promoted;
+        }
+        return promoted;
+    }
+    
+    /*******************************************************************
+     * Counts the leaf positions of the move tree to the specified
+     * depth, the standard "perft" test. Comparing the counts with
+     * known values for reference positions shows whether generateMoves,
+     * doMove and undoMove follow the rules.
+     * 
+     * @param depth is how many plies to go down
+     * @param color is the PColor to move first
+     * @return the number of positions at that depth
+     ******************************************************************/
+    public long perft(int depth, PColor color) {
+        if (depth <= 0)
+            return 1;
+        int[] validMoves = new int[MoveGenerator.MAX_MOVES];
+        int count = generateMoves(color, validMoves);
+        if (depth == 1)
+            return count;
+        PColor other = color == PColor.White ? PColor.Black
+                : PColor.White;
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            doMove(validMoves[i]);
+            nodes += perft(depth - 1, other);
+            undoMove();
+        }
+        return nodes;
     }
     
     /*******************************************************************
@@ -274,16 +611,16 @@ public class Chess implements java.io.Serializable {
     private Piece createCopy(Piece piece) {
         if (piece == null)
             return null;
-        switch (piece.getName()) {
-            case "Pawn":
+        switch (piece.getType()) {
+            case BitBoard.PAWN:
                 return new Pawn((Pawn) piece);
-            case "Rook":
+            case BitBoard.ROOK:
                 return new Rook((Rook) piece);
-            case "Bishop":
+            case BitBoard.BISHOP:
                 return new Bishop((Bishop) piece);
-            case "Knight":
+            case BitBoard.KNIGHT:
                 return new Knight((Knight) piece);
-            case "Queen":
+            case BitBoard.QUEEN:
                 return new Queen((Queen) piece);
             default:
                 return new King((King) piece);
@@ -305,6 +642,89 @@ public class Chess implements java.io.Serializable {
         
     }
     
+    /*******************************************************************
+     * Records what the last move promoted to, for a promotion made
+     * square by square and finished by swapping in the new Piece, so
+     * the move can be written down like one made by makeMove(int)
+     * 
+     * @param type is the BitBoard type promoted to, KNIGHT to QUEEN
+     ******************************************************************/
+    public void setPromotion(int type) {
+        Move last = moves.peek();
+        int flags = EncodedMove.PROMOTION + type - BitBoard.KNIGHT;
+        if (last.getTarPiece() != null)
+            flags += EncodedMove.CAPTURE;
+        int code = EncodedMove.encode(
+                BitBoard.square(last.getR1(), last.getC1()),
+                BitBoard.square(last.getR2(), last.getC2()), flags);
+        last.setCode(code);
+        historyOfMoves.get(historyOfMoves.size() - 1).setCode(code);
+    }
+    
+    /*******************************************************************
+     * Gets the position the game started from, before every move that
+     * can still be taken back
+     * 
+     * @param toMove is the PColor to move now
+     * @return a new Position of the start, with the side to move then
+     ******************************************************************/
+    public Position getStartPosition(PColor toMove) {
+        Chess copy = snapshot();
+        // unMakeMove only reads the Moves, they can be shared
+        copy.moves.addAll(moves);
+        copy.historyOfMoves.addAll(historyOfMoves);
+        while (!copy.moves.isEmpty())
+            copy.unMakeMove();
+        PColor first = toMove;
+        if (moves.size() % 2 == 1)
+            first = toMove == PColor.White ? PColor.Black : PColor.White;
+        return copy.getPosition(first);
+    }
+    
+    /*******************************************************************
+     * Gets the moves of the game as EncodedMoves, by playing them again
+     * from the start position. Moves made square by square don't know
+     * their EncodedMove, so each is matched with the legal move from
+     * and to the same squares.
+     * 
+     * @param toMove is the PColor to move now
+     * @return the EncodedMoves from the first to the last
+     * @throws IllegalStateException if a move isn't legal where it was
+     *         made
+     ******************************************************************/
+    public int[] getEncodedMoves(PColor toMove) {
+        Position start = getStartPosition(toMove);
+        Chess replay = new Chess(start);
+        PColor color = start.getToMove();
+        int[] encoded = new int[historyOfMoves.size()];
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < encoded.length; i++) {
+            Move move = historyOfMoves.get(i);
+            int count = replay.generateMoves(color, legal);
+            int from = BitBoard.square(move.getR1(), move.getC1());
+            int to = BitBoard.square(move.getR2(), move.getC2());
+            // A promotion without a code was a Queen
+            int promotion = EncodedMove.isPromotion(move.getCode())
+                    ? EncodedMove.promotionType(move.getCode())
+                    : BitBoard.QUEEN;
+            encoded[i] = EncodedMove.NONE;
+            for (int j = 0; j < count; j++) {
+                if (EncodedMove.from(legal[j]) == from
+                        && EncodedMove.to(legal[j]) == to
+                        && (!EncodedMove.isPromotion(legal[j])
+                                || EncodedMove.promotionType(
+                                        legal[j]) == promotion))
+                    encoded[i] = legal[j];
+            }
+            if (encoded[i] == EncodedMove.NONE)
+                throw new IllegalStateException("Move " + (i + 1)
+                        + " is not legal");
+            replay.makeMove(encoded[i]);
+            color = color == PColor.White ? PColor.Black : PColor.White;
+        }
+        return encoded;
+    }
+    
     // TODO move to the pawn class
     /*******************************************************************
      * Checks to see if a pawn is up for promotion
@@ -376,24 +796,31 @@ public class Chess implements java.io.Serializable {
      * @return a boolean value whether the king is in check
      ******************************************************************/
     private boolean isKingInCheck(PColor color) {
-        int[] location = board.findKing(color);
-        int kRow = location[0];
-        int kCol = location[1];
-        // Want to try to move opposite colors to the king specified
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (getPieceAt(row, col) != null) {
-                    Piece temp = getPieceAt(row, col);
-                    if (temp.getColor() != color) {
-                        // Try to move the piece to king
-                        if (checkMove(row, col, kRow, kCol, temp)) {
-                            return true; // white king is in check
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+        // A pinned enemy Piece still gives check, so this doesn't ask
+        // checkMove, which would also mark the enemy Pieces as moved
+        return isKingInCheckStill(color);
+    }
+    
+    /*******************************************************************
+     * Gets every square occupied by the opponent of the specified color
+     * 
+     * @param color is the PColor whose opponent to look for
+     * @return a long with a bit set for every enemy Piece
+     ******************************************************************/
+    private long getEnemyOccupancy(PColor color) {
+        BitBoard bits = board.getBitBoard();
+        return bits.getOccupied() & ~bits.getOccupancy(color);
+    }
+    
+    /*******************************************************************
+     * Checks whether any Piece of the specified color has a valid move
+     * 
+     * @param color is the PColor to check
+     * @return a boolean value whether at least one valid move exists
+     ******************************************************************/
+    private boolean hasValidMove(PColor color) {
+        return generateMoves(color,
+                new int[MoveGenerator.MAX_MOVES]) > 0;
     }
     
     /*******************************************************************
@@ -410,25 +837,7 @@ public class Chess implements java.io.Serializable {
             // If the king is in check try to see if it can get out
             // check every move of their color to see if they can get
             // out
-            
-            for (int row = 0; row < 8; row++) {
-                for (int col = 0; col < 8; col++) {
-                    if (getPieceAt(row, col) != null) {
-                        Piece toCheck = getPieceAt(row, col);
-                        if (toCheck.getColor() == color) {
-                            for (int r = 0; r < 8; r++) {
-                                for (int c = 0; c < 8; c++) {
-                                    if (checkMove(row, col, r, c,
-                                            toCheck)) {
-                                        return false;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            return true;
+            return !hasValidMove(color);
         }
         return false;
     }
@@ -441,26 +850,7 @@ public class Chess implements java.io.Serializable {
      * @return a boolean value whether the player has any valid moves
      ******************************************************************/
     private boolean isOutOfMoves(PColor color) {
-        
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (getPieceAt(row, col) != null) {
-                    Piece toCheck = getPieceAt(row, col);
-                    if (toCheck.getColor() == color) {
-                        for (int r = 0; r < 8; r++) {
-                            for (int c = 0; c < 8; c++) {
-                                if (checkMove(row, col, r, c,
-                                        toCheck)) {
-                                    return false;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        
-        return true;
+        return !hasValidMove(color);
     }
     
     /*******************************************************************
@@ -519,52 +909,18 @@ public class Chess implements java.io.Serializable {
      ******************************************************************/
     public boolean isFutureCheck(int r1, int c1, int r2, int c2,
             Piece piece) {
-            
+        // Move the Pieces on the Cells just long enough to look, no
+        // Move or Piece copies are made
         Piece old = getPieceAt(r1, c1);
-        boolean moved = old.hasMoved();
-        Piece pCellToCheck;
-        /* If result is 1 it means the move puts your king in check */
-        int result = -1; // 0 is false, 1 is true
-        if (getPieceAt(r2, c2) != null) {
-            pCellToCheck = getPieceAt(r2, c2);
-        } else {
-            pCellToCheck = null;
-        }
-        
-        movePieceTo(r1, c1, r2, c2, piece);
+        Piece target = getPieceAt(r2, c2);
+        setPieceAt(r2, c2, piece);
+        setPieceAt(r1, c1, null);
         
-        if (piece.getColor() == PColor.White) {
-            if (isKingInCheck(PColor.White)) {
-            	unMakeMove();
-                return true;
-            } else {
-            	if(isKingInCheckStill(PColor.White)) {
-            		unMakeMove();
-            		return true;
-            	}
-            	unMakeMove();
-                return false;
-            }
-        } else {
-            if (isKingInCheck(PColor.Black)) {
-            	
-            	unMakeMove();
-                return true;
-            } else {
-            	if(isKingInCheckStill(PColor.Black)) {
-            		unMakeMove();
-            		return true;
-            	}
-            	unMakeMove();
-                return false;
-            }
-        }
-        // Need to reset the pieces
+        boolean check = isKingInCheckStill(piece.getColor());
         
-        // setPieceAt(r1, c1, old);
-        // getPieceAt(r1, c1).setHasMoved(moved);
-        // setPieceAt(r2, c2, pCellToCheck);
-
+        setPieceAt(r1, c1, old);
+        setPieceAt(r2, c2, target);
+        return check;
     }
     
     public boolean checkMoveNoCheck(int r1, int c1, int r2, int c2,
@@ -580,197 +936,372 @@ public class Chess implements java.io.Serializable {
         return false;
     }
     
+    /*******************************************************************
+     * Determines whether the King of the specified color is attacked,
+     * by looking out from its square with the attack tables
+     * 
+     * @param color is the PColor of the King
+     * @return a boolean value whether the King is in check
+     ******************************************************************/
     public boolean isKingInCheckStill(PColor color) {
-    	 int[] location = board.findKing(color);
-         int kRow = location[0];
-         int kCol = location[1];
-         // Want to try to move opposite colors to the king specified
-         for (int row = 0; row < 8; row++) {
-             for (int col = 0; col < 8; col++) {
-                 if (getPieceAt(row, col) != null) {
-                     Piece temp = getPieceAt(row, col);
-                     if (temp.getColor() != color) {
-                         // Try to move the piece to king
-                         if (checkMoveNoCheck(row, col, kRow, kCol, temp)) {
-                             return true; // white king is in check
-                         }
-                     }
-                 }
-             }
-         }
-         return false;
-    }
-    
-    /*******************************************************************
-     * Generates all of the possible moves for the specified color. TODO
-     * Maybe store all alive pieces in a map for quicker lookup
+        int king = board.getKingSquare(color);
+        if (king < 0)
+            return false; // no King, nothing to check
+        return MoveGenerator.isAttacked(board.getBitBoard(), king,
+                opposite(color));
+    }
+    
+    /*******************************************************************
+     * Checks whether any Piece of the specified color attacks a Cell,
+     * using the attack tables instead of trying each Piece's moves
+     * 
+     * @param row is the row of the Cell
+     * @param col is the col of the Cell
+     * @param by is the PColor of the attackers
+     * @return a boolean value whether the Cell is attacked
+     ******************************************************************/
+    public boolean isSquareAttacked(int row, int col, PColor by) {
+        return MoveGenerator.isAttacked(board.getBitBoard(),
+                BitBoard.square(row, col), by);
+    }
+    
+    /*******************************************************************
+     * Gets the other PColor
+     * 
+     * @param color is a PColor
+     * @return the opponent of color
+     ******************************************************************/
+    private static PColor opposite(PColor color) {
+        return color == PColor.White ? PColor.Black : PColor.White;
+    }
+    
+    /*******************************************************************
+     * Generates all of the possible moves for the specified color. The
+     * MoveGenerator lists only the Cells each Piece can reach, then any
+     * move that would leave the King in check is dropped.
      * 
      * @param color is the PColor to search
-     * @return a List of all valid Moves
+     * @return a List of all valid Moves, or null if color is in
+     *         checkmate
      ******************************************************************/
     public List<Move> generateMoves(PColor color) {
-        if (!isKingInCheckmate(color)) {
-            List<Move> validMoves = new ArrayList<Move>();
-            int direction = color == PColor.White ? 1 : -1;
-            boolean passVal = false;
-            for (int r1 = 0; r1 < 8; r1++) {
-                for (int c1 = 0; c1 < 8; c1++) {
-                    // First two loops go through board looking for
-                    // color
-                    if (getPieceAt(r1, c1) != null
-                            && getPieceAt(r1, c1).getColor() == color) {
-                        // it is a black piece
-                        for (int r2 = 0; r2 < 8; r2++) {
-                            for (int c2 = 0; c2 < 8; c2++) {
-                                if (r1 - direction > -1
-                                        && r1 - direction < 8) {
-                                    passVal = getBoard()
-                                            .getCellAt(r1 - direction,
-                                                    c2)
-                                            .isPassant();
-                                }
-                                if (checkMove(r1, c1, r2, c2,
-                                        getPieceAt(r1, c1))) {
-                                    if (r1 - direction > -1
-                                            && r1 - direction < 8) {
-                                        getBoard().getCellAt(
-                                                r1 - direction, c2)
-                                                .setPassant(passVal);
-                                    }
-                                    Move toAdd = new Move(r1, c1, r2,
-                                            c2, getPieceAt(r1, c1),
-                                            getPieceAt(r2, c2));
-                                    validMoves.add(toAdd.clone());
-                                    
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            return validMoves;
-        } else {
+        int[] codes = new int[MoveGenerator.MAX_MOVES];
+        int count = generateMoves(color, codes);
+        if (count == 0 && isKingInCheckStill(color))
             return null;
+        List<Move> validMoves = new ArrayList<Move>(count);
+        for (int i = 0; i < count; i++) {
+            validMoves.add(createMove(codes[i]));
+        }
+        return validMoves;
+    }
+    
+    /*******************************************************************
+     * Generates all of the valid moves for the specified color as
+     * EncodedMove ints, without creating any Move objects
+     * 
+     * @param color is the PColor to search
+     * @param moves is the array to fill, with room for
+     *        MoveGenerator.MAX_MOVES
+     * @return the number of valid moves written to the array
+     ******************************************************************/
+    public int generateMoves(PColor color, int[] moves) {
+        int count = MoveGenerator.generateMoves(board, color, moves);
+        return MoveGenerator.filterLegal(board.getBitBoard(), color, moves,
+                count);
+    }
+    
+    /*******************************************************************
+     * Creates the Move object for an EncodedMove on the current board,
+     * a Castling_Move or En_Passant_Move when the move is one
+     * 
+     * @param code is the EncodedMove
+     * @return the Move, which holds the Pieces currently on the board
+     ******************************************************************/
+    public Move createMove(int code) {
+        int r1 = BitBoard.row(EncodedMove.from(code));
+        int c1 = BitBoard.col(EncodedMove.from(code));
+        int r2 = BitBoard.row(EncodedMove.to(code));
+        int c2 = BitBoard.col(EncodedMove.to(code));
+        Move move;
+        if (EncodedMove.isCastle(code)) {
+            int rookCol1 = c2 > c1 ? 7 : 0;
+            int rookCol2 = c2 > c1 ? c2 - 1 : c2 + 1;
+            move = new Castling_Move(r1, c1, r2, c2, getPieceAt(r1, c1),
+                    getPieceAt(r2, c2), r1, rookCol1, r1, rookCol2,
+                    getPieceAt(r1, rookCol1), getPieceAt(r1, rookCol2));
+        } else if (EncodedMove.flags(code) == EncodedMove.EN_PASSANT) {
+            move = new En_Passant_Move(r1, c1, r2, c2, getPieceAt(r1, c1),
+                    getPieceAt(r2, c2), getPieceAt(r1, c2));
+        } else {
+            move = new Move(r1, c1, r2, c2, getPieceAt(r1, c1),
+                    getPieceAt(r2, c2));
         }
+        move.setCode(code);
+        return move;
     }
     
     /*******************************************************************
-     * From the list of all valid moves, this method utilizes a negaMax
-     * algorithm to determine what the best possible move it can make
-     * with the specified depth.
+     * Finds the best move for the specified color with an alpha-beta
+     * search that deepens until the default time limit is used up.
      * 
      * @param color is the PColor we are checking
-     * @return the best possible Move to be made
+     * @return the best possible Move to be made, or null if color has
+     *         no valid moves
      ******************************************************************/
     public Move getBestMove(PColor color) {
-        List<Move> validMoves = generateMoves(color);
-        if (validMoves == null)
+        return getBestMove(color, DEFAULT_SEARCH_TIME);
+    }
+    
+    /*******************************************************************
+     * Finds the best move for the specified color with an alpha-beta
+     * search that deepens until the time limit is used up. The best
+     * move of the deepest finished search is returned. A position the
+     * OpeningBook knows is played from the book without searching.
+     * 
+     * @param color is the PColor we are checking
+     * @param millis is how long the search may take in milliseconds
+     * @return the best possible Move to be made, or null if color has
+     *         no valid moves
+     ******************************************************************/
+    public Move getBestMove(PColor color, long millis) {
+        int best = probeBook(color);
+        if (best == EncodedMove.NONE)
+            best = search(color, millis);
+        if (best == EncodedMove.NONE)
             return null;
-        int bestResult = Integer.MIN_VALUE;
-        Move bestMove = null;
-        int depth = 2;
-        
-        for (Move move : validMoves) {
-            int r1 = move.getR1();
-            int c1 = move.getC1();
-            int r2 = move.getR2();
-            int c2 = move.getC2();
-            
-            movePieceTo(r1, c1, r2, c2, createCopy(move.getSelPiece()));
-            
-            int result = negaMax(depth, color);
-            unMakeMove();
-            if (result > bestResult) {
-                bestResult = result;
-                bestMove = move;
-            }
+        return createMove(best);
+    }
+    
+    /*******************************************************************
+     * Searches for the best move with the search threads that are set
+     ******************************************************************/
+    private int search(PColor color, long millis) {
+        if (searchThreads > 1) {
+            ParallelSearch search = createParallelSearch();
+            search.setTimeLimit(millis);
+            return search.findBestMove(color);
         }
-        System.out.println(bestResult);
-        return bestMove;
+        Search search = new Search(this, getTranspositionTable());
+        search.setTimeLimit(millis);
+        return search.findBestMove(color);
     }
     
     /*******************************************************************
-     * A negaMax algorithm that determines what the best possible move
-     * will be for the specified color.
+     * Looks the position up in the OpeningBook
      * 
-     * For more information, Wikipedia and some chess wikis explain it
-     * really well.
+     * @param color is the PColor to move
+     * @return a book move picked by weight, or NONE if there is no
+     *         book or it has no move for the position
+     ******************************************************************/
+    public int probeBook(PColor color) {
+        if (book == null)
+            return EncodedMove.NONE;
+        return book.probe(this, color);
+    }
+    
+    /*******************************************************************
+     * Gets the OpeningBook getBestMove plays from
      * 
-     * @param depth is how many plies to search
-     * @param color is what PColor we are looking at
-     * @return an integer value of the best score.
+     * @return the OpeningBook, or null if there is none
      ******************************************************************/
-    public int negaMax(int depth, PColor color) {
-        if (depth <= 0 || isGameOver() != -1)
-            return evauluateScores();
-            
-        List<Move> moves = generateMoves(color);
-        int currentMax = Integer.MIN_VALUE;
-        
-        for (Move currentMove : moves) {
-            
-            int r1 = currentMove.getR1();
-            int c1 = currentMove.getC1();
-            int r2 = currentMove.getR2();
-            int c2 = currentMove.getC2();
-            
-            movePieceTo(r1, c1, r2, c2,
-                    createCopy(currentMove.getSelPiece()));
-            int score = negaMax(depth - 1, color);
-            
-            unMakeMove();
-            if (score > currentMax) {
-                currentMax = score;
-            }
-        }
-        return -currentMax;
+    public OpeningBook getOpeningBook() {
+        return book;
+    }
+    
+    /*******************************************************************
+     * Sets the OpeningBook getBestMove plays from before it searches
+     * 
+     * @param book is the OpeningBook, or null to always search
+     ******************************************************************/
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+    
+    /*******************************************************************
+     * Gets the Tablebase the search looks endings up in
+     * 
+     * @return the Tablebase, or null if there is none
+     ******************************************************************/
+    public Tablebase getTablebase() {
+        return tablebase;
     }
     
     /*******************************************************************
-     * Evaluates the "score" of either side by adding together each
-     * colors remaining Pieces' score values
+     * Sets the Tablebase the search looks endings up in, a search
+     * stops at every position it knows
+     * 
+     * @param tablebase is the Tablebase, or null to search everything
+     ******************************************************************/
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+    
+    /*******************************************************************
+     * Gets the TranspositionTable getBestMove shares between its
+     * searches, creating it the first time
+     * 
+     * @return the TranspositionTable of the game
+     ******************************************************************/
+    public TranspositionTable getTranspositionTable() {
+        if (table == null)
+            table = new TranspositionTable(hashSize);
+        return table;
+    }
+    
+    /*******************************************************************
+     * Sets the most memory the TranspositionTable may use, the table
+     * is emptied and made again the next time it is needed
+     * 
+     * @param megabytes is the memory in megabytes
+     ******************************************************************/
+    public void setHashSize(int megabytes) {
+        hashSize = megabytes;
+        table = null;
+    }
+
+    /*******************************************************************
+     * Sets how many threads getBestMove searches with. With more than
+     * one the search is a ParallelSearch, whose helper threads run on
+     * the search pool.
      * 
-     * TODO only coded for the black side right now
+     * @param threads is the number of threads, at least 1
+     ******************************************************************/
+    public void setSearchThreads(int threads) {
+        searchThreads = Math.max(1, threads);
+    }
+    
+    /*******************************************************************
+     * Gets how many threads getBestMove searches with
+     * 
+     * @return the number of threads
+     ******************************************************************/
+    public int getSearchThreads() {
+        return searchThreads;
+    }
+    
+    /*******************************************************************
+     * Sets the ForkJoinPool the helper threads of a parallel search run
+     * on, so a server can keep the search on cores of its own
+     * 
+     * @param pool is the pool, or null for the common pool
+     ******************************************************************/
+    public void setSearchPool(ForkJoinPool pool) {
+        searchPool = pool;
+    }
+    
+    /*******************************************************************
+     * Gets the ForkJoinPool the helper threads of a parallel search run
+     * on
+     * 
+     * @return the pool, or null for the common pool
+     ******************************************************************/
+    public ForkJoinPool getSearchPool() {
+        return searchPool;
+    }
+    
+    /*******************************************************************
+     * Creates a search of this game with the search threads and pool
+     * that are set, sharing the TranspositionTable
      * 
-     * @return an int containing the score
+     * @return a new ParallelSearch, which searches copies of the game
      ******************************************************************/
-    private int evauluateScores() {
-        int scoreWhite = 0;
-        int scoreBlack = 0;
+    public ParallelSearch createParallelSearch() {
+        ForkJoinPool pool = searchPool != null ? searchPool
+                : ForkJoinPool.commonPool();
+        return new ParallelSearch(this, getTranspositionTable(), pool,
+                searchThreads);
+    }
+    
+    /*******************************************************************
+     * Takes every search setting of another game, the ones that belong
+     * to the program rather than the game: the threads and their pool,
+     * the TranspositionTable and its size, the Evaluator, the
+     * OpeningBook and the Tablebase
+     *
+     * @param other is the game to take the settings of
+     ******************************************************************/
+    public void copySearchSettings(Chess other) {
+        hashSize = other.hashSize;
+        table = other.table;
+        searchThreads = other.searchThreads;
+        searchPool = other.searchPool;
+        evaluator = other.evaluator;
+        book = other.book;
+        tablebase = other.tablebase;
+    }
+
+    /*******************************************************************
+     * Makes a copy of the position that another thread can search
+     * while this game goes on. Every Piece is copied, the move history
+     * is not. The copy shares the TranspositionTable and the search
+     * settings, several threads may search the same table at once.
+     *
+     * @return a new Chess with the same position
+     ******************************************************************/
+    public Chess snapshot() {
+        Chess copy = new Chess();
+        copy.board.reset();
         for (int row = 0; row < 8; row++) {
             for (int col = 0; col < 8; col++) {
-                if (getPieceAt(row, col) != null) {
-                    if (getPieceAt(row, col)
-                            .getColor() == PColor.Black) {
-                        scoreBlack += getPieceAt(row, col).getScore();
-                        scoreBlack += getPositionScore(row, col);
-                    } else {
-                        scoreWhite += getPieceAt(row, col).getScore();
-                        scoreWhite += getPositionScore(row, col);
-                    }
-                }
+                copy.setPieceAt(row, col, createCopy(getPieceAt(row, col)));
             }
         }
-        // Each side has a score for remaining pieces now
-        // System.out.println(scoreBlack - scoreWhite);
-        
-        return scoreBlack - scoreWhite;
+        copy.board.setPassantSquares(board.getBitBoard().getPassant());
+        copy.hashSize = hashSize;
+        copy.table = getTranspositionTable();
+        copy.searchThreads = searchThreads;
+        copy.searchPool = searchPool;
+        copy.evaluator = evaluator;
+        copy.tablebase = tablebase;
+        return copy;
+    }
+
+    /*******************************************************************
+     * Searches the position to a fixed depth with alpha-beta and
+     * returns its score for the specified color.
+     * 
+     * For more information, Wikipedia and some chess wikis explain
+     * negaMax and alpha-beta really well.
+     * 
+     * @param depth is how many plies to search
+     * @param color is what PColor is to move
+     * @return an integer value of the best score for color
+     ******************************************************************/
+    public int negaMax(int depth, PColor color) {
+        return new Search(this).search(color, depth);
+    }
+    
+    /*******************************************************************
+     * Evaluates the position for the specified color with the
+     * Evaluator that is set, a TaperedEvaluator unless told otherwise
+     * 
+     * @param color is the PColor to evaluate for
+     * @return an int containing the score, positive if color is ahead
+     ******************************************************************/
+    public int evaluate(PColor color) {
+        return getEvaluator().evaluate(this, color);
+    }
+    
+    /*******************************************************************
+     * Gets the Evaluator the search scores positions with
+     * 
+     * @return the Evaluator, a TaperedEvaluator unless one was set
+     ******************************************************************/
+    public Evaluator getEvaluator() {
+        if (evaluator == null)
+            evaluator = new TaperedEvaluator();
+        return evaluator;
     }
     
     /*******************************************************************
-     * This makes the AI favor the middle of the board
+     * Sets the Evaluator the search scores positions with. Snapshots
+     * share it, so it has to be safe to call from several threads.
      * 
-     * @param row is the row
-     * @param col is the col
-     * @return the score of that position on the board
+     * @param evaluator is the Evaluator, or null for the default
      ******************************************************************/
-    private int getPositionScore(int row, int col) {
-        byte[][] positionWeight = { { 1, 1, 1, 1, 1, 1, 1, 1 },
-                { 2, 2, 2, 2, 2, 2, 2, 2 }, { 2, 2, 3, 3, 3, 3, 2, 2 },
-                { 2, 2, 3, 4, 4, 3, 2, 2 }, { 2, 2, 3, 4, 4, 3, 2, 2 },
-                { 2, 2, 3, 3, 3, 3, 2, 2 }, { 2, 2, 2, 2, 2, 2, 2, 2 },
-                { 1, 1, 1, 1, 1, 1, 1, 1 } };
-        return positionWeight[row][col];
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
     }
     
     /*******************************************************************
@@ -1,7 +1,16 @@
 package chess.main;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import chess.ai.OpeningBook;
+import chess.ai.PolyglotKey;
+import chess.ai.Tablebase;
 import chess.controller.ChessController;
 import chess.gui.ChessGUI;
+import chess.io.GameRecord;
+import chess.io.MoveJournal;
 /*
 Just a note, this addition is just to make this comment.
 Since this was for a class and done as a group project and has since
@@ -27,9 +36,65 @@ public class ChessGame {
 		ChessGUI theView = new ChessGUI();
 		
 		Chess theModel = new Chess();
+		// One search thread per core unless -Dchess.searchThreads says
+		theModel.setSearchThreads(Integer.getInteger("chess.searchThreads",
+				Runtime.getRuntime().availableProcessors()));
+		// A polyglot book from -Dchess.book, keyed with the standard
+		// Random64 table unless -Dchess.bookKeys gives another
+		String book = System.getProperty("chess.book");
+		if (book != null) {
+			try {
+				String keys = System.getProperty("chess.bookKeys");
+				theModel.setOpeningBook(new OpeningBook(Paths.get(book),
+						keys == null ? new PolyglotKey()
+								: PolyglotKey.load(Paths.get(keys))));
+			} catch (IOException e) {
+				System.err.println("Opening book not loaded: " + e);
+			}
+		}
+		// Endgame tables from -Dchess.tablebases, see Tablebase.main
+		String tables = System.getProperty("chess.tablebases");
+		if (tables != null) {
+			try {
+				theModel.setTablebase(new Tablebase(Paths.get(tables)));
+			} catch (IOException e) {
+				System.err.println("Tablebases not loaded: " + e);
+			}
+		}
 
 		ChessController theController =
 				new ChessController(theView, theModel);
+		// Every move is autosaved to -Dchess.journal, empty for none,
+		// and the game there is carried on after a crash
+		String journal = System.getProperty("chess.journal",
+				Paths.get(System.getProperty("user.home"), ".chess",
+						"autosave.journal").toString());
+		if (!journal.isEmpty()) {
+			try {
+				Path file = Paths.get(journal);
+				GameRecord recovered = null;
+				try {
+					recovered = MoveJournal.replay(file);
+				} catch (IOException e) {
+					System.err.println("Autosave not replayed: " + e);
+				}
+				MoveJournal moves = new MoveJournal(file,
+						Integer.getInteger("chess.journalSync",
+								MoveJournal.DEFAULT_SYNC_EVERY),
+						Long.getLong("chess.journalSyncMillis",
+								MoveJournal.DEFAULT_SYNC_MILLIS));
+				theController.setJournal(moves, recovered);
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					try {
+						moves.close();
+					} catch (IOException e) {
+						System.err.println("Autosave not closed: " + e);
+					}
+				}));
+			} catch (IOException e) {
+				System.err.println("Autosave not started: " + e);
+			}
+		}
 
 		theView.setVisible(true);
 	}
@@ -0,0 +1,170 @@
+package chess.main;
+
+import java.io.PrintStream;
+
+import chess.objects.EncodedMove;
+import chess.objects.MoveGenerator;
+import chess.objects.PColor;
+
+/*******************************************************************
+ * Command line runner for Chess.perft. With no arguments it runs the
+ * standard reference positions and compares the node counts with the
+ * known values, otherwise it counts a single position:
+ *
+ * java chess.main.Perft [-divide] [depth] [FEN]
+ *
+ * Every line prints the nodes, the time taken and the nodes per
+ * second, and -divide also prints the count below each root move so a
+ * wrong count can be tracked down to the move that causes it.
+ ******************************************************************/
+public class Perft {
+
+    /** Reference positions as FEN, from the chessprogramming wiki */
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1"
+                    + " w - - 0 10" };
+    /** Known node counts of each reference position by depth */
+    private static final long[][] EXPECTED = {
+            { 20, 400, 8902, 197281, 4865609 },
+            { 48, 2039, 97862, 4085603 },
+            { 14, 191, 2812, 43238, 674624 },
+            { 6, 264, 9467, 422333 },
+            { 44, 1486, 62379, 2103487 },
+            { 46, 2079, 89890, 3894594 } };
+    /** Depth the reference positions are run to by default */
+    private static final int DEFAULT_DEPTH = 3;
+
+    /** Is the game the position is set up in */
+    private Chess chess;
+    /** Is the PColor to move in the position */
+    private PColor toMove;
+
+    /*******************************************************************
+     * Constructor that sets up the position of a FEN String
+     *
+     * @param fen is the position to count
+     ******************************************************************/
+    public Perft(String fen) {
+        chess = new Chess();
+        toMove = chess.setFen(fen);
+    }
+
+    /*******************************************************************
+     * Counts the leaf positions to the specified depth
+     *
+     * @param depth is how many plies to go down
+     * @return the number of positions at that depth
+     ******************************************************************/
+    public long perft(int depth) {
+        return chess.perft(depth, toMove);
+    }
+
+    /*******************************************************************
+     * Counts the leaf positions below each root move and prints them
+     *
+     * @param depth is how many plies to go down
+     * @param out is where to print the count of each root move
+     * @return the total number of positions at that depth
+     ******************************************************************/
+    public long divide(int depth, PrintStream out) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = chess.generateMoves(toMove, moves);
+        PColor other = toMove == PColor.White ? PColor.Black
+                : PColor.White;
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            chess.doMove(moves[i]);
+            long nodes = chess.perft(depth - 1, other);
+            chess.undoMove();
+            out.println(EncodedMove.toString(moves[i]) + ": " + nodes);
+            total += nodes;
+        }
+        return total;
+    }
+
+    /*******************************************************************
+     * Gets the known node count of a reference position
+     *
+     * @param position is the index of the reference position
+     * @param depth is the depth counted to
+     * @return the node count, or -1 if it isn't known
+     ******************************************************************/
+    public static long expected(int position, int depth) {
+        if (depth < 1 || depth > EXPECTED[position].length)
+            return -1;
+        return EXPECTED[position][depth - 1];
+    }
+
+    /*******************************************************************
+     * Gets the FEN String of a reference position
+     *
+     * @param position is the index of the reference position
+     * @return the position as FEN
+     ******************************************************************/
+    public static String referencePosition(int position) {
+        return POSITIONS[position];
+    }
+
+    /*******************************************************************
+     * Gets how many reference positions there are
+     *
+     * @return the number of reference positions
+     ******************************************************************/
+    public static int referencePositions() {
+        return POSITIONS.length;
+    }
+
+    /*******************************************************************
+     * Runs one count and prints the nodes, time and speed
+     ******************************************************************/
+    private static long run(String fen, int depth, boolean divide) {
+        Perft perft = new Perft(fen);
+        long start = System.nanoTime();
+        long nodes = divide ? perft.divide(depth, System.out)
+                : perft.perft(depth);
+        long nanos = Math.max(1, System.nanoTime() - start);
+        System.out.printf("depth %d  nodes %d  time %d ms  %.0f nodes/s%n",
+                depth, nodes, nanos / 1000000, nodes * 1e9 / nanos);
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        boolean divide = false;
+        int depth = DEFAULT_DEPTH;
+        String fen = null;
+        for (String arg : args) {
+            if (arg.equals("-divide")) {
+                divide = true;
+            } else if (fen == null && arg.matches("\\d+")) {
+                depth = Integer.parseInt(arg);
+            } else {
+                fen = fen == null ? arg : fen + " " + arg;
+            }
+        }
+
+        if (fen != null) {
+            System.out.println(fen);
+            run(fen, depth, divide);
+            return;
+        }
+
+        boolean passed = true;
+        for (int i = 0; i < POSITIONS.length; i++) {
+            System.out.println(POSITIONS[i]);
+            long nodes = run(POSITIONS[i], depth, divide);
+            long expected = expected(i, depth);
+            if (expected >= 0 && nodes != expected) {
+                System.out.println("  FAIL, expected " + expected);
+                passed = false;
+            }
+        }
+        System.out.println(passed ? "All counts match" : "Counts differ");
+        if (!passed)
+            System.exit(1);
+    }
+}
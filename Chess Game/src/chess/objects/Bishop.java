@@ -9,11 +9,7 @@ public class Bishop extends Piece implements java.io.Serializable{
 	 * @param color is the PColor of the Bishop
 	 ******************************************************************/
 	public Bishop(PColor color) {
-		super(color, "Bishop"); // Set the color and make it alive
-		if (color.equals(PColor.White))
-			this.icon = "\u2657"; // white
-		else
-			this.icon = "\u265d"; // black
+		super(color, BitBoard.BISHOP); // Set the color and make it alive
 		this.score = 30;
 	}
 	
@@ -0,0 +1,390 @@
+package chess.objects;
+
+/***********************************************************************
+ * Packed representation of the pieces on a Board. Every piece type of
+ * each color has its own 64-bit set and each bit is one Cell, so
+ * questions like "where are the black rooks" or "is this Cell empty"
+ * are answered with a single long instead of walking the Cell grid.
+ *
+ * Squares are numbered row * 8 + col, so bit 0 is the Cell at row 0,
+ * col 0 and iterating over the set bits of a long visits the Cells in
+ * the same order as the nested row/col loops used throughout the game.
+ *
+ * The Board keeps this in sync with its Cells, the Cells stay around
+ * as a view for the GUI and anything else that wants Piece objects.
+ *
+ * Like the Zobrist key, the score of each color is kept up to date as
+ * pieces are set and removed: every Piece adds its getScore plus the
+ * weight of its square, so evaluating a position is a subtraction
+ * instead of a walk over the board. The middle and end game totals of
+ * the PieceSquareTables and the game phase are kept the same way.
+ **********************************************************************/
+public class BitBoard implements java.io.Serializable {
+
+    /** Piece type indexes, a piece set is color * 6 + type */
+    public static final int PAWN = 0, KNIGHT = 1, BISHOP = 2, ROOK = 3,
+            QUEEN = 4, KING = 5;
+    /** Number of piece types for each color */
+    public static final int TYPES = 6;
+    /** Mailbox value for a Piece that is none of the six types */
+    private static final byte UNTYPED = 12;
+    /** Mailbox value for an empty square */
+    private static final byte EMPTY = -1;
+    /** Weight of every square, the middle of the board is worth most */
+    private static final byte[] POSITION_WEIGHTS = {
+            1, 1, 1, 1, 1, 1, 1, 1,
+            2, 2, 2, 2, 2, 2, 2, 2,
+            2, 2, 3, 3, 3, 3, 2, 2,
+            2, 2, 3, 4, 4, 3, 2, 2,
+            2, 2, 3, 4, 4, 3, 2, 2,
+            2, 2, 3, 3, 3, 3, 2, 2,
+            2, 2, 2, 2, 2, 2, 2, 2,
+            1, 1, 1, 1, 1, 1, 1, 1 };
+
+    /** The twelve piece sets, indexed by color * 6 + type */
+    private long[] pieces;
+    /** Occupancy of each color, indexed by the PColor ordinal */
+    private long[] colors;
+    /** Every occupied square */
+    private long occupied;
+    /** Squares whose Cell is flagged for en passant */
+    private long passant;
+    /** Piece set index of every square, to clear it in O(1) */
+    private byte[] mailbox;
+    /** Zobrist key of the pieces, updated as they are set and removed */
+    private long key;
+    /** Zobrist key of the Pawns alone, for the pawn structure cache */
+    private long pawnKey;
+    /** Score of each color, indexed by the PColor ordinal */
+    private int[] scores;
+    /** What the piece on each square added to its color's score */
+    private int[] squareScores;
+    /** PieceSquareTables totals of each color, by PColor ordinal */
+    private int[] midgame, endgame;
+    /** Game phase of the Knights, Bishops, Rooks and Queens */
+    private int phase;
+
+    /*******************************************************************
+     * Constructor for an empty BitBoard
+     ******************************************************************/
+    public BitBoard() {
+        pieces = new long[2 * TYPES];
+        colors = new long[2];
+        mailbox = new byte[64];
+        scores = new int[2];
+        squareScores = new int[64];
+        midgame = new int[2];
+        endgame = new int[2];
+        clear();
+    }
+
+    /*******************************************************************
+     * Copy constructor, the copy shares nothing with the original
+     *
+     * @param other is the BitBoard to copy
+     ******************************************************************/
+    public BitBoard(BitBoard other) {
+        pieces = other.pieces.clone();
+        colors = other.colors.clone();
+        mailbox = other.mailbox.clone();
+        occupied = other.occupied;
+        passant = other.passant;
+        key = other.key;
+        pawnKey = other.pawnKey;
+        scores = other.scores.clone();
+        squareScores = other.squareScores.clone();
+        midgame = other.midgame.clone();
+        endgame = other.endgame.clone();
+        phase = other.phase;
+    }
+
+    /*******************************************************************
+     * Removes every piece and en passant flag
+     ******************************************************************/
+    public void clear() {
+        for (int i = 0; i < pieces.length; i++) {
+            pieces[i] = 0L;
+        }
+        colors[0] = 0L;
+        colors[1] = 0L;
+        occupied = 0L;
+        passant = 0L;
+        key = 0L;
+        pawnKey = 0L;
+        scores[0] = 0;
+        scores[1] = 0;
+        midgame[0] = midgame[1] = 0;
+        endgame[0] = endgame[1] = 0;
+        phase = 0;
+        for (int square = 0; square < 64; square++) {
+            mailbox[square] = EMPTY;
+            squareScores[square] = 0;
+        }
+    }
+
+    /*******************************************************************
+     * Puts the Piece on the square, replacing whatever was there. A
+     * null Piece simply empties the square.
+     *
+     * @param square is the square index, row * 8 + col
+     * @param piece is the Piece to put there, can be null
+     ******************************************************************/
+    public void setPiece(int square, Piece piece) {
+        removePiece(square);
+        if (piece == null)
+            return;
+        long bit = 1L << square;
+        int color = piece.getColor().ordinal();
+        int type = typeOf(piece);
+        colors[color] |= bit;
+        occupied |= bit;
+        squareScores[square] = piece.getScore() + POSITION_WEIGHTS[square];
+        scores[color] += squareScores[square];
+        if (type < 0) {
+            mailbox[square] = UNTYPED;
+        } else {
+            pieces[color * TYPES + type] |= bit;
+            mailbox[square] = (byte) (color * TYPES + type);
+            key ^= Zobrist.piece(color * TYPES + type, square);
+            if (type == PAWN)
+                pawnKey ^= Zobrist.piece(color * TYPES + type, square);
+            midgame[color] += PieceSquareTables.midgame(color * TYPES
+                    + type, square);
+            endgame[color] += PieceSquareTables.endgame(color * TYPES
+                    + type, square);
+            phase += PieceSquareTables.phase(type);
+        }
+    }
+
+    /*******************************************************************
+     * Empties the square
+     *
+     * @param square is the square index, row * 8 + col
+     ******************************************************************/
+    public void removePiece(int square) {
+        int index = mailbox[square];
+        if (index == EMPTY)
+            return;
+        long mask = ~(1L << square);
+        if (index != UNTYPED) {
+            pieces[index] &= mask;
+            key ^= Zobrist.piece(index, square);
+            if (index % TYPES == PAWN)
+                pawnKey ^= Zobrist.piece(index, square);
+            midgame[index / TYPES] -= PieceSquareTables.midgame(index,
+                    square);
+            endgame[index / TYPES] -= PieceSquareTables.endgame(index,
+                    square);
+            phase -= PieceSquareTables.phase(index % TYPES);
+        }
+        scores[(colors[1] & ~mask) != 0 ? 1 : 0] -= squareScores[square];
+        colors[0] &= mask;
+        colors[1] &= mask;
+        occupied &= mask;
+        mailbox[square] = EMPTY;
+    }
+
+    /*******************************************************************
+     * Gets the set of one piece type of one color
+     *
+     * @param color is the PColor of the pieces
+     * @param type is the piece type, PAWN through KING
+     * @return a long with a bit set for every such piece
+     ******************************************************************/
+    public long getPieces(PColor color, int type) {
+        return pieces[color.ordinal() * TYPES + type];
+    }
+
+    /*******************************************************************
+     * Gets the square of the King of the specified color. The King set
+     * is kept up to date as Pieces move, so this is a single bit scan.
+     * With more than one King the first in row/col order is returned.
+     *
+     * @param color is the PColor of the King
+     * @return the square of the King, or -1 if there is none
+     ******************************************************************/
+    public int getKingSquare(PColor color) {
+        long kings = pieces[color.ordinal() * TYPES + KING];
+        return kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+    }
+
+    /*******************************************************************
+     * Gets every square occupied by the specified color
+     *
+     * @param color is the PColor to look for
+     * @return a long with a bit set for every Piece of that color
+     ******************************************************************/
+    public long getOccupancy(PColor color) {
+        return colors[color.ordinal()];
+    }
+
+    /*******************************************************************
+     * Gets every occupied square
+     *
+     * @return a long with a bit set for every Piece on the board
+     ******************************************************************/
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /*******************************************************************
+     * Checks whether the square is empty
+     *
+     * @param square is the square index, row * 8 + col
+     * @return a boolean value whether there is no Piece on the square
+     ******************************************************************/
+    public boolean isEmpty(int square) {
+        return (occupied & (1L << square)) == 0;
+    }
+
+    /*******************************************************************
+     * Gets the type of the Piece on the square
+     *
+     * @param square is the square index, row * 8 + col
+     * @return PAWN through KING, or -1 if the square is empty or holds
+     *         a Piece that has no type
+     ******************************************************************/
+    public int getType(int square) {
+        int index = mailbox[square];
+        if (index == EMPTY || index == UNTYPED)
+            return -1;
+        return index % TYPES;
+    }
+
+    /*******************************************************************
+     * Flags or un-flags the square for en passant
+     *
+     * @param square is the square index, row * 8 + col
+     * @param isPassant whether the square is an en passant square
+     ******************************************************************/
+    public void setPassant(int square, boolean isPassant) {
+        if (isPassant)
+            passant |= 1L << square;
+        else
+            passant &= ~(1L << square);
+    }
+
+    /*******************************************************************
+     * Gets every square that is flagged for en passant
+     *
+     * @return a long with a bit set for every en passant square
+     ******************************************************************/
+    public long getPassant() {
+        return passant;
+    }
+
+    /*******************************************************************
+     * Gets the Zobrist key of the pieces alone, without castling, en
+     * passant or the side to move
+     *
+     * @return the XOR of the Zobrist number of every piece
+     ******************************************************************/
+    public long getKey() {
+        return key;
+    }
+
+    /*******************************************************************
+     * Gets the Zobrist key of the Pawns alone, which only changes when
+     * a Pawn moves, is captured or promotes
+     *
+     * @return the XOR of the Zobrist number of every Pawn
+     ******************************************************************/
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    /*******************************************************************
+     * Gets the score of a color, the getScore of each of its Pieces
+     * when it was put down plus the weight of its square
+     *
+     * @param color is the PColor to get the score of
+     * @return the total score of that color
+     ******************************************************************/
+    public int getScore(PColor color) {
+        return scores[color.ordinal()];
+    }
+
+    /*******************************************************************
+     * Gets the middle game total of a color, what its pieces are worth
+     * on their squares by the PieceSquareTables
+     *
+     * @param color is the PColor to get the total of
+     * @return the total in hundredths of a Pawn
+     ******************************************************************/
+    public int getMidgameScore(PColor color) {
+        return midgame[color.ordinal()];
+    }
+
+    /*******************************************************************
+     * Gets the end game total of a color, what its pieces are worth on
+     * their squares by the PieceSquareTables
+     *
+     * @param color is the PColor to get the total of
+     * @return the total in hundredths of a Pawn
+     ******************************************************************/
+    public int getEndgameScore(PColor color) {
+        return endgame[color.ordinal()];
+    }
+
+    /*******************************************************************
+     * Gets the game phase, how much of the middle game is left by the
+     * pieces on the board. It can pass MAX_PHASE when Pawns promote.
+     *
+     * @return from 0 with only Kings and Pawns, MAX_PHASE at the start
+     ******************************************************************/
+    public int getPhase() {
+        return phase;
+    }
+
+    /*******************************************************************
+     * Gets the weight of a square, the middle of the board is worth
+     * more so Pieces are drawn towards it
+     *
+     * @param square is the square index, row * 8 + col
+     * @return the weight, from 1 at the edge rows to 4 in the middle
+     ******************************************************************/
+    public static int getPositionWeight(int square) {
+        return POSITION_WEIGHTS[square];
+    }
+
+    /*******************************************************************
+     * Gets the piece type of a Piece
+     *
+     * @param piece is the Piece to check
+     * @return PAWN through KING, or -1 for a plain Piece
+     ******************************************************************/
+    public static int typeOf(Piece piece) {
+        return piece.getType();
+    }
+
+    /*******************************************************************
+     * Converts a row and col to a square index
+     *
+     * @param row is the row of the Cell
+     * @param col is the col of the Cell
+     * @return the square index, row * 8 + col
+     ******************************************************************/
+    public static int square(int row, int col) {
+        return (row << 3) | col;
+    }
+
+    /*******************************************************************
+     * Gets the row of a square index
+     *
+     * @param square is the square index
+     * @return the row of the square
+     ******************************************************************/
+    public static int row(int square) {
+        return square >> 3;
+    }
+
+    /*******************************************************************
+     * Gets the col of a square index
+     *
+     * @param square is the square index
+     * @return the col of the square
+     ******************************************************************/
+    public static int col(int square) {
+        return square & 7;
+    }
+}
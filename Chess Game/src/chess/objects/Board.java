@@ -4,6 +4,8 @@ public class Board implements java.io.Serializable {
     
     /** Is the 2D array that will contain the pieces */
     private Cell[][] board;
+    /** Is the packed copy of the pieces, kept in sync by the Cells */
+    private BitBoard bitBoard;
     
     /*******************************************************************
      * Constructor for the board class, going to be changing this one
@@ -12,6 +14,7 @@ public class Board implements java.io.Serializable {
      ******************************************************************/
     public Board() {
         board = new Cell[8][8];
+        bitBoard = new BitBoard();
         reset();
         setBoard();
     }
@@ -21,9 +24,10 @@ public class Board implements java.io.Serializable {
      * containing anything
      ******************************************************************/
     public void reset() {
+        bitBoard.clear();
         for (int x = 0; x < 8; x++) {
             for (int y = 0; y < 8; y++) {
-                board[x][y] = new Cell();
+                board[x][y] = new Cell(this, BitBoard.square(x, y));
             }
         }
     }
@@ -137,6 +141,72 @@ public class Board implements java.io.Serializable {
         return board[row][col].getChessPiece();
     }
     
+    /*******************************************************************
+     * Gets the packed BitBoard copy of the pieces on this Board
+     * 
+     * @return the BitBoard of this Board
+     ******************************************************************/
+    public BitBoard getBitBoard() {
+        return bitBoard;
+    }
+    
+    /*******************************************************************
+     * Checks whether the specified Cell is empty without going through
+     * the Cell itself
+     * 
+     * @param row is the row of the Cell
+     * @param col is the col of the Cell
+     * @return a boolean value whether there is no Piece in the Cell
+     ******************************************************************/
+    public boolean isEmpty(int row, int col) {
+        return bitBoard.isEmpty(BitBoard.square(row, col));
+    }
+    
+    /*******************************************************************
+     * Gets the Zobrist key of the position, which is the same for the
+     * same Pieces, castling rights, en passant squares and side to
+     * move however the position was reached
+     * 
+     * @param toMove is the PColor to move
+     * @return the 64-bit key of the position
+     ******************************************************************/
+    public long getZobristKey(PColor toMove) {
+        return bitBoard.getKey() ^ Zobrist.castling(getCastlingRights())
+                ^ Zobrist.passant(bitBoard.getPassant())
+                ^ Zobrist.side(toMove);
+    }
+    
+    /*******************************************************************
+     * Gets which castles are still possible, a King and Rook that
+     * haven't moved from their starting Cells
+     * 
+     * @return the Zobrist castling right bits
+     ******************************************************************/
+    public int getCastlingRights() {
+        int rights = 0;
+        if (canCastle(7, 7))
+            rights |= Zobrist.WHITE_KING_SIDE;
+        if (canCastle(7, 0))
+            rights |= Zobrist.WHITE_QUEEN_SIDE;
+        if (canCastle(0, 7))
+            rights |= Zobrist.BLACK_KING_SIDE;
+        if (canCastle(0, 0))
+            rights |= Zobrist.BLACK_QUEEN_SIDE;
+        return rights;
+    }
+    
+    /*******************************************************************
+     * Checks that the King and the Rook of one castle haven't moved
+     ******************************************************************/
+    private boolean canCastle(int row, int rookCol) {
+        PColor color = row == 7 ? PColor.White : PColor.Black;
+        Piece king = getPieceAt(row, 4);
+        Piece rook = getPieceAt(row, rookCol);
+        return king instanceof King && !king.hasMoved()
+                && king.getColor() == color && rook instanceof Rook
+                && !rook.hasMoved() && rook.getColor() == color;
+    }
+    
     /*******************************************************************
      * Finds the King of the specified color
      * 
@@ -144,32 +214,189 @@ public class Board implements java.io.Serializable {
      * @return the location of the King
      ******************************************************************/
     public int[] findKing(PColor color) {
-        int[] coords = { -10000, -1000000 };
+        int square = getKingSquare(color);
+        if (square < 0)
+            return new int[] { -10000, -1000000 };
+        return new int[] { BitBoard.row(square), BitBoard.col(square) };
+    }
+    
+    /*******************************************************************
+     * Gets the square of the King of the specified color without
+     * looking at the Cells, the BitBoard keeps it as the King moves
+     * 
+     * @param color is the PColor of the King
+     * @return the square index of the King, or -1 if there is none
+     ******************************************************************/
+    public int getKingSquare(PColor color) {
+        return bitBoard.getKingSquare(color);
+    }
+    
+    /*******************************************************************
+     * Resets all the Cells' isPassant field to be false
+     ******************************************************************/
+    public void resetPassant() {
+        setPassantSquares(0L);
+    }
+    
+    /*******************************************************************
+     * Flags exactly the specified Cells for en passant and clears the
+     * rest
+     * 
+     * @param squares is a BitBoard mask of the Cells to flag
+     ******************************************************************/
+    public void setPassantSquares(long squares) {
+        for (long bits = bitBoard.getPassant() ^ squares; bits != 0;
+                bits &= bits - 1) {
+            int square = Long.numberOfTrailingZeros(bits);
+            getCellAt(BitBoard.row(square), BitBoard.col(square))
+                    .setPassant((squares & (1L << square)) != 0);
+        }
+    }
+    
+    /*******************************************************************
+     * Clears the Board and sets up the position of the first four
+     * fields of a FEN String: the pieces, the side to move, the
+     * castling rights and the en passant square. Pawns on their
+     * starting row and the Kings and Rooks of a castling right count
+     * as not moved, every other Piece as moved. The move counters, if
+     * there are any, are left to the caller.
+     * 
+     * @param fen is the position
+     * @return the PColor to move
+     * @throws IllegalArgumentException if the FEN is malformed
+     ******************************************************************/
+    public PColor setFen(String fen) {
+        String[] fields = Fen.fields(fen);
+        // Every field is checked before the Board is touched, so a
+        // malformed FEN leaves the position as it was
+        String placement = fields[0];
+        Piece[] pieces = new Piece[64];
+        int row = 0;
+        int col = 0;
+        for (int i = 0; i < placement.length(); i++) {
+            char c = placement.charAt(i);
+            if (c == '/') {
+                if (col != 8)
+                    throw Fen.malformed(fen, "row " + (8 - row)
+                            + " is not 8 squares");
+                row++;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                if (row > 7 || col > 7)
+                    throw Fen.malformed(fen, "too many squares");
+                Piece piece = Fen.piece(c);
+                if (piece == null)
+                    throw Fen.malformed(fen, "no piece " + c);
+                // Only Pawns on their starting row may still move two
+                piece.setHasMoved(piece.getType() != BitBoard.PAWN
+                        || row != (piece.getColor() == PColor.White ? 6
+                                : 1));
+                pieces[BitBoard.square(row, col++)] = piece;
+            }
+        }
+        if (row != 7 || col != 8)
+            throw Fen.malformed(fen, "the pieces are not 8 rows of 8");
+        
+        PColor toMove = PColor.White;
+        if (fields.length > 1) {
+            if (fields[1].equals("b"))
+                toMove = PColor.Black;
+            else if (!fields[1].equals("w"))
+                throw Fen.malformed(fen, "no side " + fields[1]);
+        }
+        int rights = 0;
+        if (fields.length > 2 && !fields[2].equals("-")) {
+            for (int i = 0; i < fields[2].length(); i++) {
+                int right = Fen.castlingRight(fields[2].charAt(i));
+                if (right == 0)
+                    throw Fen.malformed(fen, "no castle "
+                            + fields[2].charAt(i));
+                rights |= right;
+            }
+        }
+        long passant = 0L;
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            int square = Fen.square(fields[3]);
+            if (square < 0 || BitBoard.row(square) != (toMove
+                    == PColor.White ? 2 : 5))
+                throw Fen.malformed(fen, "no en passant square "
+                        + fields[3]);
+            passant = 1L << square;
+        }
+        
+        reset();
+        for (int square = 0; square < 64; square++) {
+            if (pieces[square] != null)
+                board[BitBoard.row(square)][BitBoard.col(square)]
+                        .setChessPiece(pieces[square]);
+        }
+        for (int all = rights; all != 0; all &= all - 1)
+            allowCastle(Integer.lowestOneBit(all));
+        setPassantSquares(passant);
+        return toMove;
+    }
+    
+    /*******************************************************************
+     * Gets the first four fields of a FEN String for the position: the
+     * pieces, the side to move, the castling rights from the Kings and
+     * Rooks that haven't moved and the en passant square flagged on a
+     * Cell the side to move could capture on
+     * 
+     * @param toMove is the PColor to move
+     * @return the FEN without the move counters
+     * @throws IllegalStateException if a Cell holds a plain Piece,
+     *         which has no FEN letter
+     ******************************************************************/
+    public String getFen(PColor toMove) {
+        StringBuilder fen = new StringBuilder(80);
         for (int row = 0; row < 8; row++) {
+            if (row > 0)
+                fen.append('/');
+            int empty = 0;
             for (int col = 0; col < 8; col++) {
-                if (getCellAt(row, col).getChessPiece() != null) {
-                    if (getCellAt(row, col).getChessPiece().getName()
-                            .equals("King")
-                            && getCellAt(row, col).getChessPiece()
-                                    .getColor() == color) {
-                        coords[0] = row;
-                        coords[1] = col;
-                        return coords;
-                    }
+                Piece piece = board[row][col].getChessPiece();
+                if (piece == null) {
+                    empty++;
+                    continue;
                 }
+                if (empty > 0)
+                    fen.append((char) ('0' + empty));
+                empty = 0;
+                fen.append(Fen.letter(piece));
             }
+            if (empty > 0)
+                fen.append((char) ('0' + empty));
         }
-        return coords;
+        fen.append(toMove == PColor.White ? " w " : " b ");
+        Fen.appendCastling(fen, getCastlingRights());
+        fen.append(' ');
+        // Only a square the side to move can capture on is written
+        long passant = bitBoard.getPassant() & (toMove == PColor.White
+                ? 0xFFL << 16 : 0xFFL << 40);
+        if (passant == 0)
+            fen.append('-');
+        else
+            fen.append(Fen.squareName(
+                    Long.numberOfTrailingZeros(passant)));
+        return fen.toString();
     }
     
     /*******************************************************************
-     * Resets all the Cells' isPassant field to be false
+     * Marks the King and the Rook of one castling right as not moved
      ******************************************************************/
-    public void resetPassant() {
-    	for(int row = 0; row < 8; row++) {
-    		for(int col = 0; col < 8; col++) {
-    			getCellAt(row, col).setPassant(false);
-    		}
-    	}
+    private void allowCastle(int right) {
+        boolean white = (right & (Zobrist.WHITE_KING_SIDE
+                | Zobrist.WHITE_QUEEN_SIDE)) != 0;
+        boolean kingSide = (right & (Zobrist.WHITE_KING_SIDE
+                | Zobrist.BLACK_KING_SIDE)) != 0;
+        int row = white ? 7 : 0;
+        Piece king = getPieceAt(row, 4);
+        Piece rook = getPieceAt(row, kingSide ? 7 : 0);
+        if (king != null && rook != null) {
+            king.setHasMoved(false);
+            rook.setHasMoved(false);
+        }
     }
 }
@@ -6,6 +6,10 @@ public class Cell implements java.io.Serializable{
 	private Piece piece;
 	/** Is whether the Cell is considered for En Passant */
 	private boolean isPassant;
+	/** Is the Board whose BitBoard mirrors this Cell, can be null */
+	private Board board;
+	/** Is the square index of this Cell on the Board */
+	private int square;
 
 	/*******************************************************************
 	 * Constructor for the Cell class, sets the piece to be null and
@@ -16,6 +20,20 @@ public class Cell implements java.io.Serializable{
 		isPassant = false;
 	}
 
+	/*******************************************************************
+	 * Constructor for a Cell that belongs to a Board. Every change to
+	 * the Cell is passed on to the Board's BitBoard so both stay the
+	 * same.
+	 * 
+	 * @param board is the Board that owns the Cell
+	 * @param square is the square index of the Cell, row * 8 + col
+	 ******************************************************************/
+	public Cell(Board board, int square) {
+		this();
+		this.board = board;
+		this.square = square;
+	}
+
 	/*******************************************************************
 	 * Sets the Piece that is in the Cell, isPassant is set to false by
 	 * default and only is true when a pawn moves past the cell due to
@@ -25,6 +43,8 @@ public class Cell implements java.io.Serializable{
 	 ******************************************************************/
 	public void setChessPiece(Piece piece) {
 		this.piece = piece;
+		if (board != null)
+			board.getBitBoard().setPiece(square, piece);
 	}
 
 	/*******************************************************************
@@ -75,6 +95,8 @@ public class Cell implements java.io.Serializable{
 	 ******************************************************************/
 	public void setPassant(boolean isPassant) {
 		this.isPassant = isPassant;
+		if (board != null)
+			board.getBitBoard().setPassant(square, isPassant);
 	}
 
 }
@@ -0,0 +1,141 @@
+package chess.objects;
+
+/***********************************************************************
+ * Helper methods for moves packed into a single int, used wherever a
+ * Move object would be too expensive to create, like inside the move
+ * generator and the AI search.
+ *
+ * Bits 0-5 hold the from square, bits 6-11 the to square and bits
+ * 12-15 the flags below, so every move fits in 16 bits. Squares use
+ * the BitBoard numbering, row * 8 + col.
+ **********************************************************************/
+public class EncodedMove {
+
+    /** A move that neither captures nor is special */
+    public static final int QUIET = 0;
+    /** A Pawn moving two rows on its first move */
+    public static final int DOUBLE_PUSH = 1;
+    /** The King castling towards col 7 */
+    public static final int KING_CASTLE = 2;
+    /** The King castling towards col 0 */
+    public static final int QUEEN_CASTLE = 3;
+    /** A move that captures the Piece on the to square */
+    public static final int CAPTURE = 4;
+    /** A Pawn capturing en passant */
+    public static final int EN_PASSANT = 5;
+    /** Set on every promotion, the low two bits pick the Piece */
+    public static final int PROMOTION = 8;
+    /** Promotions, add CAPTURE when the Pawn also captures */
+    public static final int PROMOTE_KNIGHT = 8, PROMOTE_BISHOP = 9,
+            PROMOTE_ROOK = 10, PROMOTE_QUEEN = 11;
+
+    /** Value that is never a real move */
+    public static final int NONE = 0;
+
+    /*******************************************************************
+     * Packs a move into an int
+     *
+     * @param from is the square the Piece moves from
+     * @param to is the square the Piece moves to
+     * @param flags is one of the flag constants
+     * @return the encoded move
+     ******************************************************************/
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    /*******************************************************************
+     * Gets the square the Piece moves from
+     *
+     * @param move is the encoded move
+     * @return the from square
+     ******************************************************************/
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    /*******************************************************************
+     * Gets the square the Piece moves to
+     *
+     * @param move is the encoded move
+     * @return the to square
+     ******************************************************************/
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /*******************************************************************
+     * Gets the flags of the move
+     *
+     * @param move is the encoded move
+     * @return the flags, one of the flag constants
+     ******************************************************************/
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    /*******************************************************************
+     * Checks whether the move captures a Piece, en passant included
+     *
+     * @param move is the encoded move
+     * @return a boolean value whether the move captures
+     ******************************************************************/
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    /*******************************************************************
+     * Checks whether the move promotes a Pawn
+     *
+     * @param move is the encoded move
+     * @return a boolean value whether the move is a promotion
+     ******************************************************************/
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    /*******************************************************************
+     * Checks whether the move is a castle
+     *
+     * @param move is the encoded move
+     * @return a boolean value whether the King castles
+     ******************************************************************/
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    /*******************************************************************
+     * Gets the BitBoard type a promotion turns the Pawn into
+     *
+     * @param move is the encoded move, must be a promotion
+     * @return KNIGHT, BISHOP, ROOK or QUEEN
+     ******************************************************************/
+    public static int promotionType(int move) {
+        return BitBoard.KNIGHT + (flags(move) & 3);
+    }
+
+    /*******************************************************************
+     * Gets the name of a square, like "e4"
+     *
+     * @param square is the square index
+     * @return the file letter and rank number of the square
+     ******************************************************************/
+    public static String squareName(int square) {
+        return "" + (char) ('a' + BitBoard.col(square))
+                + (8 - BitBoard.row(square));
+    }
+
+    /*******************************************************************
+     * Writes the move in coordinate notation, like "e2e4" or "e7e8q"
+     *
+     * @param move is the encoded move
+     * @return the move as a String
+     ******************************************************************/
+    public static String toString(int move) {
+        String text = squareName(from(move)) + squareName(to(move));
+        if (isPromotion(move))
+            text += "nbrq".charAt(flags(move) & 3);
+        return text;
+    }
+}
@@ -0,0 +1,169 @@
+package chess.objects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/***********************************************************************
+ * The pieces of Forsyth-Edwards Notation, FEN, that Board and Chess
+ * read and write positions with. A FEN is six fields split by spaces:
+ *
+ * rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1
+ *
+ * the pieces row by row from row 0, upper case for White and digits
+ * for empty squares, then the side to move, the castling rights, the
+ * en passant square, the plies since the last capture or Pawn move
+ * and the number of the move. The last fields may be left out.
+ **********************************************************************/
+public final class Fen {
+
+    /** Is the FEN of the standard starting position */
+    public static final String START =
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /** Letters of the piece types, PAWN through KING */
+    private static final String LETTERS = "pnbrqk";
+    /** Most fields a FEN has */
+    private static final int FIELDS = 6;
+
+    private Fen() {
+    }
+
+    /*******************************************************************
+     * Splits a FEN into its fields, without the cost of a regular
+     * expression
+     *
+     * @param fen is the FEN String
+     * @return one to six fields
+     * @throws IllegalArgumentException if there are none or too many
+     ******************************************************************/
+    public static String[] fields(String fen) {
+        List<String> fields = new ArrayList<String>(FIELDS);
+        int length = fen.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(fen.charAt(i)))
+                i++;
+            int start = i;
+            while (i < length && !Character.isWhitespace(fen.charAt(i)))
+                i++;
+            if (i > start)
+                fields.add(fen.substring(start, i));
+        }
+        if (fields.isEmpty() || fields.size() > FIELDS)
+            throw malformed(fen, fields.size() + " fields");
+        return fields.toArray(new String[fields.size()]);
+    }
+
+    /*******************************************************************
+     * Creates the Piece of a FEN letter, upper case is White
+     *
+     * @param letter is one of pnbrqk in either case
+     * @return a new Piece, or null if the letter is no piece
+     ******************************************************************/
+    public static Piece piece(char letter) {
+        int type = LETTERS.indexOf(Character.toLowerCase(letter));
+        if (type < 0)
+            return null;
+        return Piece.create(Character.isUpperCase(letter) ? PColor.White
+                : PColor.Black, type);
+    }
+
+    /*******************************************************************
+     * Gets the FEN letter of a Piece
+     *
+     * @param piece is the Piece
+     * @return its letter, upper case for White
+     * @throws IllegalStateException for a plain Piece without a type
+     ******************************************************************/
+    public static char letter(Piece piece) {
+        if (piece.getType() == Piece.NONE)
+            throw new IllegalStateException("A plain Piece has no FEN "
+                    + "letter");
+        char letter = LETTERS.charAt(piece.getType());
+        return piece.getColor() == PColor.White
+                ? Character.toUpperCase(letter) : letter;
+    }
+
+    /*******************************************************************
+     * Gets the Zobrist castling right bit of a FEN castling letter
+     *
+     * @param letter is one of KQkq
+     * @return the bit of the right, or 0 if the letter is none
+     ******************************************************************/
+    public static int castlingRight(char letter) {
+        switch (letter) {
+            case 'K':
+                return Zobrist.WHITE_KING_SIDE;
+            case 'Q':
+                return Zobrist.WHITE_QUEEN_SIDE;
+            case 'k':
+                return Zobrist.BLACK_KING_SIDE;
+            case 'q':
+                return Zobrist.BLACK_QUEEN_SIDE;
+            default:
+                return 0;
+        }
+    }
+
+    /*******************************************************************
+     * Writes the FEN castling field of some castling rights
+     *
+     * @param fen is where to write the field
+     * @param rights is the Zobrist castling right bits
+     ******************************************************************/
+    public static void appendCastling(StringBuilder fen, int rights) {
+        if (rights == 0) {
+            fen.append('-');
+            return;
+        }
+        if ((rights & Zobrist.WHITE_KING_SIDE) != 0)
+            fen.append('K');
+        if ((rights & Zobrist.WHITE_QUEEN_SIDE) != 0)
+            fen.append('Q');
+        if ((rights & Zobrist.BLACK_KING_SIDE) != 0)
+            fen.append('k');
+        if ((rights & Zobrist.BLACK_QUEEN_SIDE) != 0)
+            fen.append('q');
+    }
+
+    /*******************************************************************
+     * Reads a square name like e3
+     *
+     * @param name is the file letter and the rank digit
+     * @return the square index, row * 8 + col, or -1 if it is none
+     ******************************************************************/
+    public static int square(String name) {
+        if (name.length() != 2)
+            return -1;
+        int col = name.charAt(0) - 'a';
+        int rank = name.charAt(1) - '1';
+        if (col < 0 || col > 7 || rank < 0 || rank > 7)
+            return -1;
+        return BitBoard.square(7 - rank, col);
+    }
+
+    /*******************************************************************
+     * Gets the name of a square, like e3
+     *
+     * @param square is the square index, row * 8 + col
+     * @return the file letter and the rank digit
+     ******************************************************************/
+    public static String squareName(int square) {
+        return new String(new char[] {
+                (char) ('a' + BitBoard.col(square)),
+                (char) ('8' - BitBoard.row(square)) });
+    }
+
+    /*******************************************************************
+     * Makes the exception for a FEN that can't be read
+     *
+     * @param fen is the FEN
+     * @param reason is what is wrong with it
+     * @return a new IllegalArgumentException to throw
+     ******************************************************************/
+    public static IllegalArgumentException malformed(String fen,
+            String reason) {
+        return new IllegalArgumentException("Bad FEN \"" + fen + "\": "
+                + reason);
+    }
+}
@@ -1,13 +1,11 @@
 package chess.objects;
 
-import java.util.HashMap;
-
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 
 public class IconSet implements java.io.Serializable {
-	/** Set of icons with piece names as the key */
-	private HashMap<String,Icon> iconSet;
+	/** Set of icons indexed by the BitBoard type of the piece */
+	private Icon[] iconSet;
 	/** Default path for icons */
 	private final static String defaultPath = "icons/";
 	
@@ -18,7 +16,7 @@ public class IconSet implements java.io.Serializable {
 	 * @param set is the name of the set to be loaded
 	 ******************************************************************/
 	public IconSet (String set) {
-		iconSet = new HashMap<String, Icon>();
+		iconSet = new Icon[BitBoard.TYPES];
 		setIconSet(set);
 	}
 	
@@ -29,23 +27,22 @@ public class IconSet implements java.io.Serializable {
 	 * @param set is the name of the set to be loaded
 	 ******************************************************************/
 	public void setIconSet (String set) {	
-		iconSet.clear();
-		
-		iconSet.putIfAbsent("Pawn", new ImageIcon(this.getClass().getResource(defaultPath + set + "_p-0.png")));
-		iconSet.putIfAbsent("Bishop", new ImageIcon(this.getClass().getResource(defaultPath + set + "_b-0.png")));
-		iconSet.putIfAbsent("Rook", new ImageIcon(this.getClass().getResource(defaultPath + set + "_r-0.png")));
-		iconSet.putIfAbsent("Knight", new ImageIcon(this.getClass().getResource(defaultPath + set + "_n-0.png")));
-		iconSet.putIfAbsent("Queen", new ImageIcon(this.getClass().getResource(defaultPath + set + "_q-0.png")));
-		iconSet.putIfAbsent("King", new ImageIcon(this.getClass().getResource(defaultPath + set + "_k-0.png")));
+		iconSet[BitBoard.PAWN] = new ImageIcon(this.getClass().getResource(defaultPath + set + "_p-0.png"));
+		iconSet[BitBoard.BISHOP] = new ImageIcon(this.getClass().getResource(defaultPath + set + "_b-0.png"));
+		iconSet[BitBoard.ROOK] = new ImageIcon(this.getClass().getResource(defaultPath + set + "_r-0.png"));
+		iconSet[BitBoard.KNIGHT] = new ImageIcon(this.getClass().getResource(defaultPath + set + "_n-0.png"));
+		iconSet[BitBoard.QUEEN] = new ImageIcon(this.getClass().getResource(defaultPath + set + "_q-0.png"));
+		iconSet[BitBoard.KING] = new ImageIcon(this.getClass().getResource(defaultPath + set + "_k-0.png"));
 	}
 	
 	/*******************************************************************
-	 * Getter for an individual icon from the icon set based on a key
-	 * that is the name of a piece
+	 * Getter for an individual icon from the icon set based on the
+	 * type of a piece
 	 * 
-	 * @param key is the name of a piece
+	 * @param type is the BitBoard type of a piece
+	 * @return the icon, or null for a plain Piece
 	 ******************************************************************/
-	public Icon getIcon (String key) {
-		return iconSet.get(key);
+	public Icon getIcon (int type) {
+		return type < 0 ? null : iconSet[type];
 	}
 }
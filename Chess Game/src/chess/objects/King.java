@@ -11,12 +11,8 @@ public class King extends Piece implements java.io.Serializable {
      * @param color is the PColor of the King to make
      ******************************************************************/
     public King(PColor color) {
-        super(color, "King");
+        super(color, BitBoard.KING);
         this.color = color;
-        if (color.equals(PColor.White))
-            this.icon = "\u2654"; // white
-        else
-            this.icon = "\u265a"; // black
         this.score = 99999;
     }
     
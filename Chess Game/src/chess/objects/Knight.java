@@ -10,12 +10,8 @@ public class Knight extends Piece implements java.io.Serializable {
 	 * @param color is the PColor to set the Knight to
 	 ******************************************************************/
 	public Knight(PColor color) {
-		super(color, "Knight"); // Set the color and make it alive
+		super(color, BitBoard.KNIGHT); // Set the color and make it alive
 		this.color = color;
-		if (color.equals(PColor.White))
-			this.icon = "\u2658"; // white
-		else
-			this.icon = "\u265e"; // black
 		this.score = 30;
 	}
 	
@@ -8,6 +8,10 @@ public class Move implements java.io.Serializable {
 	private Piece selPiece;
 	/** Piece that is targeted, can be null */
 	private Piece tarPiece;
+	/** The move packed by EncodedMove, NONE if it isn't known */
+	private int code;
+	/** The en passant squares of the board before the move was made */
+	private long passantSquares;
 	
 	/*******************************************************************
 	 * Move constructor to create a new move based on the selected row
@@ -41,40 +45,43 @@ public class Move implements java.io.Serializable {
 	public Move clone() {
 		Piece toClone1 = null, toClone2 = null;
 		if(selPiece != null) {
-			switch(selPiece.getName()) {
-			case "Pawn": toClone1 = new Pawn((Pawn) selPiece);
+			switch(selPiece.getType()) {
+			case BitBoard.PAWN: toClone1 = new Pawn((Pawn) selPiece);
 			break;
-			case "Knight": toClone1 = new Knight((Knight)selPiece);
+			case BitBoard.KNIGHT: toClone1 = new Knight((Knight)selPiece);
 			break;
-			case "Bishop": toClone1 = new Bishop((Bishop)selPiece);
+			case BitBoard.BISHOP: toClone1 = new Bishop((Bishop)selPiece);
 			break;
-			case "Rook": toClone1 = new Rook((Rook)selPiece);
+			case BitBoard.ROOK: toClone1 = new Rook((Rook)selPiece);
 			break;
-			case "Queen": toClone1 = new Queen((Queen)selPiece);
+			case BitBoard.QUEEN: toClone1 = new Queen((Queen)selPiece);
 			break;
-			case "King": toClone1 = new King((King)selPiece);
+			case BitBoard.KING: toClone1 = new King((King)selPiece);
 			break;
 			}
 		}
 		if(tarPiece != null) {
-			switch(tarPiece.getName()) {
-			case "Pawn": toClone2 = new Pawn((Pawn)tarPiece);
+			switch(tarPiece.getType()) {
+			case BitBoard.PAWN: toClone2 = new Pawn((Pawn)tarPiece);
 			break;
-			case "Knight": toClone2 = new Knight((Knight)tarPiece);
+			case BitBoard.KNIGHT: toClone2 = new Knight((Knight)tarPiece);
 			break;
-			case "Bishop": toClone2 = new Bishop((Bishop)tarPiece);
+			case BitBoard.BISHOP: toClone2 = new Bishop((Bishop)tarPiece);
 			break;
-			case "Rook": toClone2 = new Rook((Rook)tarPiece);
+			case BitBoard.ROOK: toClone2 = new Rook((Rook)tarPiece);
 			break;
-			case "Queen": toClone2 = new Queen((Queen)tarPiece);
+			case BitBoard.QUEEN: toClone2 = new Queen((Queen)tarPiece);
 			break;
-			case "King": toClone2 = new King((King)tarPiece);
+			case BitBoard.KING: toClone2 = new King((King)tarPiece);
 			break;
 			}
 		} else {
 			toClone2 = null;
 		}
-		return new Move(r1, c1, r2, c2, toClone1, toClone2);
+		Move cloned = new Move(r1, c1, r2, c2, toClone1, toClone2);
+		cloned.setCode(code);
+		cloned.setPassantSquares(passantSquares);
+		return cloned;
 	}
 
 	/*******************************************************************
@@ -184,5 +191,43 @@ public class Move implements java.io.Serializable {
 	public void setTarPiece(Piece tarPiece) {
 		this.tarPiece = tarPiece;
 	}
+
+	/*******************************************************************
+	 * Gets the move packed by EncodedMove, which also tells whether it
+	 * is a castle, en passant or promotion
+	 * 
+	 * @return the code, EncodedMove.NONE if it isn't known
+	 ******************************************************************/
+	public int getCode() {
+		return code;
+	}
+
+	/*******************************************************************
+	 * Sets the move packed by EncodedMove
+	 *
+	 * @param code the code to set
+	 ******************************************************************/
+	public void setCode(int code) {
+		this.code = code;
+	}
+
+	/*******************************************************************
+	 * Gets the en passant squares the board had before the move, as a
+	 * BitBoard mask
+	 * 
+	 * @return the passantSquares
+	 ******************************************************************/
+	public long getPassantSquares() {
+		return passantSquares;
+	}
+
+	/*******************************************************************
+	 * Sets the en passant squares the board had before the move
+	 *
+	 * @param passantSquares the passantSquares to set
+	 ******************************************************************/
+	public void setPassantSquares(long passantSquares) {
+		this.passantSquares = passantSquares;
+	}
 	
 }
@@ -0,0 +1,454 @@
+package chess.objects;
+
+/***********************************************************************
+ * Lists the moves each Piece can actually reach instead of asking
+ * every Piece about all 64 Cells. Knights and Kings use precomputed
+ * offset tables, Rooks, Bishops and Queens walk rays until they hit a
+ * Piece, and Pawns push and capture by their color's direction.
+ *
+ * The moves are pseudo-legal: they follow the movement rules but may
+ * leave the mover's own King in check, so they are filtered with
+ * isLegal. Everything works on a BitBoard and the castling rights
+ * alone, so a Position can list its moves without any Cells.
+ **********************************************************************/
+public class MoveGenerator {
+
+    /** Enough room for the moves of any position */
+    public static final int MAX_MOVES = 256;
+
+    /** Ray directions as row and col steps */
+    private static final int[] DIR_ROW = { -1, 1, 0, 0, -1, -1, 1, 1 };
+    private static final int[] DIR_COL = { 0, 0, -1, 1, -1, 1, -1, 1 };
+    /** Directions 0-3 are lateral, 4-7 are diagonal */
+    private static final int FIRST_DIAGONAL = 4;
+
+    /** Squares a Knight on each square attacks */
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    /** Squares a King on each square attacks */
+    private static final long[] KING_ATTACKS = new long[64];
+    /** Squares a Pawn attacks, indexed by PColor ordinal then square */
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    /** Every square in each direction from each square */
+    private static final long[][] RAYS = new long[8][64];
+
+    static {
+        int[] knightRow = { -2, -2, -1, -1, 1, 1, 2, 2 };
+        int[] knightCol = { -1, 1, -2, 2, -2, 2, -1, 1 };
+        for (int square = 0; square < 64; square++) {
+            int row = BitBoard.row(square);
+            int col = BitBoard.col(square);
+            for (int i = 0; i < 8; i++) {
+                KNIGHT_ATTACKS[square] |= bit(row + knightRow[i],
+                        col + knightCol[i]);
+                KING_ATTACKS[square] |= bit(row + DIR_ROW[i],
+                        col + DIR_COL[i]);
+                for (int r = row + DIR_ROW[i], c = col + DIR_COL[i];
+                        onBoard(r, c); r += DIR_ROW[i], c += DIR_COL[i]) {
+                    RAYS[i][square] |= bit(r, c);
+                }
+            }
+            // White moves towards row 0, Black towards row 7
+            PAWN_ATTACKS[PColor.White.ordinal()][square] =
+                    bit(row - 1, col - 1) | bit(row - 1, col + 1);
+            PAWN_ATTACKS[PColor.Black.ordinal()][square] =
+                    bit(row + 1, col - 1) | bit(row + 1, col + 1);
+        }
+    }
+
+    /*******************************************************************
+     * Checks whether a row and col are on the board
+     ******************************************************************/
+    private static boolean onBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+
+    /*******************************************************************
+     * Gets the bit of a row and col, or 0 if it is off the board
+     ******************************************************************/
+    private static long bit(int row, int col) {
+        return onBoard(row, col) ? 1L << BitBoard.square(row, col) : 0L;
+    }
+
+    /*******************************************************************
+     * Gets the squares a Knight attacks
+     *
+     * @param square is the square of the Knight
+     * @return a long with a bit set for every attacked square
+     ******************************************************************/
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /*******************************************************************
+     * Gets the squares a King attacks
+     *
+     * @param square is the square of the King
+     * @return a long with a bit set for every attacked square
+     ******************************************************************/
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /*******************************************************************
+     * Gets the squares a Pawn attacks
+     *
+     * @param color is the PColor of the Pawn
+     * @param square is the square of the Pawn
+     * @return a long with a bit set for every attacked square
+     ******************************************************************/
+    public static long pawnAttacks(PColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /*******************************************************************
+     * Walks one ray from a square up to and including the first
+     * occupied square
+     *
+     * @param direction is the index of the direction to walk
+     * @param square is the square to start from
+     * @param occupied is every occupied square
+     * @return the squares along the ray that can be reached
+     ******************************************************************/
+    private static long rayAttacks(int direction, int square,
+            long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers == 0)
+            return ray;
+        // Rays that go towards higher squares hit the lowest blocker
+        // first, the others hit the highest one first
+        int first = DIR_ROW[direction] * 8 + DIR_COL[direction] > 0
+                ? Long.numberOfTrailingZeros(blockers)
+                : 63 - Long.numberOfLeadingZeros(blockers);
+        return ray ^ RAYS[direction][first];
+    }
+
+    /*******************************************************************
+     * Gets the squares a Rook can reach
+     *
+     * @param square is the square of the Rook
+     * @param occupied is every occupied square
+     * @return a long with a bit set for every reachable square
+     ******************************************************************/
+    public static long rookAttacks(int square, long occupied) {
+        long attacks = 0L;
+        for (int direction = 0; direction < FIRST_DIAGONAL; direction++) {
+            attacks |= rayAttacks(direction, square, occupied);
+        }
+        return attacks;
+    }
+
+    /*******************************************************************
+     * Gets the squares a Bishop can reach
+     *
+     * @param square is the square of the Bishop
+     * @param occupied is every occupied square
+     * @return a long with a bit set for every reachable square
+     ******************************************************************/
+    public static long bishopAttacks(int square, long occupied) {
+        long attacks = 0L;
+        for (int direction = FIRST_DIAGONAL; direction < 8; direction++) {
+            attacks |= rayAttacks(direction, square, occupied);
+        }
+        return attacks;
+    }
+
+    /*******************************************************************
+     * Checks whether any Piece of a color attacks a square. Instead of
+     * asking every enemy Piece whether it can move there, it looks out
+     * from the square itself: a Knight a Knight's jump away, a Pawn or
+     * King next to it, or a slider at the end of a ray.
+     *
+     * @param bits is the BitBoard of the position
+     * @param square is the square to check
+     * @param by is the PColor of the attackers
+     * @return a boolean value whether the square is attacked
+     ******************************************************************/
+    public static boolean isAttacked(BitBoard bits, int square,
+            PColor by) {
+        return isAttacked(bits, square, by, bits.getOccupied(), 0L);
+    }
+
+    /*******************************************************************
+     * Checks whether any Piece of a color attacks a square in a
+     * position that differs from the BitBoard, so a move can be tested
+     * without making it
+     *
+     * @param bits is the BitBoard of the position
+     * @param square is the square to check
+     * @param by is the PColor of the attackers
+     * @param occupied is every occupied square of the position to test
+     * @param removed is the squares whose attackers have been captured
+     * @return a boolean value whether the square is attacked
+     ******************************************************************/
+    public static boolean isAttacked(BitBoard bits, int square, PColor by,
+            long occupied, long removed) {
+        long live = ~removed;
+        // A Pawn of color "by" attacks the square if a Pawn of the
+        // other color on the square would attack the Pawn
+        int defender = by == PColor.White ? PColor.Black.ordinal()
+                : PColor.White.ordinal();
+        if ((PAWN_ATTACKS[defender][square]
+                & bits.getPieces(by, BitBoard.PAWN) & live) != 0)
+            return true;
+        if ((KNIGHT_ATTACKS[square] & bits.getPieces(by, BitBoard.KNIGHT)
+                & live) != 0)
+            return true;
+        if ((KING_ATTACKS[square] & bits.getPieces(by, BitBoard.KING)
+                & live) != 0)
+            return true;
+        long queens = bits.getPieces(by, BitBoard.QUEEN);
+        long lateral = (bits.getPieces(by, BitBoard.ROOK) | queens) & live;
+        if (lateral != 0 && (rookAttacks(square, occupied) & lateral) != 0)
+            return true;
+        long diagonal = (bits.getPieces(by, BitBoard.BISHOP) | queens)
+                & live;
+        return diagonal != 0
+                && (bishopAttacks(square, occupied) & diagonal) != 0;
+    }
+
+    /*******************************************************************
+     * Lists every pseudo-legal move of the specified color, in the same
+     * row/col order the Pieces appear on the board
+     *
+     * @param board is the Board to generate moves for
+     * @param color is the PColor to move
+     * @param moves is the array to fill with encoded moves, it should
+     *        have room for MAX_MOVES
+     * @return the number of moves written to the array
+     ******************************************************************/
+    public static int generateMoves(Board board, PColor color,
+            int[] moves) {
+        return generateMoves(board.getBitBoard(),
+                board.getCastlingRights(), color, moves);
+    }
+
+    /*******************************************************************
+     * Lists every pseudo-legal move of the specified color in a
+     * position given as its pieces and castling rights
+     *
+     * @param bits is the BitBoard of the position
+     * @param castling is the Zobrist castling right bits
+     * @param color is the PColor to move
+     * @param moves is the array to fill with encoded moves, it should
+     *        have room for MAX_MOVES
+     * @return the number of moves written to the array
+     ******************************************************************/
+    public static int generateMoves(BitBoard bits, int castling,
+            PColor color, int[] moves) {
+        PColor enemy = color == PColor.White ? PColor.Black : PColor.White;
+        long occupied = bits.getOccupied();
+        long enemies = bits.getOccupancy(enemy)
+                & ~bits.getPieces(enemy, BitBoard.KING);
+        long targets = ~bits.getOccupancy(color)
+                & ~bits.getPieces(enemy, BitBoard.KING);
+        int count = 0;
+
+        for (long own = bits.getOccupancy(color); own != 0;
+                own &= own - 1) {
+            int from = Long.numberOfTrailingZeros(own);
+            long reach;
+            switch (bits.getType(from)) {
+                case BitBoard.PAWN:
+                    count = addPawnMoves(bits, color, from, enemies,
+                            moves, count);
+                    continue;
+                case BitBoard.KNIGHT:
+                    reach = KNIGHT_ATTACKS[from];
+                    break;
+                case BitBoard.BISHOP:
+                    reach = bishopAttacks(from, occupied);
+                    break;
+                case BitBoard.ROOK:
+                    reach = rookAttacks(from, occupied);
+                    break;
+                case BitBoard.QUEEN:
+                    reach = rookAttacks(from, occupied)
+                            | bishopAttacks(from, occupied);
+                    break;
+                case BitBoard.KING:
+                    reach = KING_ATTACKS[from];
+                    count = addCastles(bits, castling, color, from, moves,
+                            count);
+                    break;
+                default: // a plain Piece can't move
+                    continue;
+            }
+            for (reach &= targets; reach != 0; reach &= reach - 1) {
+                int to = Long.numberOfTrailingZeros(reach);
+                int flags = (enemies & (1L << to)) != 0
+                        ? EncodedMove.CAPTURE : EncodedMove.QUIET;
+                moves[count++] = EncodedMove.encode(from, to, flags);
+            }
+        }
+        return count;
+    }
+
+    /*******************************************************************
+     * Adds the pushes, captures, en passant captures and promotions of
+     * one Pawn
+     ******************************************************************/
+    private static int addPawnMoves(BitBoard bits, PColor color,
+            int from, long enemies, int[] moves, int count) {
+        int direction = color == PColor.White ? -8 : 8;
+        int startRow = color == PColor.White ? 6 : 1;
+        int lastRow = color == PColor.White ? 0 : 7;
+        int ahead = from + direction;
+
+        if (ahead >= 0 && ahead < 64) {
+            // Captures, the en passant square only counts when the
+            // enemy Pawn that just moved is beside this one
+            long captures = PAWN_ATTACKS[color.ordinal()][from];
+            for (long hits = captures & enemies; hits != 0;
+                    hits &= hits - 1) {
+                int to = Long.numberOfTrailingZeros(hits);
+                count = addPawnMove(from, to, EncodedMove.CAPTURE,
+                        lastRow, moves, count);
+            }
+            for (long hits = captures & bits.getPassant()
+                    & ~bits.getOccupied(); hits != 0; hits &= hits - 1) {
+                int to = Long.numberOfTrailingZeros(hits);
+                int victim = to - direction;
+                PColor enemy = color == PColor.White ? PColor.Black
+                        : PColor.White;
+                if ((bits.getPieces(enemy, BitBoard.PAWN)
+                        & (1L << victim)) != 0) {
+                    moves[count++] = EncodedMove.encode(from, to,
+                            EncodedMove.EN_PASSANT);
+                }
+            }
+            // Pushes
+            if (bits.isEmpty(ahead)) {
+                count = addPawnMove(from, ahead, EncodedMove.QUIET,
+                        lastRow, moves, count);
+                int twoAhead = ahead + direction;
+                if (BitBoard.row(from) == startRow
+                        && bits.isEmpty(twoAhead)) {
+                    moves[count++] = EncodedMove.encode(from, twoAhead,
+                            EncodedMove.DOUBLE_PUSH);
+                }
+            }
+        }
+        return count;
+    }
+
+    /*******************************************************************
+     * Adds a Pawn move, or the four promotions if it reaches the last
+     * row
+     ******************************************************************/
+    private static int addPawnMove(int from, int to, int flags,
+            int lastRow, int[] moves, int count) {
+        if (BitBoard.row(to) == lastRow) {
+            for (int promote = EncodedMove.PROMOTE_QUEEN;
+                    promote >= EncodedMove.PROMOTE_KNIGHT; promote--) {
+                moves[count++] = EncodedMove.encode(from, to,
+                        promote | flags);
+            }
+        } else {
+            moves[count++] = EncodedMove.encode(from, to, flags);
+        }
+        return count;
+    }
+
+    /*******************************************************************
+     * Adds the castles color still has the right to and whose Cells in
+     * between are empty. Whether the King passes through check is left
+     * to the legality filter.
+     ******************************************************************/
+    private static int addCastles(BitBoard bits, int castling,
+            PColor color, int from, int[] moves, int count) {
+        int kingSide = color == PColor.White ? Zobrist.WHITE_KING_SIDE
+                : Zobrist.BLACK_KING_SIDE;
+        int queenSide = color == PColor.White ? Zobrist.WHITE_QUEEN_SIDE
+                : Zobrist.BLACK_QUEEN_SIDE;
+        // The rights say the King is unmoved, so it is on its square
+        if ((castling & kingSide) != 0 && bits.isEmpty(from + 1)
+                && bits.isEmpty(from + 2)) {
+            moves[count++] = EncodedMove.encode(from, from + 2,
+                    EncodedMove.KING_CASTLE);
+        }
+        if ((castling & queenSide) != 0 && bits.isEmpty(from - 1)
+                && bits.isEmpty(from - 2) && bits.isEmpty(from - 3)) {
+            moves[count++] = EncodedMove.encode(from, from - 2,
+                    EncodedMove.QUEEN_CASTLE);
+        }
+        return count;
+    }
+
+    /*******************************************************************
+     * Removes the moves of generateMoves that leave the King in check
+     *
+     * @param bits is the BitBoard of the position
+     * @param color is the PColor that moves
+     * @param moves is the array of pseudo-legal moves, the legal ones
+     *        are moved to its front
+     * @param count is the number of pseudo-legal moves
+     * @return the number of legal moves
+     ******************************************************************/
+    public static int filterLegal(BitBoard bits, PColor color,
+            int[] moves, int count) {
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            if (isLegal(bits, moves[i], color))
+                moves[legal++] = moves[i];
+        }
+        return legal;
+    }
+
+    /*******************************************************************
+     * Checks that a pseudo-legal move doesn't leave or put the King in
+     * check. A castling King also can't start in or pass through check.
+     *
+     * @param bits is the BitBoard of the position
+     * @param move is the EncodedMove to check
+     * @param color is the PColor making the move
+     * @return a boolean value whether the move is legal
+     ******************************************************************/
+    public static boolean isLegal(BitBoard bits, int move, PColor color) {
+        if (EncodedMove.isCastle(move)) {
+            int from = EncodedMove.from(move);
+            int step = EncodedMove.flags(move) == EncodedMove.KING_CASTLE
+                    ? 1 : -1;
+            if (isAttacked(bits, from, opposite(color)))
+                return false;
+            if (!isKingSafeAfter(bits, EncodedMove.encode(from,
+                    from + step, EncodedMove.QUIET), color))
+                return false;
+        }
+        return isKingSafeAfter(bits, move, color);
+    }
+
+    /*******************************************************************
+     * Checks whether the King of color would be attacked after a move
+     * without making it. The occupancy is changed the way the move
+     * would change it and the attack test runs on that.
+     ******************************************************************/
+    private static boolean isKingSafeAfter(BitBoard bits, int move,
+            PColor color) {
+        int from = EncodedMove.from(move);
+        int to = EncodedMove.to(move);
+        int king = bits.getKingSquare(color);
+        if (king < 0)
+            return true;
+        if (king == from)
+            king = to;
+        // Whatever stood on the to square is captured
+        long removed = 1L << to;
+        long occupied = (bits.getOccupied() & ~(1L << from)) | removed;
+        if (EncodedMove.flags(move) == EncodedMove.EN_PASSANT) {
+            long victim = 1L << BitBoard.square(BitBoard.row(from),
+                    BitBoard.col(to));
+            removed |= victim;
+            occupied &= ~victim;
+        }
+        return !isAttacked(bits, king, opposite(color), occupied,
+                removed);
+    }
+
+    /*******************************************************************
+     * Gets the other color
+     ******************************************************************/
+    private static PColor opposite(PColor color) {
+        return color == PColor.White ? PColor.Black : PColor.White;
+    }
+}
@@ -58,8 +58,8 @@ public class Movement implements java.io.Serializable {
 		for (int row = r1 - direction; row != r2 - direction; row -=
 				direction) {
 			if (row != r2) { // not at final cell
-				if (chess.getPieceAt(row, c1) != null) // piece in the
-														// way
+				if (!chess.getBoard().isEmpty(row, c1)) // piece in
+														// the way
 					return false;
 			} else { // at the final cell
 				if (chess.getPieceAt(row, c2) == null
@@ -87,8 +87,8 @@ public class Movement implements java.io.Serializable {
 		for (int col = c1 - direction; col != c2 - direction; col -=
 				direction) {
 			if (col != c2) { // not at final cell
-				if (chess.getPieceAt(r1, col) != null) // piece in the
-														// way
+				if (!chess.getBoard().isEmpty(r1, col)) // piece in
+														// the way
 					return false;
 			} else { // at the final cell
 				if (chess.getPieceAt(r2, col) == null
@@ -117,7 +117,7 @@ public class Movement implements java.io.Serializable {
 		for (int row = r1 - yDir, col = c1 - xDir; row != r2 - yDir
 				&& col != c2 - xDir; row -= yDir, col -= xDir) {
 			if (row != r2) { // need to check cells in-between
-				if (chess.getPieceAt(row, col) != null)
+				if (!chess.getBoard().isEmpty(row, col))
 					return false; // Piece is in the way
 			} else { // at the final cell
 				if (chess.getPieceAt(row, col) == null
@@ -11,12 +11,8 @@ public class Pawn extends Piece implements java.io.Serializable {
      ******************************************************************/
     
     public Pawn(PColor color) {
-        super(color, "Pawn");
+        super(color, BitBoard.PAWN);
         hasMoved = false;
-        if (color.equals(PColor.White))
-            this.icon = "\u2659"; // white
-        else
-            this.icon = "\u265f"; // black
         this.score = 10;
     }
     
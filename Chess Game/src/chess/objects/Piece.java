@@ -7,10 +7,8 @@ import chess.main.Chess;
 public class Piece implements java.io.Serializable {
 	/** The color of the Piece in an Enum */
 	protected PColor color;
-	/** The name of the Piece */
-	protected String name;
-	/** The unicode character String for the Piece */
-	protected String icon;
+	/** The BitBoard type of the Piece, NONE for a plain Piece */
+	protected byte type;
 	/** Whether the Piece has moved yet */
 	protected boolean hasMoved;
 	/** The set of icons to use for black pieces */
@@ -20,6 +18,16 @@ public class Piece implements java.io.Serializable {
 	/** An arbitrary score for each Piece, used by AI */
 	protected int score;
 
+	/** Type of a plain Piece that is none of the six */
+	public static final int NONE = -1;
+	/** Names of the types, indexed by BitBoard type */
+	private static final String[] NAMES = { "Pawn", "Knight", "Bishop",
+			"Rook", "Queen", "King" };
+	/** Unicode characters of the types, by PColor ordinal then type */
+	private static final String[][] ICONS = {
+			{ "\u265f", "\u265e", "\u265d", "\u265c", "\u265b", "\u265a" },
+			{ "\u2659", "\u2658", "\u2657", "\u2656", "\u2655", "\u2654" } };
+
 	/*******************************************************************
 	 * Constructor for Piece with one parameter for the Piece's color
 	 * 
@@ -28,8 +36,7 @@ public class Piece implements java.io.Serializable {
 	public Piece(PColor color) {
 		this.setColor(color);
 		hasMoved = false;
-		name = "";
-		icon = "";
+		type = NONE;
 		score = 0;
 		/** Prevents previously set icon sets from being reset */
 		if (blackIconSet == null)
@@ -38,6 +45,43 @@ public class Piece implements java.io.Serializable {
 			whiteIconSet = new IconSet("white");
 	}
 
+	/*******************************************************************
+	 * Constructor for one of the six kinds of Piece
+	 * 
+	 * @param color is the PColor of the Piece
+	 * @param type is the BitBoard type, PAWN through KING
+	 ******************************************************************/
+	protected Piece(PColor color, int type) {
+		this(color);
+		this.type = (byte) type;
+	}
+
+	/*******************************************************************
+	 * Creates a Piece of one of the six types
+	 * 
+	 * @param color is the PColor of the Piece
+	 * @param type is the BitBoard type, PAWN through KING
+	 * @return a new Pawn, Knight, Bishop, Rook, Queen or King
+	 ******************************************************************/
+	public static Piece create(PColor color, int type) {
+		switch (type) {
+		case BitBoard.PAWN:
+			return new Pawn(color);
+		case BitBoard.KNIGHT:
+			return new Knight(color);
+		case BitBoard.BISHOP:
+			return new Bishop(color);
+		case BitBoard.ROOK:
+			return new Rook(color);
+		case BitBoard.QUEEN:
+			return new Queen(color);
+		case BitBoard.KING:
+			return new King(color);
+		default:
+			throw new IllegalArgumentException("Not a piece type: " + type);
+		}
+	}
+
 	/*******************************************************************
 	 * Third constructor that takes three parameters for the Piece
 	 * 
@@ -48,7 +92,6 @@ public class Piece implements java.io.Serializable {
 		this.setColor(color);
 		this.setName(name);
 		this.setHasMoved(false);
-		icon = "";
 		score = 0;
 		/** Prevents previously set icon sets from being reset */
 		if (blackIconSet == null)
@@ -69,7 +112,6 @@ public class Piece implements java.io.Serializable {
 		this.setColor(color);
 		this.setName(name);
 		this.setHasMoved(hasMoved);
-		icon = "";
 		score = 0;
 		/** Prevents previously set icon sets from being reset */
 		if (blackIconSet == null)
@@ -86,9 +128,8 @@ public class Piece implements java.io.Serializable {
 	 ******************************************************************/
 	public Piece(Piece otherPiece) {
 		this.color = otherPiece.color;
-		this.name = otherPiece.name;
+		this.type = otherPiece.type;
 		this.hasMoved = otherPiece.hasMoved;
-		this.icon = otherPiece.icon;
 		this.score = otherPiece.score;
 		blackIconSet = otherPiece.blackIconSet;
 		whiteIconSet = otherPiece.whiteIconSet;
@@ -112,22 +153,45 @@ public class Piece implements java.io.Serializable {
 		this.color = color;
 	}
 
+	/*******************************************************************
+	 * Gets the type of the Piece, which is what identifies it
+	 * 
+	 * @return the BitBoard type PAWN through KING, or NONE
+	 ******************************************************************/
+	public int getType() {
+		return type;
+	}
+
+	/*******************************************************************
+	 * Gets the type and color packed into one code, the index of the
+	 * Piece's set in the BitBoard
+	 * 
+	 * @return PColor ordinal * 6 + type, or NONE for a plain Piece
+	 ******************************************************************/
+	public int getCode() {
+		return type == NONE ? NONE : color.ordinal() * BitBoard.TYPES + type;
+	}
+
 	/*******************************************************************
 	 * Gets the name of the Piece, not it's icon
 	 * 
 	 * @return a String value of the Piece's name
 	 ******************************************************************/
 	public String getName() {
-		return name;
+		return type == NONE ? "" : NAMES[type];
 	}
 
 	/*******************************************************************
-	 * Setter for the name of the Piece
+	 * Setter for the name of the Piece, which sets its type
 	 * 
-	 * @param name is the name to set
+	 * @param name is the name to set, one of the six names
 	 ******************************************************************/
 	public void setName(String name) {
-		this.name = name;
+		type = NONE;
+		for (int i = 0; i < NAMES.length; i++) {
+			if (NAMES[i].equals(name))
+				type = (byte) i;
+		}
 	}
 
 	/*******************************************************************
@@ -136,7 +200,7 @@ public class Piece implements java.io.Serializable {
 	 * @return a String value containing the Piece's unicode icon
 	 ******************************************************************/
 	public String getIcon() {
-		return icon;
+		return type == NONE ? "" : ICONS[color.ordinal()][type];
 	}
 
 	/*******************************************************************
@@ -163,8 +227,9 @@ public class Piece implements java.io.Serializable {
 	 * @return a string containing all information about the piece
 	 ******************************************************************/
 	public String toString() {
-		return "Piece name: " + name + "\nPiece color: " + color.name()
-				+ "\nhasMoved: " + hasMoved + "\nIcon: " + icon;
+		return "Piece name: " + getName() + "\nPiece color: "
+				+ color.name() + "\nhasMoved: " + hasMoved + "\nIcon: "
+				+ getIcon();
 
 	}
 
@@ -176,9 +241,9 @@ public class Piece implements java.io.Serializable {
 	 ******************************************************************/
 	public Icon getImageIcon() {
 		if (color == PColor.Black)
-			return blackIconSet.getIcon(name);
+			return blackIconSet.getIcon(type);
 		else
-			return whiteIconSet.getIcon(name);
+			return whiteIconSet.getIcon(type);
 	}
 
 	/*******************************************************************
@@ -209,7 +274,8 @@ public class Piece implements java.io.Serializable {
 	}
 
 	/*******************************************************************
-	 * Sets the score of the Piece 
+	 * Sets the score of the Piece. A Piece that is already on a Board
+	 * counts with its old score until it is put on a Cell again.
 	 *
 	 * @param score the score to set
 	 ******************************************************************/
@@ -0,0 +1,163 @@
+package chess.objects;
+
+/***********************************************************************
+ * Values of every piece type on every square, one set for the middle
+ * game and one for the end game. Each value is the material of the
+ * piece plus what its square is worth, in hundredths of a Pawn.
+ *
+ * The tables are written the way the board looks to White, row 0 at
+ * the top, so a White piece reads its own square and a Black piece
+ * the square mirrored top to bottom. The middle game tables follow
+ * the well known "simplified evaluation function": Knights and
+ * Bishops in the center, Rooks on the seventh row, the King behind
+ * its Pawns. In the end game the King heads for the center and Pawns
+ * are worth more the closer they are to promoting.
+ *
+ * The game phase says how much of the middle game is left, from the
+ * Knights, Bishops, Rooks and Queens still on the board.
+ **********************************************************************/
+public class PieceSquareTables {
+
+    /** Phase of the full set of pieces, the start of the game */
+    public static final int MAX_PHASE = 24;
+    /** Phase each piece type adds while it is on the board */
+    private static final int[] PHASE = { 0, 1, 1, 2, 4, 0 };
+
+    /** Material of each type in the middle and the end game */
+    private static final int[] MIDGAME_MATERIAL = { 100, 320, 330, 500,
+            900, 0 };
+    private static final int[] ENDGAME_MATERIAL = { 120, 300, 320, 520,
+            920, 0 };
+
+    private static final int[] PAWN_MIDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0 };
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0 };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50 };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20 };
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0 };
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20 };
+    private static final int[] KING_MIDGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20 };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50 };
+
+    /** Values by piece set index, color * 6 + type, and square */
+    private static final int[][] MIDGAME = new int[2 * BitBoard.TYPES][64];
+    private static final int[][] ENDGAME = new int[2 * BitBoard.TYPES][64];
+
+    static {
+        int[][] midgame = { PAWN_MIDGAME, KNIGHT, BISHOP, ROOK, QUEEN,
+                KING_MIDGAME };
+        int[][] endgame = { PAWN_ENDGAME, KNIGHT, BISHOP, ROOK, QUEEN,
+                KING_ENDGAME };
+        int white = PColor.White.ordinal() * BitBoard.TYPES;
+        int black = PColor.Black.ordinal() * BitBoard.TYPES;
+        for (int type = 0; type < BitBoard.TYPES; type++) {
+            for (int square = 0; square < 64; square++) {
+                // Black's rows are counted from the other side
+                int mirrored = square ^ 56;
+                MIDGAME[white + type][square] = MIDGAME_MATERIAL[type]
+                        + midgame[type][square];
+                MIDGAME[black + type][square] = MIDGAME_MATERIAL[type]
+                        + midgame[type][mirrored];
+                ENDGAME[white + type][square] = ENDGAME_MATERIAL[type]
+                        + endgame[type][square];
+                ENDGAME[black + type][square] = ENDGAME_MATERIAL[type]
+                        + endgame[type][mirrored];
+            }
+        }
+    }
+
+    /*******************************************************************
+     * Gets the middle game value of a piece on a square
+     *
+     * @param index is the piece set index, color * 6 + type
+     * @param square is the square index, row * 8 + col
+     * @return the material plus the square's worth
+     ******************************************************************/
+    public static int midgame(int index, int square) {
+        return MIDGAME[index][square];
+    }
+
+    /*******************************************************************
+     * Gets the end game value of a piece on a square
+     *
+     * @param index is the piece set index, color * 6 + type
+     * @param square is the square index, row * 8 + col
+     * @return the material plus the square's worth
+     ******************************************************************/
+    public static int endgame(int index, int square) {
+        return ENDGAME[index][square];
+    }
+
+    /*******************************************************************
+     * Gets how much a piece type adds to the game phase
+     *
+     * @param type is the piece type, PAWN through KING
+     * @return 1 for minor pieces, 2 for Rooks, 4 for Queens, else 0
+     ******************************************************************/
+    public static int phase(int type) {
+        return PHASE[type];
+    }
+}
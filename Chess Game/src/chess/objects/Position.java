@@ -0,0 +1,253 @@
+package chess.objects;
+
+/***********************************************************************
+ * A position that never changes once it is made: the pieces, the side
+ * to move, the castling rights and the en passant squares. Unlike a
+ * Board, which the game and even its move checks keep changing, a
+ * Position can be handed to any number of threads at once, for listing
+ * moves, checking for check or building a game of their own to
+ * evaluate and search.
+ *
+ * It is a copy of the BitBoard of a Board, a few hundred bytes, and
+ * holds no Cells or Pieces. The copy is never changed and never given
+ * out, so all readers see the same position without locking.
+ **********************************************************************/
+public final class Position {
+
+    /** Are the pieces, a private copy that is never changed */
+    private final BitBoard bits;
+    /** Is the PColor to move */
+    private final PColor toMove;
+    /** Are the Zobrist castling right bits */
+    private final int castling;
+    /** Is the Zobrist key of the whole position */
+    private final long key;
+
+    /*******************************************************************
+     * Constructor that copies the position of a Board
+     *
+     * @param board is the Board to copy
+     * @param toMove is the PColor to move
+     ******************************************************************/
+    public Position(Board board, PColor toMove) {
+        this.bits = new BitBoard(board.getBitBoard());
+        this.toMove = toMove;
+        this.castling = board.getCastlingRights();
+        this.key = bits.getKey() ^ Zobrist.castling(castling)
+                ^ Zobrist.passant(bits.getPassant()) ^ Zobrist.side(toMove);
+    }
+
+    /*******************************************************************
+     * Constructor for a position given square by square, like one read
+     * back from a file
+     *
+     * @param codes is the Piece.getCode of the piece on every square,
+     *        or Piece.NONE where it is empty
+     * @param toMove is the PColor to move
+     * @param castling is the Zobrist castling right bits
+     * @param passant is a long with a bit set for every en passant
+     *        square
+     * @throws IllegalArgumentException if there aren't 64 squares or a
+     *         code is no piece
+     ******************************************************************/
+    public Position(int[] codes, PColor toMove, int castling,
+            long passant) {
+        if (codes.length != 64)
+            throw new IllegalArgumentException("A position has 64 "
+                    + "squares, not " + codes.length);
+        this.bits = new BitBoard();
+        for (int square = 0; square < 64; square++) {
+            int code = codes[square];
+            if (code == Piece.NONE)
+                continue;
+            if (code < 0 || code >= 2 * BitBoard.TYPES)
+                throw new IllegalArgumentException("Not a piece: " + code);
+            bits.setPiece(square, Piece.create(
+                    PColor.values()[code / BitBoard.TYPES],
+                    code % BitBoard.TYPES));
+        }
+        for (long all = passant; all != 0; all &= all - 1)
+            bits.setPassant(Long.numberOfTrailingZeros(all), true);
+        this.toMove = toMove;
+        this.castling = castling;
+        this.key = bits.getKey() ^ Zobrist.castling(castling)
+                ^ Zobrist.passant(bits.getPassant()) ^ Zobrist.side(toMove);
+    }
+
+    /*******************************************************************
+     * Gets the PColor to move
+     *
+     * @return the side to move
+     ******************************************************************/
+    public PColor getToMove() {
+        return toMove;
+    }
+
+    /*******************************************************************
+     * Gets the Zobrist key, the same as Board.getZobristKey gives for
+     * the Board the Position was made from
+     *
+     * @return the 64-bit key of the position
+     ******************************************************************/
+    public long getKey() {
+        return key;
+    }
+
+    /*******************************************************************
+     * Gets which castles are still possible
+     *
+     * @return the Zobrist castling right bits
+     ******************************************************************/
+    public int getCastlingRights() {
+        return castling;
+    }
+
+    /*******************************************************************
+     * Gets the squares flagged for en passant
+     *
+     * @return a long with a bit set for every en passant square
+     ******************************************************************/
+    public long getPassant() {
+        return bits.getPassant();
+    }
+
+    /*******************************************************************
+     * Gets the set of one piece type of one color
+     *
+     * @param color is the PColor of the pieces
+     * @param type is the piece type, PAWN through KING
+     * @return a long with a bit set for every such piece
+     ******************************************************************/
+    public long getPieces(PColor color, int type) {
+        return bits.getPieces(color, type);
+    }
+
+    /*******************************************************************
+     * Gets the type of the piece on a square
+     *
+     * @param square is the square index, row * 8 + col
+     * @return PAWN through KING, or -1 if there is none
+     ******************************************************************/
+    public int getType(int square) {
+        return bits.getType(square);
+    }
+
+    /*******************************************************************
+     * Gets the color of the piece on a square
+     *
+     * @param square is the square index, row * 8 + col
+     * @return the PColor of the piece, or null if the square is empty
+     ******************************************************************/
+    public PColor getColor(int square) {
+        long bit = 1L << square;
+        if ((bits.getOccupancy(PColor.White) & bit) != 0)
+            return PColor.White;
+        if ((bits.getOccupancy(PColor.Black) & bit) != 0)
+            return PColor.Black;
+        return null;
+    }
+
+    /*******************************************************************
+     * Lists the legal moves of the side to move
+     *
+     * @param moves is the array to fill with encoded moves, it should
+     *        have room for MoveGenerator.MAX_MOVES
+     * @return the number of moves written to the array
+     ******************************************************************/
+    public int generateMoves(int[] moves) {
+        int count = MoveGenerator.generateMoves(bits, castling, toMove,
+                moves);
+        return MoveGenerator.filterLegal(bits, toMove, moves, count);
+    }
+
+    /*******************************************************************
+     * Checks whether the King of the side to move is attacked
+     *
+     * @return a boolean value whether the side to move is in check
+     ******************************************************************/
+    public boolean isInCheck() {
+        int king = bits.getKingSquare(toMove);
+        return king >= 0 && MoveGenerator.isAttacked(bits, king,
+                toMove == PColor.White ? PColor.Black : PColor.White);
+    }
+
+    /*******************************************************************
+     * Builds a new Board with the position, for a reader that wants to
+     * make moves, evaluate or search. Kings and Rooks count as unmoved
+     * when their castle is still possible and Pawns when they are on
+     * their starting row.
+     *
+     * @return a new Board that only the caller uses
+     ******************************************************************/
+    public Board toBoard() {
+        Board board = new Board();
+        board.reset();
+        for (long all = bits.getOccupied(); all != 0; all &= all - 1) {
+            int square = Long.numberOfTrailingZeros(all);
+            int type = bits.getType(square);
+            PColor color = getColor(square);
+            Piece piece = type < 0 ? new Piece(color)
+                    : Piece.create(color, type);
+            piece.setHasMoved(hasMoved(square, type, color));
+            board.getCellAt(BitBoard.row(square), BitBoard.col(square))
+                    .setChessPiece(piece);
+        }
+        board.setPassantSquares(bits.getPassant());
+        return board;
+    }
+
+    /*******************************************************************
+     * Decides whether the piece on a square has to count as moved for
+     * the castling rights and Pawn pushes to come out the same
+     ******************************************************************/
+    private boolean hasMoved(int square, int type, PColor color) {
+        int row = BitBoard.row(square);
+        int col = BitBoard.col(square);
+        boolean white = color == PColor.White;
+        switch (type) {
+            case BitBoard.PAWN:
+                return row != (white ? 6 : 1);
+            case BitBoard.KING:
+                return (castling & (white ? Zobrist.WHITE_KING_SIDE
+                        | Zobrist.WHITE_QUEEN_SIDE
+                        : Zobrist.BLACK_KING_SIDE
+                                | Zobrist.BLACK_QUEEN_SIDE)) == 0;
+            case BitBoard.ROOK:
+                if (row != (white ? 7 : 0))
+                    return true;
+                if (col == 7)
+                    return (castling & (white ? Zobrist.WHITE_KING_SIDE
+                            : Zobrist.BLACK_KING_SIDE)) == 0;
+                if (col == 0)
+                    return (castling & (white ? Zobrist.WHITE_QUEEN_SIDE
+                            : Zobrist.BLACK_QUEEN_SIDE)) == 0;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Position))
+            return false;
+        Position that = (Position) other;
+        if (key != that.key || toMove != that.toMove
+                || castling != that.castling
+                || bits.getPassant() != that.bits.getPassant()
+                || bits.getOccupied() != that.bits.getOccupied())
+            return false;
+        for (PColor color : PColor.values()) {
+            for (int type = 0; type < BitBoard.TYPES; type++) {
+                if (getPieces(color, type) != that.getPieces(color, type))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (key ^ (key >>> 32));
+    }
+}
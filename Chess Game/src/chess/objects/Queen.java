@@ -9,12 +9,8 @@ public class Queen extends Piece implements java.io.Serializable {
 	 * @param color is the PColor to set the Queen to
 	 ******************************************************************/
 	public Queen(PColor color) {
-		super(color, "Queen"); // Set the color and make it alive
+		super(color, BitBoard.QUEEN); // Set the color and make it alive
 		this.color = color;
-		if (color.equals(PColor.White))
-			this.icon = "\u2655"; // white
-		else
-			this.icon = "\u265b"; // black
 		this.score = 90;
 	}
 	
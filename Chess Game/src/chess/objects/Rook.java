@@ -9,12 +9,8 @@ public class Rook extends Piece implements java.io.Serializable {
 	 * @param color is the PColor to set the Rook to
 	 ******************************************************************/
 	public Rook(PColor color) {
-		super(color, "Rook");
+		super(color, BitBoard.ROOK);
 		this.color = color;
-		if (color.equals(PColor.White))
-			this.icon = "\u2656"; // white
-		else
-			this.icon = "\u265c"; // black
 		this.score = 50;
 	}
 	
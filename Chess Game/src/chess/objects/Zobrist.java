@@ -0,0 +1,106 @@
+package chess.objects;
+
+/***********************************************************************
+ * Random numbers for Zobrist hashing. A position's key is the XOR of
+ * one number for every Piece on its square, plus numbers for the
+ * castling rights, the en passant file and the side to move. Moving a
+ * Piece only XORs out its old number and XORs in the new one, so the
+ * BitBoard keeps the Piece part of the key up to date as it changes.
+ *
+ * The numbers come from a fixed seed, so keys are the same in every
+ * run and can be stored.
+ **********************************************************************/
+public class Zobrist {
+
+    /** Numbers of every piece set on every square */
+    private static final long[][] PIECES = new long[2 * BitBoard.TYPES][64];
+    /** Numbers of the four castling rights, see castlingRights */
+    private static final long[] CASTLING = new long[4];
+    /** Numbers of the en passant file */
+    private static final long[] PASSANT = new long[8];
+    /** Number XORed in when Black is to move */
+    private static final long BLACK_TO_MOVE;
+
+    /** Castling right bits, White then Black, King side then Queen */
+    public static final int WHITE_KING_SIDE = 1, WHITE_QUEEN_SIDE = 2,
+            BLACK_KING_SIDE = 4, BLACK_QUEEN_SIDE = 8;
+
+    /** State of the random number generator */
+    private static long seed = 0x9E3779B97F4A7C15L;
+
+    static {
+        for (long[] squares : PIECES) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = nextRandom();
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = nextRandom();
+        }
+        for (int i = 0; i < PASSANT.length; i++) {
+            PASSANT[i] = nextRandom();
+        }
+        BLACK_TO_MOVE = nextRandom();
+    }
+
+    /*******************************************************************
+     * Gets the next number of a xorshift generator, plenty random for
+     * hashing and the same on every JVM
+     ******************************************************************/
+    private static long nextRandom() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return seed;
+    }
+
+    /*******************************************************************
+     * Gets the number of a piece set on a square
+     *
+     * @param piece is the piece set index, color * 6 + type
+     * @param square is the square index
+     * @return the number to XOR into the key
+     ******************************************************************/
+    public static long piece(int piece, int square) {
+        return PIECES[piece][square];
+    }
+
+    /*******************************************************************
+     * Gets the number of a set of castling rights
+     *
+     * @param rights is the castling right bits
+     * @return the number to XOR into the key
+     ******************************************************************/
+    public static long castling(int rights) {
+        long key = 0L;
+        for (int i = 0; i < CASTLING.length; i++) {
+            if ((rights & (1 << i)) != 0)
+                key ^= CASTLING[i];
+        }
+        return key;
+    }
+
+    /*******************************************************************
+     * Gets the number of the en passant squares
+     *
+     * @param passant is a mask of the squares flagged for en passant
+     * @return the number to XOR into the key
+     ******************************************************************/
+    public static long passant(long passant) {
+        long key = 0L;
+        for (; passant != 0; passant &= passant - 1) {
+            key ^= PASSANT[BitBoard.col(Long.numberOfTrailingZeros(passant))];
+        }
+        return key;
+    }
+
+    /*******************************************************************
+     * Gets the number of the side to move
+     *
+     * @param toMove is the PColor to move
+     * @return the number to XOR into the key
+     ******************************************************************/
+    public static long side(PColor toMove) {
+        return toMove == PColor.Black ? BLACK_TO_MOVE : 0L;
+    }
+}